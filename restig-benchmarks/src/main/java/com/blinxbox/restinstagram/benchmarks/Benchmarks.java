@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2010-2012 BlinxBox.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.blinxbox.restinstagram.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks, {@code java -jar target/benchmarks.jar [JMH options]}.
+ * Every benchmark reports operations per second together with the bytes
+ * allocated per operation ({@code gc.alloc.rate.norm}), so changes to the
+ * mapper can be compared to a baseline run on both.
+ * 
+ * @author Efi MK
+ */
+public final class Benchmarks {
+
+	/**
+	 * Utility class.
+	 */
+	private Benchmarks() {
+	}
+
+	/**
+	 * @param args
+	 *            Standard JMH command line options, e.g. a benchmark name
+	 *            pattern or {@code -rf json -rff baseline.json}.
+	 * @throws RunnerException
+	 *             If a benchmark fails.
+	 * @throws CommandLineOptionException
+	 *             If {@code args} are invalid.
+	 */
+	public static void main(final String[] args) throws RunnerException,
+			CommandLineOptionException {
+		new Runner(new OptionsBuilder().parent(new CommandLineOptions(args))
+				.addProfiler(GCProfiler.class).build()).run();
+	}
+}
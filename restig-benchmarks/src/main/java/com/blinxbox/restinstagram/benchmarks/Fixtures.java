@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2010-2012 BlinxBox.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.blinxbox.restinstagram.benchmarks;
+
+import static com.restfb.util.StringUtils.fromInputStream;
+
+import java.io.IOException;
+
+/**
+ * Payloads the benchmarks map, built from the JSON files under
+ * {@code /json/}.
+ * 
+ * @author Efi MK
+ */
+final class Fixtures {
+
+	/**
+	 * Utility class.
+	 */
+	private Fixtures() {
+	}
+
+	/**
+	 * Load premade json string from the classpath.
+	 * 
+	 * @param name
+	 *            - Name of the file under {@code /json/}, without extension.
+	 * @return The content of the file.
+	 */
+	static String jsonFromClasspath(final String name) {
+		try {
+			return fromInputStream(Fixtures.class.getResourceAsStream("/json/"
+					+ name + ".json"));
+		} catch (final IOException e) {
+			throw new IllegalStateException(
+					"Unable to load JSON from the classpath", e);
+		}
+	}
+
+	/**
+	 * @param element
+	 *            JSON of a single element.
+	 * @param size
+	 *            Number of elements.
+	 * @return A JSON array holding {@code size} copies of {@code element}.
+	 */
+	static String array(final String element, final int size) {
+		final StringBuilder json = new StringBuilder(size
+				* (element.length() + 1) + 2);
+		json.append('[');
+		for (int i = 0; i < size; i++) {
+			if (i > 0) {
+				json.append(',');
+			}
+			json.append(element);
+		}
+		return json.append(']').toString();
+	}
+
+	/**
+	 * @param element
+	 *            JSON of a single element.
+	 * @param size
+	 *            Number of elements.
+	 * @return An API response page holding {@code size} copies of
+	 *         {@code element}.
+	 */
+	static String page(final String element, final int size) {
+		return "{\"meta\":{\"code\":200},\"pagination\":{\"next_url\":"
+				+ "\"https://api.instagram.com/v1/tags/snow/media/recent?max_tag_id=1\"},"
+				+ "\"data\":" + array(element, size) + "}";
+	}
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2010-2012 BlinxBox.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.blinxbox.restinstagram.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.blinxbox.restinstagram.DefaultInstagramClient;
+import com.blinxbox.restinstagram.InstagramClient;
+import com.blinxbox.restinstagram.InstagramCollection;
+import com.blinxbox.restinstagram.types.MediaPost;
+import com.restfb.json.JsonObject;
+
+/**
+ * Construction of an {@link InstagramCollection} from a response page.
+ * 
+ * @author Efi MK
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InstagramCollectionBenchmark {
+	/**
+	 * Number of posts in the page.
+	 */
+	@Param({ "1", "20", "200" })
+	int size;
+
+	/**
+	 * Supplies the mapper, never sends a request.
+	 */
+	private InstagramClient mClient;
+
+	/**
+	 * The page.
+	 */
+	private String mPage;
+
+	/**
+	 * The page, already parsed.
+	 */
+	private JsonObject mParsedPage;
+
+	/**
+	 * Builds the page.
+	 */
+	@Setup
+	public void setUp() {
+		mClient = new DefaultInstagramClient("Client");
+		mPage = Fixtures.page(Fixtures.jsonFromClasspath("media_post"), size);
+		mParsedPage = new JsonObject(mPage);
+	}
+
+	/**
+	 * @return A collection parsed and mapped from the raw page.
+	 */
+	@Benchmark
+	public InstagramCollection<MediaPost> fromJson() {
+		return new InstagramCollection<MediaPost>(mClient, mPage,
+				MediaPost.class);
+	}
+
+	/**
+	 * @return A collection mapped from the parsed page.
+	 */
+	@Benchmark
+	public InstagramCollection<MediaPost> fromJsonObject() {
+		return new InstagramCollection<MediaPost>(mClient, mParsedPage,
+				MediaPost.class);
+	}
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2010-2012 BlinxBox.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.blinxbox.restinstagram.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.blinxbox.restinstagram.DefaultJsonMapper;
+import com.blinxbox.restinstagram.JsonMapper;
+import com.blinxbox.restinstagram.types.Comment;
+import com.blinxbox.restinstagram.types.MediaPost;
+
+/**
+ * Mapping of {@link MediaPost} and {@link Comment} payloads by
+ * {@link DefaultJsonMapper}.
+ * 
+ * @author Efi MK
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonMapperBenchmark {
+	/**
+	 * SizedArrays of a parameterized size, kept apart so that the single object
+	 * benchmarks are not run once per size.
+	 * 
+	 * @author Efi MK
+	 */
+	@State(Scope.Benchmark)
+	public static class SizedArrays {
+		/**
+		 * Number of elements in the mapped arrays.
+		 */
+		@Param({ "1", "20", "200" })
+		int size;
+
+		/**
+		 * {@link #size} posts.
+		 */
+		private String mMediaPosts;
+
+		/**
+		 * {@link #size} comments.
+		 */
+		private String mComments;
+
+		/**
+		 * Loads the payloads.
+		 */
+		@Setup
+		public void setUp() {
+			mMediaPosts = Fixtures.array(
+					Fixtures.jsonFromClasspath("media_post"), size);
+			mComments = Fixtures.array(Fixtures.jsonFromClasspath("comment"),
+					size);
+		}
+	}
+
+	/**
+	 * The mapper, its bindings are built during warm up.
+	 */
+	private JsonMapper mMapper;
+
+	/**
+	 * A single post.
+	 */
+	private String mMediaPost;
+
+	/**
+	 * A single comment.
+	 */
+	private String mComment;
+
+	/**
+	 * Loads the payloads.
+	 */
+	@Setup
+	public void setUp() {
+		mMapper = new DefaultJsonMapper();
+		mMediaPost = Fixtures.jsonFromClasspath("media_post");
+		mComment = Fixtures.jsonFromClasspath("comment");
+	}
+
+	/**
+	 * @return A mapped post.
+	 */
+	@Benchmark
+	public MediaPost mediaPost_toJavaObject() {
+		return mMapper.toJavaObject(mMediaPost, MediaPost.class);
+	}
+
+	/**
+	 * @return A mapped comment.
+	 */
+	@Benchmark
+	public Comment comment_toJavaObject() {
+		return mMapper.toJavaObject(mComment, Comment.class);
+	}
+
+	/**
+	 * @param arrays
+	 *            The payloads.
+	 * @return {@link SizedArrays#size} mapped posts.
+	 */
+	@Benchmark
+	public List<MediaPost> mediaPosts_toJavaList(final SizedArrays arrays) {
+		return mMapper.toJavaList(arrays.mMediaPosts, MediaPost.class);
+	}
+
+	/**
+	 * @param arrays
+	 *            The payloads.
+	 * @return {@link SizedArrays#size} mapped comments.
+	 */
+	@Benchmark
+	public List<Comment> comments_toJavaList(final SizedArrays arrays) {
+		return mMapper.toJavaList(arrays.mComments, Comment.class);
+	}
+}
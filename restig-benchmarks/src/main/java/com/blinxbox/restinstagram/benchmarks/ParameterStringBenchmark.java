@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2010-2012 BlinxBox.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.blinxbox.restinstagram.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.blinxbox.restinstagram.DefaultInstagramClient;
+import com.blinxbox.restinstagram.Parameter;
+
+/**
+ * Encoding of request parameters by
+ * {@link DefaultInstagramClient#toParameterString}.
+ * 
+ * @author Efi MK
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParameterStringBenchmark {
+	/**
+	 * Exposes the parameter encoding of the client.
+	 * 
+	 * @author Efi MK
+	 */
+	static class Client extends DefaultInstagramClient {
+		/**
+		 * Creates a client with an access token.
+		 */
+		Client() {
+			super("Client", "Access");
+		}
+
+		/**
+		 * @param parameters
+		 *            The parameters.
+		 * @return The encoded parameters.
+		 */
+		String encode(final Parameter... parameters) {
+			return toParameterString(parameters);
+		}
+	}
+
+	/**
+	 * Number of parameters.
+	 */
+	@Param({ "0", "4" })
+	int count;
+
+	/**
+	 * The client.
+	 */
+	private Client mClient;
+
+	/**
+	 * The parameters.
+	 */
+	private Parameter[] mParameters;
+
+	/**
+	 * Builds the parameters.
+	 */
+	@Setup
+	public void setUp() {
+		mClient = new Client();
+		mParameters = new Parameter[count];
+		for (int i = 0; i < count; i++) {
+			mParameters[i] = new Parameter("name" + i, "value " + i
+					+ " & more");
+		}
+	}
+
+	/**
+	 * @return The encoded parameters.
+	 */
+	@Benchmark
+	public String toParameterString() {
+		return mClient.encode(mParameters);
+	}
+}
@@ -0,0 +1,360 @@
+/*
+ * Copyright (c) 2010-2012 BlinxBox.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.blinxbox.restinstagram.http2;
+
+import static java.util.logging.Level.FINE;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandler;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+import com.blinxbox.restinstagram.AsyncWebRequestor;
+import com.blinxbox.restinstagram.ConditionalWebRequestor;
+import com.blinxbox.restinstagram.ContentEncoding;
+import com.blinxbox.restinstagram.RateLimit;
+import com.blinxbox.restinstagram.StreamingWebRequestor;
+import com.blinxbox.restinstagram.TransferListener;
+import com.blinxbox.restinstagram.Validators;
+import com.restfb.BinaryAttachment;
+import com.restfb.DefaultWebRequestor;
+
+/**
+ * A {@link StreamingWebRequestor} and {@link AsyncWebRequestor} backed by
+ * {@link HttpClient}. Concurrent requests to a host are multiplexed as
+ * streams over a single HTTP/2 connection instead of each holding a socket of
+ * its own. Hosts that do not speak HTTP/2 are served over HTTP/1.1.
+ * <p>
+ * Responses are requested gzip or deflate compressed and decompressed while
+ * read, {@link HttpClient} does neither by itself. Set a
+ * {@link TransferListener} to see the sizes of each body.
+ * <p>
+ * Requires Java 11.
+ * 
+ * @author Efi MK
+ */
+public class Http2WebRequestor implements ConditionalWebRequestor,
+		AsyncWebRequestor {
+	/**
+	 * Default connect timeout.
+	 */
+	public static final Duration DEFAULT_CONNECT_TIMEOUT = Duration
+			.ofSeconds(20);
+
+	/**
+	 * Default time to wait for a response, same as restfb's read timeout.
+	 */
+	public static final Duration DEFAULT_REQUEST_TIMEOUT = Duration
+			.ofMinutes(3);
+
+	/**
+	 * Logger.
+	 */
+	private static final Logger LOGGER = Logger
+			.getLogger(Http2WebRequestor.class.getName());
+
+	/**
+	 * Sends the requests.
+	 */
+	private final HttpClient mHttpClient;
+
+	/**
+	 * Time to wait for a response.
+	 */
+	private final Duration mRequestTimeout;
+
+	/**
+	 * Sends requests with attachments, which {@link HttpClient} has no
+	 * multipart support for.
+	 */
+	private final DefaultWebRequestor mMultipartRequestor = new DefaultWebRequestor();
+
+	/**
+	 * Receives the sizes of the response bodies, {@code null} for none.
+	 */
+	private volatile TransferListener mTransferListener;
+
+	/**
+	 * Creates a requestor that prefers HTTP/2, with the default timeouts.
+	 */
+	public Http2WebRequestor() {
+		this(HttpClient.newBuilder().version(HttpClient.Version.HTTP_2)
+				.connectTimeout(DEFAULT_CONNECT_TIMEOUT)
+				.followRedirects(HttpClient.Redirect.NORMAL).build(),
+				DEFAULT_REQUEST_TIMEOUT);
+	}
+
+	/**
+	 * @param httpClient
+	 *            Sends the requests. Build it with
+	 *            {@link HttpClient.Version#HTTP_2} to multiplex, and with an
+	 *            executor of its own to control the threads completing
+	 *            responses.
+	 * @param requestTimeout
+	 *            Time to wait for a response.
+	 * @throws IllegalArgumentException
+	 *             If an argument is {@code null}.
+	 */
+	public Http2WebRequestor(final HttpClient httpClient,
+			final Duration requestTimeout) throws IllegalArgumentException {
+		if (httpClient == null || requestTimeout == null) {
+			throw new IllegalArgumentException(
+					"The HTTP client and request timeout cannot be null.");
+		}
+		mHttpClient = httpClient;
+		mRequestTimeout = requestTimeout;
+	}
+
+	@Override
+	public Response executeGet(final String url) throws IOException {
+		return executeGetStream(url).toResponse();
+	}
+
+	@Override
+	public Response executePost(final String url, final String parameters)
+			throws IOException {
+		return executePostStream(url, parameters).toResponse();
+	}
+
+	/**
+	 * Requests with attachments are sent by restfb's
+	 * {@link DefaultWebRequestor} over a connection of their own.
+	 */
+	@Override
+	public Response executePost(final String url, final String parameters,
+			final BinaryAttachment... binaryAttachments) throws IOException {
+		if (binaryAttachments == null || binaryAttachments.length == 0) {
+			return executePost(url, parameters);
+		}
+		return mMultipartRequestor.executePost(url, parameters,
+				binaryAttachments);
+	}
+
+	@Override
+	public StreamedResponse executeGetStream(final String url)
+			throws IOException {
+		return toStreamedResponse(send(get(url), BodyHandlers.ofInputStream()));
+	}
+
+	@Override
+	public StreamedResponse executeGetStream(final String url,
+			final Validators validators) throws IOException {
+		if (validators == null) {
+			return executeGetStream(url);
+		}
+		final HttpRequest.Builder builder = getBuilder(url);
+		if (validators.getETag() != null) {
+			builder.header("If-None-Match", validators.getETag());
+		}
+		if (validators.getLastModified() != null) {
+			builder.header("If-Modified-Since", validators.getLastModified());
+		}
+		return toStreamedResponse(send(builder.build(),
+				BodyHandlers.ofInputStream()));
+	}
+
+	@Override
+	public StreamedResponse executePostStream(final String url,
+			final String parameters) throws IOException {
+		return toStreamedResponse(send(post(url, parameters),
+				BodyHandlers.ofInputStream()));
+	}
+
+	@Override
+	public CompletableFuture<Response> executeGetAsync(final String url) {
+		return sendAsync(get(url));
+	}
+
+	@Override
+	public CompletableFuture<Response> executePostAsync(final String url,
+			final String parameters) {
+		return sendAsync(post(url, parameters));
+	}
+
+	/**
+	 * @param transferListener
+	 *            Receives the sizes of the response bodies, {@code null} for
+	 *            none.
+	 */
+	public void setTransferListener(final TransferListener transferListener) {
+		mTransferListener = transferListener;
+	}
+
+	/**
+	 * @return Receives the sizes of the response bodies, {@code null} for
+	 *         none.
+	 */
+	public TransferListener getTransferListener() {
+		return mTransferListener;
+	}
+
+	/**
+	 * @return The client sending the requests.
+	 */
+	public HttpClient getHttpClient() {
+		return mHttpClient;
+	}
+
+	/**
+	 * @param url
+	 *            The URL.
+	 * @return A {@code GET} of {@code url}.
+	 */
+	protected HttpRequest get(final String url) {
+		return getBuilder(url).build();
+	}
+
+	/**
+	 * @param url
+	 *            The URL.
+	 * @return A builder of a {@code GET} of {@code url}, to add headers to.
+	 */
+	protected HttpRequest.Builder getBuilder(final String url) {
+		if (LOGGER.isLoggable(FINE)) {
+			LOGGER.fine("Making a GET request to " + url);
+		}
+		return HttpRequest.newBuilder(URI.create(url))
+				.timeout(mRequestTimeout).header("Accept", "application/json")
+				.header("Accept-Encoding", ContentEncoding.ACCEPT_ENCODING)
+				.GET();
+	}
+
+	/**
+	 * @param url
+	 *            The URL.
+	 * @param parameters
+	 *            Form encoded parameters.
+	 * @return A {@code POST} of {@code parameters} to {@code url}.
+	 */
+	protected HttpRequest post(final String url, final String parameters) {
+		if (LOGGER.isLoggable(FINE)) {
+			LOGGER.fine("Making a POST request to " + url);
+		}
+		return HttpRequest
+				.newBuilder(URI.create(url))
+				.timeout(mRequestTimeout)
+				.header("Accept", "application/json")
+				.header("Accept-Encoding", ContentEncoding.ACCEPT_ENCODING)
+				.header("Content-Type", "application/x-www-form-urlencoded")
+				.POST(HttpRequest.BodyPublishers.ofString(parameters,
+						StandardCharsets.UTF_8)).build();
+	}
+
+	/**
+	 * Sends a request, blocking until its response arrives.
+	 * 
+	 * @param <B>
+	 *            The body type.
+	 * @param request
+	 *            The request.
+	 * @param bodyHandler
+	 *            Reads the body.
+	 * @return The response.
+	 * @throws IOException
+	 *             If the request fails or the thread is interrupted.
+	 */
+	private <B> HttpResponse<B> send(final HttpRequest request,
+			final BodyHandler<B> bodyHandler) throws IOException {
+		try {
+			return mHttpClient.send(request, bodyHandler);
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for "
+					+ request.uri());
+		}
+	}
+
+	/**
+	 * Sends a request without blocking. The body is collected as it arrives
+	 * and decompressed once complete.
+	 * 
+	 * @param request
+	 *            The request.
+	 * @return Completes with the response.
+	 */
+	private CompletableFuture<Response> sendAsync(final HttpRequest request) {
+		return mHttpClient.sendAsync(request, BodyHandlers.ofByteArray())
+				.thenApply(new Function<HttpResponse<byte[]>, Response>() {
+					@Override
+					public Response apply(final HttpResponse<byte[]> response) {
+						try {
+							return new StreamedResponse(response.statusCode(),
+									decode(response, new ByteArrayInputStream(
+											response.body()))).toResponse();
+						} catch (final IOException e) {
+							throw new UncheckedIOException(e);
+						}
+					}
+				});
+	}
+
+	/**
+	 * @param response
+	 *            A response whose body is not read yet.
+	 * @return The streamed response.
+	 * @throws IOException
+	 *             If the body is in an unsupported encoding.
+	 */
+	private StreamedResponse toStreamedResponse(
+			final HttpResponse<InputStream> response) throws IOException {
+		return new StreamedResponse(response.statusCode(), decode(response,
+				response.body()), Validators.of(
+				response.headers().firstValue("ETag").orElse(null), response
+						.headers().firstValue("Last-Modified").orElse(null)),
+				RateLimit.of(
+						response.headers().firstValue(RateLimit.LIMIT_HEADER)
+								.orElse(null),
+						response.headers()
+								.firstValue(RateLimit.REMAINING_HEADER)
+								.orElse(null)));
+	}
+
+	/**
+	 * @param response
+	 *            A response.
+	 * @param body
+	 *            Its body as sent by the server.
+	 * @return The decompressed body.
+	 * @throws IOException
+	 *             If the body is in an unsupported encoding.
+	 */
+	private InputStream decode(final HttpResponse<?> response,
+			final InputStream body) throws IOException {
+		return ContentEncoding.decode(body, response.headers()
+				.firstValue("Content-Encoding").orElse(null), response.uri()
+				.toString(), mTransferListener);
+	}
+}
@@ -0,0 +1,199 @@
+/**
+ * 
+ */
+package com.blinxbox.restinstagram.http2;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.http2.server.HTTP2CServerConnectionFactory;
+import org.eclipse.jetty.server.HttpConfiguration;
+import org.eclipse.jetty.server.HttpConnectionFactory;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.blinxbox.restinstagram.StreamingWebRequestor.StreamedResponse;
+import com.restfb.WebRequestor.Response;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * @author Efi MK
+ * 
+ */
+public class Http2WebRequestorTest {
+	/**
+	 * Local server speaking cleartext HTTP/2, answers with the request path
+	 * and echoes posted bodies.
+	 */
+	private Server mServer;
+
+	/**
+	 * Base URL of {@link #mServer}.
+	 */
+	private String mBaseUrl;
+
+	/**
+	 * Protocol of every request received.
+	 */
+	private final List<String> mProtocols = new CopyOnWriteArrayList<String>();
+
+	/**
+	 * Client port of every request received, one port per connection.
+	 */
+	private final List<Integer> mPorts = new CopyOnWriteArrayList<Integer>();
+
+	/**
+	 * @throws Exception
+	 *             - Ignore.
+	 */
+	@Before
+	public void setUp() throws Exception {
+		mServer = new Server();
+		final HttpConfiguration configuration = new HttpConfiguration();
+		final ServerConnector connector = new ServerConnector(mServer,
+				new HttpConnectionFactory(configuration),
+				new HTTP2CServerConnectionFactory(configuration));
+		connector.setHost("127.0.0.1");
+		mServer.addConnector(connector);
+		mServer.setHandler(new AbstractHandler() {
+			@Override
+			public void handle(final String target, final Request baseRequest,
+					final HttpServletRequest request,
+					final HttpServletResponse response) throws IOException {
+				mProtocols.add(request.getProtocol());
+				mPorts.add(request.getRemotePort());
+				final byte[] body = "POST".equals(request.getMethod()) ? read(request
+						.getInputStream()) : ("{\"path\":\"" + target + "\"}")
+						.getBytes("UTF-8");
+				response.setContentType("application/json");
+				response.getOutputStream().write(body);
+				baseRequest.setHandled(true);
+			}
+		});
+		mServer.start();
+		mBaseUrl = "http://127.0.0.1:" + connector.getLocalPort();
+	}
+
+	/**
+	 * @throws Exception
+	 *             - Ignore.
+	 */
+	@After
+	public void tearDown() throws Exception {
+		mServer.stop();
+	}
+
+	/**
+	 * Are concurrent requests multiplexed over one HTTP/2 connection?
+	 * 
+	 * @throws Exception
+	 *             - Ignore.
+	 */
+	@Test
+	public void executeGetAsync_ConcurrentRequests_Multiplexed()
+			throws Exception {
+		final Http2WebRequestor requestor = new Http2WebRequestor();
+		// Upgrades the connection to HTTP/2.
+		assertEquals("{\"path\":\"/first\"}",
+				requestor.executeGet(mBaseUrl + "/first").getBody());
+
+		final List<CompletableFuture<Response>> responses = new ArrayList<CompletableFuture<Response>>();
+		for (int i = 0; i < 20; i++) {
+			responses.add(requestor.executeGetAsync(mBaseUrl + "/media/" + i));
+		}
+		for (int i = 0; i < 20; i++) {
+			assertEquals("{\"path\":\"/media/" + i + "\"}", responses.get(i)
+					.get().getBody());
+		}
+		assertEquals("a=1&b=%C3%A9",
+				requestor.executePostAsync(mBaseUrl + "/echo", "a=1&b=%C3%A9")
+						.get().getBody());
+
+		final StreamedResponse streamed = requestor.executeGetStream(mBaseUrl
+				+ "/stream");
+		try {
+			assertEquals(Integer.valueOf(200), streamed.getStatusCode());
+			assertEquals("{\"path\":\"/stream\"}",
+					new String(read(streamed.getBody()), "UTF-8"));
+		} finally {
+			streamed.close();
+		}
+
+		assertEquals(23, mProtocols.size());
+		assertEquals("HTTP/2.0", mProtocols.get(22));
+		assertEquals(1, new HashSet<Integer>(mPorts.subList(1, 23)).size());
+	}
+
+	/**
+	 * Are servers without HTTP/2 served over HTTP/1.1?
+	 * 
+	 * @throws IOException
+	 *             - Ignore.
+	 */
+	@Test
+	public void executeGet_Http1Server_FallsBack() throws IOException {
+		final HttpServer server = HttpServer.create(new InetSocketAddress(
+				"127.0.0.1", 0), 0);
+		server.createContext("/", new HttpHandler() {
+			@Override
+			public void handle(final HttpExchange exchange) throws IOException {
+				mProtocols.add(exchange.getProtocol());
+				final byte[] body = "{}".getBytes("UTF-8");
+				exchange.sendResponseHeaders(200, body.length);
+				final OutputStream out = exchange.getResponseBody();
+				out.write(body);
+				out.close();
+			}
+		});
+		server.start();
+		try {
+			final Http2WebRequestor requestor = new Http2WebRequestor();
+			final String url = "http://127.0.0.1:"
+					+ server.getAddress().getPort() + "/media/1";
+			assertEquals("{}", requestor.executeGet(url).getBody());
+			assertEquals("{}", requestor.executePost(url, "a=1").getBody());
+		} finally {
+			server.stop(0);
+		}
+		assertEquals(2, mProtocols.size());
+		assertTrue(mProtocols.get(1).startsWith("HTTP/1.1"));
+	}
+
+	/**
+	 * @param in
+	 *            A stream.
+	 * @return Its content.
+	 * @throws IOException
+	 *             - Ignore.
+	 */
+	private static byte[] read(final InputStream in) throws IOException {
+		final ByteArrayOutputStream content = new ByteArrayOutputStream();
+		final byte[] buffer = new byte[256];
+		int read;
+		while ((read = in.read(buffer)) != -1) {
+			content.write(buffer, 0, read);
+		}
+		return content.toByteArray();
+	}
+}
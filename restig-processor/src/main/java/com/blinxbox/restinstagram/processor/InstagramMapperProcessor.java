@@ -0,0 +1,449 @@
+/*
+ * Copyright (c) 2010-2012 BlinxBox.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.blinxbox.restinstagram.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic.Kind;
+
+/**
+ * Generates an {@code InstagramTypeMapper} for every class with
+ * {@code Instagram} annotated fields, so the mapper can fill instances with
+ * direct field writes instead of reflection.
+ * <p>
+ * A mapper is only generated when the class and its annotated fields are
+ * reachable from generated code in the same package: the class must be a
+ * non-private, non-abstract, static class with a non-private no-argument
+ * constructor, and its annotated fields must be non-private, of a supported
+ * type, and not inherited. Every other class is noted and left to the
+ * reflective mapper.
+ * 
+ * @author Efi MK
+ */
+@SupportedAnnotationTypes(InstagramMapperProcessor.INSTAGRAM_ANNOTATION)
+public class InstagramMapperProcessor extends AbstractProcessor {
+	/**
+	 * Qualified name of the annotation that marks mapped fields.
+	 */
+	static final String INSTAGRAM_ANNOTATION = "com.blinxbox.restinstagram.Instagram";
+
+	/**
+	 * Suffix of generated class names, must match
+	 * {@code InstagramTypeMapper.GENERATED_SUFFIX}.
+	 */
+	private static final String GENERATED_SUFFIX = "_InstagramMapper";
+
+	/** {@inheritDoc} */
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public boolean process(final Set<? extends TypeElement> annotations,
+			final RoundEnvironment roundEnv) {
+		final Set<TypeElement> types = new LinkedHashSet<TypeElement>();
+		for (final TypeElement annotation : annotations) {
+			for (final Element element : roundEnv
+					.getElementsAnnotatedWith(annotation)) {
+				final Element owner = element.getEnclosingElement();
+				if (element.getKind() == ElementKind.FIELD
+						&& owner.getKind() == ElementKind.CLASS) {
+					types.add((TypeElement) owner);
+				}
+			}
+		}
+
+		for (final TypeElement type : types) {
+			final List<String> cases = new ArrayList<String>();
+			final String reason = buildCases(type, cases);
+			if (reason != null) {
+				processingEnv.getMessager().printMessage(Kind.NOTE,
+						"Mapping " + type + " reflectively: " + reason, type);
+				continue;
+			}
+
+			try {
+				writeMapper(type, cases);
+			} catch (final IOException e) {
+				processingEnv.getMessager().printMessage(Kind.ERROR,
+						"Unable to write the mapper of " + type + ": " + e,
+						type);
+			}
+		}
+
+		// Leave the annotation to other processors as well.
+		return false;
+	}
+
+	/**
+	 * Builds the {@code case} of every annotated field of {@code type}.
+	 * 
+	 * @param type
+	 *            The annotated class.
+	 * @param cases
+	 *            Receives the source of one {@code case} per field.
+	 * @return Why no mapper can be generated for {@code type}, or {@code null}
+	 *         if {@code cases} is complete.
+	 */
+	private String buildCases(final TypeElement type, final List<String> cases) {
+		if (type.getModifiers().contains(Modifier.ABSTRACT)) {
+			return "it is abstract";
+		}
+		if (!type.getTypeParameters().isEmpty()) {
+			return "it is generic";
+		}
+		if (!isAccessible(type, type)) {
+			return "it is private";
+		}
+		if (type.getNestingKind().isNested()
+				&& !type.getModifiers().contains(Modifier.STATIC)) {
+			return "it is an inner class";
+		}
+		if (!hasDefaultConstructor(type)) {
+			return "it has no non-private no-argument constructor";
+		}
+		if (inheritsAnnotatedFields(type)) {
+			return "it inherits annotated fields";
+		}
+
+		final Set<String> jsonNames = new HashSet<String>();
+		for (final VariableElement field : ElementFilter.fieldsIn(type
+				.getEnclosedElements())) {
+			final AnnotationMirror annotation = findInstagram(field);
+			if (annotation == null) {
+				continue;
+			}
+
+			final Set<Modifier> modifiers = field.getModifiers();
+			if (modifiers.contains(Modifier.PRIVATE)
+					|| modifiers.contains(Modifier.FINAL)
+					|| modifiers.contains(Modifier.STATIC)) {
+				return "field " + field.getSimpleName()
+						+ " is private, final or static";
+			}
+
+			final String jsonName = jsonName(field, annotation);
+			if (!jsonNames.add(jsonName)) {
+				return "several fields map '" + jsonName + "'";
+			}
+
+			final String value = valueExpression(type, field.asType(),
+					escape(jsonName));
+			if (value == null) {
+				return "field " + field.getSimpleName()
+						+ " has an unsupported type";
+			}
+
+			cases.add("\t\tcase \"" + escape(jsonName) + "\":\n\t\t\ttarget."
+					+ field.getSimpleName() + " = " + value
+					+ ";\n\t\t\treturn true;\n");
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the expression that reads a value of {@code type} from the
+	 * {@code reader}, following the conversions of the reflective mapper.
+	 * 
+	 * @param owner
+	 *            The class the generated mapper maps.
+	 * @param type
+	 *            The field type.
+	 * @param literal
+	 *            The JSON attribute name, escaped for a string literal.
+	 * @return The expression, or {@code null} if the type is not supported.
+	 */
+	private String valueExpression(final TypeElement owner,
+			final TypeMirror type, final String literal) {
+		switch (type.getKind()) {
+		case INT:
+			return "reader.nextInt()";
+		case LONG:
+			return "reader.nextLong()";
+		case BOOLEAN:
+			return "reader.nextBoolean()";
+		case DOUBLE:
+			return "reader.nextDouble()";
+		case FLOAT:
+			return "java.lang.Float.parseFloat(reader.nextString())";
+		case DECLARED:
+			break;
+		default:
+			return null;
+		}
+
+		final DeclaredType declaredType = (DeclaredType) type;
+		final TypeElement element = (TypeElement) declaredType.asElement();
+		final String name = element.getQualifiedName().toString();
+		final List<? extends TypeMirror> arguments = declaredType
+				.getTypeArguments();
+
+		if ("java.lang.String".equals(name)) {
+			return "context.readString(reader, \"" + literal + "\")";
+		}
+
+		if ("com.blinxbox.restinstagram.Lazy".equals(name)) {
+			// The value type is taken from the mapping plan of the field.
+			return arguments.size() != 1 ? null : "context.readLazy(reader, \""
+					+ literal + "\")";
+		}
+
+		if ("java.util.List".equals(name)) {
+			if (arguments.size() != 1
+					|| arguments.get(0).getKind() != TypeKind.DECLARED) {
+				return null;
+			}
+			final DeclaredType elementType = (DeclaredType) arguments.get(0);
+			final TypeElement elementClass = (TypeElement) elementType
+					.asElement();
+			if (!elementType.getTypeArguments().isEmpty()
+					|| !isAccessible(owner, elementClass)) {
+				return null;
+			}
+			return "context.readList(reader, "
+					+ elementClass.getQualifiedName() + ".class, \"" + literal
+					+ "\")";
+		}
+
+		if (!arguments.isEmpty() || !isAccessible(owner, element)) {
+			return null;
+		}
+		return "context.readValue(reader, " + name + ".class)";
+	}
+
+	/**
+	 * Writes the mapper source of {@code type}.
+	 * 
+	 * @param type
+	 *            The annotated class.
+	 * @param cases
+	 *            The {@code case}s of its fields.
+	 * @throws IOException
+	 *             If the source file cannot be written.
+	 */
+	private void writeMapper(final TypeElement type, final List<String> cases)
+			throws IOException {
+		final PackageElement packageElement = processingEnv.getElementUtils()
+				.getPackageOf(type);
+		final String packageName = packageElement.isUnnamed() ? ""
+				: packageElement.getQualifiedName().toString();
+
+		final StringBuilder simpleName = new StringBuilder(GENERATED_SUFFIX);
+		for (Element element = type; element instanceof TypeElement; element = element
+				.getEnclosingElement()) {
+			simpleName.insert(0, element.getSimpleName());
+			if (element.getEnclosingElement() instanceof TypeElement) {
+				simpleName.insert(0, '_');
+			}
+		}
+
+		final String typeName = type.getQualifiedName().toString();
+		final StringBuilder source = new StringBuilder();
+		if (packageName.length() > 0) {
+			source.append("package ").append(packageName).append(";\n\n");
+		}
+		source.append("/**\n * Maps {@link ").append(typeName)
+				.append("} without reflection.\n")
+				.append(" * Generated by InstagramMapperProcessor, do not edit.\n */\n")
+				.append("public final class ").append(simpleName)
+				.append(" implements\n\t\tcom.blinxbox.restinstagram.InstagramTypeMapper<")
+				.append(typeName).append("> {\n")
+				.append("\t@Override\n\tpublic ").append(typeName)
+				.append(" newInstance() {\n\t\treturn new ").append(typeName)
+				.append("();\n\t}\n\n")
+				.append("\t@Override\n\tpublic boolean readField(final ")
+				.append(typeName)
+				.append(" target, final String name,\n")
+				.append("\t\t\tfinal com.blinxbox.restinstagram.json.JsonReader reader,\n")
+				.append("\t\t\tfinal com.blinxbox.restinstagram.MappingContext context)\n")
+				.append("\t\t\tthrows java.io.IOException {\n")
+				.append("\t\tswitch (name) {\n");
+		for (final String fieldCase : cases) {
+			source.append(fieldCase);
+		}
+		source.append("\t\tdefault:\n\t\t\treturn false;\n\t\t}\n\t}\n}\n");
+
+		final String qualifiedName = packageName.length() > 0 ? packageName
+				+ "." + simpleName : simpleName.toString();
+		final Writer writer = processingEnv.getFiler()
+				.createSourceFile(qualifiedName, type).openWriter();
+		try {
+			writer.write(source.toString());
+		} finally {
+			writer.close();
+		}
+	}
+
+	/**
+	 * @param from
+	 *            The class whose package the generated code lives in.
+	 * @param type
+	 *            A class referenced by generated code.
+	 * @return {@code true} if generated code next to {@code from} can refer
+	 *         to {@code type}.
+	 */
+	private boolean isAccessible(final TypeElement from, final TypeElement type) {
+		final PackageElement fromPackage = processingEnv.getElementUtils()
+				.getPackageOf(from);
+		final boolean samePackage = fromPackage.equals(processingEnv
+				.getElementUtils().getPackageOf(type));
+		for (Element element = type; element instanceof TypeElement; element = element
+				.getEnclosingElement()) {
+			final Set<Modifier> modifiers = element.getModifiers();
+			if (modifiers.contains(Modifier.PRIVATE)
+					|| (!samePackage && !modifiers.contains(Modifier.PUBLIC))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @param type
+	 *            A class.
+	 * @return {@code true} if {@code type} declares, implicitly or not, a
+	 *         non-private no-argument constructor.
+	 */
+	private static boolean hasDefaultConstructor(final TypeElement type) {
+		for (final ExecutableElement constructor : ElementFilter
+				.constructorsIn(type.getEnclosedElements())) {
+			if (constructor.getParameters().isEmpty()
+					&& !constructor.getModifiers().contains(Modifier.PRIVATE)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @param type
+	 *            A class.
+	 * @return {@code true} if a super class of {@code type} has
+	 *         {@code Instagram} annotated fields.
+	 */
+	private static boolean inheritsAnnotatedFields(final TypeElement type) {
+		TypeMirror superclass = type.getSuperclass();
+		while (superclass.getKind() == TypeKind.DECLARED) {
+			final TypeElement element = (TypeElement) ((DeclaredType) superclass)
+					.asElement();
+			for (final VariableElement field : ElementFilter.fieldsIn(element
+					.getEnclosedElements())) {
+				if (findInstagram(field) != null) {
+					return true;
+				}
+			}
+			superclass = element.getSuperclass();
+		}
+		return false;
+	}
+
+	/**
+	 * @param field
+	 *            A field.
+	 * @return The {@code Instagram} annotation of {@code field}, or
+	 *         {@code null} if it has none.
+	 */
+	private static AnnotationMirror findInstagram(final VariableElement field) {
+		for (final AnnotationMirror annotation : field.getAnnotationMirrors()) {
+			final TypeElement annotationType = (TypeElement) annotation
+					.getAnnotationType().asElement();
+			if (annotationType.getQualifiedName().contentEquals(
+					INSTAGRAM_ANNOTATION)) {
+				return annotation;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Figures out the JSON attribute name of a field the same way the
+	 * reflective mapper does: the annotation value, or the field name if the
+	 * value is blank.
+	 * 
+	 * @param field
+	 *            An annotated field.
+	 * @param annotation
+	 *            Its {@code Instagram} annotation.
+	 * @return The JSON attribute name.
+	 */
+	private static String jsonName(final VariableElement field,
+			final AnnotationMirror annotation) {
+		for (final Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : annotation
+				.getElementValues().entrySet()) {
+			if (entry.getKey().getSimpleName().contentEquals("value")) {
+				final String value = entry.getValue().getValue().toString();
+				if (value.trim().length() > 0) {
+					return value;
+				}
+			}
+		}
+		return field.getSimpleName().toString();
+	}
+
+	/**
+	 * @param value
+	 *            A string.
+	 * @return {@code value} escaped for use in a Java string literal.
+	 */
+	private static String escape(final String value) {
+		final StringBuilder escaped = new StringBuilder(value.length());
+		for (int i = 0; i < value.length(); i++) {
+			final char c = value.charAt(i);
+			if (c == '"' || c == '\\') {
+				escaped.append('\\').append(c);
+			} else if (c < ' ' || c > '~') {
+				escaped.append(String.format("\\u%04x", (int) c));
+			} else {
+				escaped.append(c);
+			}
+		}
+		return escaped.toString();
+	}
+}
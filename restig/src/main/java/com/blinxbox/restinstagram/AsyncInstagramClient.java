@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2010-2012 BlinxBox.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.blinxbox.restinstagram;
+
+import java.util.concurrent.CompletableFuture;
+
+import com.blinxbox.restinstagram.exception.InstagramException;
+
+/**
+ * Non blocking counterpart of {@link InstagramClient}. Every call returns at
+ * once; its future completes with the mapped result, or exceptionally with
+ * the {@link InstagramException} the blocking call would have thrown.
+ * 
+ * @author Efi MK
+ */
+public interface AsyncInstagramClient {
+	/**
+	 * Fetches a collection, see
+	 * {@link InstagramClient#fetchCollection(String, Class, Parameter...)}.
+	 * 
+	 * @param <T>
+	 *            Java type to map to.
+	 * @param endPoint
+	 *            The end point, for example "tags/snow/media/recent", or a
+	 *            page URL.
+	 * @param type
+	 *            Type of the elements.
+	 * @param parameters
+	 *            URL parameters to include in the API call (optional).
+	 * @return Completes with the collection.
+	 */
+	<T> CompletableFuture<InstagramCollection<T>> fetchCollection(
+			String endPoint, Class<T> type, Parameter... parameters);
+
+	/**
+	 * Fetches a collection mapping only the projected fields, see
+	 * {@link InstagramClient#fetchCollection(String, Class, Projection, Parameter...)}
+	 * .
+	 * 
+	 * @param <T>
+	 *            Java type to map to.
+	 * @param endPoint
+	 *            The end point, for example "tags/snow/media/recent", or a
+	 *            page URL.
+	 * @param type
+	 *            Type of the elements.
+	 * @param projection
+	 *            Fields of each element to map, {@code null} for all.
+	 * @param parameters
+	 *            URL parameters to include in the API call (optional).
+	 * @return Completes with the collection.
+	 */
+	<T> CompletableFuture<InstagramCollection<T>> fetchCollection(
+			String endPoint, Class<T> type, Projection projection,
+			Parameter... parameters);
+
+	/**
+	 * Fetches a single object, see
+	 * {@link InstagramClient#fetchObject(String, Class, Parameter...)}.
+	 * 
+	 * @param <T>
+	 *            Java type to map to.
+	 * @param endPoint
+	 *            The end point, for example "media/1234".
+	 * @param objectType
+	 *            Type of the object.
+	 * @param parameters
+	 *            URL parameters to include in the API call (optional).
+	 * @return Completes with the object.
+	 */
+	<T> CompletableFuture<T> fetchObject(String endPoint,
+			Class<T> objectType, Parameter... parameters);
+
+	/**
+	 * Fetches a single object mapping only the projected fields, see
+	 * {@link InstagramClient#fetchObject(String, Class, Projection, Parameter...)}
+	 * .
+	 * 
+	 * @param <T>
+	 *            Java type to map to.
+	 * @param endPoint
+	 *            The end point, for example "media/1234".
+	 * @param objectType
+	 *            Type of the object.
+	 * @param projection
+	 *            Fields to map, {@code null} for all.
+	 * @param parameters
+	 *            URL parameters to include in the API call (optional).
+	 * @return Completes with the object.
+	 */
+	<T> CompletableFuture<T> fetchObject(String endPoint,
+			Class<T> objectType, Projection projection,
+			Parameter... parameters);
+
+	/**
+	 * Publishes to an end point, see
+	 * {@link InstagramClient#publish(String, Parameter...)}.
+	 * 
+	 * @param endPoint
+	 *            The end point, for example "media/1234/likes".
+	 * @param parameters
+	 *            Parameters to {@code POST}.
+	 * @return Completes once the call succeeded.
+	 */
+	CompletableFuture<Void> publish(String endPoint, Parameter... parameters);
+}
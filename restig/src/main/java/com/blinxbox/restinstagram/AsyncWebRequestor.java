@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2010-2012 BlinxBox.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.blinxbox.restinstagram;
+
+import java.util.concurrent.CompletableFuture;
+
+import com.restfb.WebRequestor;
+import com.restfb.WebRequestor.Response;
+
+/**
+ * Sends HTTP requests without blocking the caller, the asynchronous
+ * counterpart of {@link WebRequestor} used by
+ * {@link DefaultAsyncInstagramClient}.
+ * 
+ * @author Efi MK
+ */
+public interface AsyncWebRequestor {
+	/**
+	 * Performs a {@code GET} to the given URL.
+	 * 
+	 * @param url
+	 *            The URL to {@code GET}.
+	 * @return Completes with the response once it is read, or exceptionally
+	 *         with the {@code IOException} that failed the request.
+	 */
+	CompletableFuture<Response> executeGetAsync(String url);
+
+	/**
+	 * Performs a {@code POST} to the given URL with the given parameters.
+	 * 
+	 * @param url
+	 *            The URL to {@code POST} to.
+	 * @param parameters
+	 *            The parameters to be {@code POST}ed.
+	 * @return Completes with the response once it is read, or exceptionally
+	 *         with the {@code IOException} that failed the request.
+	 */
+	CompletableFuture<Response> executePostAsync(String url, String parameters);
+}
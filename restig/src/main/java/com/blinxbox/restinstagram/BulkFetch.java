@@ -0,0 +1,249 @@
+/*
+ * Copyright (c) 2010-2012 BlinxBox.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.blinxbox.restinstagram;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import com.blinxbox.restinstagram.exception.InstagramException;
+import com.blinxbox.restinstagram.exception.InstagramNetworkException;
+
+/**
+ * Runs many blocking fetches at once, each on a thread of its own: a virtual
+ * thread when the runtime has them (Java 21 and later), a platform thread
+ * otherwise. A semaphore caps the fetches in flight, and a thread is only
+ * started once a permit is free, so even platform threads stay bounded.
+ * 
+ * @author Efi MK
+ */
+final class BulkFetch {
+	/**
+	 * A single blocking fetch.
+	 * 
+	 * @author Efi MK
+	 * @param <R>
+	 *            - The fetched type.
+	 */
+	interface Fetcher<R> {
+		/**
+		 * @param endPoint
+		 *            The end point.
+		 * @return The fetched value.
+		 * @throws InstagramException
+		 *             If the fetch fails.
+		 */
+		R fetch(String endPoint) throws InstagramException;
+	}
+
+	/**
+	 * {@code Executors.newVirtualThreadPerTaskExecutor()}, {@code null} if the
+	 * runtime has no virtual threads.
+	 */
+	private static final Method NEW_VIRTUAL_THREAD_EXECUTOR = virtualThreadExecutorFactory();
+
+	/**
+	 * Numbers the platform threads.
+	 */
+	private static final AtomicInteger THREAD_NUMBER = new AtomicInteger();
+
+	/**
+	 * Logger.
+	 */
+	private static final Logger LOGGER = Logger.getLogger(BulkFetch.class
+			.getName());
+
+	/**
+	 * Utility class.
+	 */
+	private BulkFetch() {
+	}
+
+	/**
+	 * Fetches every end point.
+	 * 
+	 * @param <R>
+	 *            The fetched type.
+	 * @param endPoints
+	 *            The end points.
+	 * @param maxInFlight
+	 *            Maximum number of fetches running at once.
+	 * @param fetcher
+	 *            Fetches a single end point.
+	 * @return One result per end point, in the order of {@code endPoints}. If
+	 *         the calling thread is interrupted the fetches not done yet are
+	 *         failed, and the interrupt status is kept.
+	 * @throws IllegalArgumentException
+	 *             If {@code maxInFlight} is less than 1.
+	 */
+	static <R> List<FetchResult<R>> run(final List<String> endPoints,
+			final int maxInFlight, final Fetcher<R> fetcher)
+			throws IllegalArgumentException {
+		if (maxInFlight < 1) {
+			throw new IllegalArgumentException(
+					"At least one request must be allowed in flight.");
+		}
+		final Semaphore inFlight = new Semaphore(maxInFlight);
+		final ExecutorService executor = newExecutor();
+		final List<Future<FetchResult<R>>> futures = new ArrayList<Future<FetchResult<R>>>(
+				endPoints.size());
+		InterruptedException interrupted = null;
+		try {
+			for (final String endPoint : endPoints) {
+				inFlight.acquire();
+				boolean submitted = false;
+				try {
+					futures.add(executor.submit(new Callable<FetchResult<R>>() {
+						@Override
+						public FetchResult<R> call() {
+							try {
+								return FetchResult.success(endPoint,
+										fetcher.fetch(endPoint));
+							} catch (final InstagramException e) {
+								return FetchResult.failure(endPoint, e);
+							} catch (final RuntimeException e) {
+								return FetchResult.failure(endPoint,
+										new InstagramException("Fetching "
+												+ endPoint + " failed", e));
+							} finally {
+								inFlight.release();
+							}
+						}
+					}));
+					submitted = true;
+				} finally {
+					if (!submitted) {
+						inFlight.release();
+					}
+				}
+			}
+		} catch (final InterruptedException e) {
+			interrupted = e;
+		}
+
+		final List<FetchResult<R>> results = new ArrayList<FetchResult<R>>(
+				endPoints.size());
+		try {
+			for (int i = 0; i < endPoints.size(); i++) {
+				final Future<FetchResult<R>> future = i < futures.size() ? futures
+						.get(i) : null;
+				FetchResult<R> result = null;
+				if (future != null
+						&& (interrupted == null || future.isDone()
+								&& !future.isCancelled())) {
+					try {
+						result = future.get();
+					} catch (final InterruptedException e) {
+						// Stop the fetches still running, report the rest.
+						interrupted = e;
+						executor.shutdownNow();
+					} catch (final ExecutionException e) {
+						throw rethrow(e);
+					}
+				}
+				results.add(result != null ? result : FetchResult.<R> failure(
+						endPoints.get(i), new InstagramNetworkException(
+								"Bulk fetch interrupted", interrupted)));
+			}
+		} finally {
+			if (interrupted != null) {
+				executor.shutdownNow();
+				Thread.currentThread().interrupt();
+			} else {
+				executor.shutdown();
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * The fetches catch every exception, only errors are left.
+	 * 
+	 * @param e
+	 *            The failure of a fetch.
+	 * @return Never returns.
+	 */
+	private static RuntimeException rethrow(final ExecutionException e) {
+		if (e.getCause() instanceof Error) {
+			throw (Error) e.getCause();
+		}
+		throw new IllegalStateException(e.getCause());
+	}
+
+	/**
+	 * @return A new virtual thread per task executor, or a pool of daemon
+	 *         platform threads if the runtime has no virtual threads.
+	 */
+	private static ExecutorService newExecutor() {
+		if (NEW_VIRTUAL_THREAD_EXECUTOR != null) {
+			try {
+				return (ExecutorService) NEW_VIRTUAL_THREAD_EXECUTOR
+						.invoke(null);
+			} catch (final IllegalAccessException e) {
+				LOGGER.fine("Virtual threads unavailable: " + e);
+			} catch (final InvocationTargetException e) {
+				// E.g. a preview feature that is not enabled.
+				LOGGER.fine("Virtual threads unavailable: " + e.getCause());
+			}
+		}
+		return Executors.newCachedThreadPool(new ThreadFactory() {
+			@Override
+			public Thread newThread(final Runnable runnable) {
+				final Thread thread = new Thread(runnable, "restig-bulk-"
+						+ THREAD_NUMBER.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * @return {@code Executors.newVirtualThreadPerTaskExecutor()}, or
+	 *         {@code null} if the runtime has no virtual threads.
+	 */
+	private static Method virtualThreadExecutorFactory() {
+		try {
+			return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+		} catch (final NoSuchMethodException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * @return {@code true} if fetches run on virtual threads.
+	 */
+	static boolean usesVirtualThreads() {
+		return NEW_VIRTUAL_THREAD_EXECUTOR != null;
+	}
+}
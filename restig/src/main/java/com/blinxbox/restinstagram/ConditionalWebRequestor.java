@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2010-2012 BlinxBox.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.blinxbox.restinstagram;
+
+import java.io.IOException;
+
+/**
+ * A {@link StreamingWebRequestor} that can send conditional {@code GET}s, so
+ * an unchanged response is answered with {@code 304 Not Modified} and an
+ * empty body.
+ * <p>
+ * {@link DefaultInstagramClient} sends conditional requests through it once
+ * {@link DefaultInstagramClient#setConditionalRequests(int)} is on.
+ * 
+ * @author Efi MK
+ */
+public interface ConditionalWebRequestor extends StreamingWebRequestor {
+	/**
+	 * Performs a conditional {@code GET} to the given URL. The validators of
+	 * the response are handed out by {@link StreamedResponse#getValidators()}.
+	 * 
+	 * @param url
+	 *            The URL to {@code GET}.
+	 * @param validators
+	 *            Validators of the previous response of {@code url}, sent as
+	 *            {@code If-None-Match} and {@code If-Modified-Since};
+	 *            {@code null} for an unconditional {@code GET}.
+	 * @return The response, which must be closed by the caller.
+	 * @throws IOException
+	 *             If an error occurs while performing the {@code GET}.
+	 */
+	StreamedResponse executeGetStream(String url, Validators validators)
+			throws IOException;
+}
@@ -0,0 +1,261 @@
+/*
+ * Copyright (c) 2010-2012 BlinxBox.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.blinxbox.restinstagram;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Decompresses response bodies while they are read, so a compressed response
+ * streams into the parser without being inflated into memory first.
+ * Requestors send {@link #ACCEPT_ENCODING} and pass each body through
+ * {@link #decode}.
+ * 
+ * @author Efi MK
+ */
+public final class ContentEncoding {
+	/**
+	 * Value of the {@code Accept-Encoding} request header.
+	 */
+	public static final String ACCEPT_ENCODING = "gzip, deflate";
+
+	/**
+	 * Size of the decompression buffers.
+	 */
+	private static final int BUFFER_SIZE = 8192;
+
+	/**
+	 * Utility class.
+	 */
+	private ContentEncoding() {
+	}
+
+	/**
+	 * Wraps a response body so it is decompressed and, if a listener is
+	 * given, counted while it is read.
+	 * 
+	 * @param body
+	 *            The body as sent by the server.
+	 * @param contentEncoding
+	 *            Value of the {@code Content-Encoding} response header,
+	 *            {@code null} if there is none.
+	 * @param url
+	 *            The requested URL, handed to {@code listener}.
+	 * @param listener
+	 *            Receives the sizes of the body once it is closed,
+	 *            {@code null} for none.
+	 * @return The decoded body. Closing it closes {@code body}.
+	 * @throws IOException
+	 *             If the encoding is not supported.
+	 */
+	public static InputStream decode(final InputStream body,
+			final String contentEncoding, final String url,
+			final TransferListener listener) throws IOException {
+		final String encoding = contentEncoding == null ? "" : contentEncoding
+				.trim().toLowerCase(Locale.ENGLISH);
+		final boolean identity = encoding.length() == 0
+				|| "identity".equals(encoding);
+		if (identity && listener == null) {
+			return body;
+		}
+		final CountingInputStream wire = listener == null ? null
+				: new CountingInputStream(body);
+		final InputStream in = wire == null ? body : wire;
+		final InputStream decoded;
+		if (identity) {
+			decoded = in;
+		} else if ("gzip".equals(encoding) || "x-gzip".equals(encoding)) {
+			decoded = new DecompressingInputStream(in, false);
+		} else if ("deflate".equals(encoding)) {
+			decoded = new DecompressingInputStream(in, true);
+		} else {
+			body.close();
+			throw new IOException("Unsupported content encoding: "
+					+ contentEncoding);
+		}
+		return listener == null ? decoded : new ReportingInputStream(decoded,
+				wire, url, listener);
+	}
+
+	/**
+	 * Counts the decoded bytes and reports both counts once closed.
+	 * 
+	 * @author Efi MK
+	 */
+	private static final class ReportingInputStream extends
+			CountingInputStream {
+		/**
+		 * Counts the bytes sent by the server.
+		 */
+		private final CountingInputStream mWire;
+		/**
+		 * The requested URL.
+		 */
+		private final String mUrl;
+		/**
+		 * Receives the counts.
+		 */
+		private final TransferListener mListener;
+		/**
+		 * {@code true} once reported.
+		 */
+		private boolean mReported;
+
+		/**
+		 * @param decoded
+		 *            The decoded body.
+		 * @param wire
+		 *            Counts the bytes sent by the server.
+		 * @param url
+		 *            The requested URL.
+		 * @param listener
+		 *            Receives the counts.
+		 */
+		ReportingInputStream(final InputStream decoded,
+				final CountingInputStream wire, final String url,
+				final TransferListener listener) {
+			super(decoded);
+			mWire = wire;
+			mUrl = url;
+			mListener = listener;
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				super.close();
+			} finally {
+				if (!mReported) {
+					mReported = true;
+					mListener.transferred(mUrl, mWire.getCount(), getCount());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Inflates a gzip or deflate body. The decompressor is set up on the first
+	 * read, so empty bodies, e.g. of a {@code 304}, need no header.
+	 * 
+	 * @author Efi MK
+	 */
+	private static final class DecompressingInputStream extends InputStream {
+		/**
+		 * The compressed body.
+		 */
+		private final PushbackInputStream mCompressed;
+		/**
+		 * {@code true} for deflate, {@code false} for gzip.
+		 */
+		private final boolean mDeflate;
+		/**
+		 * The decompressor, {@code null} before the first read.
+		 */
+		private InputStream mInflating;
+		/**
+		 * Inflater created for deflate bodies, ended on close.
+		 */
+		private Inflater mInflater;
+		/**
+		 * Destination of single byte reads.
+		 */
+		private final byte[] mSingle = new byte[1];
+
+		/**
+		 * @param compressed
+		 *            The compressed body.
+		 * @param deflate
+		 *            {@code true} for deflate, {@code false} for gzip.
+		 */
+		DecompressingInputStream(final InputStream compressed,
+				final boolean deflate) {
+			mCompressed = new PushbackInputStream(compressed, 2);
+			mDeflate = deflate;
+		}
+
+		@Override
+		public int read() throws IOException {
+			return read(mSingle, 0, 1) == -1 ? -1 : mSingle[0] & 0xff;
+		}
+
+		@Override
+		public int read(final byte[] bytes, final int offset, final int length)
+				throws IOException {
+			if (mInflating == null && !start()) {
+				return -1;
+			}
+			return mInflating.read(bytes, offset, length);
+		}
+
+		/**
+		 * Sets up the decompressor.
+		 * 
+		 * @return {@code false} if the body is empty.
+		 * @throws IOException
+		 *             If the body cannot be read.
+		 */
+		private boolean start() throws IOException {
+			final int first = mCompressed.read();
+			if (first == -1) {
+				return false;
+			}
+			final int second = mCompressed.read();
+			if (second != -1) {
+				mCompressed.unread(second);
+			}
+			mCompressed.unread(first);
+			if (mDeflate) {
+				// Deflate should be zlib wrapped, some servers send it raw.
+				final boolean zlib = (first & 0x0f) == 8 && second != -1
+						&& ((first << 8) | second) % 31 == 0;
+				mInflater = new Inflater(!zlib);
+				mInflating = new InflaterInputStream(mCompressed, mInflater,
+						BUFFER_SIZE);
+			} else {
+				mInflating = new GZIPInputStream(mCompressed, BUFFER_SIZE);
+			}
+			return true;
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				if (mInflating != null) {
+					mInflating.close();
+				} else {
+					mCompressed.close();
+				}
+			} finally {
+				if (mInflater != null) {
+					mInflater.end();
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2010-2012 BlinxBox.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.blinxbox.restinstagram;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Counts the bytes read through it.
+ * 
+ * @author Efi MK
+ */
+class CountingInputStream extends FilterInputStream {
+	/**
+	 * Bytes read.
+	 */
+	private long mCount;
+
+	/**
+	 * @param in
+	 *            The counted stream.
+	 */
+	CountingInputStream(final InputStream in) {
+		super(in);
+	}
+
+	/**
+	 * @return Bytes read so far.
+	 */
+	long getCount() {
+		return mCount;
+	}
+
+	@Override
+	public int read() throws IOException {
+		final int read = super.read();
+		if (read != -1) {
+			mCount++;
+		}
+		return read;
+	}
+
+	@Override
+	public int read(final byte[] bytes, final int offset, final int length)
+			throws IOException {
+		final int read = super.read(bytes, offset, length);
+		if (read > 0) {
+			mCount += read;
+		}
+		return read;
+	}
+
+	@Override
+	public long skip(final long count) throws IOException {
+		final long skipped = super.skip(count);
+		mCount += skipped;
+		return skipped;
+	}
+
+	@Override
+	public boolean markSupported() {
+		return false;
+	}
+}
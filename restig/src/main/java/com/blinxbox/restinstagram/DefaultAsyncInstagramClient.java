@@ -0,0 +1,327 @@
+/*
+ * Copyright (c) 2010-2012 BlinxBox.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.blinxbox.restinstagram;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+import com.blinxbox.restinstagram.exception.InstagramException;
+import com.blinxbox.restinstagram.exception.InstagramNetworkException;
+import com.restfb.WebRequestor.Response;
+import com.restfb.json.JsonObject;
+
+/**
+ * Default implementation of {@link AsyncInstagramClient}. Requests are built,
+ * checked for errors and mapped by a {@link DefaultInstagramClient}, so the
+ * blocking and the asynchronous API behave alike; only the transport differs.
+ * Responses are handed from the {@link AsyncWebRequestor} to a mapping
+ * executor, so parsing and mapping never hold up the threads completing I/O.
+ * <p>
+ * Requests take a token of the {@link DefaultInstagramClient#getRateLimiter()
+ * rate limiter} of the client before they are sent, and no thread waits for
+ * one: with a {@link #setRateLimitScheduler(ScheduledExecutorService)
+ * scheduler} and a blocking limiter a request is sent once its token is due,
+ * otherwise a request without a token completes exceptionally at once.
+ * <p>
+ * Collections are bound to the blocking client, fetch following pages
+ * asynchronously by passing {@link InstagramCollection#getNextPageUrl()} as
+ * the end point.
+ * 
+ * @author Efi MK
+ */
+public class DefaultAsyncInstagramClient implements AsyncInstagramClient {
+	/**
+	 * Maps a checked, parsed response.
+	 * 
+	 * @author Efi MK
+	 * @param <R>
+	 *            - The result type.
+	 */
+	private interface ResponseMapper<R> {
+		/**
+		 * @param response
+		 *            The response.
+		 * @return The result.
+		 */
+		R map(JsonObject response);
+	}
+
+	/**
+	 * Builds requests and maps responses.
+	 */
+	private final DefaultInstagramClient mClient;
+
+	/**
+	 * Sends the requests.
+	 */
+	private final AsyncWebRequestor mWebRequestor;
+
+	/**
+	 * Parses and maps the responses.
+	 */
+	private final Executor mMappingExecutor;
+
+	/**
+	 * Sends the requests whose rate limit token is not yet due, {@code null}
+	 * if there is none.
+	 */
+	private volatile ScheduledExecutorService mRateLimitScheduler;
+
+	/**
+	 * Creates a client that runs the blocking requestor of {@code client} on
+	 * {@code ioExecutor}.
+	 * 
+	 * @param client
+	 *            Builds requests and maps responses.
+	 * @param ioExecutor
+	 *            Runs the requests.
+	 * @param mappingExecutor
+	 *            Parses and maps the responses.
+	 * @throws IllegalArgumentException
+	 *             If an argument is {@code null}.
+	 */
+	public DefaultAsyncInstagramClient(final DefaultInstagramClient client,
+			final Executor ioExecutor, final Executor mappingExecutor)
+			throws IllegalArgumentException {
+		this(client, new ExecutorAsyncWebRequestor(
+				client.getWebRequestor(), ioExecutor), mappingExecutor);
+	}
+
+	/**
+	 * @param client
+	 *            Builds requests and maps responses.
+	 * @param webRequestor
+	 *            Sends the requests.
+	 * @param mappingExecutor
+	 *            Parses and maps the responses.
+	 * @throws IllegalArgumentException
+	 *             If an argument is {@code null}.
+	 */
+	public DefaultAsyncInstagramClient(final DefaultInstagramClient client,
+			final AsyncWebRequestor webRequestor,
+			final Executor mappingExecutor) throws IllegalArgumentException {
+		if (client == null || webRequestor == null || mappingExecutor == null) {
+			throw new IllegalArgumentException(
+					"The client, web requestor and mapping executor cannot be null.");
+		}
+		mClient = client;
+		mWebRequestor = webRequestor;
+		mMappingExecutor = mappingExecutor;
+	}
+
+	/**
+	 * Delays requests whose rate limit token is not yet due instead of
+	 * failing them, when the limiter of the client is blocking. Off by
+	 * default.
+	 * 
+	 * @param scheduler
+	 *            Sends the delayed requests, {@code null} to fail them.
+	 */
+	public void setRateLimitScheduler(final ScheduledExecutorService scheduler) {
+		mRateLimitScheduler = scheduler;
+	}
+
+	@Override
+	public <T> CompletableFuture<InstagramCollection<T>> fetchCollection(
+			final String endPoint, final Class<T> type,
+			final Parameter... parameters) {
+		return fetchCollection(endPoint, type, null, parameters);
+	}
+
+	@Override
+	public <T> CompletableFuture<InstagramCollection<T>> fetchCollection(
+			final String endPoint, final Class<T> type,
+			final Projection projection, final Parameter... parameters) {
+		mClient.verifyParameterPresence("endPoint", endPoint);
+		mClient.verifyParameterPresence("type", type);
+		return get(endPoint, parameters,
+				new ResponseMapper<InstagramCollection<T>>() {
+					@Override
+					public InstagramCollection<T> map(final JsonObject response) {
+						return mClient.mapCollection(response, type,
+								projection);
+					}
+				});
+	}
+
+	@Override
+	public <T> CompletableFuture<T> fetchObject(final String endPoint,
+			final Class<T> objectType, final Parameter... parameters) {
+		return fetchObject(endPoint, objectType, null, parameters);
+	}
+
+	@Override
+	public <T> CompletableFuture<T> fetchObject(final String endPoint,
+			final Class<T> objectType, final Projection projection,
+			final Parameter... parameters) {
+		mClient.verifyParameterPresence("endPoint", endPoint);
+		mClient.verifyParameterPresence("objectType", objectType);
+		return get(endPoint, parameters, new ResponseMapper<T>() {
+			@Override
+			public T map(final JsonObject response) {
+				return mClient.mapObject(response, objectType, projection);
+			}
+		});
+	}
+
+	@Override
+	public CompletableFuture<Void> publish(final String endPoint,
+			final Parameter... parameters) {
+		mClient.verifyParameterPresence("endPoint", endPoint);
+		mClient.verifyParameterLegality(parameters);
+		final String url = mClient.createFullEndpoint(endPoint);
+		final String parameterString = mClient.toParameterString(parameters);
+		return rateLimited(new Supplier<CompletableFuture<Response>>() {
+			@Override
+			public CompletableFuture<Response> get() {
+				return mWebRequestor.executePostAsync(url, parameterString);
+			}
+		}).handleAsync(
+				new BiFunction<Response, Throwable, Void>() {
+					@Override
+					public Void apply(final Response response,
+							final Throwable failure) {
+						mClient.throwFacebookResponseStatusExceptionIfNecessary(checked(
+								response, failure).getBody());
+						return null;
+					}
+				}, mMappingExecutor);
+	}
+
+	/**
+	 * Sends a {@code GET} and maps its response on the mapping executor.
+	 * 
+	 * @param <R>
+	 *            The result type.
+	 * @param endPoint
+	 *            The end point, or a page URL.
+	 * @param parameters
+	 *            URL parameters.
+	 * @param mapper
+	 *            Maps the response.
+	 * @return Completes with the result.
+	 */
+	private <R> CompletableFuture<R> get(final String endPoint,
+			final Parameter[] parameters, final ResponseMapper<R> mapper) {
+		mClient.verifyParameterLegality(parameters);
+		final String url = mClient.createRequestUrl(endPoint, parameters);
+		return rateLimited(new Supplier<CompletableFuture<Response>>() {
+			@Override
+			public CompletableFuture<Response> get() {
+				return mWebRequestor.executeGetAsync(url);
+			}
+		}).handleAsync(
+				new BiFunction<Response, Throwable, R>() {
+					@Override
+					public R apply(final Response response,
+							final Throwable failure) {
+						return mapper.map(mClient.parseResponse(checked(
+								response, failure).getBody()));
+					}
+				}, mMappingExecutor);
+	}
+
+	/**
+	 * Sends a request once the rate limiter of the client, if there is one,
+	 * gave a token for it and the token is due.
+	 * 
+	 * @param request
+	 *            Sends the request.
+	 * @return Completes with the response, or exceptionally with the
+	 *         {@link InstagramException} of the limiter.
+	 */
+	private CompletableFuture<Response> rateLimited(
+			final Supplier<CompletableFuture<Response>> request) {
+		final ScheduledExecutorService scheduler = mRateLimitScheduler;
+		final CompletableFuture<Response> result = new CompletableFuture<Response>();
+		final long delay;
+		try {
+			delay = mClient.reserveRateLimit(scheduler != null);
+		} catch (final InstagramException e) {
+			result.completeExceptionally(e);
+			return result;
+		}
+		if (delay == 0) {
+			return request.get();
+		}
+		try {
+			scheduler.schedule(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						request.get().whenComplete(
+								new BiConsumer<Response, Throwable>() {
+									@Override
+									public void accept(final Response response,
+											final Throwable failure) {
+										if (failure != null) {
+											result.completeExceptionally(failure);
+										} else {
+											result.complete(response);
+										}
+									}
+								});
+					} catch (final RuntimeException e) {
+						result.completeExceptionally(e);
+					}
+				}
+			}, delay, TimeUnit.NANOSECONDS);
+		} catch (final RejectedExecutionException e) {
+			result.completeExceptionally(e);
+		}
+		return result;
+	}
+
+	/**
+	 * @param response
+	 *            The response, {@code null} if the request failed.
+	 * @param failure
+	 *            Why the request failed, {@code null} if it did not.
+	 * @return The successful response.
+	 * @throws InstagramException
+	 *             If the request failed, was refused by the rate limiter or
+	 *             the response is not a 200.
+	 */
+	private Response checked(final Response response, final Throwable failure)
+			throws InstagramException {
+		if (failure != null) {
+			final Throwable cause = failure instanceof CompletionException
+					&& failure.getCause() != null ? failure.getCause()
+					: failure;
+			if (cause instanceof InstagramException) {
+				throw (InstagramException) cause;
+			}
+			throw new InstagramNetworkException("Instagram request failed",
+					cause);
+		}
+		return mClient.verifyResponseStatus(response);
+	}
+}
@@ -26,18 +26,36 @@ import static com.restfb.util.StringUtils.isBlank;
 import static com.restfb.util.StringUtils.trimToEmpty;
 import static com.restfb.util.StringUtils.trimToNull;
 import static com.restfb.util.StringUtils.urlEncode;
+import static java.net.HttpURLConnection.HTTP_NOT_MODIFIED;
 import static java.net.HttpURLConnection.HTTP_OK;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.text.MessageFormat;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
+import com.blinxbox.restinstagram.exception.InstagramApiException;
 import com.blinxbox.restinstagram.exception.InstagramException;
 import com.blinxbox.restinstagram.exception.InstagramJsonMappingException;
+import com.blinxbox.restinstagram.StreamingWebRequestor.StreamedResponse;
 import com.blinxbox.restinstagram.exception.InstagramNetworkException;
-import com.restfb.DefaultWebRequestor;
+import com.blinxbox.restinstagram.exception.InstagramRateLimitException;
+import com.blinxbox.restinstagram.json.JsonReader;
+import com.blinxbox.restinstagram.json.JsonStreamReader;
+import com.blinxbox.restinstagram.json.JsonToken;
+import com.blinxbox.restinstagram.json.JsonTreeReader;
 import com.restfb.WebRequestor;
 import com.restfb.WebRequestor.Response;
+import com.restfb.json.JsonArray;
 import com.restfb.json.JsonException;
 import com.restfb.json.JsonObject;
 
@@ -83,11 +101,99 @@ public class DefaultInstagramClient extends AbstractInstagramClient {
 	 */
 	private static final String ERROR_MESSAGE_ATTRIBUTE_NAME = "error_message";
 
+	/**
+	 * The attribute that holds the response payload.
+	 */
+	private static final String DATA_ATTRIBUTE_NAME = "data";
+
+	/**
+	 * The object that holds the paging URLs.
+	 */
+	private static final String PAGINATION_OBJECT = "pagination";
+
+	/**
+	 * The attribute that holds the next page URL.
+	 */
+	private static final String NEXT_URL_ATTRIBUTE_NAME = "next_url";
+
+	/**
+	 * Size of the per-thread buffer streamed responses are decoded into.
+	 */
+	private static final int READ_BUFFER_SIZE = 8192;
+
+	/**
+	 * Per-thread recycled decoding buffer, {@code null} while in use.
+	 */
+	private static final ThreadLocal<char[]> READ_BUFFER = new ThreadLocal<char[]>() {
+		@Override
+		protected char[] initialValue() {
+			return new char[READ_BUFFER_SIZE];
+		}
+	};
+
+	/**
+	 * UTF-8, the encoding of every Instagram response.
+	 */
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
 	/**
 	 * A instagram client ID.
 	 */
 	private final String mClientId;
 
+	/**
+	 * Pool the elements of buffered collection pages are mapped in,
+	 * {@code null} to map them on the calling thread.
+	 */
+	private volatile ForkJoinPool mMappingPool;
+
+	/**
+	 * Pages with fewer elements are mapped on the calling thread.
+	 */
+	private volatile int mParallelThreshold;
+
+	/**
+	 * Validators and mapped results of earlier responses, {@code null} while
+	 * conditional requests are off.
+	 */
+	private volatile ValidatorCache<Envelope> mValidatorCache;
+
+	/**
+	 * Cache in front of the fetches, {@code null} for none.
+	 */
+	private volatile ResultCache mResultCache;
+
+	/**
+	 * Store of raw response bodies, {@code null} for none.
+	 */
+	private volatile ResponseStore mResponseStore;
+
+	/**
+	 * Coalesces identical concurrent fetches.
+	 */
+	private final SingleFlight mSingleFlight = new SingleFlight();
+
+	/**
+	 * {@code true} if identical concurrent fetches are coalesced.
+	 */
+	private volatile boolean mCoalescing;
+
+	/**
+	 * Keeps requests within the rate limit, {@code null} for none.
+	 */
+	private volatile RateLimiter mRateLimiter;
+
+	/**
+	 * {@code true} if requests wait for the rate limiter, {@code false} if
+	 * they are rejected.
+	 */
+	private volatile boolean mRateLimitBlocking;
+
+	/**
+	 * Retries failed fetches, {@code null} for none.
+	 */
+	private volatile RetryPolicy mRetryPolicy;
+
 	/**
 	 * Creates an Instagram API client with the given {@code clientID}.
 	 * 
@@ -95,7 +201,8 @@ public class DefaultInstagramClient extends AbstractInstagramClient {
 	 *            An Instagram OAuth access token.
 	 */
 	public DefaultInstagramClient(final String clientId) {
-		this(clientId, null, new DefaultWebRequestor(), new DefaultJsonMapper());
+		this(clientId, null, new DefaultStreamingWebRequestor(),
+				new DefaultJsonMapper());
 	}
 
 	/**
@@ -109,7 +216,9 @@ public class DefaultInstagramClient extends AbstractInstagramClient {
 	 *            ID will be used.
 	 * @param webRequestor
 	 *            The {@link WebRequestor} implementation to use for sending
-	 *            requests to the API endpoint.
+	 *            requests to the API endpoint. If it is a
+	 *            {@link StreamingWebRequestor} responses are mapped while
+	 *            they are read from the connection.
 	 * @param jsonMapper
 	 *            The {@link JsonMapper} implementation to use for mapping API
 	 *            response JSON to Java objects.
@@ -145,7 +254,7 @@ public class DefaultInstagramClient extends AbstractInstagramClient {
 	 *            - A user specific access token. Cannot be null or empty.
 	 */
 	public DefaultInstagramClient(final String appId, final String accessToken) {
-		this(appId, accessToken, new DefaultWebRequestor(),
+		this(appId, accessToken, new DefaultStreamingWebRequestor(),
 				new DefaultJsonMapper());
 	}
 
@@ -153,32 +262,485 @@ public class DefaultInstagramClient extends AbstractInstagramClient {
 	@Override
 	public <T> InstagramCollection<T> fetchCollection(final String endPoint,
 			final Class<T> type, final Parameter... parameters) {
+		return fetchCollection(endPoint, type, null, parameters);
+	}
+
+	@Override
+	public <T> InstagramCollection<T> fetchCollection(final String endPoint,
+			final Class<T> type, final Projection projection,
+			final Parameter... parameters) {
 		verifyParameterPresence("endPoint", endPoint);
 		verifyParameterPresence("type", type);
-		return new InstagramCollection<T>(this, makeRequest(endPoint, false,
-				parameters), type);
+		final ResultCache cache = mResultCache;
+		final String cacheKey = cache == null ? null : resultKey(endPoint,
+				mappingKey(type, true, projection), parameters);
+		if (cacheKey != null) {
+			@SuppressWarnings("unchecked")
+			final InstagramCollection<T> cached = (InstagramCollection<T>) cache
+					.get(cacheKey);
+			if (cached != null) {
+				return cached;
+			}
+		}
+		if (mCoalescing) {
+			return mSingleFlight.execute(
+					cacheKey != null ? cacheKey : resultKey(endPoint,
+							mappingKey(type, true, projection), parameters),
+					new SingleFlight.Loader<InstagramCollection<T>>() {
+						@Override
+						public InstagramCollection<T> load() {
+							return loadCollection(endPoint, type, projection,
+									cacheKey, parameters);
+						}
+					});
+		}
+		return loadCollection(endPoint, type, projection, cacheKey, parameters);
+	}
+
+	/**
+	 * Fetches and maps a collection, then offers it to the result cache.
+	 * Retried by the {@link RetryPolicy}, if there is one.
+	 * 
+	 * @param <T>
+	 *            The element type.
+	 * @param endPoint
+	 *            The end point.
+	 * @param type
+	 *            Type to map each element to.
+	 * @param projection
+	 *            Fields of each element to map, {@code null} for all.
+	 * @param cacheKey
+	 *            Key of the result cache, {@code null} if there is none.
+	 * @param parameters
+	 *            URL parameters to include in the API call.
+	 * @return The collection.
+	 */
+	private <T> InstagramCollection<T> loadCollection(final String endPoint,
+			final Class<T> type, final Projection projection,
+			final String cacheKey, final Parameter... parameters) {
+		final RetryPolicy retryPolicy = mRetryPolicy;
+		if (retryPolicy == null) {
+			return loadCollectionOnce(endPoint, type, projection, cacheKey,
+					parameters);
+		}
+		return retryPolicy
+				.execute(new RetryPolicy.Attempt<InstagramCollection<T>>() {
+					@Override
+					public InstagramCollection<T> run() {
+						return loadCollectionOnce(endPoint, type, projection,
+								cacheKey, parameters);
+					}
+				});
+	}
+
+	/**
+	 * Makes one attempt of {@link #loadCollection}.
+	 * 
+	 * @param <T>
+	 *            The element type.
+	 * @param endPoint
+	 *            The end point.
+	 * @param type
+	 *            Type to map each element to.
+	 * @param projection
+	 *            Fields of each element to map, {@code null} for all.
+	 * @param cacheKey
+	 *            Key of the result cache, {@code null} if there is none.
+	 * @param parameters
+	 *            URL parameters to include in the API call.
+	 * @return The collection.
+	 */
+	private <T> InstagramCollection<T> loadCollectionOnce(
+			final String endPoint, final Class<T> type,
+			final Projection projection, final String cacheKey,
+			final Parameter... parameters) {
+		final InstagramCollection<T> collection;
+		final long length;
+		if (webRequestor instanceof StreamingWebRequestor) {
+			final Envelope envelope = makeStreamingRequest(endPoint, type,
+					true, projection, parameters);
+			@SuppressWarnings("unchecked")
+			final List<T> data = (List<T>) envelope.data;
+			collection = new InstagramCollection<T>(this, data,
+					envelope.nextPageUrl);
+			length = envelope.length;
+		} else {
+			final String json = executeRequest(
+					createRequestor(endPoint, false, parameters)).getBody();
+			collection = mapCollection(parseResponse(json), type, projection);
+			length = json.length();
+		}
+		final ResultCache cache = mResultCache;
+		if (cacheKey != null && cache != null) {
+			cache.put(cacheKey, requestEndPoint(cacheKey), collection, length);
+		}
+		return collection;
+	}
+
+	/**
+	 * Maps an already parsed collection response.
+	 * 
+	 * @param <T>
+	 *            The element type.
+	 * @param response
+	 *            The response, already checked for errors.
+	 * @param type
+	 *            Type to map each element to.
+	 * @param projection
+	 *            Fields of each element to map, {@code null} for all.
+	 * @return The collection.
+	 */
+	protected <T> InstagramCollection<T> mapCollection(
+			final JsonObject response, final Class<T> type,
+			final Projection projection) {
+		if (projection != null) {
+			final Envelope envelope = readEnvelope(response, type, true,
+					projection);
+			@SuppressWarnings("unchecked")
+			final List<T> data = (List<T>) envelope.data;
+			return new InstagramCollection<T>(this, data, envelope.nextPageUrl);
+		}
+		return new InstagramCollection<T>(this, response, type, mMappingPool,
+				mParallelThreshold);
+	}
+
+	/**
+	 * Maps the elements of large collection pages in parallel. Pages fetched
+	 * without a {@link Projection} are split; a {@link StreamingWebRequestor}
+	 * then reads their data whole before mapping it instead of mapping it from
+	 * the connection. The order of the elements and the handling of mapping
+	 * errors are kept. Off by default.
+	 * 
+	 * @param pool
+	 *            Pool to map in, {@code null} to map every page on the calling
+	 *            thread. The {@link JsonMapper} of this client must be thread
+	 *            safe.
+	 * @param parallelThreshold
+	 *            Pages with fewer elements are mapped on the calling thread,
+	 *            where splitting costs more than it saves.
+	 */
+	public void setParallelMapping(final ForkJoinPool pool,
+			final int parallelThreshold) {
+		if (parallelThreshold < 0) {
+			throw new IllegalArgumentException(
+					"The parallel threshold cannot be negative.");
+		}
+		mParallelThreshold = parallelThreshold;
+		mMappingPool = pool;
+	}
+
+	/**
+	 * Sends conditional {@code GET}s for objects and collections that were
+	 * fetched before. The validators ({@code ETag} and {@code Last-Modified})
+	 * and the mapped result of the latest responses are kept; when Instagram
+	 * answers {@code 304 Not Modified} the earlier result is returned without
+	 * downloading or parsing anything. Results returned this way share their
+	 * mapped objects with the earlier ones. Off by default.
+	 * <p>
+	 * Needs a {@link ConditionalWebRequestor}, like the default one; other
+	 * requestors keep sending plain requests. Collections walked with a
+	 * visitor are never cached.
+	 * 
+	 * @param maxEntries
+	 *            Number of responses to remember, the least recently used
+	 *            one is dropped beyond it. {@code 0} turns conditional
+	 *            requests off.
+	 */
+	public void setConditionalRequests(final int maxEntries) {
+		if (maxEntries < 0) {
+			throw new IllegalArgumentException(
+					"The number of entries cannot be negative.");
+		}
+		mValidatorCache = maxEntries == 0 ? null : new ValidatorCache<Envelope>(
+				maxEntries);
+	}
+
+	/**
+	 * Puts a cache in front of {@link #fetchObject} and
+	 * {@link #fetchCollection}, so repeated reads of the same end point are
+	 * answered without a request. Results are cached per end point, sorted
+	 * parameters and mapped type; the access token is not part of the key,
+	 * so a cache shared by clients of different users must not keep the
+	 * {@code self} end points. Cached results are shared, do not change
+	 * them. Collections walked with a visitor are never cached. Off by
+	 * default.
+	 * 
+	 * @param cache
+	 *            The cache, e.g. a {@link DefaultResultCache}; {@code null}
+	 *            to turn caching off.
+	 */
+	public void setResultCache(final ResultCache cache) {
+		mResultCache = cache;
+	}
+
+	/**
+	 * @return The cache in front of the fetches, {@code null} if there is
+	 *         none.
+	 */
+	public ResultCache getResultCache() {
+		return mResultCache;
+	}
+
+	/**
+	 * Coalesces identical concurrent fetches: while a
+	 * {@link #fetchObject} or {@link #fetchCollection} is in flight, callers
+	 * asking for the same end point, parameters and mapping wait for it and
+	 * share its result, or its exception, instead of sending a request of
+	 * their own. The shared result must not be changed. {@link #publish}
+	 * is never coalesced. Off by default.
+	 * 
+	 * @param coalescing
+	 *            {@code true} to coalesce.
+	 */
+	public void setRequestCoalescing(final boolean coalescing) {
+		mCoalescing = coalescing;
+	}
+
+	/**
+	 * @return Number of fetches answered by an identical fetch in flight,
+	 *         i.e. requests saved by coalescing.
+	 */
+	public long getCoalescedRequests() {
+		return mSingleFlight.getCoalesced();
+	}
+
+	/**
+	 * Keeps the raw bodies of streamed {@code GET}s in a store, e.g. a
+	 * {@link MappedResponseStore} that outlives the process. A request whose
+	 * body is stored is mapped from the store without being sent; it is
+	 * asked after the {@link ResultCache} misses. Bodies are kept per access
+	 * token, since responses such as those of the {@code self} end points
+	 * belong to the user of the token: keys are built from the end point,
+	 * the parameters and a digest of the token, never the token itself.
+	 * Off by default.
+	 * 
+	 * @param store
+	 *            The store, {@code null} to turn it off.
+	 */
+	public void setResponseStore(final ResponseStore store) {
+		mResponseStore = store;
+	}
+
+	/**
+	 * @return The store of raw bodies, {@code null} if there is none.
+	 */
+	public ResponseStore getResponseStore() {
+		return mResponseStore;
+	}
+
+	/**
+	 * Keeps the requests of this client within the Instagram rate limit.
+	 * Every request takes a token of the bucket of the access token, or of
+	 * the client ID without one, before it is sent; the rate limit headers
+	 * of streamed responses correct the bucket. A limiter may be shared by
+	 * clients, including clients of the same token. Off by default.
+	 * 
+	 * @param limiter
+	 *            The limiter, {@code null} to turn it off.
+	 * @param blocking
+	 *            {@code true} to wait for a token, {@code false} to throw an
+	 *            {@link InstagramRateLimitException} when none is left.
+	 */
+	public void setRateLimiter(final RateLimiter limiter,
+			final boolean blocking) {
+		mRateLimitBlocking = blocking;
+		mRateLimiter = limiter;
+	}
+
+	/**
+	 * @return The rate limiter, {@code null} if there is none.
+	 */
+	public RateLimiter getRateLimiter() {
+		return mRateLimiter;
+	}
+
+	/**
+	 * Retries {@link #fetchObject} and {@link #fetchCollection} when they
+	 * fail in a way that may not happen again, see {@link RetryPolicy}.
+	 * Every attempt goes through the rate limiter; coalesced callers share
+	 * the retries of the fetch they wait for. {@link #publish} is never
+	 * retried, since a {@code POST} that failed may still have been
+	 * applied, and neither are collections walked with a visitor. Off by
+	 * default.
+	 * 
+	 * @param retryPolicy
+	 *            The policy, {@code null} to turn retries off.
+	 */
+	public void setRetryPolicy(final RetryPolicy retryPolicy) {
+		mRetryPolicy = retryPolicy;
+	}
+
+	/**
+	 * @return The retry policy, {@code null} if there is none.
+	 */
+	public RetryPolicy getRetryPolicy() {
+		return mRetryPolicy;
 	}
 
 	@Override
 	public <T> T fetchObject(final String endPoint, final Class<T> objectType,
 			final Parameter... parameters) throws InstagramException {
+		return fetchObject(endPoint, objectType, null, parameters);
+	}
+
+	@Override
+	public <T> T fetchObject(final String endPoint, final Class<T> objectType,
+			final Projection projection, final Parameter... parameters)
+			throws InstagramException {
 		verifyParameterPresence("endPoint", endPoint);
 		verifyParameterPresence("objectType", objectType);
-		// Fetch from IG.
-		final String json = makeRequest(endPoint, false, parameters);
-		JsonObject jsonObject = null;
+		final ResultCache cache = mResultCache;
+		final String cacheKey = cache == null ? null : resultKey(endPoint,
+				mappingKey(objectType, false, projection), parameters);
+		if (cacheKey != null) {
+			@SuppressWarnings("unchecked")
+			final T cached = (T) cache.get(cacheKey);
+			if (cached != null) {
+				return cached;
+			}
+		}
+		if (mCoalescing) {
+			return mSingleFlight.execute(
+					cacheKey != null ? cacheKey : resultKey(endPoint,
+							mappingKey(objectType, false, projection),
+							parameters), new SingleFlight.Loader<T>() {
+						@Override
+						public T load() {
+							return loadObject(endPoint, objectType,
+									projection, cacheKey, parameters);
+						}
+					});
+		}
+		return loadObject(endPoint, objectType, projection, cacheKey,
+				parameters);
+	}
 
-		try {
-			jsonObject = new JsonObject(json);
-		} catch (final JsonException e) {
-			throw new InstagramJsonMappingException(MessageFormat.format(
-					"The connection JSON you provided was invalid: {0}", json),
-					e);
+	/**
+	 * Fetches and maps an object, then offers it to the result cache.
+	 * Retried by the {@link RetryPolicy}, if there is one.
+	 * 
+	 * @param <T>
+	 *            The data type.
+	 * @param endPoint
+	 *            The end point.
+	 * @param objectType
+	 *            Type to map the data to.
+	 * @param projection
+	 *            Fields to map, {@code null} for all.
+	 * @param cacheKey
+	 *            Key of the result cache, {@code null} if there is none.
+	 * @param parameters
+	 *            URL parameters to include in the API call.
+	 * @return The mapped data.
+	 */
+	private <T> T loadObject(final String endPoint, final Class<T> objectType,
+			final Projection projection, final String cacheKey,
+			final Parameter... parameters) {
+		final RetryPolicy retryPolicy = mRetryPolicy;
+		if (retryPolicy == null) {
+			return loadObjectOnce(endPoint, objectType, projection, cacheKey,
+					parameters);
+		}
+		return retryPolicy.execute(new RetryPolicy.Attempt<T>() {
+			@Override
+			public T run() {
+				return loadObjectOnce(endPoint, objectType, projection,
+						cacheKey, parameters);
+			}
+		});
+	}
+
+	/**
+	 * Makes one attempt of {@link #loadObject}.
+	 * 
+	 * @param <T>
+	 *            The data type.
+	 * @param endPoint
+	 *            The end point.
+	 * @param objectType
+	 *            Type to map the data to.
+	 * @param projection
+	 *            Fields to map, {@code null} for all.
+	 * @param cacheKey
+	 *            Key of the result cache, {@code null} if there is none.
+	 * @param parameters
+	 *            URL parameters to include in the API call.
+	 * @return The mapped data.
+	 */
+	private <T> T loadObjectOnce(final String endPoint,
+			final Class<T> objectType, final Projection projection,
+			final String cacheKey, final Parameter... parameters) {
+		final T data;
+		final long length;
+		if (webRequestor instanceof StreamingWebRequestor) {
+			// Map the data while it is read from the connection.
+			final Envelope envelope = makeStreamingRequest(endPoint,
+					objectType, false, projection, parameters);
+			@SuppressWarnings("unchecked")
+			final T mapped = (T) envelope.data;
+			data = mapped;
+			length = envelope.length;
+		} else {
+			// Fetch from IG.
+			final String json = executeRequest(
+					createRequestor(endPoint, false, parameters)).getBody();
+			data = mapObject(parseResponse(json), objectType, projection);
+			length = json.length();
+		}
+		final ResultCache cache = mResultCache;
+		if (cacheKey != null && cache != null) {
+			cache.put(cacheKey, requestEndPoint(cacheKey), data, length);
+		}
+		return data;
+	}
+
+	/**
+	 * Maps the data of an already parsed object response.
+	 * 
+	 * @param <T>
+	 *            The data type.
+	 * @param response
+	 *            The response, already checked for errors.
+	 * @param objectType
+	 *            Type to map the data to.
+	 * @param projection
+	 *            Fields to map, {@code null} for all.
+	 * @return The mapped data.
+	 */
+	protected <T> T mapObject(final JsonObject response,
+			final Class<T> objectType, final Projection projection) {
+		if (projection != null) {
+			@SuppressWarnings("unchecked")
+			final T data = (T) readEnvelope(response, objectType, false,
+					projection).data;
+			return data;
 		}
 		// Pull the data
-		final JsonObject jsonData = jsonObject.getJsonObject("data");
-		// Now convert.
-		return jsonMapper.toJavaObject(jsonData.toString(), objectType);
+		final JsonObject jsonData = response.getJsonObject("data");
+		// Now convert, straight from the parsed tree.
+		return jsonMapper.toJavaObject(jsonData, objectType);
+	}
+
+	@Override
+	public <T> InstagramCollection<T> visitCollection(final String endPoint,
+			final T reusable, final Projection projection,
+			final InstagramCollection.Visitor<? super T> visitor,
+			final Parameter... parameters) throws InstagramException {
+		verifyParameterPresence("endPoint", endPoint);
+		verifyParameterPresence("reusable", reusable);
+		verifyParameterPresence("visitor", visitor);
+		final DataReader dataReader = new DataReader() {
+			@Override
+			public Object read(final JsonReader reader) throws IOException {
+				visitElements(reader, reusable, projection, visitor);
+				return Collections.emptyList();
+			}
+		};
+		final Envelope envelope = webRequestor instanceof StreamingWebRequestor ? streamEnvelope(
+				endPoint, dataReader, null, parameters) : readEnvelope(
+				makeJsonRequest(endPoint, parameters), dataReader);
+		return new InstagramCollection<T>(this, Collections.<T> emptyList(),
+				envelope.nextPageUrl);
 	}
 
 	@Override
@@ -188,6 +750,72 @@ public class DefaultInstagramClient extends AbstractInstagramClient {
 		makeRequest(endPoint, true, parameters);
 	}
 
+	/**
+	 * Fetches many objects in plain blocking style, each request on a thread
+	 * of its own: a virtual thread when the runtime has them (Java 21 and
+	 * later), a platform thread otherwise. No thread pool needs sizing, only
+	 * the number of requests in flight is capped.
+	 * 
+	 * @param <T>
+	 *            Java type to map to.
+	 * @param endPoints
+	 *            The end points, e.g. {@code "media/1234"}.
+	 * @param objectType
+	 *            Type of the objects.
+	 * @param maxInFlight
+	 *            Maximum number of requests running at once.
+	 * @param parameters
+	 *            URL parameters to include in every API call (optional).
+	 * @return One result per end point, in the order of {@code endPoints}. A
+	 *         failed fetch does not stop the others, its result holds the
+	 *         exception instead.
+	 */
+	public <T> List<FetchResult<T>> fetchObjects(final List<String> endPoints,
+			final Class<T> objectType, final int maxInFlight,
+			final Parameter... parameters) {
+		verifyParameterPresence("endPoints", endPoints);
+		verifyParameterPresence("objectType", objectType);
+		return BulkFetch.run(endPoints, maxInFlight,
+				new BulkFetch.Fetcher<T>() {
+					@Override
+					public T fetch(final String endPoint) {
+						return fetchObject(endPoint, objectType, parameters);
+					}
+				});
+	}
+
+	/**
+	 * Fetches many collections in plain blocking style, see
+	 * {@link #fetchObjects(List, Class, int, Parameter...)}.
+	 * 
+	 * @param <T>
+	 *            Java type to map to.
+	 * @param endPoints
+	 *            The end points, e.g. {@code "tags/snow/media/recent"}.
+	 * @param type
+	 *            Type of the elements.
+	 * @param maxInFlight
+	 *            Maximum number of requests running at once.
+	 * @param parameters
+	 *            URL parameters to include in every API call (optional).
+	 * @return One result per end point, in the order of {@code endPoints}. A
+	 *         failed fetch does not stop the others, its result holds the
+	 *         exception instead.
+	 */
+	public <T> List<FetchResult<InstagramCollection<T>>> fetchCollections(
+			final List<String> endPoints, final Class<T> type,
+			final int maxInFlight, final Parameter... parameters) {
+		verifyParameterPresence("endPoints", endPoints);
+		verifyParameterPresence("type", type);
+		return BulkFetch.run(endPoints, maxInFlight,
+				new BulkFetch.Fetcher<InstagramCollection<T>>() {
+					@Override
+					public InstagramCollection<T> fetch(final String endPoint) {
+						return fetchCollection(endPoint, type, parameters);
+					}
+				});
+	}
+
 	/**
 	 * Coordinates the process of executing the API request GET/POST and
 	 * processing the response we receive from the endpoint.
@@ -202,68 +830,788 @@ public class DefaultInstagramClient extends AbstractInstagramClient {
 	 *             If an error occurs while making the Instagram API or
 	 *             processing the response.
 	 */
-	protected String makeRequest(String endpoint, final boolean executeAsPost,
+	protected String makeRequest(final String endpoint,
+			final boolean executeAsPost, final Parameter... parameters)
+			throws InstagramException {
+		return makeRequestAndProcessResponse(createRequestor(endpoint,
+				executeAsPost, parameters));
+	}
+
+	/**
+	 * Executes an API GET request and returns its response parsed exactly
+	 * once, so it can be checked for errors and mapped without further
+	 * parsing.
+	 * 
+	 * @param endpoint
+	 *            Instagram API endpoint.
+	 * @param parameters
+	 *            Arbitrary number of parameters to send along to Instagram as
+	 *            part of the API call.
+	 * @return The parsed JSON returned by Instagram for the API call.
+	 * @throws InstagramException
+	 *             If an error occurs while making the Instagram API or
+	 *             processing the response.
+	 */
+	protected JsonObject makeJsonRequest(final String endpoint,
 			final Parameter... parameters) throws InstagramException {
-		verifyParameterLegality(parameters);
+		return makeRequestAndParseResponse(createRequestor(endpoint, false,
+				parameters));
+	}
 
-		trimToEmpty(endpoint).toLowerCase();
-		// Remove any prefix that contains the instagram api.
-		if (endpoint.startsWith(INSTAGRAM_GRAPH_ENDPOINT_URL)) {
-			endpoint = endpoint
-					.substring(INSTAGRAM_GRAPH_ENDPOINT_URL.length());
-		}
-		if (!endpoint.startsWith("/")) {
-			endpoint = "/" + endpoint;
-		}
+	/**
+	 * Builds the {@link Requestor} that performs an API call.
+	 * 
+	 * @param endpoint
+	 *            Instagram API endpoint, or a page URL for a GET.
+	 * @param executeAsPost
+	 *            {@code true} to send a POST, {@code false} for a GET.
+	 * @param parameters
+	 *            Arbitrary number of parameters to send along to Instagram as
+	 *            part of the API call.
+	 * @return A requestor for the call.
+	 */
+	protected Requestor createRequestor(final String endpoint,
+			final boolean executeAsPost, final Parameter... parameters) {
+		verifyParameterLegality(parameters);
 
-		final String fullEndpoint = createEndpointForApiCall(endpoint);
-		final String parameterString = toParameterString(parameters);
+		// GET parameters go in the URL.
+		final String url = executeAsPost ? createFullEndpoint(endpoint)
+				: createRequestUrl(endpoint, parameters);
+		final String parameterString = executeAsPost ? toParameterString(parameters)
+				: null;
 
-		return makeRequestAndProcessResponse(new Requestor() {
+		return new Requestor() {
 			/**
 			 * @see com.restfb.DefaultFacebookClient.Requestor#makeRequest()
 			 */
 			@Override
 			public Response makeRequest() throws IOException {
 				if (executeAsPost) {
-					return webRequestor.executePost(fullEndpoint,
-							parameterString);
+					return webRequestor.executePost(url, parameterString);
 				}
-				return webRequestor.executeGet(fullEndpoint + "?"
-						+ parameterString);
+				return webRequestor.executeGet(url);
 			}
-		});
+		};
 	}
 
 	/**
-	 * Represents an HTTP request.
-	 * 
-	 * @author Efi MK
+	 * Creates the URL of a GET request. Page URLs handed out by Instagram,
+	 * e.g. {@link InstagramCollection#getNextPageUrl()}, already carry their
+	 * query and are used as they are.
 	 * 
+	 * @param endpoint
+	 *            Instagram API endpoint, or a page URL.
+	 * @param parameters
+	 *            Parameters of the call; must be empty for page URLs.
+	 * @return The request URL.
+	 * @throws IllegalArgumentException
+	 *             If parameters are given with a page URL.
 	 */
-	protected static interface Requestor {
-		/**
-		 * Execute the actual request logic.
-		 * 
-		 * @return A response that the server returned back.
-		 * @throws IOException
-		 *             - Error while executing the request.
-		 */
-		Response makeRequest() throws IOException;
+	protected String createRequestUrl(final String endpoint,
+			final Parameter... parameters) {
+		if (endpoint.indexOf('?') >= 0) {
+			if (parameters.length > 0) {
+				throw new IllegalArgumentException(
+						"Parameters cannot be added to the page URL " + endpoint);
+			}
+			return createFullEndpoint(endpoint);
+		}
+		return createFullEndpoint(endpoint) + "?"
+				+ toParameterString(parameters);
 	}
 
 	/**
-	 * Execute the request and process the resulting json.
+	 * Turns an endpoint, relative or prefixed with the Instagram API URL,
+	 * into the absolute endpoint URL.
 	 * 
-	 * @param requestor
-	 *            - Holds the actual request.
-	 * @return A Json string containing the result.
-	 * @throws InstagramException
-	 *             - Invalid request. @
+	 * @param endpoint
+	 *            Instagram API endpoint.
+	 * @return The absolute endpoint URL, without parameters.
 	 */
-	protected String makeRequestAndProcessResponse(final Requestor requestor)
+	protected String createFullEndpoint(String endpoint) {
+		trimToEmpty(endpoint).toLowerCase();
+		// Remove any prefix that contains the instagram api.
+		if (endpoint.startsWith(INSTAGRAM_GRAPH_ENDPOINT_URL)) {
+			endpoint = endpoint
+					.substring(INSTAGRAM_GRAPH_ENDPOINT_URL.length());
+		}
+		if (!endpoint.startsWith("/")) {
+			endpoint = "/" + endpoint;
+		}
+
+		return createEndpointForApiCall(endpoint);
+	}
+
+	/**
+	 * Executes an API GET request through the {@link StreamingWebRequestor}
+	 * and maps the {@code data} of the response while it is read from the
+	 * connection. The body is decoded from UTF-8 into a recycled buffer and is
+	 * never held as a whole {@code String}.
+	 * 
+	 * @param endpoint
+	 *            Instagram API endpoint.
+	 * @param type
+	 *            Type to map the data, or each of its elements, to.
+	 * @param list
+	 *            {@code true} if the data is an array.
+	 * @param parameters
+	 *            Arbitrary number of parameters to send along to Instagram as
+	 *            part of the API call.
+	 * @return The mapped response.
+	 * @throws InstagramException
+	 *             If an error occurs while making the Instagram API or
+	 *             processing the response.
+	 */
+	protected Envelope makeStreamingRequest(final String endpoint,
+			final Class<?> type, final boolean list,
+			final Parameter... parameters) throws InstagramException {
+		return makeStreamingRequest(endpoint, type, list, null, parameters);
+	}
+
+	/**
+	 * Executes an API GET request like
+	 * {@link #makeStreamingRequest(String, Class, boolean, Parameter...)},
+	 * mapping only the projected fields of the data.
+	 * 
+	 * @param endpoint
+	 *            Instagram API endpoint.
+	 * @param type
+	 *            Type to map the data, or each of its elements, to.
+	 * @param list
+	 *            {@code true} if the data is an array.
+	 * @param projection
+	 *            Fields to map, {@code null} for all.
+	 * @param parameters
+	 *            Arbitrary number of parameters to send along to Instagram as
+	 *            part of the API call.
+	 * @return The mapped response.
+	 * @throws InstagramException
+	 *             If an error occurs while making the Instagram API or
+	 *             processing the response.
+	 */
+	protected Envelope makeStreamingRequest(final String endpoint,
+			final Class<?> type, final boolean list,
+			final Projection projection, final Parameter... parameters)
 			throws InstagramException {
+		return streamEnvelope(endpoint, mappingReader(type, list, projection),
+				mappingKey(type, list, projection), parameters);
+	}
+
+	/**
+	 * Executes an API GET request through the {@link StreamingWebRequestor}
+	 * and reads the envelope of the response while it is read from the
+	 * connection.
+	 * 
+	 * @param endpoint
+	 *            Instagram API endpoint, or a page URL.
+	 * @param dataReader
+	 *            Reads the {@code data}.
+	 * @param mappingKey
+	 *            Identifies what {@code dataReader} maps to, so its results
+	 *            can be reused on a {@code 304}; {@code null} if they cannot.
+	 * @param parameters
+	 *            Arbitrary number of parameters to send along to Instagram as
+	 *            part of the API call.
+	 * @return The read response.
+	 * @throws InstagramException
+	 *             If an error occurs while making the Instagram API or
+	 *             processing the response.
+	 */
+	private Envelope streamEnvelope(final String endpoint,
+			final DataReader dataReader, final String mappingKey,
+			final Parameter... parameters) throws InstagramException {
+		verifyParameterLegality(parameters);
+		final String url = createRequestUrl(endpoint, parameters);
+
+		// Conditional requests need a requestor that sends validators.
+		final ValidatorCache<Envelope> cache = mappingKey != null
+				&& webRequestor instanceof ConditionalWebRequestor ? mValidatorCache
+				: null;
+		final String cacheKey = cache == null ? null : url + ' ' + mappingKey;
+		final ValidatorCache.Entry<Envelope> cached = cache == null ? null
+				: cache.get(cacheKey);
+
+		// A stored body is mapped without a request.
+		final ResponseStore store = mResponseStore;
+		final String storeKey = store == null ? null : storeKey(url);
+		final byte[] stored = store == null ? null : store.get(storeKey);
+		if (stored != null) {
+			return readStoredEnvelope(stored, dataReader);
+		}
+
+		final RateLimiter limiter = acquireRateLimit();
+		StreamedResponse response = null;
+		try {
+			response = cache == null ? ((StreamingWebRequestor) webRequestor)
+					.executeGetStream(url)
+					: ((ConditionalWebRequestor) webRequestor)
+							.executeGetStream(url, cached == null ? null
+									: cached.validators);
+		} catch (final Throwable t) {
+			throw new InstagramNetworkException("Instagram request failed", t);
+		}
+
+		if (limiter != null) {
+			limiter.update(rateLimitKey(), response.getRateLimit());
+		}
+
+		final char[] buffer = takeReadBuffer();
+		try {
+			if (cached != null && HTTP_NOT_MODIFIED == response.getStatusCode()) {
+				return cached.value;
+			}
+			if (HTTP_OK != response.getStatusCode()) {
+				throwErrorBodyExceptionIfNecessary(response.getStatusCode(),
+						new String(readFully(response.getBody()), UTF_8));
+				throw new InstagramNetworkException("Instagram request failed",
+						response.getStatusCode());
+			}
+
+			// A body to be stored is read whole first.
+			final byte[] storedBody = store == null ? null : readFully(response
+					.getBody());
+			final CountingInputStream body = new CountingInputStream(
+					storedBody == null ? response.getBody()
+							: new ByteArrayInputStream(storedBody));
+			final Envelope envelope = readEnvelope(new JsonStreamReader(
+					new InputStreamReader(body, UTF_8), buffer), dataReader);
+			envelope.length = body.getCount();
+			if (storedBody != null) {
+				store.put(storeKey, requestEndPoint(requestKey(url)),
+						storedBody);
+			}
+			if (cache != null) {
+				if (response.getValidators() != null) {
+					cache.put(cacheKey, response.getValidators(), envelope);
+				} else {
+					cache.remove(cacheKey);
+				}
+			}
+			return envelope;
+		} catch (final IOException e) {
+			throw new InstagramNetworkException("Instagram request failed", e);
+		} catch (final JsonException e) {
+			throw new InstagramJsonMappingException(
+					"The Instagram response JSON was invalid", e);
+		} finally {
+			releaseReadBuffer(buffer);
+			try {
+				response.close();
+			} catch (final IOException e) {
+				logger.fine("Unable to close response: " + e);
+			}
+		}
+	}
+
+	/**
+	 * Reads the envelope of a body kept by the {@link ResponseStore}.
+	 * 
+	 * @param stored
+	 *            The stored body.
+	 * @param dataReader
+	 *            Reads the {@code data}.
+	 * @return The read response.
+	 * @throws InstagramException
+	 *             If the body cannot be mapped.
+	 */
+	private Envelope readStoredEnvelope(final byte[] stored,
+			final DataReader dataReader) throws InstagramException {
+		final char[] buffer = takeReadBuffer();
+		try {
+			final Envelope envelope = readEnvelope(new JsonStreamReader(
+					new InputStreamReader(new ByteArrayInputStream(stored),
+							UTF_8), buffer), dataReader);
+			envelope.length = stored.length;
+			return envelope;
+		} catch (final IOException e) {
+			throw new InstagramJsonMappingException(
+					"The stored Instagram response could not be read", e);
+		} catch (final JsonException e) {
+			throw new InstagramJsonMappingException(
+					"The stored Instagram response JSON was invalid", e);
+		} finally {
+			releaseReadBuffer(buffer);
+		}
+	}
+
+	/**
+	 * @param in
+	 *            A stream, read to its end.
+	 * @return Its content.
+	 * @throws IOException
+	 *             If the stream cannot be read.
+	 */
+	private static byte[] readFully(final InputStream in) throws IOException {
+		final ByteArrayOutputStream content = new ByteArrayOutputStream();
+		final byte[] bytes = new byte[READ_BUFFER_SIZE];
+		int read;
+		while ((read = in.read(bytes)) != -1) {
+			content.write(bytes, 0, read);
+		}
+		return content.toByteArray();
+	}
+
+	/**
+	 * Reads a response envelope: checks {@code meta} for an error, maps
+	 * {@code data} and picks the next page URL out of {@code pagination}.
+	 * Members may come in any order, everything else is skipped.
+	 * 
+	 * @param reader
+	 *            The response.
+	 * @param type
+	 *            Type to map the data, or each of its elements, to.
+	 * @param list
+	 *            {@code true} if the data is an array.
+	 * @return The mapped response.
+	 * @throws IOException
+	 *             If the response cannot be read.
+	 */
+	protected Envelope readEnvelope(final JsonReader reader,
+			final Class<?> type, final boolean list) throws IOException {
+		return readEnvelope(reader, type, list, null);
+	}
+
+	/**
+	 * Reads an already parsed response envelope, see
+	 * {@link #readEnvelope(JsonReader, Class, boolean, Projection)}.
+	 * 
+	 * @param response
+	 *            The response.
+	 * @param type
+	 *            Type to map the data, or each of its elements, to.
+	 * @param list
+	 *            {@code true} if the data is an array.
+	 * @param projection
+	 *            Fields to map, {@code null} for all.
+	 * @return The mapped response.
+	 */
+	protected Envelope readEnvelope(final JsonObject response,
+			final Class<?> type, final boolean list,
+			final Projection projection) {
+		return readEnvelope(response, mappingReader(type, list, projection));
+	}
+
+	/**
+	 * Reads an already parsed response envelope.
+	 * 
+	 * @param response
+	 *            The response.
+	 * @param dataReader
+	 *            Reads the {@code data}.
+	 * @return The read response.
+	 */
+	private Envelope readEnvelope(final JsonObject response,
+			final DataReader dataReader) {
+		try {
+			return readEnvelope(new JsonTreeReader(response), dataReader);
+		} catch (final IOException e) {
+			// Trees are read from memory.
+			throw new InstagramJsonMappingException(
+					"The Instagram response JSON was invalid", e);
+		}
+	}
+
+	/**
+	 * Reads a response envelope: checks {@code meta} for an error, maps the
+	 * projected fields of {@code data} and picks the next page URL out of
+	 * {@code pagination}. Members may come in any order, everything else is
+	 * skipped.
+	 * 
+	 * @param reader
+	 *            The response.
+	 * @param type
+	 *            Type to map the data, or each of its elements, to.
+	 * @param list
+	 *            {@code true} if the data is an array.
+	 * @param projection
+	 *            Fields to map, {@code null} for all.
+	 * @return The mapped response.
+	 * @throws IOException
+	 *             If the response cannot be read.
+	 */
+	protected Envelope readEnvelope(final JsonReader reader,
+			final Class<?> type, final boolean list,
+			final Projection projection) throws IOException {
+		return readEnvelope(reader, mappingReader(type, list, projection));
+	}
+
+	/**
+	 * Reads a response envelope, handing {@code data} to {@code dataReader}.
+	 * 
+	 * @param reader
+	 *            The response.
+	 * @param dataReader
+	 *            Reads the {@code data}.
+	 * @return The read response.
+	 * @throws IOException
+	 *             If the response cannot be read.
+	 */
+	private Envelope readEnvelope(final JsonReader reader,
+			final DataReader dataReader) throws IOException {
+		final Envelope envelope = new Envelope();
+		boolean hasData = false;
+
+		reader.beginObject();
+		while (reader.hasNext()) {
+			final String name = reader.nextName();
+			if (META_OBJECT.equals(name)) {
+				final Object meta = reader.readJsonValue();
+				if (meta instanceof JsonObject) {
+					// Fail before mapping anything that follows the error.
+					throwMetaExceptionIfNecessary((JsonObject) meta);
+				}
+			} else if (DATA_ATTRIBUTE_NAME.equals(name)) {
+				envelope.data = dataReader.read(reader);
+				hasData = true;
+			} else if (PAGINATION_OBJECT.equals(name)
+					&& reader.peek() == JsonToken.BEGIN_OBJECT) {
+				reader.beginObject();
+				while (reader.hasNext()) {
+					if (NEXT_URL_ATTRIBUTE_NAME.equals(reader.nextName())
+							&& reader.peek() != JsonToken.NULL) {
+						envelope.nextPageUrl = reader.nextString();
+					} else {
+						reader.skipValue();
+					}
+				}
+				reader.endObject();
+			} else {
+				reader.skipValue();
+			}
+		}
+		reader.endObject();
+
+		if (!hasData) {
+			throw new InstagramJsonMappingException(
+					"The Instagram response has no data");
+		}
+		return envelope;
+	}
+
+	/**
+	 * @param type
+	 *            Type to map the data, or each of its elements, to.
+	 * @param list
+	 *            {@code true} if the data is an array.
+	 * @param projection
+	 *            Fields to map, {@code null} for all.
+	 * @return A data reader that maps the data with the {@link JsonMapper}.
+	 *         With {@link #setParallelMapping parallel mapping} on, array data
+	 *         without a projection is read whole first, so it can be split.
+	 */
+	private DataReader mappingReader(final Class<?> type, final boolean list,
+			final Projection projection) {
+		final ForkJoinPool pool = mMappingPool;
+		final int parallelThreshold = mParallelThreshold;
+		return new DataReader() {
+			@Override
+			public Object read(final JsonReader reader) throws IOException {
+				if (list && projection == null && pool != null
+						&& reader.peek() == JsonToken.BEGIN_ARRAY) {
+					return InstagramCollection.mapElements(jsonMapper,
+							(JsonArray) reader.readJsonValue(), type, pool,
+							parallelThreshold);
+				}
+				return list ? jsonMapper.toJavaList(reader, type, projection)
+						: jsonMapper.toJavaObject(reader, type, projection);
+			}
+		};
+	}
+
+	/**
+	 * Maps each element of the data array into {@code reusable} and hands it
+	 * to {@code visitor}. Elements after the visitor stopped are skipped.
+	 * 
+	 * @param <T>
+	 *            The element type.
+	 * @param reader
+	 *            The token source, positioned at the data.
+	 * @param reusable
+	 *            The instance to map each element into.
+	 * @param projection
+	 *            Fields to map, {@code null} for all.
+	 * @param visitor
+	 *            Receives the elements.
+	 * @throws IOException
+	 *             If the response cannot be read.
+	 */
+	private <T> void visitElements(final JsonReader reader, final T reusable,
+			final Projection projection,
+			final InstagramCollection.Visitor<? super T> visitor)
+			throws IOException {
+		if (reader.peek() == JsonToken.NULL) {
+			reader.nextNull();
+			return;
+		}
+		boolean visiting = true;
+		reader.beginArray();
+		while (reader.hasNext()) {
+			if (!visiting) {
+				reader.skipValue();
+				continue;
+			}
+			final T element = jsonMapper.mapInto(reader, reusable, projection);
+			if (element != null) {
+				visiting = visitor.visit(element);
+			}
+		}
+		reader.endArray();
+	}
+
+	/**
+	 * Reads the {@code data} of a response envelope.
+	 * 
+	 * @author Efi MK
+	 */
+	private interface DataReader {
+		/**
+		 * @param reader
+		 *            The token source, positioned at the data.
+		 * @return The data to store in {@link Envelope#data}.
+		 * @throws IOException
+		 *             If the response cannot be read.
+		 */
+		Object read(JsonReader reader) throws IOException;
+	}
+
+	/**
+	 * A response read by {@link DefaultInstagramClient#readEnvelope}.
+	 * 
+	 * @author Efi MK
+	 */
+	protected static final class Envelope {
+		/**
+		 * The mapped data, a {@code List} for array data.
+		 */
+		public Object data;
+
+		/**
+		 * Next page URL, or {@code null}.
+		 */
+		public String nextPageUrl;
+
+		/**
+		 * Bytes of the response, when it was streamed.
+		 */
+		public long length;
+	}
+
+	/**
+	 * @param type
+	 *            Type the data, or each of its elements, is mapped to.
+	 * @param list
+	 *            {@code true} if the data is an array.
+	 * @param projection
+	 *            Fields to map, {@code null} for all.
+	 * @return Identifies how a response is mapped, for the caches.
+	 */
+	private static String mappingKey(final Class<?> type, final boolean list,
+			final Projection projection) {
+		return type.getName() + (list ? "[]" : "")
+				+ (projection == null ? "" : projection.toString());
+	}
+
+	/**
+	 * Builds the {@link ResultCache} key of a fetch: the
+	 * {@link #requestKey} and the mapping.
+	 * 
+	 * @param endpoint
+	 *            Instagram API endpoint, or a page URL.
+	 * @param mappingKey
+	 *            Identifies how the response is mapped.
+	 * @param parameters
+	 *            Parameters of the call.
+	 * @return The key.
+	 */
+	private String resultKey(final String endpoint, final String mappingKey,
+			final Parameter... parameters) {
+		verifyParameterLegality(parameters);
+		return requestKey(createRequestUrl(endpoint, parameters)) + ' '
+				+ mappingKey;
+	}
+
+	/**
+	 * Builds the {@link ResponseStore} key of a request: the
+	 * {@link #requestKey} behind a digest of the access token, or of the
+	 * client ID without one. Bodies may be private to the user of the token,
+	 * and the token itself must not end up on disk.
+	 * 
+	 * @param url
+	 *            The request URL.
+	 * @return The key.
+	 */
+	private String storeKey(final String url) {
+		final String credential = mAccessToken != null ? mAccessToken
+				: mClientId;
+		final MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (final NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not supported", e);
+		}
+		final StringBuilder key = new StringBuilder();
+		for (final byte b : digest.digest((credential == null ? ""
+				: credential).getBytes(UTF_8))) {
+			key.append(Character.forDigit((b >> 4) & 0xF, 16)).append(
+					Character.forDigit(b & 0xF, 16));
+		}
+		return key.append(' ').append(requestKey(url)).toString();
+	}
+
+	/**
+	 * Builds the key of a request shared by all users: the end point path
+	 * and the sorted parameters without the access token.
+	 * 
+	 * @param url
+	 *            The request URL.
+	 * @return The key.
+	 */
+	private static String requestKey(final String url) {
+		final int query = url.indexOf('?');
+		String path = query < 0 ? url : url.substring(0, query);
+		if (path.startsWith(INSTAGRAM_GRAPH_ENDPOINT_URL)) {
+			path = path.substring(INSTAGRAM_GRAPH_ENDPOINT_URL.length());
+		}
+		final String[] pairs = query < 0 ? new String[0] : url.substring(
+				query + 1).split("&");
+		Arrays.sort(pairs);
+		final StringBuilder key = new StringBuilder(path).append('?');
+		for (final String pair : pairs) {
+			if (pair.length() > 0
+					&& !pair.startsWith(ACCESS_TOKEN_PARAM_NAME + "=")) {
+				key.append(pair).append('&');
+			}
+		}
+		return key.toString();
+	}
+
+	/**
+	 * @param key
+	 *            A key built by {@link #resultKey} or {@link #requestKey}.
+	 * @return The end point path of the key.
+	 */
+	private static String requestEndPoint(final String key) {
+		return key.substring(0, key.indexOf('?'));
+	}
+
+	/**
+	 * Hands out this thread's recycled read buffer, or a new one if it is in
+	 * use.
+	 * 
+	 * @return A buffer for a {@link JsonStreamReader}.
+	 */
+	private static char[] takeReadBuffer() {
+		final char[] buffer = READ_BUFFER.get();
+		if (buffer == null) {
+			return new char[READ_BUFFER_SIZE];
+		}
+		READ_BUFFER.set(null);
+		return buffer;
+	}
+
+	/**
+	 * Gives a buffer back for the next request on this thread.
+	 * 
+	 * @param buffer
+	 *            A buffer from {@link #takeReadBuffer()}.
+	 */
+	private static void releaseReadBuffer(final char[] buffer) {
+		READ_BUFFER.set(buffer);
+	}
+
+	/**
+	 * Represents an HTTP request.
+	 * 
+	 * @author Efi MK
+	 * 
+	 */
+	protected static interface Requestor {
+		/**
+		 * Execute the actual request logic.
+		 * 
+		 * @return A response that the server returned back.
+		 * @throws IOException
+		 *             - Error while executing the request.
+		 */
+		Response makeRequest() throws IOException;
+	}
+
+	/**
+	 * Execute the request and process the resulting json.
+	 * 
+	 * @param requestor
+	 *            - Holds the actual request.
+	 * @return A Json string containing the result.
+	 * @throws InstagramException
+	 *             - Invalid request. @
+	 */
+	protected String makeRequestAndProcessResponse(final Requestor requestor)
+			throws InstagramException {
+		final String json = executeRequest(requestor).getBody();
+
+		// If the response contained an error code, throw an exception.
+		throwFacebookResponseStatusExceptionIfNecessary(json);
+
+		return json;
+	}
+
+	/**
+	 * Execute the request and parse the resulting json once.
+	 * 
+	 * @param requestor
+	 *            - Holds the actual request.
+	 * @return The parsed response.
+	 * @throws InstagramException
+	 *             - Invalid request, or the response is an error.
+	 * @throws InstagramJsonMappingException
+	 *             - The response is not a JSON object.
+	 */
+	protected JsonObject makeRequestAndParseResponse(final Requestor requestor)
+			throws InstagramException {
+		return parseResponse(executeRequest(requestor).getBody());
+	}
+
+	/**
+	 * Parses a response body once and checks it for an Instagram error.
+	 * 
+	 * @param json
+	 *            Body of a successful response.
+	 * @return The parsed response.
+	 * @throws InstagramException
+	 *             - The response is an error.
+	 * @throws InstagramJsonMappingException
+	 *             - The response is not a JSON object.
+	 */
+	protected JsonObject parseResponse(final String json)
+			throws InstagramException {
+		JsonObject jsonObject = null;
+		try {
+			jsonObject = new JsonObject(json);
+		} catch (final JsonException e) {
+			throw new InstagramJsonMappingException(MessageFormat.format(
+					"The connection JSON you provided was invalid: {0}", json),
+					e);
+		}
+
+		// If the response contained an error code, throw an exception.
+		throwFacebookResponseStatusExceptionIfNecessary(jsonObject);
+
+		return jsonObject;
+	}
+
+	/**
+	 * Executes the request and verifies the HTTP status of the response.
+	 * 
+	 * @param requestor
+	 *            - Holds the actual request.
+	 * @return The successful response.
+	 * @throws InstagramNetworkException
+	 *             - The request failed or returned a status other than 200.
+	 */
+	private Response executeRequest(final Requestor requestor)
+			throws InstagramNetworkException {
 		Response response = null;
+		acquireRateLimit();
 
 		// Perform a GET or POST to the API endpoint
 		try {
@@ -272,19 +1620,135 @@ public class DefaultInstagramClient extends AbstractInstagramClient {
 			throw new InstagramNetworkException("Instagram request failed", t);
 		}
 
+		return verifyResponseStatus(response);
+	}
+
+	/**
+	 * Takes a token of the rate limiter, if there is one, for a request about
+	 * to be sent.
+	 * 
+	 * @return The rate limiter, {@code null} if there is none.
+	 * @throws InstagramRateLimitException
+	 *             - No token is left and requests are not to wait.
+	 * @throws InstagramNetworkException
+	 *             - Interrupted while waiting for a token.
+	 */
+	private RateLimiter acquireRateLimit() {
+		final RateLimiter limiter = mRateLimiter;
+		if (limiter == null) {
+			return null;
+		}
+		if (!mRateLimitBlocking) {
+			if (!limiter.tryAcquire(rateLimitKey())) {
+				throw new InstagramRateLimitException(
+						"The Instagram rate limit is used up");
+			}
+			return limiter;
+		}
+		try {
+			limiter.acquire(rateLimitKey());
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InstagramNetworkException(
+					"Interrupted while waiting for the rate limit", e);
+		}
+		return limiter;
+	}
+
+	/**
+	 * Takes a token of the rate limiter, if there is one, for a request that
+	 * is sent without blocking a thread.
+	 * 
+	 * @param delayable
+	 *            {@code true} if the request can be sent once a token that is
+	 *            not yet due is; {@code false} to take only a token that is
+	 *            due now.
+	 * @return Nanoseconds until the request may be sent, {@code 0} if now.
+	 * @throws InstagramRateLimitException
+	 *             - No token is due now and the request is not to wait or
+	 *             cannot be delayed.
+	 */
+	long reserveRateLimit(final boolean delayable) {
+		final RateLimiter limiter = mRateLimiter;
+		if (limiter == null) {
+			return 0;
+		}
+		if (mRateLimitBlocking && delayable) {
+			return limiter.reserve(rateLimitKey());
+		}
+		if (!limiter.tryAcquire(rateLimitKey())) {
+			throw new InstagramRateLimitException(
+					"The Instagram rate limit is used up");
+		}
+		return 0;
+	}
+
+	/**
+	 * @return What Instagram counts the requests of this client by: the
+	 *         access token, or the client ID without one.
+	 */
+	private String rateLimitKey() {
+		return mAccessToken != null ? mAccessToken : mClientId;
+	}
+
+	/**
+	 * Verifies the HTTP status of a response.
+	 * 
+	 * @param response
+	 *            The response.
+	 * @return {@code response}.
+	 * @throws InstagramApiException
+	 *             - The response has a status other than 200 and an error in
+	 *             its {@code meta} object.
+	 * @throws InstagramNetworkException
+	 *             - The response has a status other than 200 and no error in
+	 *             its body.
+	 */
+	protected Response verifyResponseStatus(final Response response)
+			throws InstagramApiException, InstagramNetworkException {
 		// If we get any HTTP response code other than a 200 OK
 		// throw an exception.
 		if (HTTP_OK != response.getStatusCode()) {
+			throwErrorBodyExceptionIfNecessary(response.getStatusCode(),
+					response.getBody());
 			throw new InstagramNetworkException("Instagram request failed",
 					response.getStatusCode());
 		}
 
-		final String json = response.getBody();
-
-		// If the response contained an error code, throw an exception.
-		throwFacebookResponseStatusExceptionIfNecessary(json);
+		return response;
+	}
 
-		return json;
+	/**
+	 * Throws the error a response with a status other than 200 carries in
+	 * its {@code meta} object, so it is told apart like an error in a 200,
+	 * e.g. an expired token from an overloaded server. The HTTP status
+	 * stands in for a missing {@code code}.
+	 * 
+	 * @param statusCode
+	 *            The HTTP status of the response.
+	 * @param body
+	 *            The body of the response, {@code null} if there is none.
+	 * @throws InstagramApiException
+	 *             - The body has an error in its {@code meta} object.
+	 */
+	private void throwErrorBodyExceptionIfNecessary(final int statusCode,
+			final String body) throws InstagramApiException {
+		// Proxies and load balancers answer with pages of their own.
+		if (body == null || !body.trim().startsWith("{")) {
+			return;
+		}
+		try {
+			final JsonObject meta = new JsonObject(body)
+					.optJsonObject(META_OBJECT);
+			if (meta != null && meta.has(ERROR_ATTRIBUTE_NAME)) {
+				if (!meta.has(ERROR_CODE_ATTRIBUTE_NAME)) {
+					meta.put(ERROR_CODE_ATTRIBUTE_NAME, statusCode);
+				}
+				throwMetaExceptionIfNecessary(meta);
+			}
+		} catch (final JsonException e) {
+			logger.fine("Unable to read the error response: " + e);
+		}
 	}
 
 	/**
@@ -312,30 +1776,49 @@ public class DefaultInstagramClient extends AbstractInstagramClient {
 
 		// If the result is not an object, bail immediately.
 		if (json.startsWith("{")) {
-
-			final JsonObject errorObject = new JsonObject(json);
-
-			final JsonObject innerErrorObject = errorObject
-					.getJsonObject(META_OBJECT);
-
-			// We have an error :-(
-			if (innerErrorObject.has(ERROR_ATTRIBUTE_NAME)) {
-				// If there's an Integer error code, pluck it out.
-				final Integer errorCode = innerErrorObject
-						.has(ERROR_CODE_ATTRIBUTE_NAME) ? toInteger(innerErrorObject
-						.getString(ERROR_CODE_ATTRIBUTE_NAME)) : null;
-				final String errorType = innerErrorObject
-						.getString(ERROR_TYPE_ATTRIBUTE_NAME);
-				final String errorMessage = innerErrorObject
-						.getString(ERROR_MESSAGE_ATTRIBUTE_NAME);
-				throw new InstagramException(String.format(
-						"Code '%s' Type: '%s' Message '%s'", errorCode,
-						errorType, errorMessage));
-			}
+			throwFacebookResponseStatusExceptionIfNecessary(new JsonObject(json));
 		}
 
 	}
 
+	/**
+	 * Throws an exception if the already parsed response is an Instagram error
+	 * response, i.e. its {@code meta} object has an {@code error_type}.
+	 * 
+	 * @param errorObject
+	 *            The parsed JSON returned by Instagram in response to an API
+	 *            call.
+	 */
+	protected void throwFacebookResponseStatusExceptionIfNecessary(
+			final JsonObject errorObject) {
+		throwMetaExceptionIfNecessary(errorObject.getJsonObject(META_OBJECT));
+	}
+
+	/**
+	 * Throws an exception if the {@code meta} object of a response has an
+	 * {@code error_type}.
+	 * 
+	 * @param innerErrorObject
+	 *            The {@code meta} object of a response.
+	 */
+	protected void throwMetaExceptionIfNecessary(
+			final JsonObject innerErrorObject) {
+		// We have an error :-(
+		if (innerErrorObject.has(ERROR_ATTRIBUTE_NAME)) {
+			// If there's an Integer error code, pluck it out.
+			final Integer errorCode = innerErrorObject
+					.has(ERROR_CODE_ATTRIBUTE_NAME) ? toInteger(innerErrorObject
+					.getString(ERROR_CODE_ATTRIBUTE_NAME)) : null;
+			final String errorType = innerErrorObject
+					.getString(ERROR_TYPE_ATTRIBUTE_NAME);
+			final String errorMessage = innerErrorObject
+					.getString(ERROR_MESSAGE_ATTRIBUTE_NAME);
+			throw new InstagramApiException(String.format(
+					"Code '%s' Type: '%s' Message '%s'", errorCode, errorType,
+					errorMessage), errorCode, errorType);
+		}
+	}
+
 	/**
 	 * Generate the parameter string to be included in the Instagram API
 	 * request.
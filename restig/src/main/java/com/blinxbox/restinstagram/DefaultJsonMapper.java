@@ -22,9 +22,7 @@
 
 package com.blinxbox.restinstagram;
 
-import static com.restfb.json.JsonObject.NULL;
 import static com.restfb.util.ReflectionUtils.findFieldsWithAnnotation;
-import static com.restfb.util.ReflectionUtils.getFirstParameterizedTypeArgument;
 import static com.restfb.util.StringUtils.isBlank;
 import static com.restfb.util.StringUtils.trimToEmpty;
 import static java.text.MessageFormat.format;
@@ -32,16 +30,31 @@ import static java.util.Collections.unmodifiableList;
 import static java.util.logging.Level.FINER;
 import static java.util.logging.Level.FINEST;
 
-import java.lang.reflect.Constructor;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.lang.reflect.Field;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.logging.Logger;
 
 import com.blinxbox.restinstagram.exception.InstagramJsonMappingException;
+import com.blinxbox.restinstagram.json.JsonReader;
+import com.blinxbox.restinstagram.json.JsonStreamReader;
+import com.blinxbox.restinstagram.json.JsonToken;
+import com.blinxbox.restinstagram.json.JsonTreeReader;
+import com.blinxbox.restinstagram.json.JsonWriter;
+import com.blinxbox.restinstagram.json.StringPool;
 import com.restfb.json.JsonArray;
+import com.restfb.json.JsonException;
 import com.restfb.json.JsonObject;
 import com.restfb.util.ReflectionUtils.FieldWithAnnotation;
 
@@ -58,6 +71,47 @@ public class DefaultJsonMapper implements JsonMapper {
 	 */
 	protected JsonMappingErrorHandler mJsonMappingErrorHandler;
 
+	/**
+	 * Mapping plans, built once per Java type on first use and shared by all
+	 * threads using this mapper.
+	 */
+	private final ConcurrentMap<Class<?>, TypeBinding<?>> mBindings = new ConcurrentHashMap<Class<?>, TypeBinding<?>>();
+
+	/**
+	 * {@code true} to defer mapping of {@link Lazy} fields until they are
+	 * used.
+	 */
+	private volatile boolean mDecodeLazily;
+
+	/**
+	 * Pool used for the string fields of every type, unless overridden per
+	 * type or field. {@code null} if strings are not pooled by default.
+	 */
+	private volatile StringPool mDefaultStringPool;
+
+	/**
+	 * Pools used for all the string fields of a type.
+	 */
+	private final ConcurrentMap<Class<?>, StringPool> mTypeStringPools = new ConcurrentHashMap<Class<?>, StringPool>();
+
+	/**
+	 * Pools used for single string fields, by type and JSON attribute name.
+	 */
+	private final ConcurrentMap<Class<?>, ConcurrentMap<String, StringPool>> mFieldStringPools = new ConcurrentHashMap<Class<?>, ConcurrentMap<String, StringPool>>();
+
+	/**
+	 * {@code true} if a subclass overrides {@link #createInstance(Class)},
+	 * which then creates every mapped instance.
+	 */
+	private final boolean mCustomInstances;
+
+	/**
+	 * {@code true} if a subclass overrides
+	 * {@link #toJavaType(FieldWithAnnotation, JsonObject, String)}, which
+	 * then converts every annotated field.
+	 */
+	private final boolean mCustomFieldTypes;
+
 	/**
 	 * Logger.
 	 */
@@ -101,10 +155,40 @@ public class DefaultJsonMapper implements JsonMapper {
 		}
 
 		this.mJsonMappingErrorHandler = jsonMappingErrorHandler;
+		mCustomInstances = overrides("createInstance", Class.class);
+		mCustomFieldTypes = overrides("toJavaType", FieldWithAnnotation.class,
+				JsonObject.class, String.class);
+	}
+
+	/**
+	 * @param name
+	 *            Name of a protected method of this class.
+	 * @param parameterTypes
+	 *            Its parameter types.
+	 * @return {@code true} if a subclass overrides it.
+	 */
+	private boolean overrides(final String name,
+			final Class<?>... parameterTypes) {
+		for (Class<?> type = getClass(); !DefaultJsonMapper.class
+				.equals(type); type = type.getSuperclass()) {
+			try {
+				type.getDeclaredMethod(name, parameterTypes);
+				return true;
+			} catch (final NoSuchMethodException e) {
+				// Not in this class, look further up.
+			}
+		}
+		return false;
 	}
 
 	@Override
-	public <T> List<T> toJavaList(String json, final Class<T> type) {
+	public <T> List<T> toJavaList(final String json, final Class<T> type) {
+		return toJavaList(json, type, null);
+	}
+
+	@Override
+	public <T> List<T> toJavaList(String json, final Class<T> type,
+			final Projection projection) {
 		if (type == null) {
 			throw new InstagramJsonMappingException(
 					"You must specify the Java type to map to.");
@@ -120,34 +204,71 @@ public class DefaultJsonMapper implements JsonMapper {
 					"JSON is an empty string - can't map it.");
 		}
 
-		List<T> list = new ArrayList<T>();
 		try {
+			return readElements(new JsonStreamReader(json), type, null,
+					projection);
+		} catch (final InstagramJsonMappingException e) {
+			throw e;
+		} catch (final Exception e) {
+			return handleListError(json, type, e);
+		}
+	}
+
+	@Override
+	public <T> List<T> toJavaList(final JsonArray jsonArray, final Class<T> type) {
+		if (type == null) {
+			throw new InstagramJsonMappingException(
+					"You must specify the Java type to map to.");
+		}
 
-			final JsonArray jsonArray = new JsonArray(json);
-			for (int i = 0; i < jsonArray.length(); i++) {
-				list.add(toJavaObject(jsonArray.get(i).toString(), type));
+		if (jsonArray == null) {
+			if (mJsonMappingErrorHandler.handleMappingError(null, type, null)) {
+				return null;
 			}
+			throw new InstagramJsonMappingException(
+					"JSON array is null - can't map it.");
+		}
 
-			list = unmodifiableList(list);
+		try {
+			return readElements(new JsonTreeReader(jsonArray), type, null,
+					null);
 		} catch (final InstagramJsonMappingException e) {
 			throw e;
 		} catch (final Exception e) {
-			if (mJsonMappingErrorHandler.handleMappingError(json, type, e)) {
-				list = null;
-			} else {
-				throw new InstagramJsonMappingException(
-						"Unable to convert Instagram response "
-								+ "JSON to a list of " + type.getName()
-								+ " instances", e);
-			}
+			return handleListError(jsonArray.toString(), type, e);
 		}
+	}
 
-		return list;
+	@Override
+	public <T> List<T> toJavaList(final JsonReader reader, final Class<T> type) {
+		return toJavaList(reader, type, null);
+	}
+
+	@Override
+	public <T> List<T> toJavaList(final JsonReader reader,
+			final Class<T> type, final Projection projection) {
+		if (type == null) {
+			throw new InstagramJsonMappingException(
+					"You must specify the Java type to map to.");
+		}
+
+		try {
+			return readList(reader, type, null, projection);
+		} catch (final IOException e) {
+			throw new InstagramJsonMappingException(
+					"Unable to read Instagram response JSON", e);
+		}
 	}
 
 	@Override
-	@SuppressWarnings("unchecked")
 	public <T> T toJavaObject(final String json, final Class<T> type) {
+		return toJavaObject(json, type, null);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> T toJavaObject(final String json, final Class<T> type,
+			final Projection projection) {
 		if (isBlank(json)) {
 			return handleError(json, type,
 					"JSON is an empty string - can't map it.", null);
@@ -169,66 +290,559 @@ public class DefaultJsonMapper implements JsonMapper {
 				return (T) new JsonObject(json);
 			}
 
-			final List<FieldWithAnnotation<Instagram>> fieldsWithAnnotation = findFieldsWithAnnotation(
-					type, Instagram.class);
+			final TypeBinding<T> binding = bindingFor(type);
 			// If there are no annotated fields, assume we're mapping to a
 			// built-in
 			// type. If this is actually the empty object, just return a new
 			// instance
 			// of the corresponding Java type.
-			if (fieldsWithAnnotation.size() == 0) {
+			if (!binding.isAnnotated()) {
 				if (isEmptyObject(json)) {
-					return createInstance(type);
+					return createInstance(binding);
 				} else {
 					return toPrimitiveJavaType(json, type);
 				}
 			}
 
-			final JsonObject jsonObject = new JsonObject(json);
-			final T instance = createInstance(type);
-
-			// For each Instagram-annotated field on the current Java object,
-			// pull data
-			// out of the JSON object and put it in the Java object
-			for (final FieldWithAnnotation<Instagram> fieldWithAnnotation : fieldsWithAnnotation) {
-				final String instagramFieldName = getInstagramFieldName(fieldWithAnnotation);
-
-				if (!jsonObject.has(instagramFieldName)) {
-					if (LOGGER.isLoggable(FINER)) {
-						LOGGER.finer(format(
-								"No JSON value present for ''{0}'', skipping. JSON is ''{1}''.",
-								instagramFieldName, json));
-					}
-
-					continue;
-				}
+			// Stream the fields straight out of the text, no tree is built.
+			return readObjectValue(new JsonStreamReader(json), type,
+					projection, null);
+		} catch (final InstagramJsonMappingException exception) {
+			throw exception;
+		} catch (final Exception exception) {
+			return handleError(
+					json,
+					type,
+					format("Unable to map JSON to Java. Offending JSON is ''{0}''.",
+							json), exception);
 
-				fieldWithAnnotation.getField().setAccessible(true);
+		}
+	}
 
-				try {
-					fieldWithAnnotation.getField().set(
-							instance,
-							toJavaType(fieldWithAnnotation, jsonObject,
-									instagramFieldName));
-				} catch (final Exception e) {
-					if (!mJsonMappingErrorHandler.handleMappingError(json,
-							type, e)) {
-						throw e;
-					}
-				}
-			}
+	@Override
+	public <T> T toJavaObject(final JsonObject jsonObject, final Class<T> type) {
+		if (jsonObject == null) {
+			return handleError(null, type, "JSON object is null - can't map it.",
+					null);
+		}
 
-			return instance;
+		try {
+			return readObjectValue(new JsonTreeReader(jsonObject), type, null,
+					null);
 		} catch (final InstagramJsonMappingException exception) {
 			throw exception;
 		} catch (final Exception exception) {
+			final String json = jsonObject.toString();
 			return handleError(
 					json,
 					type,
 					format("Unable to map JSON to Java. Offending JSON is ''{0}''.",
 							json), exception);
+		}
+	}
+
+	@Override
+	public <T> T toJavaObject(final JsonReader reader, final Class<T> type) {
+		return toJavaObject(reader, type, null);
+	}
+
+	@Override
+	public <T> T toJavaObject(final JsonReader reader, final Class<T> type,
+			final Projection projection) {
+		try {
+			return readObject(reader, type, projection);
+		} catch (final IOException e) {
+			throw new InstagramJsonMappingException(
+					"Unable to read Instagram response JSON", e);
+		}
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> T mapInto(final JsonReader reader, final T target,
+			final Projection projection) {
+		if (target == null) {
+			throw new InstagramJsonMappingException(
+					"You must specify the instance to map into.");
+		}
+
+		try {
+			return readObject(reader, (Class<T>) target.getClass(),
+					projection, target);
+		} catch (final IOException e) {
+			throw new InstagramJsonMappingException(
+					"Unable to read Instagram response JSON", e);
+		}
+	}
+
+	/**
+	 * Maps the next value of {@code reader} to {@code type}, consulting the
+	 * error handler if it cannot be mapped. The reader is always left after
+	 * the value.
+	 * 
+	 * @param <T>
+	 *            Java type to map to.
+	 * @param reader
+	 *            The token source.
+	 * @param type
+	 *            Type token.
+	 * @param projection
+	 *            Fields to map, {@code null} for all.
+	 * @return The mapped value, or {@code null} if the error handler chose to
+	 *         continue after a failure.
+	 * @throws IOException
+	 *             If the input cannot be read.
+	 */
+	<T> T readObject(final JsonReader reader, final Class<T> type,
+			final Projection projection) throws IOException {
+		return readObject(reader, type, projection, null);
+	}
+
+	/**
+	 * Like {@link #readObject(JsonReader, Class, Projection)}, mapping into
+	 * {@code reuse} if it is given.
+	 * 
+	 * @param <T>
+	 *            Java type to map to.
+	 * @param reader
+	 *            The token source.
+	 * @param type
+	 *            Type token.
+	 * @param projection
+	 *            Fields to map, {@code null} for all.
+	 * @param reuse
+	 *            Instance of {@code type} with annotated fields to map into,
+	 *            or {@code null} to create one.
+	 * @return The mapped value, or {@code null} if the error handler chose to
+	 *         continue after a failure.
+	 * @throws IOException
+	 *             If the input cannot be read.
+	 */
+	private <T> T readObject(final JsonReader reader, final Class<T> type,
+			final Projection projection, final Object reuse)
+			throws IOException {
+		final int depth = reader.getDepth();
+		try {
+			return readObjectValue(reader, type, projection, reuse);
+		} catch (final InstagramJsonMappingException exception) {
+			throw exception;
+		} catch (final IOException exception) {
+			throw exception;
+		} catch (final Exception exception) {
+			reader.skipToDepth(depth);
+			return handleError(reader.getSourceJson(), type,
+					"Unable to map JSON to Java.", exception);
+		}
+	}
+
+	/**
+	 * Maps the next value of {@code reader} to {@code type}. This is the core
+	 * of the mapping engine; tree, text and stream input all go through it.
+	 * 
+	 * @param <T>
+	 *            Java type to map to.
+	 * @param reader
+	 *            The token source.
+	 * @param type
+	 *            Type token.
+	 * @param projection
+	 *            Fields to map, {@code null} for all. Members outside of it
+	 *            are skipped.
+	 * @param reuse
+	 *            Instance with annotated fields to map into, or {@code null}
+	 *            to create one. See
+	 *            {@link #mapInto(JsonReader, Object, Projection)}.
+	 * @return The mapped value.
+	 * @throws Exception
+	 *             If the value cannot be mapped. The value is consumed before
+	 *             an exception is thrown.
+	 */
+	@SuppressWarnings("unchecked")
+	private <T> T readObjectValue(final JsonReader reader,
+			final Class<T> type, final Projection projection,
+			final Object reuse) throws Exception {
+		final JsonToken token = reader.peek();
+		if (token == JsonToken.NULL) {
+			reader.nextNull();
+			return null;
+		}
+
+		if (token == JsonToken.BEGIN_ARRAY) {
+			reader.skipValue();
+			return handleError(
+					reader.getSourceJson(),
+					type,
+					"JSON is an array but is being mapped as an object - you should map it as a List instead.",
+					null);
+		}
+
+		// Are we asked to map to JsonObject? If so, short-circuit right away.
+		if (type.equals(JsonObject.class)) {
+			if (token != JsonToken.BEGIN_OBJECT) {
+				reader.skipValue();
+				throw new JsonException("Expected an object but was " + token);
+			}
+			return (T) reader.readJsonValue();
+		}
+
+		final TypeBinding<T> binding = reuse != null ? (TypeBinding<T>) bindingFor(reuse
+				.getClass()) : bindingFor(type);
+		// If there are no annotated fields, assume we're mapping to a built-in
+		// type. If this is actually the empty object, just return a new
+		// instance of the corresponding Java type.
+		if (!binding.isAnnotated()) {
+			if (token == JsonToken.BEGIN_OBJECT) {
+				final JsonObject jsonObject = (JsonObject) reader
+						.readJsonValue();
+				if (jsonObject.length() == 0) {
+					return createInstance(binding);
+				}
+				return toPrimitiveJavaType(jsonObject.toString(), type);
+			}
+			return toPrimitiveJavaType(reader.nextString(), type);
+		}
+
+		if (token != JsonToken.BEGIN_OBJECT) {
+			reader.skipValue();
+			throw new JsonException("Expected an object but was " + token);
+		}
+
+		if (reuse != null) {
+			return readInto(reader, (T) reuse, binding, projection);
+		}
+
+		final T instance = createInstance(binding);
+
+		// For each member that maps to an Instagram-annotated field on the
+		// current Java object, pull the value out of the stream and put it in
+		// the Java object. Everything else is skipped without being
+		// materialized, as is every member the projection leaves out. Types
+		// with a generated mapper skip the reflective bindings, except for
+		// members the projection selects in part.
+		final InstagramTypeMapper<T> mapper = mCustomFieldTypes ? null
+				: binding.mapper;
+		reader.beginObject();
+		while (reader.hasNext()) {
+			final String instagramFieldName = reader.nextName();
+			final int depth = reader.getDepth();
+			try {
+				if (projection != null
+						&& !projection.includes(instagramFieldName)) {
+					reader.skipValue();
+					continue;
+				}
+				final Projection fieldProjection = projection == null ? null
+						: projection.child(instagramFieldName);
+
+				if (mapper != null && fieldProjection == null) {
+					if (!mapper.readField(instance, instagramFieldName, reader,
+							binding.context)) {
+						reader.skipValue();
+					}
+					continue;
+				}
+
+				final FieldBinding fieldBinding = binding
+						.field(instagramFieldName);
+				if (fieldBinding == null) {
+					reader.skipValue();
+					continue;
+				}
+				readFieldInto(instance, reader, fieldBinding, fieldProjection);
+			} catch (final IOException e) {
+				throw e;
+			} catch (final Exception e) {
+				skipMemberValue(reader, depth);
+				if (!mJsonMappingErrorHandler.handleMappingError(
+						reader.getSourceJson(), type, e)) {
+					throw e;
+				}
+			}
+		}
+		reader.endObject();
+
+		return instance;
+	}
+
+	/**
+	 * Maps the members of the object at {@code reader} into an existing
+	 * instance. Fields are written through the reflective bindings so nested
+	 * objects can be mapped into the instances the fields already hold;
+	 * fields without a member get their initial values back.
+	 * 
+	 * @param <T>
+	 *            The type of the instance.
+	 * @param reader
+	 *            The token source, positioned at the object.
+	 * @param instance
+	 *            The instance to map into.
+	 * @param binding
+	 *            The plan of the instance's type.
+	 * @param projection
+	 *            Fields to map, {@code null} for all.
+	 * @return {@code instance}.
+	 * @throws Exception
+	 *             If the value cannot be mapped. The value is consumed before
+	 *             an exception is thrown.
+	 */
+	private <T> T readInto(final JsonReader reader, final T instance,
+			final TypeBinding<T> binding, final Projection projection)
+			throws Exception {
+		// Flags of the mapped fields; an array only for very wide types.
+		long assigned = 0L;
+		final boolean[] moreAssigned = binding.fields.size() > Long.SIZE ? new boolean[binding.fields
+				.size()] : null;
+
+		reader.beginObject();
+		while (reader.hasNext()) {
+			final String instagramFieldName = reader.nextName();
+			final int depth = reader.getDepth();
+			try {
+				final FieldBinding fieldBinding = binding
+						.field(instagramFieldName);
+				if (fieldBinding == null
+						|| (projection != null && !projection
+								.includes(instagramFieldName))) {
+					reader.skipValue();
+					continue;
+				}
+				final Projection fieldProjection = projection == null ? null
+						: projection.child(instagramFieldName);
+
+				final Object current = fieldBinding.kind == FieldBinding.Kind.OBJECT
+						&& !mCustomFieldTypes ? fieldBinding.get(instance)
+						: null;
+				if (current != null) {
+					fieldBinding.set(instance,
+							readReused(reader, fieldBinding, current,
+									fieldProjection));
+				} else {
+					readFieldInto(instance, reader, fieldBinding,
+							fieldProjection);
+				}
+
+				if (moreAssigned != null) {
+					moreAssigned[fieldBinding.index] = true;
+				} else {
+					assigned |= 1L << fieldBinding.index;
+				}
+			} catch (final IOException e) {
+				throw e;
+			} catch (final Exception e) {
+				skipMemberValue(reader, depth);
+				if (!mJsonMappingErrorHandler.handleMappingError(
+						reader.getSourceJson(), binding.type, e)) {
+					throw e;
+				}
+			}
+		}
+		reader.endObject();
+
+		binding.reset(instance, assigned, moreAssigned);
+		return instance;
+	}
+
+	/**
+	 * Reads the value of a field that holds an object, mapping into that
+	 * object when it is a mapped type, directly or through a decoded
+	 * {@link Lazy}.
+	 * 
+	 * @param reader
+	 *            The token source, positioned at the field value.
+	 * @param fieldBinding
+	 *            The binding of the field.
+	 * @param current
+	 *            The current value of the field.
+	 * @param projection
+	 *            Fields of the value to map, {@code null} for all.
+	 * @return The new value of the field.
+	 * @throws IOException
+	 *             If the input cannot be read.
+	 */
+	private Object readReused(final JsonReader reader,
+			final FieldBinding fieldBinding, final Object current,
+			final Projection projection) throws IOException {
+		if (reader.peek() == JsonToken.NULL) {
+			reader.nextNull();
+			return null;
+		}
+
+		if (current instanceof Lazy<?>) {
+			final Lazy<?> lazy = (Lazy<?>) current;
+			// Deferred values keep their own copy of the JSON.
+			if (mDecodeLazily || !lazy.isDecoded() || !isReusable(lazy.get())) {
+				return readField(reader, fieldBinding, projection);
+			}
+			final Object value = lazy.get();
+			final Object mapped = readObject(reader, fieldBinding.valueType,
+					projection, value);
+			return mapped == value ? lazy : Lazy.of(mapped);
+		}
+
+		if (!isReusable(current)) {
+			return readField(reader, fieldBinding, projection);
+		}
+		return readObject(reader, fieldBinding.type, projection, current);
+	}
+
+	/**
+	 * @param value
+	 *            A field value, may be {@code null}.
+	 * @return {@code true} if {@code value} is an instance of a type with
+	 *         {@link Instagram}-annotated fields.
+	 */
+	private boolean isReusable(final Object value) {
+		return value != null && !(value instanceof String)
+				&& !(value instanceof List<?>)
+				&& bindingFor(value.getClass()).isAnnotated();
+	}
+
+	/**
+	 * Moves {@code reader} past the value of the member whose mapping failed,
+	 * whether the failure happened before, inside or after reading it.
+	 * 
+	 * @param reader
+	 *            The token source.
+	 * @param depth
+	 *            Depth of the object that owns the member.
+	 * @throws IOException
+	 *             If the input cannot be read.
+	 */
+	private void skipMemberValue(final JsonReader reader, final int depth)
+			throws IOException {
+		reader.skipToDepth(depth);
+		final JsonToken token = reader.peek();
+		if (token != JsonToken.NAME && token != JsonToken.END_OBJECT
+				&& token != JsonToken.END_DOCUMENT) {
+			reader.skipValue();
+		}
+	}
+
+	/**
+	 * Maps the next value of {@code reader}, which must be an array, to a list
+	 * of {@code type}, consulting the error handler if it cannot be mapped.
+	 * 
+	 * @param <T>
+	 *            Java type to map to for each element of the list.
+	 * @param reader
+	 *            The token source.
+	 * @param type
+	 *            Type token.
+	 * @return The mapped list, or {@code null} if the error handler chose to
+	 *         continue after a failure.
+	 * @throws IOException
+	 *             If the input cannot be read.
+	 */
+	<T> List<T> readList(final JsonReader reader, final Class<T> type)
+			throws IOException {
+		return readList(reader, type, null, null);
+	}
+
+	/**
+	 * Like {@link #readList(JsonReader, Class)}, canonicalizing string
+	 * elements with {@code stringPool} and mapping only the projected fields
+	 * of each element.
+	 * 
+	 * @param <T>
+	 *            Java type to map to for each element of the list.
+	 * @param reader
+	 *            The token source.
+	 * @param type
+	 *            Type token.
+	 * @param stringPool
+	 *            Pool for string elements, or {@code null}.
+	 * @param projection
+	 *            Fields of each element to map, {@code null} for all.
+	 * @return The mapped list, or {@code null} if the error handler chose to
+	 *         continue after a failure.
+	 * @throws IOException
+	 *             If the input cannot be read.
+	 */
+	<T> List<T> readList(final JsonReader reader, final Class<T> type,
+			final StringPool stringPool, final Projection projection)
+			throws IOException {
+		final int depth = reader.getDepth();
+		try {
+			return readElements(reader, type, stringPool, projection);
+		} catch (final InstagramJsonMappingException e) {
+			throw e;
+		} catch (final IOException e) {
+			throw e;
+		} catch (final Exception e) {
+			reader.skipToDepth(depth);
+			return handleListError(reader.getSourceJson(), type, e);
+		}
+	}
+
+	/**
+	 * Maps the elements of the next value of {@code reader}, which must be an
+	 * array.
+	 * 
+	 * @param <T>
+	 *            Java type to map to for each element of the list.
+	 * @param reader
+	 *            The token source.
+	 * @param type
+	 *            Type token.
+	 * @param stringPool
+	 *            Pool for string elements, or {@code null}.
+	 * @param projection
+	 *            Fields of each element to map, {@code null} for all.
+	 * @return An unmodifiable list of the mapped elements.
+	 * @throws IOException
+	 *             If the input cannot be read.
+	 */
+	@SuppressWarnings("unchecked")
+	private <T> List<T> readElements(final JsonReader reader,
+			final Class<T> type, final StringPool stringPool,
+			final Projection projection) throws IOException {
+		final JsonToken token = reader.peek();
+		if (token != JsonToken.BEGIN_ARRAY) {
+			reader.skipValue();
+			throw new JsonException("Expected an array but was " + token);
+		}
 
+		final List<T> list = new ArrayList<T>();
+		reader.beginArray();
+		final boolean pooled = stringPool != null && String.class.equals(type);
+		while (reader.hasNext()) {
+			if (pooled && reader.peek() == JsonToken.STRING) {
+				list.add((T) reader.nextString(stringPool));
+			} else {
+				list.add(readObject(reader, type, projection));
+			}
 		}
+		reader.endArray();
+
+		return unmodifiableList(list);
+	}
+
+	/**
+	 * Check whether an external error handler wants to handle a failure to
+	 * map a list.
+	 * 
+	 * @param <T>
+	 *            - Type of the list elements.
+	 * @param json
+	 *            - Json string that failed, if available.
+	 * @param type
+	 *            - Type of the list elements.
+	 * @param exception
+	 *            - The failure.
+	 * @return Null in case the external error handler handles the error,
+	 *         otherwise an exception is thrown.
+	 * @throws InstagramJsonMappingException
+	 *             - Error while parsing Json.
+	 */
+	private <T> List<T> handleListError(final String json,
+			final Class<T> type, final Exception exception)
+			throws InstagramJsonMappingException {
+		if (mJsonMappingErrorHandler.handleMappingError(json, type, exception)) {
+			return null;
+		}
+		throw new InstagramJsonMappingException(
+				"Unable to convert Instagram response " + "JSON to a list of "
+						+ type.getName() + " instances", exception);
 	}
 
 	/**
@@ -260,37 +874,6 @@ public class DefaultJsonMapper implements JsonMapper {
 		}
 	}
 
-	/**
-	 * Dumps out a log message when one of a multiple-mapped Instagram field
-	 * name JSON-to-Java mapping operation fails.
-	 * 
-	 * @param instagramFieldName
-	 *            The Instagram field name.
-	 * @param fieldWithAnnotation
-	 *            The Java field to map to and its annotation.
-	 * @param json
-	 *            The JSON that failed to map to the Java field.
-	 */
-	protected void logMultipleMappingFailedForField(
-			final String instagramFieldName,
-			final FieldWithAnnotation<Instagram> fieldWithAnnotation,
-			final String json) {
-		if (!LOGGER.isLoggable(FINER)) {
-			return;
-		}
-
-		final Field field = fieldWithAnnotation.getField();
-
-		if (LOGGER.isLoggable(FINER)) {
-			LOGGER.finer("Could not map '" + instagramFieldName + "' to "
-					+ field.getDeclaringClass().getSimpleName() + "."
-					+ field.getName() + ", but continuing on because '"
-					+ instagramFieldName + "' is mapped to multiple fields in "
-					+ field.getDeclaringClass().getSimpleName() + ". JSON is "
-					+ json);
-		}
-	}
-
 	/**
 	 * For a Java field annotated with the {@code Instagram} annotation, figure
 	 * out what the corresponding Instagram JSON field name to map to it is.
@@ -322,13 +905,157 @@ public class DefaultJsonMapper implements JsonMapper {
 
 	@Override
 	public String toJson(final Object object) {
-		throw new UnsupportedOperationException();
+		return toJson(object, false);
 	}
 
 	@Override
 	public String toJson(final Object object,
 			final boolean ignoreNullValuedProperties) {
-		throw new UnsupportedOperationException();
+		final StringBuilder json = new StringBuilder();
+		try {
+			toJson(object, ignoreNullValuedProperties, json);
+		} catch (final IOException e) {
+			// Can't happen, a StringBuilder never fails.
+			throw new InstagramJsonMappingException("Unable to convert "
+					+ object + " to JSON", e);
+		}
+		return json.toString();
+	}
+
+	@Override
+	public void toJson(final Object object,
+			final boolean ignoreNullValuedProperties, final Appendable out)
+			throws IOException {
+		try {
+			writeValue(new JsonWriter(out), object, ignoreNullValuedProperties);
+		} catch (final IOException e) {
+			throw e;
+		} catch (final InstagramJsonMappingException e) {
+			throw e;
+		} catch (final Exception e) {
+			throw new InstagramJsonMappingException("Unable to convert "
+					+ object + " to JSON", e);
+		}
+	}
+
+	@Override
+	public void toJson(final Object object,
+			final boolean ignoreNullValuedProperties, final OutputStream out)
+			throws IOException {
+		final Writer writer = new BufferedWriter(new OutputStreamWriter(out,
+				"UTF-8"));
+		toJson(object, ignoreNullValuedProperties, writer);
+		writer.flush();
+	}
+
+	/**
+	 * Writes {@code value} and, recursively, everything it references.
+	 * 
+	 * @param writer
+	 *            The target.
+	 * @param value
+	 *            The value to write.
+	 * @param ignoreNullValuedProperties
+	 *            If {@code true}, members with {@code null} values are left
+	 *            out.
+	 * @throws Exception
+	 *             If a field cannot be read or the target cannot be written.
+	 */
+	private void writeValue(final JsonWriter writer, final Object value,
+			final boolean ignoreNullValuedProperties) throws Exception {
+		if (value == null) {
+			writer.nullValue();
+		} else if (value instanceof String) {
+			writer.value((String) value);
+		} else if (value instanceof Number) {
+			writer.value((Number) value);
+		} else if (value instanceof Boolean) {
+			writer.value(((Boolean) value).booleanValue());
+		} else if (value instanceof Character) {
+			writer.value(value.toString());
+		} else if (value instanceof Enum<?>) {
+			writer.value(((Enum<?>) value).name());
+		} else if (value instanceof JsonObject || value instanceof JsonArray) {
+			writer.rawValue(value.toString());
+		} else if (value instanceof Lazy<?>) {
+			// Decoded so only annotated fields are written, as for eager
+			// values.
+			writeValue(writer, ((Lazy<?>) value).get(),
+					ignoreNullValuedProperties);
+		} else if (value instanceof Collection<?>) {
+			writer.beginArray();
+			for (final Object element : (Collection<?>) value) {
+				writeValue(writer, element, ignoreNullValuedProperties);
+			}
+			writer.endArray();
+		} else if (value instanceof Map<?, ?>) {
+			writer.beginObject();
+			for (final Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+				if (entry.getValue() == null && ignoreNullValuedProperties) {
+					continue;
+				}
+				writer.name(String.valueOf(entry.getKey()));
+				writeValue(writer, entry.getValue(), ignoreNullValuedProperties);
+			}
+			writer.endObject();
+		} else {
+			// Some other type - write its annotated fields. Types without
+			// any become the empty object.
+			writeFields(writer, value, bindingFor(value.getClass()),
+					ignoreNullValuedProperties);
+		}
+	}
+
+	/**
+	 * Writes the {@link Instagram}-annotated fields of {@code object} as a JSON
+	 * object. Primitive fields are read through their typed accessors.
+	 * 
+	 * @param writer
+	 *            The target.
+	 * @param object
+	 *            The object to write.
+	 * @param binding
+	 *            The mapping plan of its type.
+	 * @param ignoreNullValuedProperties
+	 *            If {@code true}, fields with {@code null} values are left
+	 *            out.
+	 * @throws Exception
+	 *             If a field cannot be read or the target cannot be written.
+	 */
+	private void writeFields(final JsonWriter writer, final Object object,
+			final TypeBinding<?> binding,
+			final boolean ignoreNullValuedProperties) throws Exception {
+		writer.beginObject();
+		for (final FieldBinding field : binding.fields) {
+			// Only the field that wins when mapping is written back.
+			if (binding.field(field.jsonName) != field) {
+				continue;
+			}
+
+			switch (field.kind) {
+			case INT:
+				writer.name(field.jsonName).value(field.getInt(object));
+				break;
+			case LONG:
+				writer.name(field.jsonName).value(field.getLong(object));
+				break;
+			case BOOLEAN:
+				writer.name(field.jsonName).value(field.getBoolean(object));
+				break;
+			case DOUBLE:
+				writer.name(field.jsonName).value(field.getDouble(object));
+				break;
+			default:
+				final Object value = field.get(object);
+				if (value == null && ignoreNullValuedProperties) {
+					break;
+				}
+				writer.name(field.jsonName);
+				writeValue(writer, value, ignoreNullValuedProperties);
+				break;
+			}
+		}
+		writer.endObject();
 	}
 
 	/**
@@ -366,19 +1093,19 @@ public class DefaultJsonMapper implements JsonMapper {
 		}
 
 		if (Integer.class.equals(type) || Integer.TYPE.equals(type)) {
-			return (T) new Integer(json);
+			return (T) Integer.valueOf(json);
 		}
 		if (Boolean.class.equals(type) || Boolean.TYPE.equals(type)) {
-			return (T) new Boolean(json);
+			return (T) Boolean.valueOf(json);
 		}
 		if (Long.class.equals(type) || Long.TYPE.equals(type)) {
-			return (T) new Long(json);
+			return (T) Long.valueOf(json);
 		}
 		if (Double.class.equals(type) || Double.TYPE.equals(type)) {
-			return (T) new Double(json);
+			return (T) Double.valueOf(json);
 		}
 		if (Float.class.equals(type) || Float.TYPE.equals(type)) {
-			return (T) new Float(json);
+			return (T) Float.valueOf(json);
 		}
 		if (BigInteger.class.equals(type)) {
 			return (T) new BigInteger(json);
@@ -397,100 +1124,452 @@ public class DefaultJsonMapper implements JsonMapper {
 	}
 
 	/**
-	 * Extracts JSON data for a field according to its {@code Instagram}
-	 * annotation and returns it converted to the proper Java type.
+	 * Reads the next value of {@code reader} into the field bound by
+	 * {@code fieldBinding}. Primitive fields with a typed setter are read and
+	 * written without boxing.
 	 * 
-	 * @param fieldWithAnnotation
-	 *            The field/annotation pair which specifies what Java type to
-	 *            convert to.
-	 * @param jsonObject
-	 *            "Raw" JSON object to pull data from.
-	 * @param instagramFieldName
-	 *            Specifies what JSON field to pull "raw" data from.
+	 * @param instance
+	 *            The object that owns the field.
+	 * @param reader
+	 *            The token source, positioned at the field value.
+	 * @param fieldBinding
+	 *            The precompiled field binding.
+	 * @param projection
+	 *            Fields of the value to map, {@code null} for all.
+	 * @throws Exception
+	 *             If the value cannot be read or written.
+	 */
+	private void readFieldInto(final Object instance, final JsonReader reader,
+			final FieldBinding fieldBinding, final Projection projection)
+			throws Exception {
+		if (mCustomFieldTypes) {
+			// The overridden hook converts from a tree holding the member,
+			// its boxed result is written reflectively.
+			final JsonObject jsonObject = new JsonObject();
+			jsonObject.put(fieldBinding.jsonName, reader.readJsonValue());
+			fieldBinding.field.set(instance, toJavaType(
+					new FieldWithAnnotation<Instagram>(fieldBinding.field,
+							fieldBinding.field.getAnnotation(Instagram.class)),
+					jsonObject, fieldBinding.jsonName));
+			return;
+		}
+		switch (fieldBinding.kind) {
+		case INT:
+			fieldBinding.setInt(instance, reader.nextInt());
+			break;
+		case LONG:
+			fieldBinding.setLong(instance, reader.nextLong());
+			break;
+		case BOOLEAN:
+			fieldBinding.setBoolean(instance, reader.nextBoolean());
+			break;
+		case DOUBLE:
+			fieldBinding.setDouble(instance, reader.nextDouble());
+			break;
+		default:
+			fieldBinding.set(instance,
+					readField(reader, fieldBinding, projection));
+			break;
+		}
+	}
+
+	/**
+	 * Reads the next value of {@code reader} for a field according to its
+	 * {@code Instagram} annotation and returns it converted to the proper Java
+	 * type.
+	 * 
+	 * @param reader
+	 *            The token source, positioned at the field value.
+	 * @param fieldBinding
+	 *            The precompiled field binding which specifies what Java type
+	 *            to convert to.
+	 * @param projection
+	 *            Fields of the value to map, {@code null} for all.
 	 * @return A new object that represent the appropriate java type.
-	 * @throws InstagramJsonMappingException
-	 *             If an error occurs while mapping JSON to Java.
+	 * @throws IOException
+	 *             If the input cannot be read.
 	 */
-	protected Object toJavaType(
-			final FieldWithAnnotation<Instagram> fieldWithAnnotation,
-			final JsonObject jsonObject, final String instagramFieldName)
-			throws InstagramJsonMappingException {
-		final Class<?> type = fieldWithAnnotation.getField().getType();
-		final Object rawValue = jsonObject.get(instagramFieldName);
+	Object readField(final JsonReader reader,
+			final FieldBinding fieldBinding, final Projection projection)
+			throws IOException {
+		if (Lazy.class.equals(fieldBinding.type)) {
+			return readLazy(reader, fieldBinding, projection);
+		}
+		return readValue(reader, fieldBinding.type, fieldBinding.elementType,
+				fieldBinding.stringPool, projection);
+	}
 
-		// Short-circuit right off the bat if we've got a null value.
-		if (NULL.equals(rawValue)) {
+	/**
+	 * Reads the value of a {@link Lazy} field. In lazy mode only the JSON of
+	 * the value is captured, otherwise it is mapped right away.
+	 * 
+	 * @param reader
+	 *            The token source, positioned at the field value.
+	 * @param fieldBinding
+	 *            The binding of the field.
+	 * @param projection
+	 *            Fields of the value to map, {@code null} for all.
+	 * @return The holder, or {@code null} for a JSON null.
+	 * @throws IOException
+	 *             If the input cannot be read.
+	 */
+	Lazy<?> readLazy(final JsonReader reader,
+			final FieldBinding fieldBinding, final Projection projection)
+			throws IOException {
+		if (reader.peek() == JsonToken.NULL) {
+			reader.nextNull();
+			return null;
+		}
+		if (mDecodeLazily) {
+			return Lazy.deferred(this, reader.nextRawValue(),
+					fieldBinding.valueType, fieldBinding.elementType,
+					fieldBinding.stringPool, projection);
+		}
+		return Lazy.of(readValue(reader, fieldBinding.valueType,
+				fieldBinding.elementType, fieldBinding.stringPool, projection));
+	}
+
+	/**
+	 * Reads the next value of {@code reader} as a string. Objects and arrays
+	 * are returned as their JSON text.
+	 * 
+	 * @param reader
+	 *            The token source, positioned at the value.
+	 * @param stringPool
+	 *            Pool to canonicalize scalar values with, or {@code null}.
+	 * @return The string, or {@code null} for a JSON null.
+	 * @throws IOException
+	 *             If the input cannot be read.
+	 */
+	String readString(final JsonReader reader, final StringPool stringPool)
+			throws IOException {
+		final JsonToken token = reader.peek();
+		if (token == JsonToken.NULL) {
+			reader.nextNull();
 			return null;
 		}
 
-		if (String.class.equals(type)) {
-			// Special handling here for better error checking.
-			// Since JsonObject.getString() will return literal JSON text even
-			// if it's
-			// _not_ a JSON string, we check the marshaled type and bail if
-			// needed.
-			// For example, calling JsonObject.getString("results") on the below
-			// JSON...
-			// {"results":[{"name":"Mark Allen"}]}
-			// ... would return the string "[{"name":"Mark Allen"}]" instead of
-			// throwing an error. So we throw the error ourselves.
-
-			// Per Antonello Naccarato, sometimes FB will return an empty JSON
-			// array
-			// instead of an empty string. Look for that here.
+		if (token == JsonToken.BEGIN_OBJECT || token == JsonToken.BEGIN_ARRAY) {
+			final Object rawValue = reader.readJsonValue();
+
+			// Per Antonello Naccarato, sometimes FB will return an empty
+			// JSON array instead of an empty string. Look for that here.
 			if (rawValue instanceof JsonArray) {
 				if (((JsonArray) rawValue).length() == 0
 						&& LOGGER.isLoggable(FINER)) {
 
 					LOGGER.finer("Coercing an empty JSON array "
-							+ "to an empty string for " + fieldWithAnnotation);
+							+ "to an empty string");
 
 					return "";
 				}
 			}
 
 			// If the user wants a string, _always_ give her a string.
-			// This is useful if, for example, you've got a @Instagram-annotated
-			// string
-			// field that you'd like to have a numeric type shoved into.
-			// User beware: this will turn *anything* into a string, which might
-			// lead
-			// to results you don't expect.
+			// User beware: this will turn *anything* into a string, which
+			// might lead to results you don't expect.
 			return rawValue.toString();
 		}
+		return stringPool == null ? reader.nextString() : reader
+				.nextString(stringPool);
+	}
+
+	/**
+	 * Reads the next value of {@code reader} and returns it converted to
+	 * {@code type}.
+	 * 
+	 * @param reader
+	 *            The token source, positioned at the value.
+	 * @param type
+	 *            The Java type to convert to.
+	 * @param elementType
+	 *            Element type if {@code type} is a {@link List}.
+	 * @param stringPool
+	 *            Pool for strings, or string elements of a list, or
+	 *            {@code null}.
+	 * @param projection
+	 *            Fields of the object, or of each element of a list, to map.
+	 *            {@code null} for all.
+	 * @return A new object that represent the appropriate java type.
+	 * @throws IOException
+	 *             If the input cannot be read.
+	 */
+	Object readValue(final JsonReader reader, final Class<?> type,
+			final Class<?> elementType, final StringPool stringPool,
+			final Projection projection) throws IOException {
+		final JsonToken token = reader.peek();
+
+		// Short-circuit right off the bat if we've got a null value.
+		if (token == JsonToken.NULL) {
+			reader.nextNull();
+			return null;
+		}
+
+		if (String.class.equals(type)) {
+			return readString(reader, stringPool);
+		}
 
 		if (Integer.class.equals(type) || Integer.TYPE.equals(type)) {
-			return new Integer(jsonObject.getInt(instagramFieldName));
+			return Integer.valueOf(reader.nextInt());
 		}
 		if (Boolean.class.equals(type) || Boolean.TYPE.equals(type)) {
-			return new Boolean(jsonObject.getBoolean(instagramFieldName));
+			return Boolean.valueOf(reader.nextBoolean());
 		}
 		if (Long.class.equals(type) || Long.TYPE.equals(type)) {
-			return new Long(jsonObject.getLong(instagramFieldName));
+			return Long.valueOf(reader.nextLong());
 		}
 		if (Double.class.equals(type) || Double.TYPE.equals(type)) {
-			return new Double(jsonObject.getDouble(instagramFieldName));
+			return Double.valueOf(reader.nextDouble());
 		}
 		if (Float.class.equals(type) || Float.TYPE.equals(type)) {
-			return new BigDecimal(jsonObject.getString(instagramFieldName))
-					.floatValue();
+			return new BigDecimal(reader.nextString()).floatValue();
 		}
 		if (BigInteger.class.equals(type)) {
-			return new BigInteger(jsonObject.getString(instagramFieldName));
+			return new BigInteger(reader.nextString());
 		}
 		if (BigDecimal.class.equals(type)) {
-			return new BigDecimal(jsonObject.getString(instagramFieldName));
+			return new BigDecimal(reader.nextString());
 		}
 		if (List.class.equals(type)) {
-			return toJavaList(rawValue.toString(),
-					getFirstParameterizedTypeArgument(fieldWithAnnotation
-							.getField()));
+			return readList(reader, elementType, stringPool, projection);
 		}
 
-		final String rawValueAsString = rawValue.toString();
-
 		// Some other type - recurse into it
-		return toJavaObject(rawValueAsString, type);
+		return readObject(reader, type, projection);
+	}
+
+	/**
+	 * Returns the mapping plan for {@code type}, building and caching it on
+	 * first use. Concurrent first calls may build the plan twice, but only one
+	 * instance is ever published.
+	 * 
+	 * @param <T>
+	 *            The Java type to map to.
+	 * @param type
+	 *            Type token.
+	 * @return The cached mapping plan for {@code type}.
+	 */
+	@SuppressWarnings("unchecked")
+	<T> TypeBinding<T> bindingFor(final Class<T> type) {
+		final TypeBinding<T> binding = (TypeBinding<T>) mBindings.get(type);
+		if (binding != null) {
+			return binding;
+		}
+
+		final List<FieldBinding> fields = new ArrayList<FieldBinding>();
+		for (final FieldWithAnnotation<Instagram> fieldWithAnnotation : findFieldsWithAnnotation(
+				type, Instagram.class)) {
+			final String jsonName = getInstagramFieldName(fieldWithAnnotation);
+			fields.add(new FieldBinding(fieldWithAnnotation.getField(),
+					jsonName, fields.size(), stringPoolFor(type, jsonName)));
+		}
+
+		final TypeBinding<T> created = new TypeBinding<T>(type, fields);
+		created.context = new BindingContext(created);
+		final TypeBinding<T> existing = (TypeBinding<T>) mBindings
+				.putIfAbsent(type, created);
+		return existing == null ? created : existing;
+	}
+
+	/**
+	 * Selects how {@link Lazy} fields are mapped. Lazily, only the JSON text of
+	 * their values is kept and each value is mapped on first
+	 * {@link Lazy#get()}, so objects that are never looked at cost a copy of
+	 * their text instead of a tree of mapped objects. Eagerly, the default,
+	 * values are mapped with the rest of the object and mapping errors are
+	 * reported right away.
+	 * 
+	 * @param decodeLazily
+	 *            {@code true} to defer mapping of {@link Lazy} fields.
+	 */
+	public void setDecodeLazily(final boolean decodeLazily) {
+		mDecodeLazily = decodeLazily;
+	}
+
+	/**
+	 * @return {@code true} if {@link Lazy} fields are mapped on first use.
+	 */
+	public boolean isDecodeLazily() {
+		return mDecodeLazily;
+	}
+
+	/**
+	 * Canonicalizes the values of all string fields, and string elements of
+	 * list fields, with {@code stringPool}, unless a pool is set for the type
+	 * or field. Equal values then share a single instance.
+	 * 
+	 * @param stringPool
+	 *            The pool, {@code null} to stop pooling by default.
+	 */
+	public void setStringPool(final StringPool stringPool) {
+		mDefaultStringPool = stringPool;
+		mBindings.clear();
+	}
+
+	/**
+	 * Canonicalizes string fields of {@code type} with {@code stringPool}.
+	 * 
+	 * @param stringPool
+	 *            The pool, {@code null} to remove the pool of the given
+	 *            fields.
+	 * @param type
+	 *            The type whose fields are pooled.
+	 * @param jsonNames
+	 *            JSON attribute names of the pooled fields, none for every
+	 *            string field of the type.
+	 */
+	public void setStringPool(final StringPool stringPool,
+			final Class<?> type, final String... jsonNames) {
+		if (jsonNames.length == 0) {
+			if (stringPool == null) {
+				mTypeStringPools.remove(type);
+			} else {
+				mTypeStringPools.put(type, stringPool);
+			}
+		} else {
+			ConcurrentMap<String, StringPool> pools = mFieldStringPools
+					.get(type);
+			if (pools == null) {
+				pools = new ConcurrentHashMap<String, StringPool>();
+				final ConcurrentMap<String, StringPool> existing = mFieldStringPools
+						.putIfAbsent(type, pools);
+				if (existing != null) {
+					pools = existing;
+				}
+			}
+			for (final String jsonName : jsonNames) {
+				if (stringPool == null) {
+					pools.remove(jsonName);
+				} else {
+					pools.put(jsonName, stringPool);
+				}
+			}
+		}
+		// Plans carry their pools, have them rebuilt.
+		mBindings.clear();
+	}
+
+	/**
+	 * @param type
+	 *            A mapped type.
+	 * @param jsonName
+	 *            JSON attribute name of one of its fields.
+	 * @return The pool configured for the field, or {@code null}.
+	 */
+	private StringPool stringPoolFor(final Class<?> type, final String jsonName) {
+		final Map<String, StringPool> pools = mFieldStringPools.get(type);
+		if (pools != null && pools.containsKey(jsonName)) {
+			return pools.get(jsonName);
+		}
+		final StringPool typePool = mTypeStringPools.get(type);
+		return typePool != null ? typePool : mDefaultStringPool;
+	}
+
+	/**
+	 * Callbacks handed to the generated {@link InstagramTypeMapper} of a type.
+	 * Member names are resolved against the type's plan so per field options
+	 * such as string pools apply.
+	 * 
+	 * @author Efi MK
+	 */
+	private final class BindingContext implements MappingContext {
+		/**
+		 * The plan of the mapped type.
+		 */
+		private final TypeBinding<?> mBinding;
+
+		/**
+		 * @param binding
+		 *            The plan of the mapped type.
+		 */
+		BindingContext(final TypeBinding<?> binding) {
+			mBinding = binding;
+		}
+
+		@Override
+		public String readString(final JsonReader reader, final String name)
+				throws IOException {
+			return DefaultJsonMapper.this.readString(reader, stringPool(name));
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public <T> T readValue(final JsonReader reader, final Class<T> type)
+				throws IOException {
+			return (T) DefaultJsonMapper.this.readValue(reader, type, null,
+					null, null);
+		}
+
+		@Override
+		public <T> List<T> readList(final JsonReader reader,
+				final Class<T> elementType, final String name)
+				throws IOException {
+			if (reader.peek() == JsonToken.NULL) {
+				reader.nextNull();
+				return null;
+			}
+			return DefaultJsonMapper.this.readList(reader, elementType,
+					stringPool(name), null);
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public <T> Lazy<T> readLazy(final JsonReader reader, final String name)
+				throws IOException {
+			return (Lazy<T>) DefaultJsonMapper.this.readLazy(reader,
+					mBinding.field(name), null);
+		}
+
+		/**
+		 * @param name
+		 *            JSON attribute name of a field.
+		 * @return The pool of the field, or {@code null}.
+		 */
+		private StringPool stringPool(final String name) {
+			final FieldBinding field = mBinding.field(name);
+			return field == null ? null : field.stringPool;
+		}
+	}
+
+	/**
+	 * Extracts JSON data for a field according to its {@code Instagram}
+	 * annotation and returns it converted to the proper Java type.
+	 * <p>
+	 * The mapper reads fields straight from the input and only calls this
+	 * method when a subclass overrides it; every annotated field is then
+	 * converted through it, with {@code jsonObject} holding the one member
+	 * of the field, and generated mappers are not used.
+	 * 
+	 * @param fieldWithAnnotation
+	 *            The field/annotation pair which specifies what Java type to
+	 *            convert to.
+	 * @param jsonObject
+	 *            "Raw" JSON object to pull data from.
+	 * @param instagramFieldName
+	 *            Specifies what JSON field to pull "raw" data from.
+	 * @return A new object that represent the appropriate java type.
+	 * @throws InstagramJsonMappingException
+	 *             If an error occurs while mapping JSON to Java.
+	 */
+	protected Object toJavaType(
+			final FieldWithAnnotation<Instagram> fieldWithAnnotation,
+			final JsonObject jsonObject, final String instagramFieldName)
+			throws InstagramJsonMappingException {
+		final Field field = fieldWithAnnotation.getField();
+		for (final FieldBinding fieldBinding : bindingFor(
+				field.getDeclaringClass()).fields) {
+			if (fieldBinding.field.equals(field)) {
+				try {
+					return readField(new JsonTreeReader(jsonObject
+							.get(instagramFieldName)), fieldBinding, null);
+				} catch (final IOException e) {
+					throw new InstagramJsonMappingException(
+							"Unable to read the value of " + field, e);
+				}
+			}
+		}
+		throw new InstagramJsonMappingException(field
+				+ " is not annotated with @Instagram");
 	}
 
 	/**
@@ -509,26 +1588,50 @@ public class DefaultJsonMapper implements JsonMapper {
 	 */
 	protected <T> T createInstance(final Class<T> type)
 			throws InstagramJsonMappingException {
-		final String errorMessage = "Unable to create an instance of "
-				+ type
-				+ ". Please make sure that if it's a nested class, is marked 'static'. "
-				+ "It should have a no-argument constructor.";
-
-		try {
-			final Constructor<T> defaultConstructor = type
-					.getDeclaredConstructor();
+		return newInstance(bindingFor(type));
+	}
 
-			if (defaultConstructor == null) {
-				throw new InstagramJsonMappingException(
-						"Unable to find a default constructor for " + type);
-			}
+	/**
+	 * Creates a new instance of the type bound by {@code binding} through
+	 * {@link #createInstance(Class)} if a subclass overrides it, otherwise
+	 * straight from the cached constructor.
+	 * 
+	 * @param <T>
+	 *            Java type to map to.
+	 * @param binding
+	 *            The mapping plan of the type.
+	 * @return A new instance.
+	 * @throws InstagramJsonMappingException
+	 *             If an error occurs when creating a new instance.
+	 */
+	private <T> T createInstance(final TypeBinding<T> binding)
+			throws InstagramJsonMappingException {
+		return mCustomInstances ? createInstance(binding.type)
+				: newInstance(binding);
+	}
 
-			// Allows protected, private, and package-private constructors to be
-			// invoked
-			defaultConstructor.setAccessible(true);
-			return defaultConstructor.newInstance();
+	/**
+	 * Creates a new instance of the type bound by {@code binding}, using its
+	 * cached constructor.
+	 * 
+	 * @param <T>
+	 *            Java type to map to.
+	 * @param binding
+	 *            The mapping plan of the type.
+	 * @return A new instance.
+	 * @throws InstagramJsonMappingException
+	 *             If an error occurs when creating a new instance.
+	 */
+	private <T> T newInstance(final TypeBinding<T> binding)
+			throws InstagramJsonMappingException {
+		try {
+			return binding.newInstance();
 		} catch (final Exception e) {
-			throw new InstagramJsonMappingException(errorMessage, e);
+			throw new InstagramJsonMappingException(
+					"Unable to create an instance of "
+							+ binding.type
+							+ ". Please make sure that if it's a nested class, is marked 'static'. "
+							+ "It should have a no-argument constructor.", e);
 		}
 	}
 
@@ -565,7 +1668,11 @@ public class DefaultJsonMapper implements JsonMapper {
 		 * , return {@code false}.
 		 * 
 		 * @param unmappableJson
-		 *            The JSON that couldn't be mapped to a Java type.
+		 *            The JSON that couldn't be mapped to a Java type: the
+		 *            text or tree the mapper was given, which holds the
+		 *            offending value. {@code null} only for input streamed
+		 *            through a {@link JsonReader} from a connection, which is
+		 *            never held as text.
 		 * @param targetType
 		 *            The Java type we were attempting to map to.
 		 * @param e
@@ -0,0 +1,319 @@
+/*
+ * Copyright (c) 2010-2012 BlinxBox.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.blinxbox.restinstagram;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * An in-memory {@link ResultCache} bounded by entries and by bytes, with a
+ * time to live per end point pattern.
+ * <p>
+ * Eviction is a segmented LRU: new results enter a probation segment and
+ * move to a protected segment, which holds at most 80% of the bounds, once
+ * they are read again. Results are evicted from the probation segment first,
+ * so a scan of many results read only once cannot push out the ones read
+ * over and over.
+ * <p>
+ * Expired results are dropped when they are read, or evicted like any other
+ * result.
+ * 
+ * @author Efi MK
+ */
+public class DefaultResultCache implements ResultCache {
+	/**
+	 * Share of the bounds the protected segment may hold, in percent.
+	 */
+	private static final int PROTECTED_PERCENT = 80;
+
+	/**
+	 * Maximum number of results.
+	 */
+	private final int mMaxEntries;
+
+	/**
+	 * Maximum total weight of the results.
+	 */
+	private final long mMaxBytes;
+
+	/**
+	 * Time to live per end point pattern.
+	 */
+	private final EndPointTtls mTtls;
+
+	/**
+	 * Results read once, least recently used first.
+	 */
+	private final LinkedHashMap<String, Node> mProbation = new LinkedHashMap<String, Node>();
+
+	/**
+	 * Results read more than once, least recently used first.
+	 */
+	private final LinkedHashMap<String, Node> mProtected = new LinkedHashMap<String, Node>();
+
+	/**
+	 * Total weight of {@link #mProbation}.
+	 */
+	private long mProbationBytes;
+
+	/**
+	 * Total weight of {@link #mProtected}.
+	 */
+	private long mProtectedBytes;
+
+	/**
+	 * Number of reads that found a result.
+	 */
+	private long mHits;
+
+	/**
+	 * Number of reads that found none.
+	 */
+	private long mMisses;
+
+	/**
+	 * Number of results evicted to stay within the bounds.
+	 */
+	private long mEvictions;
+
+	/**
+	 * @param maxEntries
+	 *            Maximum number of results, at least 1.
+	 * @param maxBytes
+	 *            Maximum total size of the responses the results were mapped
+	 *            from; larger results are never kept.
+	 * @param defaultTtl
+	 *            Time to live in milliseconds of results whose end point
+	 *            matches no pattern, {@code 0} to not keep them.
+	 * @throws IllegalArgumentException
+	 *             If a bound is out of range.
+	 */
+	public DefaultResultCache(final int maxEntries, final long maxBytes,
+			final long defaultTtl) throws IllegalArgumentException {
+		if (maxEntries < 1 || maxBytes < 1) {
+			throw new IllegalArgumentException(
+					"The cache must hold at least one entry and one byte.");
+		}
+		mMaxEntries = maxEntries;
+		mMaxBytes = maxBytes;
+		mTtls = new EndPointTtls(defaultTtl);
+	}
+
+	/**
+	 * Sets the time to live of results whose end point matches a pattern. A
+	 * {@code *} in the pattern matches within a single path segment, e.g.
+	 * {@code users/*} matches {@code /users/1234} but not
+	 * {@code /users/1234/media/recent}. Patterns are tried in the order they
+	 * were first set.
+	 * 
+	 * @param endPointPattern
+	 *            The pattern, relative to the API.
+	 * @param ttl
+	 *            Time to live in milliseconds, {@code 0} to not keep matching
+	 *            results.
+	 * @throws IllegalArgumentException
+	 *             If {@code ttl} is negative.
+	 */
+	public void setTtl(final String endPointPattern, final long ttl)
+			throws IllegalArgumentException {
+		mTtls.set(endPointPattern, ttl);
+	}
+
+	@Override
+	public synchronized Object get(final String key) {
+		final Node node = detach(key);
+		if (node == null || node.mExpiresAt - currentTimeMillis() <= 0) {
+			mMisses++;
+			return null;
+		}
+		mHits++;
+		mProtected.put(key, node);
+		mProtectedBytes += node.mWeight;
+		final long maxProtectedEntries = (long) mMaxEntries
+				* PROTECTED_PERCENT / 100;
+		final long maxProtectedBytes = mMaxBytes - mMaxBytes / 100
+				* (100 - PROTECTED_PERCENT);
+		final Iterator<Node> eldest = mProtected.values().iterator();
+		while (mProtected.size() > maxProtectedEntries
+				|| mProtectedBytes > maxProtectedBytes) {
+			final Node demoted = eldest.next();
+			eldest.remove();
+			mProtectedBytes -= demoted.mWeight;
+			mProbation.put(demoted.mKey, demoted);
+			mProbationBytes += demoted.mWeight;
+		}
+		return node.mValue;
+	}
+
+	@Override
+	public synchronized void put(final String key, final String endPoint,
+			final Object value, final long weight) {
+		detach(key);
+		final long ttl = mTtls.of(endPoint);
+		if (ttl == 0 || weight > mMaxBytes || value == null) {
+			return;
+		}
+		mProbation.put(key, new Node(key, value, weight, currentTimeMillis()
+				+ ttl));
+		mProbationBytes += weight;
+		while (mProbation.size() + mProtected.size() > mMaxEntries
+				|| mProbationBytes + mProtectedBytes > mMaxBytes) {
+			final boolean fromProbation = !mProbation.isEmpty();
+			final Iterator<Node> eldest = (fromProbation ? mProbation
+					: mProtected).values().iterator();
+			final Node evicted = eldest.next();
+			eldest.remove();
+			if (fromProbation) {
+				mProbationBytes -= evicted.mWeight;
+			} else {
+				mProtectedBytes -= evicted.mWeight;
+			}
+			mEvictions++;
+		}
+	}
+
+	@Override
+	public synchronized void remove(final String key) {
+		detach(key);
+	}
+
+	@Override
+	public synchronized void clear() {
+		mProbation.clear();
+		mProtected.clear();
+		mProbationBytes = 0;
+		mProtectedBytes = 0;
+	}
+
+	/**
+	 * @return Number of results held, expired ones included.
+	 */
+	public synchronized int size() {
+		return mProbation.size() + mProtected.size();
+	}
+
+	/**
+	 * @return Total weight of the results held.
+	 */
+	public synchronized long getWeight() {
+		return mProbationBytes + mProtectedBytes;
+	}
+
+	/**
+	 * @return Number of reads that found a result.
+	 */
+	public synchronized long getHits() {
+		return mHits;
+	}
+
+	/**
+	 * @return Number of reads that found none.
+	 */
+	public synchronized long getMisses() {
+		return mMisses;
+	}
+
+	/**
+	 * @return Number of results evicted to stay within the bounds.
+	 */
+	public synchronized long getEvictions() {
+		return mEvictions;
+	}
+
+	@Override
+	public String toString() {
+		return "DefaultResultCache[size=" + size() + ", weight="
+				+ getWeight() + ", hits=" + getHits() + ", misses="
+				+ getMisses() + "]";
+	}
+
+	/**
+	 * @return The current time in milliseconds.
+	 */
+	protected long currentTimeMillis() {
+		return System.currentTimeMillis();
+	}
+
+	/**
+	 * Takes a result out of its segment.
+	 * 
+	 * @param key
+	 *            Key of the result.
+	 * @return The result, {@code null} if there is none.
+	 */
+	private Node detach(final String key) {
+		Node node = mProbation.remove(key);
+		if (node != null) {
+			mProbationBytes -= node.mWeight;
+			return node;
+		}
+		node = mProtected.remove(key);
+		if (node != null) {
+			mProtectedBytes -= node.mWeight;
+		}
+		return node;
+	}
+
+	/**
+	 * A cached result.
+	 * 
+	 * @author Efi MK
+	 */
+	private static final class Node {
+		/**
+		 * Key of the result.
+		 */
+		final String mKey;
+		/**
+		 * The result.
+		 */
+		final Object mValue;
+		/**
+		 * Size of the response it was mapped from.
+		 */
+		final long mWeight;
+		/**
+		 * When the result expires.
+		 */
+		final long mExpiresAt;
+
+		/**
+		 * @param key
+		 *            Key of the result.
+		 * @param value
+		 *            The result.
+		 * @param weight
+		 *            Size of the response it was mapped from.
+		 * @param expiresAt
+		 *            When the result expires.
+		 */
+		Node(final String key, final Object value, final long weight,
+				final long expiresAt) {
+			mKey = key;
+			mValue = value;
+			mWeight = weight;
+			mExpiresAt = expiresAt;
+		}
+	}
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2010-2012 BlinxBox.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.blinxbox.restinstagram;
+
+import static java.net.HttpURLConnection.HTTP_OK;
+import static java.util.logging.Level.FINE;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.logging.Logger;
+
+import com.restfb.DefaultWebRequestor;
+
+/**
+ * Default implementation of a {@link StreamingWebRequestor}. Responses are
+ * requested gzip or deflate compressed and decompressed while read; set a
+ * {@link TransferListener} to see the sizes of each body. The {@code String}
+ * based methods read the streamed response, requests with attachments are
+ * left to restfb's {@link DefaultWebRequestor}.
+ * 
+ * @author Efi MK
+ */
+public class DefaultStreamingWebRequestor extends DefaultWebRequestor
+		implements ConditionalWebRequestor {
+	/**
+	 * Arbitrary read timeout for connections, same as restfb's.
+	 */
+	private static final int DEFAULT_READ_TIMEOUT_IN_MS = 180000;
+
+	/**
+	 * Logger.
+	 */
+	private static final Logger LOGGER = Logger
+			.getLogger(DefaultStreamingWebRequestor.class.getName());
+
+	/**
+	 * Receives the sizes of the response bodies, {@code null} for none.
+	 */
+	private volatile TransferListener mTransferListener;
+
+	/**
+	 * @param transferListener
+	 *            Receives the sizes of the response bodies, {@code null} for
+	 *            none.
+	 */
+	public void setTransferListener(final TransferListener transferListener) {
+		mTransferListener = transferListener;
+	}
+
+	/**
+	 * @return Receives the sizes of the response bodies, {@code null} for
+	 *         none.
+	 */
+	public TransferListener getTransferListener() {
+		return mTransferListener;
+	}
+
+	@Override
+	public Response executeGet(final String url) throws IOException {
+		return executeGetStream(url).toResponse();
+	}
+
+	@Override
+	public Response executePost(final String url, final String parameters)
+			throws IOException {
+		return executePostStream(url, parameters).toResponse();
+	}
+
+	@Override
+	public StreamedResponse executeGetStream(final String url)
+			throws IOException {
+		return executeGetStream(url, null);
+	}
+
+	@Override
+	public StreamedResponse executeGetStream(final String url,
+			final Validators validators) throws IOException {
+		if (LOGGER.isLoggable(FINE)) {
+			LOGGER.fine("Making a streamed GET request to " + url);
+		}
+
+		final HttpURLConnection connection = openConnection(new URL(url));
+		connection.setReadTimeout(DEFAULT_READ_TIMEOUT_IN_MS);
+		connection.setUseCaches(false);
+		customizeConnection(connection);
+		connection.setRequestProperty("Accept-Encoding",
+				ContentEncoding.ACCEPT_ENCODING);
+		connection.setRequestMethod("GET");
+		if (validators != null) {
+			if (validators.getETag() != null) {
+				connection.setRequestProperty("If-None-Match",
+						validators.getETag());
+			}
+			if (validators.getLastModified() != null) {
+				connection.setRequestProperty("If-Modified-Since",
+						validators.getLastModified());
+			}
+		}
+		connection.connect();
+
+		return toResponse(connection);
+	}
+
+	@Override
+	public StreamedResponse executePostStream(final String url,
+			final String parameters) throws IOException {
+		if (LOGGER.isLoggable(FINE)) {
+			LOGGER.fine("Making a streamed POST request to " + url);
+		}
+
+		final HttpURLConnection connection = openConnection(new URL(url));
+		connection.setReadTimeout(DEFAULT_READ_TIMEOUT_IN_MS);
+		connection.setUseCaches(false);
+		customizeConnection(connection);
+		connection.setRequestProperty("Accept-Encoding",
+				ContentEncoding.ACCEPT_ENCODING);
+		connection.setRequestMethod("POST");
+		connection.setDoOutput(true);
+
+		final byte[] body = parameters.getBytes("UTF-8");
+		connection.setFixedLengthStreamingMode(body.length);
+		final OutputStream out = connection.getOutputStream();
+		try {
+			out.write(body);
+		} finally {
+			closeQuietly(out);
+		}
+
+		return toResponse(connection);
+	}
+
+	/**
+	 * Wraps the body of an opened connection, decompressed. Error responses
+	 * hand out the error stream so the Instagram error JSON can still be
+	 * read.
+	 * 
+	 * @param connection
+	 *            The connection, request already sent.
+	 * @return The response.
+	 * @throws IOException
+	 *             If the response status cannot be read.
+	 */
+	protected StreamedResponse toResponse(final HttpURLConnection connection)
+			throws IOException {
+		final int statusCode = connection.getResponseCode();
+		InputStream body = statusCode == HTTP_OK ? connection.getInputStream()
+				: connection.getErrorStream();
+		if (body == null) {
+			body = new ByteArrayInputStream(new byte[0]);
+		}
+		return new StreamedResponse(statusCode, ContentEncoding.decode(body,
+				connection.getContentEncoding(), connection.getURL()
+						.toString(), mTransferListener), Validators.of(
+				connection.getHeaderField("ETag"),
+				connection.getHeaderField("Last-Modified")), RateLimit.of(
+				connection.getHeaderField(RateLimit.LIMIT_HEADER),
+				connection.getHeaderField(RateLimit.REMAINING_HEADER)));
+	}
+}
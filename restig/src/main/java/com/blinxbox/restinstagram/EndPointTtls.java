@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2010-2012 BlinxBox.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.blinxbox.restinstagram;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Pattern;
+
+/**
+ * Time to live of cached responses per end point pattern. A {@code *} in a
+ * pattern matches within a single path segment, e.g. {@code users/*} matches
+ * {@code /users/1234} but not {@code /users/1234/media/recent}. Patterns are
+ * tried in the order they were first set.
+ * 
+ * @author Efi MK
+ */
+final class EndPointTtls {
+	/**
+	 * Time to live of end points matching no pattern.
+	 */
+	private final long mDefaultTtl;
+
+	/**
+	 * The patterns, first match wins.
+	 */
+	private final List<Rule> mRules = new CopyOnWriteArrayList<Rule>();
+
+	/**
+	 * @param defaultTtl
+	 *            Time to live in milliseconds of end points matching no
+	 *            pattern.
+	 * @throws IllegalArgumentException
+	 *             If {@code defaultTtl} is negative.
+	 */
+	EndPointTtls(final long defaultTtl) throws IllegalArgumentException {
+		checkTtl(defaultTtl);
+		mDefaultTtl = defaultTtl;
+	}
+
+	/**
+	 * @param endPointPattern
+	 *            The pattern, relative to the API.
+	 * @param ttl
+	 *            Time to live in milliseconds.
+	 * @throws IllegalArgumentException
+	 *             If {@code ttl} is negative.
+	 */
+	void set(final String endPointPattern, final long ttl)
+			throws IllegalArgumentException {
+		checkTtl(ttl);
+		final Rule rule = new Rule(trimSlash(endPointPattern), ttl);
+		synchronized (mRules) {
+			for (int i = 0; i < mRules.size(); i++) {
+				if (mRules.get(i).mPattern.equals(rule.mPattern)) {
+					mRules.set(i, rule);
+					return;
+				}
+			}
+			mRules.add(rule);
+		}
+	}
+
+	/**
+	 * @param endPoint
+	 *            An end point path.
+	 * @return Time to live of {@code endPoint} in milliseconds.
+	 */
+	long of(final String endPoint) {
+		final String path = trimSlash(endPoint);
+		for (final Rule rule : mRules) {
+			if (rule.mRegex.matcher(path).matches()) {
+				return rule.mTtl;
+			}
+		}
+		return mDefaultTtl;
+	}
+
+	/**
+	 * @param ttl
+	 *            A time to live.
+	 * @throws IllegalArgumentException
+	 *             If {@code ttl} is negative.
+	 */
+	private static void checkTtl(final long ttl)
+			throws IllegalArgumentException {
+		if (ttl < 0) {
+			throw new IllegalArgumentException(
+					"The time to live cannot be negative.");
+		}
+	}
+
+	/**
+	 * @param path
+	 *            A path.
+	 * @return {@code path} without a leading slash.
+	 */
+	private static String trimSlash(final String path) {
+		return path.startsWith("/") ? path.substring(1) : path;
+	}
+
+	/**
+	 * Time to live of the end points matching a pattern.
+	 * 
+	 * @author Efi MK
+	 */
+	private static final class Rule {
+		/**
+		 * The pattern as given.
+		 */
+		final String mPattern;
+		/**
+		 * The pattern, compiled.
+		 */
+		final Pattern mRegex;
+		/**
+		 * Time to live in milliseconds.
+		 */
+		final long mTtl;
+
+		/**
+		 * @param pattern
+		 *            The pattern, {@code *} matching within a segment.
+		 * @param ttl
+		 *            Time to live in milliseconds.
+		 */
+		Rule(final String pattern, final long ttl) {
+			mPattern = pattern;
+			final StringBuilder regex = new StringBuilder();
+			int start = 0;
+			int star;
+			while ((star = pattern.indexOf('*', start)) >= 0) {
+				regex.append(Pattern.quote(pattern.substring(start, star)))
+						.append("[^/]*");
+				start = star + 1;
+			}
+			regex.append(Pattern.quote(pattern.substring(start)));
+			mRegex = Pattern.compile(regex.toString());
+			mTtl = ttl;
+		}
+	}
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2010-2012 BlinxBox.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.blinxbox.restinstagram;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+import com.restfb.WebRequestor;
+import com.restfb.WebRequestor.Response;
+
+/**
+ * Adapts a blocking {@link WebRequestor} to {@link AsyncWebRequestor} by
+ * running its requests on an I/O executor. The calling thread is never
+ * blocked, and the number of threads blocked on the network is bounded by
+ * the executor.
+ * 
+ * @author Efi MK
+ */
+public class ExecutorAsyncWebRequestor implements AsyncWebRequestor {
+	/**
+	 * Sends the requests.
+	 */
+	private final WebRequestor mWebRequestor;
+
+	/**
+	 * Runs the requests.
+	 */
+	private final Executor mIoExecutor;
+
+	/**
+	 * @param webRequestor
+	 *            Sends the requests.
+	 * @param ioExecutor
+	 *            Runs the requests.
+	 * @throws IllegalArgumentException
+	 *             If an argument is {@code null}.
+	 */
+	public ExecutorAsyncWebRequestor(final WebRequestor webRequestor,
+			final Executor ioExecutor) throws IllegalArgumentException {
+		if (webRequestor == null || ioExecutor == null) {
+			throw new IllegalArgumentException(
+					"The web requestor and the I/O executor cannot be null.");
+		}
+		mWebRequestor = webRequestor;
+		mIoExecutor = ioExecutor;
+	}
+
+	@Override
+	public CompletableFuture<Response> executeGetAsync(final String url) {
+		return CompletableFuture.supplyAsync(new Supplier<Response>() {
+			@Override
+			public Response get() {
+				try {
+					return mWebRequestor.executeGet(url);
+				} catch (final IOException e) {
+					throw new CompletionException(e);
+				}
+			}
+		}, mIoExecutor);
+	}
+
+	@Override
+	public CompletableFuture<Response> executePostAsync(final String url,
+			final String parameters) {
+		return CompletableFuture.supplyAsync(new Supplier<Response>() {
+			@Override
+			public Response get() {
+				try {
+					return mWebRequestor.executePost(url, parameters);
+				} catch (final IOException e) {
+					throw new CompletionException(e);
+				}
+			}
+		}, mIoExecutor);
+	}
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2010-2012 BlinxBox.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.blinxbox.restinstagram;
+
+import com.blinxbox.restinstagram.exception.InstagramException;
+
+/**
+ * The outcome of one fetch of a bulk fetch, see
+ * {@link DefaultInstagramClient#fetchObjects}: either the fetched value or
+ * the exception that failed it.
+ * 
+ * @author Efi MK
+ * @param <T>
+ *            - The fetched type.
+ */
+public final class FetchResult<T> {
+	/**
+	 * The end point fetched.
+	 */
+	private final String mEndPoint;
+
+	/**
+	 * The fetched value, {@code null} on failure.
+	 */
+	private final T mValue;
+
+	/**
+	 * Why the fetch failed, {@code null} on success.
+	 */
+	private final InstagramException mFailure;
+
+	/**
+	 * @param endPoint
+	 *            The end point fetched.
+	 * @param value
+	 *            The fetched value.
+	 * @param failure
+	 *            Why the fetch failed.
+	 */
+	private FetchResult(final String endPoint, final T value,
+			final InstagramException failure) {
+		mEndPoint = endPoint;
+		mValue = value;
+		mFailure = failure;
+	}
+
+	/**
+	 * @param <T>
+	 *            The fetched type.
+	 * @param endPoint
+	 *            The end point fetched.
+	 * @param value
+	 *            The fetched value.
+	 * @return A successful result.
+	 */
+	public static <T> FetchResult<T> success(final String endPoint,
+			final T value) {
+		return new FetchResult<T>(endPoint, value, null);
+	}
+
+	/**
+	 * @param <T>
+	 *            The fetched type.
+	 * @param endPoint
+	 *            The end point fetched.
+	 * @param failure
+	 *            Why the fetch failed.
+	 * @return A failed result.
+	 */
+	public static <T> FetchResult<T> failure(final String endPoint,
+			final InstagramException failure) {
+		return new FetchResult<T>(endPoint, null, failure);
+	}
+
+	/**
+	 * @return The end point fetched.
+	 */
+	public String getEndPoint() {
+		return mEndPoint;
+	}
+
+	/**
+	 * @return {@code true} if the fetch succeeded.
+	 */
+	public boolean isSuccessful() {
+		return mFailure == null;
+	}
+
+	/**
+	 * @return The fetched value.
+	 * @throws InstagramException
+	 *             Why the fetch failed, if it did.
+	 */
+	public T getValue() throws InstagramException {
+		if (mFailure != null) {
+			throw mFailure;
+		}
+		return mValue;
+	}
+
+	/**
+	 * @return Why the fetch failed, {@code null} if it succeeded.
+	 */
+	public InstagramException getFailure() {
+		return mFailure;
+	}
+
+	@Override
+	public String toString() {
+		return "FetchResult[endPoint=" + mEndPoint
+				+ (mFailure == null ? "" : ", failure=" + mFailure) + "]";
+	}
+}
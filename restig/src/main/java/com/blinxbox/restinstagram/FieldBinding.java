@@ -0,0 +1,472 @@
+/*
+ * Copyright (c) 2010-2012 BlinxBox.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.blinxbox.restinstagram;
+
+import static java.lang.invoke.MethodType.methodType;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Field;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.List;
+
+import com.blinxbox.restinstagram.json.StringPool;
+import com.restfb.util.ReflectionUtils;
+
+/**
+ * Precompiled binding between one {@link Instagram}-annotated Java field and
+ * the JSON attribute it is mapped from. Instances are immutable and are built
+ * once per type by {@link TypeBinding}.
+ * <p>
+ * Reads and writes go through {@link MethodHandle}s adapted once to erased
+ * signatures, so {@code int}, {@code long}, {@code boolean} and
+ * {@code double} fields are accessed without boxing and without the per-call
+ * access checks of {@link Field#set(Object, Object)}.
+ * 
+ * @author Efi MK
+ */
+final class FieldBinding {
+	/**
+	 * How the bound field is accessed.
+	 */
+	enum Kind {
+		/** An {@code int} field, see {@link FieldBinding#setInt}. */
+		INT,
+		/** A {@code long} field, see {@link FieldBinding#setLong}. */
+		LONG,
+		/** A {@code boolean} field, see {@link FieldBinding#setBoolean}. */
+		BOOLEAN,
+		/** A {@code double} field, see {@link FieldBinding#setDouble}. */
+		DOUBLE,
+		/** Any other field, see {@link FieldBinding#set}. */
+		OBJECT
+	}
+
+	/**
+	 * The Java field, already made accessible.
+	 */
+	final Field field;
+
+	/**
+	 * The resolved Instagram JSON attribute name.
+	 */
+	final String jsonName;
+
+	/**
+	 * Position of the binding in {@link TypeBinding#fields}.
+	 */
+	final int index;
+
+	/**
+	 * The declared Java type of the field.
+	 */
+	final Class<?> type;
+
+	/**
+	 * The type values are mapped to: {@link #type}, or the type argument when
+	 * {@link #type} is {@link Lazy}.
+	 */
+	final Class<?> valueType;
+
+	/**
+	 * Element type when {@link #valueType} is a {@link List}, {@code null}
+	 * otherwise.
+	 */
+	final Class<?> elementType;
+
+	/**
+	 * Pool that canonicalizes the value of a string field, or the elements of
+	 * a list of strings. {@code null} if values are not pooled.
+	 */
+	final StringPool stringPool;
+
+	/**
+	 * Which typed accessors to use.
+	 */
+	final Kind kind;
+
+	/**
+	 * Setter of the field adapted to {@code (Object, X)void}, where X is the
+	 * primitive type of {@link #kind} or {@code Object}. {@code null} if no
+	 * handle could be created, in which case the field is written
+	 * reflectively and {@link #kind} is {@link Kind#OBJECT}.
+	 */
+	private final MethodHandle mSetter;
+
+	/**
+	 * Getter of the field adapted to {@code (Object)X}, the counterpart of
+	 * {@link #mSetter}. {@code null} if the field is read reflectively.
+	 */
+	private final MethodHandle mGetter;
+
+	/**
+	 * Creates a binding for {@code field}.
+	 * 
+	 * @param field
+	 *            The annotated Java field.
+	 * @param jsonName
+	 *            The JSON attribute name the field is mapped from.
+	 * @param index
+	 *            Position of the binding among the bindings of its type.
+	 * @param stringPool
+	 *            Pool for string values, or {@code null}. Ignored unless the
+	 *            field holds strings.
+	 */
+	FieldBinding(final Field field, final String jsonName, final int index,
+			final StringPool stringPool) {
+		field.setAccessible(true);
+		this.field = field;
+		this.jsonName = jsonName;
+		this.index = index;
+		this.type = field.getType();
+		if (Lazy.class.equals(type)) {
+			final Type argument = typeArgument(field.getGenericType());
+			this.valueType = rawType(argument);
+			this.elementType = List.class.equals(valueType) ? rawType(typeArgument(
+					argument)) : null;
+		} else {
+			this.valueType = type;
+			this.elementType = List.class.equals(type) ? ReflectionUtils
+					.getFirstParameterizedTypeArgument(field) : null;
+		}
+		this.stringPool = String.class.equals(valueType)
+				|| String.class.equals(elementType) ? stringPool : null;
+
+		MethodHandle setter;
+		MethodHandle getter;
+		try {
+			setter = MethodHandles.lookup().unreflectSetter(field);
+			getter = MethodHandles.lookup().unreflectGetter(field);
+		} catch (final IllegalAccessException e) {
+			// E.g. a final field, keep accessing it reflectively.
+			setter = null;
+			getter = null;
+		}
+
+		if (setter == null) {
+			kind = Kind.OBJECT;
+			mSetter = null;
+			mGetter = null;
+		} else {
+			kind = kindOf(type);
+			final Class<?> valueType = kind == Kind.OBJECT ? Object.class
+					: type;
+			mSetter = setter.asType(methodType(void.class, Object.class,
+					valueType));
+			mGetter = getter.asType(methodType(valueType, Object.class));
+		}
+	}
+
+	/**
+	 * Writes {@code value} into the bound field of {@code instance}.
+	 * 
+	 * @param instance
+	 *            The object that owns the field.
+	 * @param value
+	 *            The already converted value.
+	 * @throws Exception
+	 *             If the field cannot be written, e.g. {@code value} has the
+	 *             wrong type.
+	 */
+	void set(final Object instance, final Object value) throws Exception {
+		if (mSetter == null) {
+			field.set(instance, value);
+			return;
+		}
+		try {
+			mSetter.invokeExact(instance, value);
+		} catch (final Throwable t) {
+			throw propagate(t);
+		}
+	}
+
+	/**
+	 * Writes an {@link Kind#INT} field without boxing.
+	 * 
+	 * @param instance
+	 *            The object that owns the field.
+	 * @param value
+	 *            The value.
+	 * @throws Exception
+	 *             If the field cannot be written.
+	 */
+	void setInt(final Object instance, final int value) throws Exception {
+		try {
+			mSetter.invokeExact(instance, value);
+		} catch (final Throwable t) {
+			throw propagate(t);
+		}
+	}
+
+	/**
+	 * Writes a {@link Kind#LONG} field without boxing.
+	 * 
+	 * @param instance
+	 *            The object that owns the field.
+	 * @param value
+	 *            The value.
+	 * @throws Exception
+	 *             If the field cannot be written.
+	 */
+	void setLong(final Object instance, final long value) throws Exception {
+		try {
+			mSetter.invokeExact(instance, value);
+		} catch (final Throwable t) {
+			throw propagate(t);
+		}
+	}
+
+	/**
+	 * Writes a {@link Kind#BOOLEAN} field without boxing.
+	 * 
+	 * @param instance
+	 *            The object that owns the field.
+	 * @param value
+	 *            The value.
+	 * @throws Exception
+	 *             If the field cannot be written.
+	 */
+	void setBoolean(final Object instance, final boolean value)
+			throws Exception {
+		try {
+			mSetter.invokeExact(instance, value);
+		} catch (final Throwable t) {
+			throw propagate(t);
+		}
+	}
+
+	/**
+	 * Writes a {@link Kind#DOUBLE} field without boxing.
+	 * 
+	 * @param instance
+	 *            The object that owns the field.
+	 * @param value
+	 *            The value.
+	 * @throws Exception
+	 *             If the field cannot be written.
+	 */
+	void setDouble(final Object instance, final double value)
+			throws Exception {
+		try {
+			mSetter.invokeExact(instance, value);
+		} catch (final Throwable t) {
+			throw propagate(t);
+		}
+	}
+
+	/**
+	 * Reads the bound field of {@code instance}.
+	 * 
+	 * @param instance
+	 *            The object that owns the field.
+	 * @return The value, boxed if the field is primitive.
+	 * @throws Exception
+	 *             If the field cannot be read.
+	 */
+	Object get(final Object instance) throws Exception {
+		if (mGetter == null) {
+			return field.get(instance);
+		}
+		try {
+			return (Object) mGetter.invokeExact(instance);
+		} catch (final Throwable t) {
+			throw propagate(t);
+		}
+	}
+
+	/**
+	 * Reads an {@link Kind#INT} field without boxing.
+	 * 
+	 * @param instance
+	 *            The object that owns the field.
+	 * @return The value.
+	 * @throws Exception
+	 *             If the field cannot be read.
+	 */
+	int getInt(final Object instance) throws Exception {
+		try {
+			return (int) mGetter.invokeExact(instance);
+		} catch (final Throwable t) {
+			throw propagate(t);
+		}
+	}
+
+	/**
+	 * Reads a {@link Kind#LONG} field without boxing.
+	 * 
+	 * @param instance
+	 *            The object that owns the field.
+	 * @return The value.
+	 * @throws Exception
+	 *             If the field cannot be read.
+	 */
+	long getLong(final Object instance) throws Exception {
+		try {
+			return (long) mGetter.invokeExact(instance);
+		} catch (final Throwable t) {
+			throw propagate(t);
+		}
+	}
+
+	/**
+	 * Reads a {@link Kind#BOOLEAN} field without boxing.
+	 * 
+	 * @param instance
+	 *            The object that owns the field.
+	 * @return The value.
+	 * @throws Exception
+	 *             If the field cannot be read.
+	 */
+	boolean getBoolean(final Object instance) throws Exception {
+		try {
+			return (boolean) mGetter.invokeExact(instance);
+		} catch (final Throwable t) {
+			throw propagate(t);
+		}
+	}
+
+	/**
+	 * Reads a {@link Kind#DOUBLE} field without boxing.
+	 * 
+	 * @param instance
+	 *            The object that owns the field.
+	 * @return The value.
+	 * @throws Exception
+	 *             If the field cannot be read.
+	 */
+	double getDouble(final Object instance) throws Exception {
+		try {
+			return (double) mGetter.invokeExact(instance);
+		} catch (final Throwable t) {
+			throw propagate(t);
+		}
+	}
+
+	/**
+	 * Copies the field from one instance to another, through the typed
+	 * accessors.
+	 * 
+	 * @param from
+	 *            The instance to read.
+	 * @param to
+	 *            The instance to write.
+	 * @throws Exception
+	 *             If the field cannot be read or written.
+	 */
+	void copy(final Object from, final Object to) throws Exception {
+		switch (kind) {
+		case INT:
+			setInt(to, getInt(from));
+			break;
+		case LONG:
+			setLong(to, getLong(from));
+			break;
+		case BOOLEAN:
+			setBoolean(to, getBoolean(from));
+			break;
+		case DOUBLE:
+			setDouble(to, getDouble(from));
+			break;
+		default:
+			set(to, get(from));
+			break;
+		}
+	}
+
+	/**
+	 * @param type
+	 *            A field type.
+	 * @return The typed accessors to use for {@code type}.
+	 */
+	private static Kind kindOf(final Class<?> type) {
+		if (Integer.TYPE.equals(type)) {
+			return Kind.INT;
+		}
+		if (Long.TYPE.equals(type)) {
+			return Kind.LONG;
+		}
+		if (Boolean.TYPE.equals(type)) {
+			return Kind.BOOLEAN;
+		}
+		if (Double.TYPE.equals(type)) {
+			return Kind.DOUBLE;
+		}
+		return Kind.OBJECT;
+	}
+
+	/**
+	 * @param type
+	 *            A generic type.
+	 * @return Its first type argument, or {@code null} if it has none.
+	 */
+	private static Type typeArgument(final Type type) {
+		if (type instanceof ParameterizedType) {
+			final Type[] arguments = ((ParameterizedType) type)
+					.getActualTypeArguments();
+			return arguments.length == 0 ? null : arguments[0];
+		}
+		return null;
+	}
+
+	/**
+	 * @param type
+	 *            A generic type, may be {@code null}.
+	 * @return Its erasure, {@code Object} for type variables, wildcards and
+	 *         {@code null}.
+	 */
+	private static Class<?> rawType(final Type type) {
+		if (type instanceof Class<?>) {
+			return (Class<?>) type;
+		}
+		if (type instanceof ParameterizedType) {
+			return rawType(((ParameterizedType) type).getRawType());
+		}
+		return Object.class;
+	}
+
+	/**
+	 * Rethrows errors and hands exceptions back to the caller, so handle
+	 * invocations keep the {@code throws Exception} contract of reflection.
+	 * 
+	 * @param t
+	 *            What the handle threw.
+	 * @return {@code t} as an exception.
+	 */
+	static Exception propagate(final Throwable t) {
+		if (t instanceof Error) {
+			throw (Error) t;
+		}
+		if (t instanceof Exception) {
+			return (Exception) t;
+		}
+		return new IllegalStateException(t);
+	}
+
+	@Override
+	public String toString() {
+		return field.getDeclaringClass().getSimpleName() + "."
+				+ field.getName() + " <- '" + jsonName + "'";
+	}
+}
@@ -0,0 +1,746 @@
+/*
+ * Copyright (c) 2010-2012 BlinxBox.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.blinxbox.restinstagram;
+
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ProtocolException;
+import java.net.Socket;
+import java.net.URL;
+
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+
+/**
+ * A single HTTP/1.1 connection to a host, kept open between requests by
+ * {@link PooledWebRequestor}. Its read and write buffers live as long as the
+ * connection and are reused by every request sent over it.
+ * <p>
+ * Not thread safe, a connection serves one request at a time.
+ * 
+ * @author Efi MK
+ */
+final class HttpConnection {
+	/**
+	 * Receives a connection once the body of its response is closed.
+	 * 
+	 * @author Efi MK
+	 */
+	interface Releaser {
+		/**
+		 * @param connection
+		 *            The connection.
+		 * @param reusable
+		 *            {@code true} if the response was read to its end and the
+		 *            connection can carry another request.
+		 */
+		void release(HttpConnection connection, boolean reusable);
+	}
+
+	/**
+	 * Size of the read and write buffers.
+	 */
+	private static final int BUFFER_SIZE = 8192;
+
+	/**
+	 * Longest status or header line accepted.
+	 */
+	private static final int MAX_LINE_LENGTH = 8192;
+
+	/**
+	 * Unread bytes left in a response that is closed early which are still
+	 * skipped to keep the connection, larger rests close it.
+	 */
+	private static final int MAX_DRAIN = 65536;
+
+	/**
+	 * The socket.
+	 */
+	private final Socket mSocket;
+	/**
+	 * Raw input of the socket.
+	 */
+	private final InputStream mIn;
+	/**
+	 * Buffered output of the socket.
+	 */
+	private final OutputStream mOut;
+	/**
+	 * Read buffer.
+	 */
+	private final byte[] mBuffer = new byte[BUFFER_SIZE];
+	/**
+	 * Next unread byte in {@link #mBuffer}.
+	 */
+	private int mPos;
+	/**
+	 * End of the bytes read into {@link #mBuffer}.
+	 */
+	private int mLimit;
+	/**
+	 * Request and header lines are built in here.
+	 */
+	private final StringBuilder mLine = new StringBuilder();
+	/**
+	 * Number of requests sent.
+	 */
+	private int mRequestCount;
+	/**
+	 * When the connection was last released, see
+	 * {@link System#currentTimeMillis()}.
+	 */
+	private long mIdleSince;
+	/**
+	 * Status code of the current response.
+	 */
+	private int mStatusCode;
+	/**
+	 * Length of the current response body, {@code -1} if unknown.
+	 */
+	private long mContentLength;
+	/**
+	 * {@code true} if the current response body is chunked.
+	 */
+	private boolean mChunked;
+	/**
+	 * {@code Content-Encoding} of the current response, {@code null} if
+	 * there is none.
+	 */
+	private String mContentEncoding;
+	/**
+	 * {@code ETag} of the current response, {@code null} if there is none.
+	 */
+	private String mETag;
+	/**
+	 * {@code Last-Modified} of the current response, {@code null} if there
+	 * is none.
+	 */
+	private String mLastModified;
+	/**
+	 * {@code X-Ratelimit-Limit} of the current response, {@code null} if
+	 * there is none.
+	 */
+	private String mRateLimit;
+	/**
+	 * {@code X-Ratelimit-Remaining} of the current response, {@code null}
+	 * if there is none.
+	 */
+	private String mRateRemaining;
+	/**
+	 * {@code true} if the server keeps the connection after the current
+	 * response.
+	 */
+	private boolean mKeepAlive;
+
+	/**
+	 * @param socket
+	 *            A connected socket.
+	 * @throws IOException
+	 *             If the streams of the socket cannot be opened.
+	 */
+	private HttpConnection(final Socket socket) throws IOException {
+		mSocket = socket;
+		mIn = socket.getInputStream();
+		mOut = new BufferedOutputStream(socket.getOutputStream(), BUFFER_SIZE);
+	}
+
+	/**
+	 * Connects to a host.
+	 * 
+	 * @param host
+	 *            Host name.
+	 * @param port
+	 *            Port.
+	 * @param secure
+	 *            {@code true} for TLS, the certificate of the host is
+	 *            verified.
+	 * @param connectTimeout
+	 *            Connect timeout in milliseconds, {@code 0} for none.
+	 * @param readTimeout
+	 *            Read timeout in milliseconds, {@code 0} for none.
+	 * @return The connection.
+	 * @throws IOException
+	 *             If the host cannot be reached.
+	 */
+	static HttpConnection open(final String host, final int port,
+			final boolean secure, final int connectTimeout,
+			final int readTimeout) throws IOException {
+		Socket socket = new Socket();
+		try {
+			socket.setTcpNoDelay(true);
+			socket.setSoTimeout(readTimeout);
+			socket.connect(new InetSocketAddress(host, port), connectTimeout);
+			if (secure) {
+				final SSLSocket ssl = (SSLSocket) ((SSLSocketFactory) SSLSocketFactory
+						.getDefault()).createSocket(socket, host, port, true);
+				socket = ssl;
+				final SSLParameters parameters = ssl.getSSLParameters();
+				parameters.setEndpointIdentificationAlgorithm("HTTPS");
+				ssl.setSSLParameters(parameters);
+				ssl.startHandshake();
+			}
+			return new HttpConnection(socket);
+		} catch (final IOException e) {
+			closeQuietly(socket);
+			throw e;
+		} catch (final RuntimeException e) {
+			closeQuietly(socket);
+			throw e;
+		}
+	}
+
+	/**
+	 * Sends a request and reads the head of its response.
+	 * 
+	 * @param method
+	 *            {@code GET} or {@code POST}.
+	 * @param url
+	 *            The URL.
+	 * @param hostHeader
+	 *            Value of the {@code Host} header.
+	 * @param body
+	 *            Form encoded body, {@code null} for none.
+	 * @param validators
+	 *            Validators to make the request conditional with,
+	 *            {@code null} for none.
+	 * @return The status code of the response.
+	 * @throws IOException
+	 *             If the request cannot be sent or the response is invalid.
+	 */
+	int execute(final String method, final URL url, final String hostHeader,
+			final byte[] body, final Validators validators) throws IOException {
+		mRequestCount++;
+		final String file = url.getFile();
+		mLine.setLength(0);
+		mLine.append(method).append(' ')
+				.append(file.length() == 0 ? "/" : file)
+				.append(" HTTP/1.1\r\nHost: ").append(hostHeader)
+				.append("\r\nConnection: keep-alive\r\nAccept: application/json")
+				.append("\r\nAccept-Encoding: ")
+				.append(ContentEncoding.ACCEPT_ENCODING).append("\r\n");
+		if (validators != null) {
+			if (validators.getETag() != null) {
+				mLine.append("If-None-Match: ").append(validators.getETag())
+						.append("\r\n");
+			}
+			if (validators.getLastModified() != null) {
+				mLine.append("If-Modified-Since: ")
+						.append(validators.getLastModified()).append("\r\n");
+			}
+		}
+		if (body != null) {
+			mLine.append(
+					"Content-Type: application/x-www-form-urlencoded\r\nContent-Length: ")
+					.append(body.length).append("\r\n");
+		}
+		mLine.append("\r\n");
+		writeLatin1(mLine);
+		if (body != null) {
+			mOut.write(body);
+		}
+		mOut.flush();
+
+		do {
+			readHead("HEAD".equals(method));
+		} while (mStatusCode / 100 == 1);
+		return mStatusCode;
+	}
+
+	/**
+	 * Reads a status line and the headers after it.
+	 * 
+	 * @param head
+	 *            {@code true} if the request was a {@code HEAD}.
+	 * @throws IOException
+	 *             If the response is invalid.
+	 */
+	private void readHead(final boolean head) throws IOException {
+		String line = readLine();
+		if (!line.startsWith("HTTP/1.") || line.length() < 12) {
+			throw new ProtocolException("Invalid status line: " + line);
+		}
+		try {
+			mStatusCode = Integer.parseInt(line.substring(9, 12));
+		} catch (final NumberFormatException e) {
+			throw new ProtocolException("Invalid status line: " + line);
+		}
+		mKeepAlive = line.charAt(7) != '0';
+		mContentLength = -1;
+		mChunked = false;
+		mContentEncoding = null;
+		mETag = null;
+		mLastModified = null;
+		mRateLimit = null;
+		mRateRemaining = null;
+		while ((line = readLine()).length() > 0) {
+			final int colon = line.indexOf(':');
+			if (colon <= 0) {
+				continue;
+			}
+			final String name = line.substring(0, colon).trim();
+			final String value = line.substring(colon + 1).trim();
+			if ("Content-Length".equalsIgnoreCase(name)) {
+				try {
+					mContentLength = Long.parseLong(value);
+				} catch (final NumberFormatException e) {
+					throw new ProtocolException("Invalid Content-Length: "
+							+ value);
+				}
+			} else if ("Content-Encoding".equalsIgnoreCase(name)) {
+				mContentEncoding = value;
+			} else if ("ETag".equalsIgnoreCase(name)) {
+				mETag = value;
+			} else if ("Last-Modified".equalsIgnoreCase(name)) {
+				mLastModified = value;
+			} else if (RateLimit.LIMIT_HEADER.equalsIgnoreCase(name)) {
+				mRateLimit = value;
+			} else if (RateLimit.REMAINING_HEADER.equalsIgnoreCase(name)) {
+				mRateRemaining = value;
+			} else if ("Transfer-Encoding".equalsIgnoreCase(name)) {
+				mChunked = value.toLowerCase().contains("chunked");
+			} else if ("Connection".equalsIgnoreCase(name)) {
+				if ("close".equalsIgnoreCase(value)) {
+					mKeepAlive = false;
+				} else if ("keep-alive".equalsIgnoreCase(value)) {
+					mKeepAlive = true;
+				}
+			}
+		}
+		if (head || mStatusCode == 204 || mStatusCode == 304) {
+			mContentLength = 0;
+			mChunked = false;
+		}
+	}
+
+	/**
+	 * @return {@code Content-Encoding} of the response read by
+	 *         {@link #execute}, {@code null} if there is none.
+	 */
+	String getContentEncoding() {
+		return mContentEncoding;
+	}
+
+	/**
+	 * @return Validators of the response read by {@link #execute},
+	 *         {@code null} if it has none.
+	 */
+	Validators getValidators() {
+		return Validators.of(mETag, mLastModified);
+	}
+
+	/**
+	 * @return Rate limit headers of the response read by {@link #execute},
+	 *         {@code null} if it has none.
+	 */
+	RateLimit getRateLimit() {
+		return RateLimit.of(mRateLimit, mRateRemaining);
+	}
+
+	/**
+	 * Opens the body of the response read by {@link #execute}.
+	 * 
+	 * @param releaser
+	 *            Receives the connection when the body is closed.
+	 * @return The body.
+	 */
+	InputStream openBody(final Releaser releaser) {
+		if (mChunked) {
+			return new ChunkedBody(releaser);
+		}
+		if (mContentLength >= 0) {
+			return new FixedLengthBody(releaser, mContentLength);
+		}
+		mKeepAlive = false;
+		return new UntilCloseBody(releaser);
+	}
+
+	/**
+	 * @return Number of requests sent over this connection.
+	 */
+	int getRequestCount() {
+		return mRequestCount;
+	}
+
+	/**
+	 * @return When the connection was last released.
+	 */
+	long getIdleSince() {
+		return mIdleSince;
+	}
+
+	/**
+	 * @param idleSince
+	 *            When the connection was released.
+	 */
+	void setIdleSince(final long idleSince) {
+		mIdleSince = idleSince;
+	}
+
+	/**
+	 * Closes the socket.
+	 */
+	void close() {
+		closeQuietly(mSocket);
+	}
+
+	/**
+	 * @param socket
+	 *            A socket, closing errors are ignored.
+	 */
+	private static void closeQuietly(final Socket socket) {
+		try {
+			socket.close();
+		} catch (final IOException e) {
+			// Nothing left to do with it.
+		}
+	}
+
+	/**
+	 * @param text
+	 *            Text to send, header text is ISO-8859-1.
+	 * @throws IOException
+	 *             If it cannot be sent.
+	 */
+	private void writeLatin1(final CharSequence text) throws IOException {
+		final int length = text.length();
+		for (int i = 0; i < length; i++) {
+			mOut.write(text.charAt(i));
+		}
+	}
+
+	/**
+	 * @return {@code false} if the connection reached its end.
+	 * @throws IOException
+	 *             If it cannot be read.
+	 */
+	private boolean fill() throws IOException {
+		mPos = 0;
+		mLimit = 0;
+		final int read = mIn.read(mBuffer, 0, mBuffer.length);
+		if (read <= 0) {
+			return false;
+		}
+		mLimit = read;
+		return true;
+	}
+
+	/**
+	 * @return The next byte, {@code -1} at the end of the connection.
+	 * @throws IOException
+	 *             If it cannot be read.
+	 */
+	private int readByte() throws IOException {
+		if (mPos == mLimit && !fill()) {
+			return -1;
+		}
+		return mBuffer[mPos++] & 0xff;
+	}
+
+	/**
+	 * Reads up to {@code length} bytes, straight from the socket when the
+	 * buffer is empty and the request is large.
+	 * 
+	 * @param bytes
+	 *            Destination.
+	 * @param offset
+	 *            First byte to write.
+	 * @param length
+	 *            Maximum number of bytes.
+	 * @return Number of bytes read, {@code -1} at the end of the connection.
+	 * @throws IOException
+	 *             If it cannot be read.
+	 */
+	private int readBytes(final byte[] bytes, final int offset,
+			final int length) throws IOException {
+		if (mPos == mLimit) {
+			if (length >= mBuffer.length) {
+				return mIn.read(bytes, offset, length);
+			}
+			if (!fill()) {
+				return -1;
+			}
+		}
+		final int count = Math.min(length, mLimit - mPos);
+		System.arraycopy(mBuffer, mPos, bytes, offset, count);
+		mPos += count;
+		return count;
+	}
+
+	/**
+	 * @return The next line, without its line break.
+	 * @throws IOException
+	 *             If the line cannot be read or is too long.
+	 */
+	private String readLine() throws IOException {
+		mLine.setLength(0);
+		int read;
+		while ((read = readByte()) != '\n') {
+			if (read == -1) {
+				throw new EOFException("Connection closed by the server");
+			}
+			if (read != '\r') {
+				if (mLine.length() == MAX_LINE_LENGTH) {
+					throw new ProtocolException("Response line too long");
+				}
+				mLine.append((char) read);
+			}
+		}
+		return mLine.toString();
+	}
+
+	/**
+	 * The body of a response, hands the connection back once closed.
+	 * 
+	 * @author Efi MK
+	 */
+	private abstract class Body extends InputStream {
+		/**
+		 * Receives the connection.
+		 */
+		private final Releaser mReleaser;
+		/**
+		 * {@code true} once the end of the body was read.
+		 */
+		boolean mDone;
+		/**
+		 * {@code true} once closed.
+		 */
+		private boolean mClosed;
+		/**
+		 * Destination of single byte reads.
+		 */
+		private final byte[] mSingle = new byte[1];
+
+		/**
+		 * @param releaser
+		 *            Receives the connection.
+		 */
+		Body(final Releaser releaser) {
+			mReleaser = releaser;
+		}
+
+		@Override
+		public int read() throws IOException {
+			return read(mSingle, 0, 1) == -1 ? -1 : mSingle[0] & 0xff;
+		}
+
+		@Override
+		public int read(final byte[] bytes, final int offset, final int length)
+				throws IOException {
+			if (mClosed) {
+				throw new IOException("Response body closed");
+			}
+			if (mDone) {
+				return -1;
+			}
+			if (length == 0) {
+				return 0;
+			}
+			return readBody(bytes, offset, length);
+		}
+
+		/**
+		 * Reads from the body, sets {@link #mDone} at its end.
+		 * 
+		 * @param bytes
+		 *            Destination.
+		 * @param offset
+		 *            First byte to write.
+		 * @param length
+		 *            Maximum number of bytes, at least 1.
+		 * @return Number of bytes read, {@code -1} at the end of the body.
+		 * @throws IOException
+		 *             If the body cannot be read.
+		 */
+		abstract int readBody(byte[] bytes, int offset, int length)
+				throws IOException;
+
+		/**
+		 * @return {@code false} if the rest of the body is known to be too
+		 *         large to skip.
+		 */
+		boolean isDrainable() {
+			return true;
+		}
+
+		/**
+		 * Skips what is left of the body, up to {@link #MAX_DRAIN} bytes, so
+		 * the connection can carry the next request.
+		 */
+		@Override
+		public void close() throws IOException {
+			if (mClosed) {
+				return;
+			}
+			boolean reusable = false;
+			try {
+				if (!mDone && isDrainable()) {
+					final byte[] skipped = new byte[BUFFER_SIZE];
+					int drained = 0;
+					while (!mDone && drained < MAX_DRAIN) {
+						final int read = readBody(skipped, 0, skipped.length);
+						drained += Math.max(read, 0);
+					}
+				}
+				reusable = mDone && mKeepAlive;
+			} catch (final IOException e) {
+				reusable = false;
+			} finally {
+				mClosed = true;
+				mReleaser.release(HttpConnection.this, reusable);
+			}
+		}
+	}
+
+	/**
+	 * A body of known length.
+	 * 
+	 * @author Efi MK
+	 */
+	private final class FixedLengthBody extends Body {
+		/**
+		 * Bytes left.
+		 */
+		private long mRemaining;
+
+		/**
+		 * @param releaser
+		 *            Receives the connection.
+		 * @param length
+		 *            Length of the body.
+		 */
+		FixedLengthBody(final Releaser releaser, final long length) {
+			super(releaser);
+			mRemaining = length;
+			mDone = length == 0;
+		}
+
+		@Override
+		int readBody(final byte[] bytes, final int offset, final int length)
+				throws IOException {
+			final int read = readBytes(bytes, offset,
+					(int) Math.min(length, mRemaining));
+			if (read == -1) {
+				throw new EOFException("Response body truncated");
+			}
+			mRemaining -= read;
+			mDone = mRemaining == 0;
+			return read;
+		}
+
+		@Override
+		boolean isDrainable() {
+			return mRemaining <= MAX_DRAIN;
+		}
+	}
+
+	/**
+	 * A body sent in chunks.
+	 * 
+	 * @author Efi MK
+	 */
+	private final class ChunkedBody extends Body {
+		/**
+		 * Bytes left in the current chunk, {@code -1} before the first one.
+		 */
+		private long mChunkRemaining = -1;
+
+		/**
+		 * @param releaser
+		 *            Receives the connection.
+		 */
+		ChunkedBody(final Releaser releaser) {
+			super(releaser);
+		}
+
+		@Override
+		int readBody(final byte[] bytes, final int offset, final int length)
+				throws IOException {
+			if (mChunkRemaining <= 0) {
+				if (mChunkRemaining == 0) {
+					// The line break after the previous chunk.
+					readLine();
+				}
+				final String line = readLine();
+				final int extension = line.indexOf(';');
+				try {
+					mChunkRemaining = Long.parseLong(
+							(extension < 0 ? line : line.substring(0,
+									extension)).trim(), 16);
+				} catch (final NumberFormatException e) {
+					throw new ProtocolException("Invalid chunk size: " + line);
+				}
+				if (mChunkRemaining == 0) {
+					// Trailers.
+					while (readLine().length() > 0) {
+						continue;
+					}
+					mDone = true;
+					return -1;
+				}
+			}
+			final int read = readBytes(bytes, offset,
+					(int) Math.min(length, mChunkRemaining));
+			if (read == -1) {
+				throw new EOFException("Response body truncated");
+			}
+			mChunkRemaining -= read;
+			return read;
+		}
+
+	}
+
+	/**
+	 * A body that ends when the server closes the connection.
+	 * 
+	 * @author Efi MK
+	 */
+	private final class UntilCloseBody extends Body {
+		/**
+		 * @param releaser
+		 *            Receives the connection.
+		 */
+		UntilCloseBody(final Releaser releaser) {
+			super(releaser);
+		}
+
+		@Override
+		int readBody(final byte[] bytes, final int offset, final int length)
+				throws IOException {
+			final int read = readBytes(bytes, offset, length);
+			mDone = read == -1;
+			return read;
+		}
+
+		@Override
+		boolean isDrainable() {
+			return false;
+		}
+	}
+}
@@ -83,6 +83,88 @@ public interface InstagramClient {
 	<T> T fetchObject(String endPoint, Class<T> objectType,
 			Parameter... parameters) throws InstagramException;
 
+	/**
+	 * Like {@link #fetchCollection(String, Class, Parameter...)}, but maps
+	 * only the fields of each element selected by {@code projection}.
+	 * 
+	 * @param <T>
+	 *            Java type to map to.
+	 * @param endPoint
+	 *            The name of the end point, e.g.
+	 *            {@code "tags/snow/media/recent"}.
+	 * @param type
+	 *            end point type token.
+	 * @param projection
+	 *            Fields of each element to map, e.g.
+	 *            {@code Projection.of("id", "likes.count")}. {@code null} for
+	 *            all.
+	 * @param parameters
+	 *            - Various parameters that will be used during the final API
+	 *            call.
+	 * @return An instance of type {@code type} which contains the requested
+	 *         Collection's data.
+	 * @throws InstagramException
+	 *             If an error occurs while performing the API call.
+	 */
+	<T> InstagramCollection<T> fetchCollection(String endPoint, Class<T> type,
+			Projection projection, Parameter... parameters)
+			throws InstagramException;
+
+	/**
+	 * Like {@link #fetchObject(String, Class, Parameter...)}, but maps only
+	 * the fields selected by {@code projection}.
+	 * 
+	 * @param <T>
+	 *            Java type to map to.
+	 * @param endPoint
+	 *            The name of the end point, e.g.
+	 *            {@code "media/197471638763567976_7698549"}.
+	 * @param objectType
+	 *            end point type token.
+	 * @param projection
+	 *            Fields to map, {@code null} for all.
+	 * @param parameters
+	 *            URL parameters to include in the API call (optional).
+	 * @return An instance of type {@code objectType} which contains the
+	 *         requested object's data.
+	 * @throws InstagramException
+	 *             If an error occurs while performing the API call.
+	 */
+	<T> T fetchObject(String endPoint, Class<T> objectType,
+			Projection projection, Parameter... parameters)
+			throws InstagramException;
+
+	/**
+	 * Streams a collection through {@code visitor} without keeping its
+	 * elements: each element of the page is mapped into {@code reusable}, see
+	 * {@link JsonMapper#mapInto}, and handed to the visitor before the next
+	 * one is read. Allocation stays flat however many elements are scanned.
+	 * 
+	 * @param <T>
+	 *            Java type to map to.
+	 * @param endPoint
+	 *            The name of the end point, e.g.
+	 *            {@code "tags/snow/media/recent"}, or a next page URL.
+	 * @param reusable
+	 *            The instance every element is mapped into. The visitor must
+	 *            not keep references to it or to the objects it holds.
+	 * @param projection
+	 *            Fields of each element to map, {@code null} for all.
+	 * @param visitor
+	 *            Receives the elements.
+	 * @param parameters
+	 *            URL parameters to include in the API call (optional). None
+	 *            may be given with a next page URL.
+	 * @return A collection without data that knows the next page, see
+	 *         {@link InstagramCollection#visitNextPage}.
+	 * @throws InstagramException
+	 *             If an error occurs while performing the API call.
+	 */
+	<T> InstagramCollection<T> visitCollection(String endPoint, T reusable,
+			Projection projection,
+			InstagramCollection.Visitor<? super T> visitor,
+			Parameter... parameters) throws InstagramException;
+
 	/**
 	 * Post an action on one og the end points. Behind the scenes a Post call is
 	 * being made. <b>Pay attention</b> Most of the publish actions will require
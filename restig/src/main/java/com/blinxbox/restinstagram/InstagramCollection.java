@@ -9,6 +9,8 @@ import static java.util.Collections.unmodifiableList;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import com.blinxbox.restinstagram.exception.InstagramJsonMappingException;
 import com.restfb.json.JsonArray;
@@ -25,6 +27,233 @@ import com.restfb.util.ReflectionUtils;
  *            - The collection holds this value.
  */
 public class InstagramCollection<T> {
+	/**
+	 * Receives the elements of a collection one at a time, see
+	 * {@link InstagramClient#visitCollection}.
+	 * 
+	 * @author Efi MK
+	 * @param <T>
+	 *            - The element type.
+	 */
+	public interface Visitor<T> {
+		/**
+		 * @param element
+		 *            The element. When elements are mapped into a reusable
+		 *            instance it is only valid during the call.
+		 * @return {@code true} to go on, {@code false} to skip the remaining
+		 *         elements.
+		 */
+		boolean visit(T element);
+	}
+
+	/**
+	 * Maps a range of the elements of a {@code data} array, splitting it
+	 * between pool threads while it is larger than the granularity.
+	 * 
+	 * @author Efi MK
+	 * @param <T>
+	 *            - The element type.
+	 */
+	private static final class MappingTask<T> extends RecursiveAction {
+		/**
+		 * Serialization version.
+		 */
+		private static final long serialVersionUID = 1L;
+		/**
+		 * Maps the elements.
+		 */
+		private final JsonMapper mJsonMapper;
+		/**
+		 * The elements.
+		 */
+		private final JsonArray mJsonData;
+		/**
+		 * Element type.
+		 */
+		private final Class<T> mType;
+		/**
+		 * Largest range mapped without splitting, {@code 0} to never split.
+		 */
+		private final int mGranularity;
+		/**
+		 * Mapped elements, shared by all the tasks of one array.
+		 */
+		private final Object[] mMapped;
+		/**
+		 * The first failure, shared by all the tasks of one array.
+		 */
+		private final Failure mFailure;
+		/**
+		 * First element of the range.
+		 */
+		private final int mFrom;
+		/**
+		 * Element after the range.
+		 */
+		private final int mTo;
+
+		/**
+		 * Creates a task that maps the whole array.
+		 * 
+		 * @param jsonMapper
+		 *            Maps the elements.
+		 * @param jsonData
+		 *            The elements.
+		 * @param type
+		 *            Element type.
+		 * @param granularity
+		 *            Largest range mapped without splitting, {@code 0} to
+		 *            never split.
+		 */
+		MappingTask(final JsonMapper jsonMapper, final JsonArray jsonData,
+				final Class<T> type, final int granularity) {
+			this(jsonMapper, jsonData, type, granularity,
+					new Object[jsonData.length()], new Failure(), 0, jsonData
+							.length());
+		}
+
+		/**
+		 * @param jsonMapper
+		 *            Maps the elements.
+		 * @param jsonData
+		 *            The elements.
+		 * @param type
+		 *            Element type.
+		 * @param granularity
+		 *            Largest range mapped without splitting.
+		 * @param mapped
+		 *            Mapped elements.
+		 * @param failure
+		 *            The first failure.
+		 * @param from
+		 *            First element of the range.
+		 * @param to
+		 *            Element after the range.
+		 */
+		private MappingTask(final JsonMapper jsonMapper,
+				final JsonArray jsonData, final Class<T> type,
+				final int granularity, final Object[] mapped,
+				final Failure failure, final int from, final int to) {
+			mJsonMapper = jsonMapper;
+			mJsonData = jsonData;
+			mType = type;
+			mGranularity = granularity;
+			mMapped = mapped;
+			mFailure = failure;
+			mFrom = from;
+			mTo = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (mGranularity > 0 && mTo - mFrom > mGranularity) {
+				final int middle = (mFrom + mTo) >>> 1;
+				invokeAll(new MappingTask<T>(mJsonMapper, mJsonData, mType,
+						mGranularity, mMapped, mFailure, mFrom, middle),
+						new MappingTask<T>(mJsonMapper, mJsonData, mType,
+								mGranularity, mMapped, mFailure, middle, mTo));
+				return;
+			}
+			for (int i = mFrom; i < mTo; i++) {
+				if (mFailure.isBefore(i)) {
+					return;
+				}
+				try {
+					mMapped[i] = map(mJsonData.get(i));
+				} catch (final RuntimeException e) {
+					mFailure.offer(i, e);
+					return;
+				}
+			}
+		}
+
+		/**
+		 * @param element
+		 *            An element of the array.
+		 * @return The mapped element.
+		 */
+		private Object map(final Object element) {
+			if (mType.equals(JsonObject.class)) {
+				return element;
+			} else if (element instanceof JsonObject) {
+				return mJsonMapper.toJavaObject((JsonObject) element, mType);
+			} else {
+				return mJsonMapper.toJavaObject(element.toString(), mType);
+			}
+		}
+
+		/**
+		 * @return The mapped elements, in order.
+		 * @throws RuntimeException
+		 *             The error of the first element that failed to map.
+		 */
+		@SuppressWarnings("unchecked")
+		List<T> getData() {
+			mFailure.rethrow();
+			final List<T> data = new ArrayList<T>(mMapped.length);
+			for (final Object element : mMapped) {
+				data.add((T) element);
+			}
+			return data;
+		}
+	}
+
+	/**
+	 * The error of the first element of an array that failed to map.
+	 * 
+	 * @author Efi MK
+	 */
+	private static final class Failure {
+		/**
+		 * Index of the element, {@link Integer#MAX_VALUE} while none failed.
+		 */
+		private int mIndex = Integer.MAX_VALUE;
+		/**
+		 * The error.
+		 */
+		private RuntimeException mException;
+
+		/**
+		 * @param index
+		 *            Index of an element.
+		 * @return {@code true} if an element before {@code index} failed,
+		 *         mapping {@code index} is pointless.
+		 */
+		synchronized boolean isBefore(final int index) {
+			return mIndex < index;
+		}
+
+		/**
+		 * @param index
+		 *            Index of a failed element.
+		 * @param exception
+		 *            Its error.
+		 */
+		synchronized void offer(final int index,
+				final RuntimeException exception) {
+			if (index < mIndex) {
+				mIndex = index;
+				mException = exception;
+			}
+		}
+
+		/**
+		 * @throws RuntimeException
+		 *             The error, if an element failed.
+		 */
+		synchronized void rethrow() {
+			if (mException != null) {
+				throw mException;
+			}
+		}
+	}
+
+	/**
+	 * Number of tasks a parallel mapped array is split into per pool thread,
+	 * so threads that finish early can steal work.
+	 */
+	private static final int TASKS_PER_THREAD = 4;
+
 	/**
 	 * The instagram client used for fetching insformation.
 	 */
@@ -56,31 +285,70 @@ public class InstagramCollection<T> {
 	public InstagramCollection(final InstagramClient defaultInstagramClient,
 			final String json, final Class<T> type)
 			throws InstagramJsonMappingException {
-		final List<T> data = new ArrayList<T>();
+		this(defaultInstagramClient, parse(json), type);
+	}
 
+	/**
+	 * Creates a connection from an already parsed {@code jsonObject}. The
+	 * {@code data} elements are mapped straight from their parsed nodes.
+	 * 
+	 * @param defaultInstagramClient
+	 *            The {@code InstagramClient} used to fetch additional pages and
+	 *            map data to JSON objects.
+	 * @param jsonObject
+	 *            Parsed JSON which must include a {@code data} field that holds
+	 *            a JSON array and optionally a {@code paging} field that holds
+	 *            a JSON object with next/previous page URLs.
+	 * @param type
+	 *            Object type.
+	 * @throws InstagramJsonMappingException
+	 *             If the provided {@code jsonObject} is invalid.
+	 */
+	public InstagramCollection(final InstagramClient defaultInstagramClient,
+			final JsonObject jsonObject, final Class<T> type)
+			throws InstagramJsonMappingException {
+		this(defaultInstagramClient, jsonObject, type, null, 0);
+	}
+
+	/**
+	 * Creates a connection from an already parsed {@code jsonObject}, mapping
+	 * the {@code data} elements of large pages in parallel. Elements keep their
+	 * order. When an element fails to map the error of the first failing
+	 * element is reported, as when mapping on the calling thread, though the
+	 * {@link DefaultJsonMapper.JsonMappingErrorHandler} may also have seen failures of later
+	 * elements that were mapped concurrently.
+	 * 
+	 * @param defaultInstagramClient
+	 *            The {@code InstagramClient} used to fetch additional pages and
+	 *            map data to JSON objects. Its {@link JsonMapper} must be
+	 *            thread safe.
+	 * @param jsonObject
+	 *            Parsed JSON which must include a {@code data} field that holds
+	 *            a JSON array and optionally a {@code paging} field that holds
+	 *            a JSON object with next/previous page URLs.
+	 * @param type
+	 *            Object type.
+	 * @param pool
+	 *            Pool the elements are mapped in, {@code null} to map them on
+	 *            the calling thread.
+	 * @param parallelThreshold
+	 *            Pages with fewer elements are mapped on the calling thread.
+	 * @throws InstagramJsonMappingException
+	 *             If the provided {@code jsonObject} is invalid.
+	 */
+	public InstagramCollection(final InstagramClient defaultInstagramClient,
+			final JsonObject jsonObject, final Class<T> type,
+			final ForkJoinPool pool, final int parallelThreshold)
+			throws InstagramJsonMappingException {
 		this.mClient = defaultInstagramClient;
-		if (json == null) {
+		if (jsonObject == null) {
 			throw new InstagramJsonMappingException(
 					"You must supply non-null connection JSON.");
 		}
 
-		JsonObject jsonObject = null;
-
-		try {
-			jsonObject = new JsonObject(json);
-		} catch (final JsonException e) {
-			throw new InstagramJsonMappingException(format(
-					"The connection JSON you provided was invalid: {0}", json),
-					e);
-		}
-
 		// Pull out data
-		final JsonArray jsonData = jsonObject.getJsonArray("data");
-		for (int i = 0; i < jsonData.length(); i++) {
-			data.add(type.equals(JsonObject.class) ? (T) jsonData.get(i)
-					: mClient.getJsonMapper().toJavaObject(
-							jsonData.get(i).toString(), type));
-		}
+		final List<T> data = mapElements(mClient.getJsonMapper(),
+				jsonObject.getJsonArray("data"), type, pool, parallelThreshold);
 
 		// Pull out paging info, if present
 		if (jsonObject.has("pagination")) {
@@ -97,6 +365,91 @@ public class InstagramCollection<T> {
 
 	}
 
+	/**
+	 * Maps the elements of a page, in parallel if it is large enough.
+	 * 
+	 * @param <T>
+	 *            Object type.
+	 * @param jsonMapper
+	 *            The mapper, thread safe if {@code pool} is given.
+	 * @param jsonData
+	 *            The elements.
+	 * @param type
+	 *            Object type.
+	 * @param pool
+	 *            Pool the elements are mapped in, {@code null} to map them on
+	 *            the calling thread.
+	 * @param parallelThreshold
+	 *            Pages with fewer elements are mapped on the calling thread.
+	 * @return The mapped elements, in order.
+	 */
+	static <T> List<T> mapElements(final JsonMapper jsonMapper,
+			final JsonArray jsonData, final Class<T> type,
+			final ForkJoinPool pool, final int parallelThreshold) {
+		final MappingTask<T> task;
+		if (pool == null || jsonData.length() < parallelThreshold) {
+			task = new MappingTask<T>(jsonMapper, jsonData, type, 0);
+			task.compute();
+		} else {
+			task = new MappingTask<T>(jsonMapper, jsonData, type, Math.max(1,
+					jsonData.length()
+							/ (pool.getParallelism() * TASKS_PER_THREAD)));
+			pool.invoke(task);
+		}
+		return task.getData();
+	}
+
+	/**
+	 * Creates a connection from data that is already mapped, e.g. while the
+	 * response was streamed.
+	 * 
+	 * @param defaultInstagramClient
+	 *            The {@code InstagramClient} used to fetch additional pages and
+	 *            map data to JSON objects.
+	 * @param data
+	 *            The mapped data.
+	 * @param nextPageUrl
+	 *            The next page URL, or {@code null} if there is none.
+	 * @throws InstagramJsonMappingException
+	 *             If {@code data} is {@code null}.
+	 */
+	public InstagramCollection(final InstagramClient defaultInstagramClient,
+			final List<T> data, final String nextPageUrl)
+			throws InstagramJsonMappingException {
+		this.mClient = defaultInstagramClient;
+		if (data == null) {
+			throw new InstagramJsonMappingException(
+					"You must supply non-null connection data.");
+		}
+		this.data = unmodifiableList(data);
+		this.nextPageUrl = nextPageUrl;
+	}
+
+	/**
+	 * Parses the raw connection JSON.
+	 * 
+	 * @param json
+	 *            Raw connection JSON.
+	 * @return The parsed JSON object.
+	 * @throws InstagramJsonMappingException
+	 *             If {@code json} is {@code null} or invalid.
+	 */
+	private static JsonObject parse(final String json)
+			throws InstagramJsonMappingException {
+		if (json == null) {
+			throw new InstagramJsonMappingException(
+					"You must supply non-null connection JSON.");
+		}
+
+		try {
+			return new JsonObject(json);
+		} catch (final JsonException e) {
+			throw new InstagramJsonMappingException(format(
+					"The connection JSON you provided was invalid: {0}", json),
+					e);
+		}
+	}
+
 	@Override
 	public String toString() {
 		return ReflectionUtils.toString(this);
@@ -131,6 +484,45 @@ public class InstagramCollection<T> {
 		return nextPageUrl;
 	}
 
+	/**
+	 * Hands the data of this connection to {@code visitor}.
+	 * 
+	 * @param visitor
+	 *            Receives the elements.
+	 * @return {@code false} if the visitor stopped before the last element.
+	 */
+	public boolean visit(final Visitor<? super T> visitor) {
+		for (final T element : data) {
+			if (!visitor.visit(element)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Streams the next page of data through {@code visitor}, mapping each
+	 * element into {@code reusable}, see
+	 * {@link InstagramClient#visitCollection}.
+	 * 
+	 * @param reusable
+	 *            The instance every element is mapped into.
+	 * @param projection
+	 *            Fields of each element to map, {@code null} for all.
+	 * @param visitor
+	 *            Receives the elements.
+	 * @return A collection without data that knows the page after, or
+	 *         {@code null} if there is no next page.
+	 */
+	public InstagramCollection<T> visitNextPage(final T reusable,
+			final Projection projection, final Visitor<? super T> visitor) {
+		if (!hasNext()) {
+			return null;
+		}
+		return mClient.visitCollection(nextPageUrl, reusable, projection,
+				visitor);
+	}
+
 	/**
 	 * Does this connection have a next page of data?
 	 * 
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2010-2012 BlinxBox.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.blinxbox.restinstagram;
+
+import java.io.IOException;
+
+import com.blinxbox.restinstagram.json.JsonReader;
+
+/**
+ * Maps JSON members onto a single {@link Instagram} annotated type without
+ * reflection.
+ * <p>
+ * Implementations are generated at compile time by the
+ * {@code restig-processor} annotation processor, one per annotated type, in
+ * the package of that type. The generated class is named after the nested
+ * type names joined by {@code '_'} followed by {@value #GENERATED_SUFFIX},
+ * e.g. {@code MediaPost_Image_InstagramMapper} for {@code MediaPost.Image}.
+ * {@link DefaultJsonMapper} uses the generated mapper when one is present and
+ * falls back to reflection otherwise.
+ * 
+ * @author Efi MK
+ * @param <T>
+ *            - The mapped type.
+ */
+public interface InstagramTypeMapper<T> {
+	/**
+	 * Suffix of generated mapper class names.
+	 */
+	String GENERATED_SUFFIX = "_InstagramMapper";
+
+	/**
+	 * @return A new, empty instance of the mapped type.
+	 */
+	T newInstance();
+
+	/**
+	 * Reads the value of the member {@code name} into {@code target}.
+	 * 
+	 * @param target
+	 *            The instance being mapped.
+	 * @param name
+	 *            The JSON member name. The reader is positioned at its value.
+	 * @param reader
+	 *            The token source.
+	 * @param context
+	 *            Maps nested values, lists and strings.
+	 * @return {@code false} if {@code name} is not mapped by the type, in
+	 *         which case the value is left unread.
+	 * @throws IOException
+	 *             If the input cannot be read.
+	 */
+	boolean readField(T target, String name, JsonReader reader,
+			MappingContext context) throws IOException;
+}
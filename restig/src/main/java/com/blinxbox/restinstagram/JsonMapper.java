@@ -22,10 +22,15 @@
 
 package com.blinxbox.restinstagram;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 
 import com.blinxbox.restinstagram.exception.InstagramJsonMappingException;
+import com.blinxbox.restinstagram.json.JsonReader;
 import com.restfb.exception.FacebookJsonMappingException;
+import com.restfb.json.JsonArray;
+import com.restfb.json.JsonObject;
 
 /**
  * Specifies how a Facebook JSON-to-Java (and vice-versa) mapper must operate.
@@ -78,6 +83,196 @@ public interface JsonMapper {
 	<T> List<T> toJavaList(String json, Class<T> type)
 			throws InstagramJsonMappingException;
 
+	/**
+	 * Given an already parsed JSON object, create and return a new instance of
+	 * a corresponding Java object of type {@code type}.
+	 * <p>
+	 * Nested objects and arrays are mapped directly from the parsed tree, so
+	 * the JSON is never serialized back to text and parsed again.
+	 * 
+	 * @param <T>
+	 *            Java type to map to.
+	 * @param jsonObject
+	 *            The parsed JSON object to be mapped to a Java type.
+	 * @param type
+	 *            Java type token.
+	 * @return A Java object (of type {@code type}) representation of the JSON
+	 *         input.
+	 * @throws InstagramJsonMappingException
+	 *             If an error occurs while mapping JSON to Java.
+	 */
+	<T> T toJavaObject(JsonObject jsonObject, Class<T> type)
+			throws InstagramJsonMappingException;
+
+	/**
+	 * Given an already parsed JSON array, create and return a new instance of
+	 * a corresponding Java {@link java.util.List} which contains elements of
+	 * type {@code type}.
+	 * 
+	 * @param <T>
+	 *            Java type to map to for each element of the list.
+	 * @param jsonArray
+	 *            The parsed JSON array to be mapped to a Java type.
+	 * @param type
+	 *            Java type token.
+	 * @return A Java object (of type {@code List} which contains elements of
+	 *         type {@code type}) representation of the JSON input.
+	 * @throws InstagramJsonMappingException
+	 *             If an error occurs while mapping JSON to Java.
+	 */
+	<T> List<T> toJavaList(JsonArray jsonArray, Class<T> type)
+			throws InstagramJsonMappingException;
+
+	/**
+	 * Reads the next value from {@code reader} and maps it to a new instance
+	 * of {@code type}, without building an intermediate tree. Members that
+	 * are not mapped to an {@link Instagram}-annotated field are skipped
+	 * without being materialized. The reader is left positioned after the
+	 * value, so callers can stream through a larger document.
+	 * 
+	 * @param <T>
+	 *            Java type to map to.
+	 * @param reader
+	 *            The token source, e.g. a
+	 *            {@link com.blinxbox.restinstagram.json.JsonStreamReader} over
+	 *            a {@code Reader} or UTF-8 {@code InputStream}.
+	 * @param type
+	 *            Java type token.
+	 * @return A Java object (of type {@code type}) representation of the JSON
+	 *         value.
+	 * @throws InstagramJsonMappingException
+	 *             If an error occurs while reading or mapping the JSON.
+	 */
+	<T> T toJavaObject(JsonReader reader, Class<T> type)
+			throws InstagramJsonMappingException;
+
+	/**
+	 * Reads the next value from {@code reader}, which must be an array, and
+	 * maps it to a {@link java.util.List} of {@code type}, without building an
+	 * intermediate tree. The reader is left positioned after the array.
+	 * 
+	 * @param <T>
+	 *            Java type to map to for each element of the list.
+	 * @param reader
+	 *            The token source.
+	 * @param type
+	 *            Java type token.
+	 * @return A Java object (of type {@code List} which contains elements of
+	 *         type {@code type}) representation of the JSON array.
+	 * @throws InstagramJsonMappingException
+	 *             If an error occurs while reading or mapping the JSON.
+	 */
+	<T> List<T> toJavaList(JsonReader reader, Class<T> type)
+			throws InstagramJsonMappingException;
+
+	/**
+	 * Like {@link #toJavaObject(String, Class)}, but maps only the fields
+	 * selected by {@code projection}. Other members are skipped while parsing
+	 * and their fields keep their default values.
+	 * 
+	 * @param <T>
+	 *            Java type to map to.
+	 * @param json
+	 *            The JSON to be mapped to a Java type.
+	 * @param type
+	 *            Java type token.
+	 * @param projection
+	 *            Fields to map, {@code null} for all.
+	 * @return A Java object (of type {@code type}) representation of the JSON
+	 *         input.
+	 * @throws InstagramJsonMappingException
+	 *             If an error occurs while mapping JSON to Java.
+	 */
+	<T> T toJavaObject(String json, Class<T> type, Projection projection)
+			throws InstagramJsonMappingException;
+
+	/**
+	 * Like {@link #toJavaList(String, Class)}, but maps only the fields of
+	 * each element selected by {@code projection}.
+	 * 
+	 * @param <T>
+	 *            Java type to map to for each element of the list.
+	 * @param json
+	 *            The JSON to be mapped to a Java type.
+	 * @param type
+	 *            Java type token.
+	 * @param projection
+	 *            Fields of each element to map, {@code null} for all.
+	 * @return A Java object (of type {@code List} which contains elements of
+	 *         type {@code type}) representation of the JSON input.
+	 * @throws InstagramJsonMappingException
+	 *             If an error occurs while mapping JSON to Java.
+	 */
+	<T> List<T> toJavaList(String json, Class<T> type, Projection projection)
+			throws InstagramJsonMappingException;
+
+	/**
+	 * Like {@link #toJavaObject(JsonReader, Class)}, but maps only the fields
+	 * selected by {@code projection}.
+	 * 
+	 * @param <T>
+	 *            Java type to map to.
+	 * @param reader
+	 *            The token source.
+	 * @param type
+	 *            Java type token.
+	 * @param projection
+	 *            Fields to map, {@code null} for all.
+	 * @return A Java object (of type {@code type}) representation of the JSON
+	 *         value.
+	 * @throws InstagramJsonMappingException
+	 *             If an error occurs while reading or mapping the JSON.
+	 */
+	<T> T toJavaObject(JsonReader reader, Class<T> type, Projection projection)
+			throws InstagramJsonMappingException;
+
+	/**
+	 * Like {@link #toJavaList(JsonReader, Class)}, but maps only the fields of
+	 * each element selected by {@code projection}.
+	 * 
+	 * @param <T>
+	 *            Java type to map to for each element of the list.
+	 * @param reader
+	 *            The token source.
+	 * @param type
+	 *            Java type token.
+	 * @param projection
+	 *            Fields of each element to map, {@code null} for all.
+	 * @return A Java object (of type {@code List} which contains elements of
+	 *         type {@code type}) representation of the JSON array.
+	 * @throws InstagramJsonMappingException
+	 *             If an error occurs while reading or mapping the JSON.
+	 */
+	<T> List<T> toJavaList(JsonReader reader, Class<T> type,
+			Projection projection) throws InstagramJsonMappingException;
+
+	/**
+	 * Maps the next value of {@code reader}, which must be an object, into an
+	 * existing instance instead of a new one. Nested objects of mapped types
+	 * are mapped into the instances the fields already hold, and fields
+	 * without a member in the JSON get their initial values back, so
+	 * {@code target} ends up as if it had been newly mapped. Lists are
+	 * allocated anew.
+	 * <p>
+	 * Reusing one instance while scanning many values keeps allocation flat.
+	 * The instance must not be shared with other threads meanwhile.
+	 * 
+	 * @param <T>
+	 *            Java type to map to.
+	 * @param reader
+	 *            The token source.
+	 * @param target
+	 *            The instance to map into.
+	 * @param projection
+	 *            Fields to map, {@code null} for all.
+	 * @return {@code target}, or {@code null} for a JSON null or if the error
+	 *         handler chose to continue after a failure.
+	 * @throws InstagramJsonMappingException
+	 *             If an error occurs while reading or mapping the JSON.
+	 */
+	<T> T mapInto(JsonReader reader, T target, Projection projection)
+			throws InstagramJsonMappingException;
+
 	/**
 	 * Given a Java {@code object}, create and return a JSON string that
 	 * represents it.
@@ -113,4 +308,49 @@ public interface JsonMapper {
 	 */
 	String toJson(Object object, boolean ignoreNullValuedProperties)
 			throws InstagramJsonMappingException;
-}
\ No newline at end of file
+
+	/**
+	 * Writes the JSON representation of {@code object} straight to
+	 * {@code out}, without building an intermediate tree or string.
+	 * {@link Instagram}-annotated fields are written under their JSON
+	 * attribute names, so the output maps back with
+	 * {@link #toJavaObject(String, Class)}.
+	 * 
+	 * @param object
+	 *            The Java object to map to JSON. Can be a Javabean,
+	 *            {@link java.util.List}, or {@link java.util.Map}.
+	 * @param ignoreNullValuedProperties
+	 *            If {@code true}, no Javabean properties with {@code null}
+	 *            values will be included in the generated JSON.
+	 * @param out
+	 *            The target.
+	 * @throws IOException
+	 *             If {@code out} cannot be written.
+	 * @throws InstagramJsonMappingException
+	 *             If an error occurs while mapping Java to JSON.
+	 */
+	void toJson(Object object, boolean ignoreNullValuedProperties,
+			Appendable out) throws IOException, InstagramJsonMappingException;
+
+	/**
+	 * Writes the JSON representation of {@code object} to {@code out} as
+	 * UTF-8. The stream is flushed but not closed.
+	 * 
+	 * @param object
+	 *            The Java object to map to JSON. Can be a Javabean,
+	 *            {@link java.util.List}, or {@link java.util.Map}.
+	 * @param ignoreNullValuedProperties
+	 *            If {@code true}, no Javabean properties with {@code null}
+	 *            values will be included in the generated JSON.
+	 * @param out
+	 *            The target.
+	 * @throws IOException
+	 *             If {@code out} cannot be written.
+	 * @throws InstagramJsonMappingException
+	 *             If an error occurs while mapping Java to JSON.
+	 * @see #toJson(Object, boolean, Appendable)
+	 */
+	void toJson(Object object, boolean ignoreNullValuedProperties,
+			OutputStream out) throws IOException,
+			InstagramJsonMappingException;
+}
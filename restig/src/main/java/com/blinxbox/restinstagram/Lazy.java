@@ -0,0 +1,240 @@
+/*
+ * Copyright (c) 2010-2012 BlinxBox.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.blinxbox.restinstagram;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+
+import com.blinxbox.restinstagram.exception.InstagramJsonMappingException;
+import com.blinxbox.restinstagram.json.JsonReader;
+import com.blinxbox.restinstagram.json.StringPool;
+import com.restfb.json.JsonException;
+
+/**
+ * Holder of a field value that may be mapped only when it is first used.
+ * <p>
+ * Declaring an {@link Instagram}-annotated field as {@code Lazy<T>} lets a
+ * {@link DefaultJsonMapper} in lazy mode (see
+ * {@link DefaultJsonMapper#setDecodeLazily(boolean)}) keep just the unparsed
+ * JSON of the value and map it on the first call to {@link #get()}. In eager
+ * mode the value is mapped right away and the holder merely wraps it.
+ * <p>
+ * Instances are thread safe; the value is mapped at most once. Serializing a
+ * holder maps its value first.
+ * 
+ * @param <T>
+ *            The type of the value.
+ * @author Efi MK
+ */
+public final class Lazy<T> implements Serializable {
+	/**
+	 * Serial version.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The mapped value, valid once {@link #mDecoder} is {@code null}.
+	 */
+	private T mValue;
+
+	/**
+	 * Maps the value on first access, {@code null} once it was mapped.
+	 */
+	private transient volatile Decoder mDecoder;
+
+	/**
+	 * @param value
+	 *            The mapped value.
+	 * @param decoder
+	 *            Maps the value, or {@code null} if {@code value} is final.
+	 */
+	private Lazy(final T value, final Decoder decoder) {
+		mValue = value;
+		mDecoder = decoder;
+	}
+
+	/**
+	 * @param <T>
+	 *            The type of the value.
+	 * @param value
+	 *            An already mapped value.
+	 * @return A holder of {@code value}.
+	 */
+	public static <T> Lazy<T> of(final T value) {
+		return new Lazy<T>(value, null);
+	}
+
+	/**
+	 * Creates a holder that maps a captured JSON value on first access.
+	 * 
+	 * @param <T>
+	 *            The type of the value.
+	 * @param mapper
+	 *            The mapper to map with.
+	 * @param rawValue
+	 *            The value as captured by {@link JsonReader#nextRawValue()}.
+	 * @param type
+	 *            The type to map to.
+	 * @param elementType
+	 *            Element type if {@code type} is a {@link java.util.List}.
+	 * @param stringPool
+	 *            Pool for string values, or {@code null}.
+	 * @param projection
+	 *            Fields to map, {@code null} for all.
+	 * @return The holder.
+	 */
+	static <T> Lazy<T> deferred(final DefaultJsonMapper mapper,
+			final Object rawValue, final Class<?> type,
+			final Class<?> elementType, final StringPool stringPool,
+			final Projection projection) {
+		return new Lazy<T>(null, new Decoder(mapper, rawValue, type,
+				elementType, stringPool, projection));
+	}
+
+	/**
+	 * Returns the value, mapping it on the first call if it was deferred.
+	 * 
+	 * @return The value, may be {@code null}.
+	 * @throws InstagramJsonMappingException
+	 *             If the deferred value cannot be mapped.
+	 */
+	@SuppressWarnings("unchecked")
+	public T get() {
+		if (mDecoder != null) {
+			synchronized (this) {
+				final Decoder decoder = mDecoder;
+				if (decoder != null) {
+					mValue = (T) decoder.decode();
+					// Publishes mValue and releases the captured JSON.
+					mDecoder = null;
+				}
+			}
+		}
+		return mValue;
+	}
+
+	/**
+	 * @return {@code true} if the value was mapped already.
+	 */
+	public boolean isDecoded() {
+		return mDecoder == null;
+	}
+
+	/**
+	 * Maps the value before the default serialization writes it.
+	 * 
+	 * @param out
+	 *            The stream.
+	 * @throws IOException
+	 *             If the stream cannot be written.
+	 */
+	private void writeObject(final ObjectOutputStream out) throws IOException {
+		get();
+		out.defaultWriteObject();
+	}
+
+	@Override
+	public String toString() {
+		return isDecoded() ? String.valueOf(mValue) : "Lazy[not decoded]";
+	}
+
+	/**
+	 * What is needed to map a deferred value.
+	 */
+	private static final class Decoder {
+		/**
+		 * The mapper to map with.
+		 */
+		private final DefaultJsonMapper mMapper;
+
+		/**
+		 * The captured JSON.
+		 */
+		private final Object mRawValue;
+
+		/**
+		 * The type to map to.
+		 */
+		private final Class<?> mType;
+
+		/**
+		 * Element type of lists.
+		 */
+		private final Class<?> mElementType;
+
+		/**
+		 * Pool for string values, or {@code null}.
+		 */
+		private final StringPool mStringPool;
+
+		/**
+		 * Fields to map, {@code null} for all.
+		 */
+		private final Projection mProjection;
+
+		/**
+		 * @param mapper
+		 *            The mapper to map with.
+		 * @param rawValue
+		 *            The captured JSON.
+		 * @param type
+		 *            The type to map to.
+		 * @param elementType
+		 *            Element type of lists.
+		 * @param stringPool
+		 *            Pool for string values, or {@code null}.
+		 * @param projection
+		 *            Fields to map, {@code null} for all.
+		 */
+		Decoder(final DefaultJsonMapper mapper, final Object rawValue,
+				final Class<?> type, final Class<?> elementType,
+				final StringPool stringPool, final Projection projection) {
+			mMapper = mapper;
+			mRawValue = rawValue;
+			mType = type;
+			mElementType = elementType;
+			mStringPool = stringPool;
+			mProjection = projection;
+		}
+
+		/**
+		 * @return The mapped value.
+		 * @throws InstagramJsonMappingException
+		 *             If the value cannot be mapped.
+		 */
+		Object decode() {
+			try {
+				return mMapper.readValue(JsonReader.forRawValue(mRawValue),
+						mType, mElementType, mStringPool, mProjection);
+			} catch (final IOException e) {
+				throw new InstagramJsonMappingException("Unable to map "
+						+ mType.getName(), e);
+			} catch (final JsonException e) {
+				throw new InstagramJsonMappingException("Unable to map "
+						+ mType.getName(), e);
+			}
+		}
+	}
+}
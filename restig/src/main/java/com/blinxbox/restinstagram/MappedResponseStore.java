@@ -0,0 +1,940 @@
+/*
+ * Copyright (c) 2010-2012 BlinxBox.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.blinxbox.restinstagram;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * A {@link ResponseStore} on disk, so a restarted process still answers
+ * recently fetched end points without sending requests.
+ * <p>
+ * Bodies are appended as records to memory mapped segment files of a fixed
+ * size. Each record carries a CRC of its content and is made visible by
+ * writing its marker last, so a record torn by a crash is detected and
+ * dropped when the store is opened. The index of the records is kept in
+ * memory and written to disk on {@link #flush()}, {@link #compact()} and
+ * {@link #close()}; records written after the last index are recovered by
+ * scanning the segments from the position the index was written at.
+ * <p>
+ * Removed and replaced records stay in their segment until it is compacted:
+ * the live records are copied to new segments and the old ones deleted.
+ * This happens by itself when a segment fills up and more than half of the
+ * store is garbage. Once the segments exceed the size bound the oldest one
+ * is dropped with the records in it.
+ * <p>
+ * Writes reach the page cache at once and survive a crash of the process;
+ * call {@link #flush()} to force them to the disk. Mapped segments are only
+ * unmapped once garbage collected, which on Windows keeps deleted segments
+ * until then.
+ * 
+ * @author Efi MK
+ */
+public class MappedResponseStore implements ResponseStore, Closeable {
+	/**
+	 * Default size of a segment file.
+	 */
+	public static final int DEFAULT_SEGMENT_SIZE = 8 * 1024 * 1024;
+
+	/**
+	 * Marker of a record.
+	 */
+	private static final int RECORD_MAGIC = 0x52494731;
+
+	/**
+	 * Marker of the index file.
+	 */
+	private static final int INDEX_MAGIC = 0x52494958;
+
+	/**
+	 * Size of a record header: marker, key length, body length, expiry and
+	 * CRC.
+	 */
+	private static final int HEADER_SIZE = 24;
+
+	/**
+	 * Body length of a record that removes its key.
+	 */
+	private static final int TOMBSTONE = -1;
+
+	/**
+	 * Name of the index file.
+	 */
+	private static final String INDEX_FILE = "index.dat";
+
+	/**
+	 * Prefix of the segment file names, followed by the segment number.
+	 */
+	private static final String SEGMENT_PREFIX = "segment-";
+
+	/**
+	 * Suffix of the segment file names.
+	 */
+	private static final String SEGMENT_SUFFIX = ".dat";
+
+	/**
+	 * Encoding of the keys.
+	 */
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	/**
+	 * Logger.
+	 */
+	private static final Logger LOGGER = Logger
+			.getLogger(MappedResponseStore.class.getName());
+
+	/**
+	 * Directory of the files.
+	 */
+	private final File mDirectory;
+
+	/**
+	 * Maximum total size of the segments.
+	 */
+	private final long mMaxBytes;
+
+	/**
+	 * Size of new segments.
+	 */
+	private final int mSegmentSize;
+
+	/**
+	 * Time to live per end point pattern.
+	 */
+	private final EndPointTtls mTtls;
+
+	/**
+	 * The segments by number.
+	 */
+	private final TreeMap<Integer, Segment> mSegments = new TreeMap<Integer, Segment>();
+
+	/**
+	 * Location of the live record of each key.
+	 */
+	private final Map<String, Location> mIndex = new HashMap<String, Location>();
+
+	/**
+	 * The segment records are appended to.
+	 */
+	private Segment mActive;
+
+	/**
+	 * Total size of the live records.
+	 */
+	private long mLiveBytes;
+
+	/**
+	 * {@code true} while compacting.
+	 */
+	private boolean mCompacting;
+
+	/**
+	 * {@code true} once closed.
+	 */
+	private boolean mClosed;
+
+	/**
+	 * Opens a store with segments of the default size.
+	 * 
+	 * @param directory
+	 *            Directory of the files, created if missing.
+	 * @param maxBytes
+	 *            Maximum total size of the segment files.
+	 * @param defaultTtl
+	 *            Time to live in milliseconds of bodies whose end point
+	 *            matches no pattern, {@code 0} to not keep them.
+	 * @throws IOException
+	 *             If the store cannot be opened.
+	 */
+	public MappedResponseStore(final File directory, final long maxBytes,
+			final long defaultTtl) throws IOException {
+		this(directory, maxBytes, defaultTtl, DEFAULT_SEGMENT_SIZE);
+	}
+
+	/**
+	 * Opens a store, recovering the records of an earlier run.
+	 * 
+	 * @param directory
+	 *            Directory of the files, created if missing.
+	 * @param maxBytes
+	 *            Maximum total size of the segment files, at least one
+	 *            segment.
+	 * @param defaultTtl
+	 *            Time to live in milliseconds of bodies whose end point
+	 *            matches no pattern, {@code 0} to not keep them.
+	 * @param segmentSize
+	 *            Size of a segment file, which bounds the size of a body.
+	 * @throws IOException
+	 *             If the store cannot be opened.
+	 * @throws IllegalArgumentException
+	 *             If a bound is out of range.
+	 */
+	public MappedResponseStore(final File directory, final long maxBytes,
+			final long defaultTtl, final int segmentSize) throws IOException,
+			IllegalArgumentException {
+		if (segmentSize <= HEADER_SIZE || maxBytes < segmentSize) {
+			throw new IllegalArgumentException(
+					"The store must hold at least one segment of more than "
+							+ HEADER_SIZE + " bytes.");
+		}
+		mDirectory = directory;
+		mMaxBytes = maxBytes;
+		mSegmentSize = segmentSize;
+		mTtls = new EndPointTtls(defaultTtl);
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("Cannot create " + directory);
+		}
+		open();
+	}
+
+	/**
+	 * Sets the time to live of bodies whose end point matches a pattern, see
+	 * {@link DefaultResultCache#setTtl(String, long)}.
+	 * 
+	 * @param endPointPattern
+	 *            The pattern, relative to the API.
+	 * @param ttl
+	 *            Time to live in milliseconds, {@code 0} to not keep matching
+	 *            bodies.
+	 * @throws IllegalArgumentException
+	 *             If {@code ttl} is negative.
+	 */
+	public void setTtl(final String endPointPattern, final long ttl)
+			throws IllegalArgumentException {
+		mTtls.set(endPointPattern, ttl);
+	}
+
+	@Override
+	public synchronized byte[] get(final String key) {
+		final Location location = mClosed ? null : mIndex.get(key);
+		if (location == null) {
+			return null;
+		}
+		if (location.mExpiresAt - currentTimeMillis() <= 0) {
+			forget(key);
+			return null;
+		}
+		final ByteBuffer record = mSegments.get(location.mSegment).slice(
+				location.mPosition, location.mLength);
+		final byte[] body = new byte[location.mLength - HEADER_SIZE
+				- location.mKeyLength];
+		record.position(HEADER_SIZE + location.mKeyLength);
+		record.get(body);
+		if (crc(record) != record.getInt(20)) {
+			LOGGER.warning("Dropping corrupt record of " + key);
+			forget(key);
+			return null;
+		}
+		return body;
+	}
+
+	@Override
+	public synchronized void put(final String key, final String endPoint,
+			final byte[] body) {
+		if (mClosed) {
+			return;
+		}
+		final long ttl = mTtls.of(endPoint);
+		final byte[] keyBytes = key.getBytes(UTF_8);
+		if (ttl == 0
+				|| HEADER_SIZE + keyBytes.length + (long) body.length > mSegmentSize) {
+			remove(key);
+			return;
+		}
+		try {
+			final Location location = append(keyBytes, body,
+					currentTimeMillis() + ttl);
+			forget(key);
+			mIndex.put(key, location);
+			mLiveBytes += location.mLength;
+		} catch (final IOException e) {
+			LOGGER.warning("Unable to store " + key + ": " + e);
+		}
+	}
+
+	@Override
+	public synchronized void remove(final String key) {
+		if (mClosed || !mIndex.containsKey(key)) {
+			return;
+		}
+		forget(key);
+		try {
+			append(key.getBytes(UTF_8), null, 0);
+		} catch (final IOException e) {
+			LOGGER.warning("Unable to remove " + key + ": " + e);
+		}
+	}
+
+	/**
+	 * Copies the live records to new segments and deletes the old ones,
+	 * dropping expired records and the garbage of removed ones.
+	 * 
+	 * @throws IOException
+	 *             If the segments cannot be written.
+	 */
+	public synchronized void compact() throws IOException {
+		checkOpen();
+		mCompacting = true;
+		try {
+			final int firstNew = mActive.mNumber + 1;
+			mActive = createSegment(firstNew);
+			final long now = currentTimeMillis();
+			final Iterator<Location> locations = mIndex.values().iterator();
+			while (locations.hasNext()) {
+				final Location location = locations.next();
+				if (location.mExpiresAt - now <= 0) {
+					locations.remove();
+					mLiveBytes -= location.mLength;
+					continue;
+				}
+				final ByteBuffer record = mSegments.get(location.mSegment)
+						.slice(location.mPosition, location.mLength);
+				final Location moved = write(record, location.mLength);
+				location.mSegment = moved.mSegment;
+				location.mPosition = moved.mPosition;
+			}
+			force();
+			final List<Segment> old = new ArrayList<Segment>(mSegments.headMap(
+					firstNew).values());
+			for (final Segment segment : old) {
+				deleteSegment(segment);
+			}
+			writeIndex();
+		} finally {
+			mCompacting = false;
+		}
+	}
+
+	/**
+	 * Forces the segments to the disk and writes the index, so the store
+	 * opens without scanning.
+	 * 
+	 * @throws IOException
+	 *             If the files cannot be written.
+	 */
+	public synchronized void flush() throws IOException {
+		checkOpen();
+		force();
+		writeIndex();
+	}
+
+	/**
+	 * Flushes and closes the store; it answers nothing afterwards.
+	 * 
+	 * @throws IOException
+	 *             If the files cannot be written.
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		if (mClosed) {
+			return;
+		}
+		try {
+			flush();
+		} finally {
+			mClosed = true;
+			for (final Segment segment : mSegments.values()) {
+				segment.close();
+			}
+			mSegments.clear();
+			mIndex.clear();
+		}
+	}
+
+	/**
+	 * @return Number of live records, expired ones included.
+	 */
+	public synchronized int size() {
+		return mIndex.size();
+	}
+
+	/**
+	 * @return Number of segment files.
+	 */
+	public synchronized int getSegmentCount() {
+		return mSegments.size();
+	}
+
+	/**
+	 * @return Total size of the live records.
+	 */
+	public synchronized long getLiveBytes() {
+		return mLiveBytes;
+	}
+
+	@Override
+	public String toString() {
+		return "MappedResponseStore[directory=" + mDirectory + ", size="
+				+ size() + ", segments=" + getSegmentCount() + "]";
+	}
+
+	/**
+	 * @return The current time in milliseconds.
+	 */
+	protected long currentTimeMillis() {
+		return System.currentTimeMillis();
+	}
+
+	/**
+	 * Maps the segments and rebuilds the index, from the index file if there
+	 * is a usable one.
+	 * 
+	 * @throws IOException
+	 *             If a segment cannot be mapped.
+	 */
+	private void open() throws IOException {
+		final File[] files = mDirectory.listFiles();
+		if (files != null) {
+			for (final File file : files) {
+				final String name = file.getName();
+				if (name.startsWith(SEGMENT_PREFIX)
+						&& name.endsWith(SEGMENT_SUFFIX)) {
+					try {
+						final int number = Integer.parseInt(name.substring(
+								SEGMENT_PREFIX.length(), name.length()
+										- SEGMENT_SUFFIX.length()));
+						mSegments.put(number, new Segment(number, file, 0));
+					} catch (final NumberFormatException e) {
+						LOGGER.fine("Skipping " + file);
+					}
+				}
+			}
+		}
+		int scanFrom = readIndex();
+		if (scanFrom < 0) {
+			mIndex.clear();
+			mLiveBytes = 0;
+			scanFrom = Integer.MIN_VALUE;
+		}
+		for (final Segment segment : mSegments.values()) {
+			if (segment.mNumber > scanFrom) {
+				scan(segment, 0);
+			} else if (segment.mNumber == scanFrom) {
+				scan(segment, segment.mPosition);
+			}
+		}
+		mActive = mSegments.isEmpty() ? createSegment(1) : mSegments
+				.lastEntry().getValue();
+	}
+
+	/**
+	 * Reads the index file.
+	 * 
+	 * @return Number of the segment the index was written in front of,
+	 *         {@code -1} if there is no usable index.
+	 */
+	private int readIndex() {
+		final File file = new File(mDirectory, INDEX_FILE);
+		if (!file.isFile()) {
+			return -1;
+		}
+		DataInputStream in = null;
+		try {
+			in = new DataInputStream(new BufferedInputStream(
+					new FileInputStream(file)));
+			if (in.readInt() != INDEX_MAGIC) {
+				return -1;
+			}
+			final int active = in.readInt();
+			final int activePosition = in.readInt();
+			final Segment activeSegment = mSegments.get(active);
+			if (activeSegment == null
+					|| activePosition > activeSegment.mBuffer.capacity()) {
+				return -1;
+			}
+			final int count = in.readInt();
+			for (int i = 0; i < count; i++) {
+				final byte[] key = new byte[in.readInt()];
+				in.readFully(key);
+				final Location location = new Location(in.readInt(),
+						in.readInt(), in.readInt(), key.length, in.readLong());
+				final Segment segment = mSegments.get(location.mSegment);
+				if (segment == null
+						|| location.mPosition + location.mLength > segment.mBuffer
+								.capacity()) {
+					return -1;
+				}
+				mIndex.put(new String(key, UTF_8), location);
+				mLiveBytes += location.mLength;
+			}
+			for (final Segment segment : mSegments.values()) {
+				segment.mPosition = segment.mNumber < active ? segment.mBuffer
+						.capacity() : 0;
+			}
+			activeSegment.mPosition = activePosition;
+			return active;
+		} catch (final IOException e) {
+			LOGGER.warning("Ignoring unreadable index " + file + ": " + e);
+			return -1;
+		} finally {
+			closeQuietly(in);
+		}
+	}
+
+	/**
+	 * Writes the index file, replacing the previous one atomically.
+	 * 
+	 * @throws IOException
+	 *             If the file cannot be written.
+	 */
+	private void writeIndex() throws IOException {
+		final File temporary = new File(mDirectory, INDEX_FILE + ".tmp");
+		final FileOutputStream file = new FileOutputStream(temporary);
+		try {
+			final DataOutputStream out = new DataOutputStream(
+					new BufferedOutputStream(file));
+			out.writeInt(INDEX_MAGIC);
+			out.writeInt(mActive.mNumber);
+			out.writeInt(mActive.mPosition);
+			out.writeInt(mIndex.size());
+			for (final Map.Entry<String, Location> entry : mIndex.entrySet()) {
+				final byte[] key = entry.getKey().getBytes(UTF_8);
+				final Location location = entry.getValue();
+				out.writeInt(key.length);
+				out.write(key);
+				out.writeInt(location.mSegment);
+				out.writeInt(location.mPosition);
+				out.writeInt(location.mLength);
+				out.writeLong(location.mExpiresAt);
+			}
+			out.flush();
+			file.getFD().sync();
+		} finally {
+			file.close();
+		}
+		final Path target = new File(mDirectory, INDEX_FILE).toPath();
+		try {
+			Files.move(temporary.toPath(), target,
+					StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (final AtomicMoveNotSupportedException e) {
+			Files.move(temporary.toPath(), target,
+					StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	/**
+	 * Replays the valid records of a segment into the index. Stops at the
+	 * first record that is missing, torn or corrupt.
+	 * 
+	 * @param segment
+	 *            The segment.
+	 * @param from
+	 *            Position of the first record.
+	 */
+	private void scan(final Segment segment, final int from) {
+		final ByteBuffer buffer = segment.mBuffer;
+		int position = from;
+		while (position + HEADER_SIZE <= buffer.capacity()
+				&& buffer.getInt(position) == RECORD_MAGIC) {
+			final int keyLength = buffer.getInt(position + 4);
+			final int bodyLength = buffer.getInt(position + 8);
+			final long length = HEADER_SIZE + (long) keyLength
+					+ Math.max(bodyLength, 0);
+			if (keyLength <= 0 || bodyLength < TOMBSTONE
+					|| position + length > buffer.capacity()) {
+				break;
+			}
+			final ByteBuffer record = segment.slice(position, (int) length);
+			if (crc(record) != record.getInt(20)) {
+				break;
+			}
+			final byte[] key = new byte[keyLength];
+			record.position(HEADER_SIZE);
+			record.get(key);
+			final String name = new String(key, UTF_8);
+			forget(name);
+			if (bodyLength != TOMBSTONE) {
+				final Location location = new Location(segment.mNumber,
+						position, (int) length, keyLength,
+						record.getLong(12));
+				mIndex.put(name, location);
+				mLiveBytes += length;
+			}
+			position += (int) length;
+		}
+		if (position > from) {
+			LOGGER.fine("Recovered " + segment.mFile + " up to " + position);
+		}
+		segment.mPosition = position;
+	}
+
+	/**
+	 * Appends a record.
+	 * 
+	 * @param key
+	 *            The key.
+	 * @param body
+	 *            The body, {@code null} to remove the key.
+	 * @param expiresAt
+	 *            When the body expires.
+	 * @return Location of the record.
+	 * @throws IOException
+	 *             If a new segment cannot be created.
+	 */
+	private Location append(final byte[] key, final byte[] body,
+			final long expiresAt) throws IOException {
+		checkOpen();
+		final int length = HEADER_SIZE + key.length
+				+ (body == null ? 0 : body.length);
+		final ByteBuffer record = ByteBuffer.allocate(length);
+		record.putInt(RECORD_MAGIC).putInt(key.length)
+				.putInt(body == null ? TOMBSTONE : body.length)
+				.putLong(expiresAt).putInt(0).put(key);
+		if (body != null) {
+			record.put(body);
+		}
+		record.putInt(20, crc(record));
+		final Location location = write(record, length);
+		location.mKeyLength = key.length;
+		location.mExpiresAt = expiresAt;
+		return location;
+	}
+
+	/**
+	 * Writes a complete record at the end of the active segment, its marker
+	 * last.
+	 * 
+	 * @param record
+	 *            The record.
+	 * @param length
+	 *            Its length.
+	 * @return Where it was written.
+	 * @throws IOException
+	 *             If a new segment cannot be created.
+	 */
+	private Location write(final ByteBuffer record, final int length)
+			throws IOException {
+		while (mActive.mPosition + length > mActive.mBuffer.capacity()) {
+			roll();
+		}
+		final Segment segment = mActive;
+		final int position = segment.mPosition;
+		final ByteBuffer target = segment.slice(position, length);
+		final ByteBuffer source = record.duplicate();
+		source.clear().limit(length).position(4);
+		target.position(4);
+		target.put(source);
+		// Ends a scan after this record until the next one is written.
+		if (position + length + 4 <= segment.mBuffer.capacity()) {
+			segment.mBuffer.putInt(position + length, 0);
+		}
+		target.putInt(0, RECORD_MAGIC);
+		segment.mPosition = position + length;
+		return new Location(segment.mNumber, position, length, 0, 0);
+	}
+
+	/**
+	 * Starts a new segment, compacting first if most of the store is garbage
+	 * and dropping the oldest segments beyond the size bound.
+	 * 
+	 * @throws IOException
+	 *             If the segment cannot be created.
+	 */
+	private void roll() throws IOException {
+		if (!mCompacting) {
+			long used = 0;
+			for (final Segment segment : mSegments.values()) {
+				used += segment.mPosition;
+			}
+			if (used > 2 * mLiveBytes) {
+				compact();
+				if (mActive.mPosition < mActive.mBuffer.capacity() / 2) {
+					return;
+				}
+			}
+		}
+		mActive = createSegment(mActive.mNumber + 1);
+		if (!mCompacting) {
+			while ((long) mSegments.size() * mSegmentSize > mMaxBytes
+					&& mSegments.size() > 1) {
+				dropSegment(mSegments.firstEntry().getValue());
+			}
+		}
+	}
+
+	/**
+	 * Drops a segment and the live records in it.
+	 * 
+	 * @param segment
+	 *            The segment.
+	 * @throws IOException
+	 *             If the segment cannot be deleted.
+	 */
+	private void dropSegment(final Segment segment) throws IOException {
+		final Iterator<Location> locations = mIndex.values().iterator();
+		while (locations.hasNext()) {
+			final Location location = locations.next();
+			if (location.mSegment == segment.mNumber) {
+				locations.remove();
+				mLiveBytes -= location.mLength;
+			}
+		}
+		deleteSegment(segment);
+	}
+
+	/**
+	 * Closes and deletes a segment file.
+	 * 
+	 * @param segment
+	 *            The segment.
+	 * @throws IOException
+	 *             If the file cannot be deleted.
+	 */
+	private void deleteSegment(final Segment segment) throws IOException {
+		mSegments.remove(segment.mNumber);
+		segment.close();
+		if (!segment.mFile.delete() && segment.mFile.exists()) {
+			throw new IOException("Cannot delete " + segment.mFile);
+		}
+	}
+
+	/**
+	 * @param number
+	 *            Number of the segment.
+	 * @return A new, empty segment.
+	 * @throws IOException
+	 *             If the file cannot be created.
+	 */
+	private Segment createSegment(final int number) throws IOException {
+		final Segment segment = new Segment(number, new File(mDirectory,
+				String.format("%s%08d%s", SEGMENT_PREFIX, number,
+						SEGMENT_SUFFIX)), mSegmentSize);
+		mSegments.put(number, segment);
+		return segment;
+	}
+
+	/**
+	 * Drops a key from the index, without writing a record.
+	 * 
+	 * @param key
+	 *            The key.
+	 */
+	private void forget(final String key) {
+		final Location location = mIndex.remove(key);
+		if (location != null) {
+			mLiveBytes -= location.mLength;
+		}
+	}
+
+	/**
+	 * Forces every segment to the disk.
+	 */
+	private void force() {
+		for (final Segment segment : mSegments.values()) {
+			segment.mBuffer.force();
+		}
+	}
+
+	/**
+	 * @throws IOException
+	 *             If the store is closed.
+	 */
+	private void checkOpen() throws IOException {
+		if (mClosed) {
+			throw new IOException("The store is closed.");
+		}
+	}
+
+	/**
+	 * @param record
+	 *            A whole record.
+	 * @return CRC of the record, its marker and CRC field excluded.
+	 */
+	private static int crc(final ByteBuffer record) {
+		final CRC32 crc = new CRC32();
+		final byte[] bytes = new byte[record.capacity() - 8];
+		final ByteBuffer fields = record.duplicate();
+		fields.clear().position(4).limit(20);
+		fields.get(bytes, 0, 16);
+		fields.clear().position(HEADER_SIZE);
+		fields.get(bytes, 16, bytes.length - 16);
+		crc.update(bytes, 0, bytes.length);
+		return (int) crc.getValue();
+	}
+
+	/**
+	 * @param closeable
+	 *            Closed, errors ignored.
+	 */
+	private static void closeQuietly(final Closeable closeable) {
+		if (closeable != null) {
+			try {
+				closeable.close();
+			} catch (final IOException e) {
+				// Ignored.
+			}
+		}
+	}
+
+	/**
+	 * A mapped segment file.
+	 * 
+	 * @author Efi MK
+	 */
+	private static final class Segment {
+		/**
+		 * Number of the segment, later segments hold newer records.
+		 */
+		final int mNumber;
+		/**
+		 * The file.
+		 */
+		final File mFile;
+		/**
+		 * The channel the file is mapped through.
+		 */
+		private final FileChannel mChannel;
+		/**
+		 * The whole file, mapped.
+		 */
+		final MappedByteBuffer mBuffer;
+		/**
+		 * End of the records.
+		 */
+		int mPosition;
+
+		/**
+		 * @param number
+		 *            Number of the segment.
+		 * @param file
+		 *            The file.
+		 * @param size
+		 *            Size to extend the file to, {@code 0} to map it as it
+		 *            is.
+		 * @throws IOException
+		 *             If the file cannot be mapped.
+		 */
+		Segment(final int number, final File file, final int size)
+				throws IOException {
+			mNumber = number;
+			mFile = file;
+			final RandomAccessFile access = new RandomAccessFile(file, "rw");
+			try {
+				if (access.length() < size) {
+					access.setLength(size);
+				}
+				mChannel = access.getChannel();
+				mBuffer = mChannel.map(FileChannel.MapMode.READ_WRITE, 0,
+						access.length());
+			} catch (final IOException e) {
+				access.close();
+				throw e;
+			}
+		}
+
+		/**
+		 * @param position
+		 *            Start of the slice.
+		 * @param length
+		 *            Length of the slice.
+		 * @return A view of a part of the segment, positioned at its start.
+		 */
+		ByteBuffer slice(final int position, final int length) {
+			final ByteBuffer slice = mBuffer.duplicate();
+			slice.clear().position(position).limit(position + length);
+			return slice.slice();
+		}
+
+		/**
+		 * Closes the channel; the mapping lasts until garbage collected.
+		 */
+		void close() {
+			closeQuietly(mChannel);
+		}
+	}
+
+	/**
+	 * Where the live record of a key is.
+	 * 
+	 * @author Efi MK
+	 */
+	private static final class Location {
+		/**
+		 * Number of the segment.
+		 */
+		int mSegment;
+		/**
+		 * Position of the record in the segment.
+		 */
+		int mPosition;
+		/**
+		 * Length of the record.
+		 */
+		final int mLength;
+		/**
+		 * Length of the key.
+		 */
+		int mKeyLength;
+		/**
+		 * When the body expires.
+		 */
+		long mExpiresAt;
+
+		/**
+		 * @param segment
+		 *            Number of the segment.
+		 * @param position
+		 *            Position of the record in the segment.
+		 * @param length
+		 *            Length of the record.
+		 * @param keyLength
+		 *            Length of the key.
+		 * @param expiresAt
+		 *            When the body expires.
+		 */
+		Location(final int segment, final int position, final int length,
+				final int keyLength, final long expiresAt) {
+			mSegment = segment;
+			mPosition = position;
+			mLength = length;
+			mKeyLength = keyLength;
+			mExpiresAt = expiresAt;
+		}
+	}
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2010-2012 BlinxBox.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.blinxbox.restinstagram;
+
+import java.io.IOException;
+import java.util.List;
+
+import com.blinxbox.restinstagram.json.JsonReader;
+
+/**
+ * Callbacks into the mapper used by {@link InstagramTypeMapper}s for values
+ * that need more than a single reader call. Each method applies the same
+ * conversion rules as reflective mapping.
+ * 
+ * @author Efi MK
+ */
+public interface MappingContext {
+	/**
+	 * Reads the next value as a string. Objects and arrays are returned as
+	 * their JSON text.
+	 * 
+	 * @param reader
+	 *            The token source.
+	 * @param name
+	 *            JSON attribute name of the field, selects per field options
+	 *            such as string pooling.
+	 * @return The string, or {@code null} for a JSON null.
+	 * @throws IOException
+	 *             If the input cannot be read.
+	 */
+	String readString(JsonReader reader, String name) throws IOException;
+
+	/**
+	 * Reads the next value as {@code type}: a boxed primitive, a big number
+	 * or a nested {@link Instagram} annotated type.
+	 * 
+	 * @param <T>
+	 *            Java type to map to.
+	 * @param reader
+	 *            The token source.
+	 * @param type
+	 *            Type token.
+	 * @return The value, or {@code null} for a JSON null.
+	 * @throws IOException
+	 *             If the input cannot be read.
+	 */
+	<T> T readValue(JsonReader reader, Class<T> type) throws IOException;
+
+	/**
+	 * Reads the next value, an array, as a list of {@code elementType}.
+	 * 
+	 * @param <T>
+	 *            Java type to map each element to.
+	 * @param reader
+	 *            The token source.
+	 * @param elementType
+	 *            Type token of the elements.
+	 * @param name
+	 *            JSON attribute name of the field, selects per field options
+	 *            such as string pooling.
+	 * @return An unmodifiable list, or {@code null} for a JSON null.
+	 * @throws IOException
+	 *             If the input cannot be read.
+	 */
+	<T> List<T> readList(JsonReader reader, Class<T> elementType, String name)
+			throws IOException;
+
+	/**
+	 * Reads the value of a {@link Lazy} field, deferring its mapping if the
+	 * mapper decodes lazily.
+	 * 
+	 * @param <T>
+	 *            The type of the value.
+	 * @param reader
+	 *            The token source.
+	 * @param name
+	 *            JSON attribute name of the field; the value type is resolved
+	 *            from the field declaration.
+	 * @return The holder, or {@code null} for a JSON null.
+	 * @throws IOException
+	 *             If the input cannot be read.
+	 */
+	<T> Lazy<T> readLazy(JsonReader reader, String name) throws IOException;
+}
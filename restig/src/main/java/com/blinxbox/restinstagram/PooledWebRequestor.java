@@ -0,0 +1,495 @@
+/*
+ * Copyright (c) 2010-2012 BlinxBox.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.blinxbox.restinstagram;
+
+import static java.util.logging.Level.FINE;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import com.restfb.BinaryAttachment;
+import com.restfb.DefaultWebRequestor;
+
+/**
+ * A {@link StreamingWebRequestor} that keeps HTTP/1.1 connections open and
+ * reuses them, so repeated requests to the API skip the TCP and TLS
+ * handshakes. Every host gets a bounded pool; a request waits for a free
+ * connection once the bound is reached. Connections left idle longer than
+ * the idle timeout are closed the next time the pool is used, no background
+ * thread is involved. Each connection owns its I/O buffers, which are reused
+ * by every request sent over it.
+ * <p>
+ * Hosts are connected directly, proxy settings of the system are not used.
+ * <p>
+ * A response holds its connection until its body is closed, so always close
+ * {@link StreamedResponse}s. The {@code String} based methods close the body
+ * themselves.
+ * <p>
+ * Responses are requested gzip or deflate compressed and decompressed while
+ * read; set a {@link TransferListener} to see the sizes of each body.
+ * 
+ * @author Efi MK
+ */
+public class PooledWebRequestor implements ConditionalWebRequestor,
+		Closeable {
+	/**
+	 * Default bound of the connections to a single host.
+	 */
+	public static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = 4;
+
+	/**
+	 * Default connect timeout, also the longest wait for a free connection.
+	 */
+	public static final int DEFAULT_CONNECT_TIMEOUT_IN_MS = 20000;
+
+	/**
+	 * Default read timeout, same as restfb's.
+	 */
+	public static final int DEFAULT_READ_TIMEOUT_IN_MS = 180000;
+
+	/**
+	 * Default idle time after which a connection is closed, below the
+	 * keep-alive timeout of common servers.
+	 */
+	public static final long DEFAULT_IDLE_TIMEOUT_IN_MS = 30000;
+
+	/**
+	 * Logger.
+	 */
+	private static final Logger LOGGER = Logger
+			.getLogger(PooledWebRequestor.class.getName());
+
+	/**
+	 * Bound of the connections to a single host.
+	 */
+	private final int mMaxConnectionsPerHost;
+
+	/**
+	 * Connect timeout in milliseconds.
+	 */
+	private final int mConnectTimeout;
+
+	/**
+	 * Read timeout in milliseconds.
+	 */
+	private final int mReadTimeout;
+
+	/**
+	 * Idle time in milliseconds after which a connection is closed.
+	 */
+	private final long mIdleTimeout;
+
+	/**
+	 * Pools by {@code scheme://host:port}.
+	 */
+	private final ConcurrentMap<String, Route> mRoutes = new ConcurrentHashMap<String, Route>();
+
+	/**
+	 * Sends requests with attachments, which are not pooled.
+	 */
+	private final DefaultWebRequestor mMultipartRequestor = new DefaultWebRequestor();
+
+	/**
+	 * {@code true} once closed.
+	 */
+	private volatile boolean mClosed;
+
+	/**
+	 * Receives the sizes of the response bodies, {@code null} for none.
+	 */
+	private volatile TransferListener mTransferListener;
+
+	/**
+	 * Creates a requestor with the default bounds and timeouts.
+	 */
+	public PooledWebRequestor() {
+		this(DEFAULT_MAX_CONNECTIONS_PER_HOST, DEFAULT_CONNECT_TIMEOUT_IN_MS,
+				DEFAULT_READ_TIMEOUT_IN_MS, DEFAULT_IDLE_TIMEOUT_IN_MS);
+	}
+
+	/**
+	 * @param maxConnectionsPerHost
+	 *            Bound of the connections to a single host, at least 1.
+	 * @param connectTimeout
+	 *            Connect timeout in milliseconds, also the longest wait for a
+	 *            free connection. {@code 0} waits forever.
+	 * @param readTimeout
+	 *            Read timeout in milliseconds, {@code 0} for none.
+	 * @param idleTimeout
+	 *            Idle time in milliseconds after which a connection is closed.
+	 * @throws IllegalArgumentException
+	 *             If a bound or timeout is out of range.
+	 */
+	public PooledWebRequestor(final int maxConnectionsPerHost,
+			final int connectTimeout, final int readTimeout,
+			final long idleTimeout) throws IllegalArgumentException {
+		if (maxConnectionsPerHost < 1) {
+			throw new IllegalArgumentException(
+					"At least one connection per host is needed.");
+		}
+		if (connectTimeout < 0 || readTimeout < 0 || idleTimeout < 0) {
+			throw new IllegalArgumentException(
+					"Timeouts cannot be negative.");
+		}
+		mMaxConnectionsPerHost = maxConnectionsPerHost;
+		mConnectTimeout = connectTimeout;
+		mReadTimeout = readTimeout;
+		mIdleTimeout = idleTimeout;
+	}
+
+	@Override
+	public Response executeGet(final String url) throws IOException {
+		return executeGetStream(url).toResponse();
+	}
+
+	@Override
+	public Response executePost(final String url, final String parameters)
+			throws IOException {
+		return executePostStream(url, parameters).toResponse();
+	}
+
+	/**
+	 * Requests with attachments are sent by restfb's
+	 * {@link DefaultWebRequestor} over a connection of their own.
+	 */
+	@Override
+	public Response executePost(final String url, final String parameters,
+			final BinaryAttachment... binaryAttachments) throws IOException {
+		if (binaryAttachments == null || binaryAttachments.length == 0) {
+			return executePost(url, parameters);
+		}
+		return mMultipartRequestor.executePost(url, parameters,
+				binaryAttachments);
+	}
+
+	@Override
+	public StreamedResponse executeGetStream(final String url)
+			throws IOException {
+		return executeGetStream(url, null);
+	}
+
+	@Override
+	public StreamedResponse executeGetStream(final String url,
+			final Validators validators) throws IOException {
+		if (LOGGER.isLoggable(FINE)) {
+			LOGGER.fine("Making a pooled GET request to " + url);
+		}
+		return execute("GET", new URL(url), null, validators);
+	}
+
+	@Override
+	public StreamedResponse executePostStream(final String url,
+			final String parameters) throws IOException {
+		if (LOGGER.isLoggable(FINE)) {
+			LOGGER.fine("Making a pooled POST request to " + url);
+		}
+		return execute("POST", new URL(url), parameters.getBytes("UTF-8"));
+	}
+
+	/**
+	 * @param transferListener
+	 *            Receives the sizes of the response bodies, {@code null} for
+	 *            none.
+	 */
+	public void setTransferListener(final TransferListener transferListener) {
+		mTransferListener = transferListener;
+	}
+
+	/**
+	 * @return Receives the sizes of the response bodies, {@code null} for
+	 *         none.
+	 */
+	public TransferListener getTransferListener() {
+		return mTransferListener;
+	}
+
+	/**
+	 * Closes the connections that have been idle for longer than the idle
+	 * timeout. Done on every request anyway, call it to release connections
+	 * of a requestor that is not used for a while.
+	 */
+	public void evictIdleConnections() {
+		final long now = System.currentTimeMillis();
+		for (final Route route : mRoutes.values()) {
+			route.evict(now, false);
+		}
+	}
+
+	/**
+	 * Closes the idle connections; connections in use are closed when their
+	 * response is. The requestor cannot be used afterwards.
+	 */
+	@Override
+	public void close() {
+		mClosed = true;
+		for (final Route route : mRoutes.values()) {
+			route.evict(0, true);
+		}
+	}
+
+	/**
+	 * Sends a request over a pooled connection. A {@code GET} that fails on
+	 * a reused connection, which the server may have closed meanwhile, is
+	 * sent once more over a new one.
+	 * 
+	 * @param method
+	 *            {@code GET} or {@code POST}.
+	 * @param url
+	 *            The URL.
+	 * @param body
+	 *            Form encoded body, {@code null} for none.
+	 * @return The response, which must be closed.
+	 * @throws IOException
+	 *             If the request fails.
+	 */
+	protected StreamedResponse execute(final String method, final URL url,
+			final byte[] body) throws IOException {
+		return execute(method, url, body, null);
+	}
+
+	/**
+	 * Sends a request over a pooled connection, see
+	 * {@link #execute(String, URL, byte[])}.
+	 * 
+	 * @param method
+	 *            {@code GET} or {@code POST}.
+	 * @param url
+	 *            The URL.
+	 * @param body
+	 *            Form encoded body, {@code null} for none.
+	 * @param validators
+	 *            Validators to make the request conditional with,
+	 *            {@code null} for none.
+	 * @return The response, which must be closed.
+	 * @throws IOException
+	 *             If the request fails.
+	 */
+	protected StreamedResponse execute(final String method, final URL url,
+			final byte[] body, final Validators validators) throws IOException {
+		if (mClosed) {
+			throw new IOException("The requestor is closed.");
+		}
+		final Route route = route(url);
+		boolean retried = false;
+		while (true) {
+			final HttpConnection connection = route.lease();
+			final boolean reused = connection.getRequestCount() > 0;
+			final int statusCode;
+			final InputStream responseBody;
+			try {
+				statusCode = connection.execute(method, url,
+						route.mHostHeader, body, validators);
+				responseBody = connection.openBody(route);
+			} catch (final IOException e) {
+				route.release(connection, false);
+				if (!reused || retried || !"GET".equals(method)) {
+					throw e;
+				}
+				retried = true;
+				continue;
+			} catch (final RuntimeException e) {
+				route.release(connection, false);
+				throw e;
+			}
+			// The body owns the connection now, closing it releases it.
+			return new StreamedResponse(statusCode, ContentEncoding.decode(
+					responseBody, connection.getContentEncoding(),
+					url.toString(), mTransferListener),
+					connection.getValidators(), connection.getRateLimit());
+		}
+	}
+
+	/**
+	 * @param url
+	 *            A URL.
+	 * @return The pool of the host of {@code url}.
+	 */
+	private Route route(final URL url) {
+		final String protocol = url.getProtocol().toLowerCase();
+		final boolean secure = "https".equals(protocol);
+		if (!secure && !"http".equals(protocol)) {
+			throw new IllegalArgumentException("Unsupported protocol: "
+					+ protocol);
+		}
+		final int defaultPort = secure ? 443 : 80;
+		final int port = url.getPort() == -1 ? defaultPort : url.getPort();
+		final String host = url.getHost();
+		final String key = protocol + "://" + host + ":" + port;
+		Route route = mRoutes.get(key);
+		if (route == null) {
+			final Route created = new Route(host, port, secure,
+					port == defaultPort ? host : host + ":" + port);
+			route = mRoutes.putIfAbsent(key, created);
+			if (route == null) {
+				route = created;
+			}
+		}
+		return route;
+	}
+
+	/**
+	 * The pool of connections to a single host.
+	 * 
+	 * @author Efi MK
+	 */
+	private final class Route implements HttpConnection.Releaser {
+		/**
+		 * Host name.
+		 */
+		private final String mHost;
+		/**
+		 * Port.
+		 */
+		private final int mPort;
+		/**
+		 * {@code true} for TLS.
+		 */
+		private final boolean mSecure;
+		/**
+		 * Value of the {@code Host} header.
+		 */
+		final String mHostHeader;
+		/**
+		 * One permit per connection that may still be opened or leased.
+		 */
+		private final Semaphore mPermits = new Semaphore(
+				mMaxConnectionsPerHost, true);
+		/**
+		 * Idle connections, most recently released first.
+		 */
+		private final Deque<HttpConnection> mIdle = new ArrayDeque<HttpConnection>();
+
+		/**
+		 * @param host
+		 *            Host name.
+		 * @param port
+		 *            Port.
+		 * @param secure
+		 *            {@code true} for TLS.
+		 * @param hostHeader
+		 *            Value of the {@code Host} header.
+		 */
+		Route(final String host, final int port, final boolean secure,
+				final String hostHeader) {
+			mHost = host;
+			mPort = port;
+			mSecure = secure;
+			mHostHeader = hostHeader;
+		}
+
+		/**
+		 * Takes the most recently used idle connection, or opens a new one.
+		 * 
+		 * @return A connection, which must be released.
+		 * @throws IOException
+		 *             If no connection is available in time or it cannot be
+		 *             opened.
+		 */
+		HttpConnection lease() throws IOException {
+			try {
+				if (mConnectTimeout == 0) {
+					mPermits.acquire();
+				} else if (!mPermits.tryAcquire(mConnectTimeout,
+						TimeUnit.MILLISECONDS)) {
+					throw new IOException("No connection to " + mHost
+							+ " became available within " + mConnectTimeout
+							+ " ms");
+				}
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException(
+						"Interrupted while waiting for a connection to "
+								+ mHost);
+			}
+			boolean leased = false;
+			try {
+				final long now = System.currentTimeMillis();
+				evict(now, false);
+				HttpConnection connection;
+				synchronized (this) {
+					connection = mIdle.pollFirst();
+				}
+				if (connection == null) {
+					connection = HttpConnection.open(mHost, mPort, mSecure,
+							mConnectTimeout, mReadTimeout);
+				}
+				leased = true;
+				return connection;
+			} finally {
+				if (!leased) {
+					mPermits.release();
+				}
+			}
+		}
+
+		@Override
+		public void release(final HttpConnection connection,
+				final boolean reusable) {
+			if (reusable && !mClosed) {
+				connection.setIdleSince(System.currentTimeMillis());
+				synchronized (this) {
+					mIdle.addFirst(connection);
+				}
+			} else {
+				connection.close();
+			}
+			mPermits.release();
+		}
+
+		/**
+		 * Closes idle connections.
+		 * 
+		 * @param now
+		 *            The current time.
+		 * @param all
+		 *            {@code true} to close all of them, not just the expired
+		 *            ones.
+		 */
+		void evict(final long now, final boolean all) {
+			synchronized (this) {
+				final Iterator<HttpConnection> oldestFirst = mIdle
+						.descendingIterator();
+				while (oldestFirst.hasNext()) {
+					final HttpConnection connection = oldestFirst.next();
+					if (!all && now - connection.getIdleSince() < mIdleTimeout) {
+						break;
+					}
+					oldestFirst.remove();
+					connection.close();
+				}
+			}
+		}
+	}
+}
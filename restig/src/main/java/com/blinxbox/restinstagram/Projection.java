@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2010-2012 BlinxBox.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.blinxbox.restinstagram;
+
+import static com.restfb.util.StringUtils.isBlank;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Selects which {@link Instagram}-annotated fields to map. A projection is
+ * built from dotted JSON attribute paths, e.g. {@code id},
+ * {@code likes.count} and {@code images.thumbnail.url}; a path that stops at
+ * an object selects all of it. Paths look through lists, so
+ * {@code comments.data.text} selects the text of every comment.
+ * <p>
+ * Members that are not selected are skipped while parsing without being
+ * mapped, and their fields keep their default values. Instances are
+ * immutable and can be shared between threads and calls.
+ * 
+ * @author Efi MK
+ */
+public final class Projection {
+	/**
+	 * Selected members by JSON attribute name. A {@code null} value selects
+	 * the whole member.
+	 */
+	private final Map<String, Projection> mChildren;
+
+	/**
+	 * @param children
+	 *            Selected members by JSON attribute name.
+	 */
+	private Projection(final Map<String, Projection> children) {
+		mChildren = children;
+	}
+
+	/**
+	 * Creates a projection that selects the given paths.
+	 * 
+	 * @param paths
+	 *            Dotted JSON attribute paths.
+	 * @return The projection.
+	 * @throws IllegalArgumentException
+	 *             If no path is given, or a path is blank or has an empty
+	 *             segment.
+	 */
+	public static Projection of(final String... paths) {
+		return of(Arrays.asList(paths));
+	}
+
+	/**
+	 * Creates a projection that selects the given paths.
+	 * 
+	 * @param paths
+	 *            Dotted JSON attribute paths.
+	 * @return The projection.
+	 * @throws IllegalArgumentException
+	 *             If no path is given, or a path is blank or has an empty
+	 *             segment.
+	 */
+	public static Projection of(final Collection<String> paths) {
+		if (paths == null || paths.isEmpty()) {
+			throw new IllegalArgumentException(
+					"A projection needs at least one path.");
+		}
+		final Map<String, Object> root = new TreeMap<String, Object>();
+		for (final String path : paths) {
+			if (isBlank(path)) {
+				throw new IllegalArgumentException(
+						"Projection paths cannot be blank.");
+			}
+			final String[] names = path.trim().split("\\.", -1);
+			Map<String, Object> node = root;
+			for (int i = 0; i < names.length; i++) {
+				if (names[i].length() == 0) {
+					throw new IllegalArgumentException("Invalid projection path '"
+							+ path + "'.");
+				}
+				if (i == names.length - 1) {
+					// Selecting a member wholly overrides narrower paths.
+					node.put(names[i], null);
+					break;
+				}
+				if (node.containsKey(names[i]) && node.get(names[i]) == null) {
+					// Already selected wholly.
+					break;
+				}
+				@SuppressWarnings("unchecked")
+				Map<String, Object> child = (Map<String, Object>) node
+						.get(names[i]);
+				if (child == null) {
+					child = new TreeMap<String, Object>();
+					node.put(names[i], child);
+				}
+				node = child;
+			}
+		}
+		return build(root);
+	}
+
+	/**
+	 * @param node
+	 *            A node of the path tree built by {@link #of(Collection)}.
+	 * @return The projection of the node.
+	 */
+	@SuppressWarnings("unchecked")
+	private static Projection build(final Map<String, Object> node) {
+		final Map<String, Projection> children = new TreeMap<String, Projection>();
+		for (final Map.Entry<String, Object> entry : node.entrySet()) {
+			children.put(entry.getKey(), entry.getValue() == null ? null
+					: build((Map<String, Object>) entry.getValue()));
+		}
+		return new Projection(Collections.unmodifiableMap(children));
+	}
+
+	/**
+	 * @param name
+	 *            A JSON attribute name.
+	 * @return {@code true} if the member is selected, wholly or in part.
+	 */
+	public boolean includes(final String name) {
+		return mChildren.containsKey(name);
+	}
+
+	/**
+	 * @param name
+	 *            A JSON attribute name.
+	 * @return The projection of the member, {@code null} if it is selected
+	 *         wholly or not at all.
+	 */
+	public Projection child(final String name) {
+		return mChildren.get(name);
+	}
+
+	/**
+	 * @return The selected paths, in alphabetical order.
+	 */
+	public List<String> getPaths() {
+		final List<String> paths = new ArrayList<String>();
+		addPaths("", paths);
+		return paths;
+	}
+
+	/**
+	 * @param prefix
+	 *            Path of this projection followed by a dot, or empty.
+	 * @param paths
+	 *            Receives the selected paths.
+	 */
+	private void addPaths(final String prefix, final List<String> paths) {
+		for (final Map.Entry<String, Projection> entry : mChildren.entrySet()) {
+			if (entry.getValue() == null) {
+				paths.add(prefix + entry.getKey());
+			} else {
+				entry.getValue().addPaths(prefix + entry.getKey() + ".", paths);
+			}
+		}
+	}
+
+	@Override
+	public boolean equals(final Object object) {
+		return object instanceof Projection
+				&& mChildren.equals(((Projection) object).mChildren);
+	}
+
+	@Override
+	public int hashCode() {
+		return mChildren.hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return "Projection" + getPaths();
+	}
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2010-2012 BlinxBox.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.blinxbox.restinstagram;
+
+/**
+ * The rate limit headers of a response: the number of requests allowed per
+ * hour ({@code X-Ratelimit-Limit}) and the number still left
+ * ({@code X-Ratelimit-Remaining}). Instagram counts them per access token,
+ * or per client ID for unauthenticated requests.
+ * 
+ * @author Efi MK
+ */
+public final class RateLimit {
+	/**
+	 * Header holding the number of requests allowed per hour.
+	 */
+	public static final String LIMIT_HEADER = "X-Ratelimit-Limit";
+
+	/**
+	 * Header holding the number of requests left.
+	 */
+	public static final String REMAINING_HEADER = "X-Ratelimit-Remaining";
+
+	/**
+	 * Requests allowed per hour.
+	 */
+	private final int mLimit;
+
+	/**
+	 * Requests left.
+	 */
+	private final int mRemaining;
+
+	/**
+	 * @param limit
+	 *            Requests allowed per hour.
+	 * @param remaining
+	 *            Requests left.
+	 */
+	private RateLimit(final int limit, final int remaining) {
+		mLimit = limit;
+		mRemaining = remaining;
+	}
+
+	/**
+	 * @param limit
+	 *            The {@code X-Ratelimit-Limit} header, {@code null} if there
+	 *            is none.
+	 * @param remaining
+	 *            The {@code X-Ratelimit-Remaining} header, {@code null} if
+	 *            there is none.
+	 * @return The rate limit, {@code null} if a header is missing or invalid.
+	 */
+	public static RateLimit of(final String limit, final String remaining) {
+		if (limit == null || remaining == null) {
+			return null;
+		}
+		try {
+			final int parsedLimit = Integer.parseInt(limit.trim());
+			final int parsedRemaining = Integer.parseInt(remaining.trim());
+			if (parsedLimit <= 0 || parsedRemaining < 0) {
+				return null;
+			}
+			return new RateLimit(parsedLimit, parsedRemaining);
+		} catch (final NumberFormatException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * @return Requests allowed per hour.
+	 */
+	public int getLimit() {
+		return mLimit;
+	}
+
+	/**
+	 * @return Requests left.
+	 */
+	public int getRemaining() {
+		return mRemaining;
+	}
+
+	@Override
+	public String toString() {
+		return "RateLimit[limit=" + mLimit + ", remaining=" + mRemaining + "]";
+	}
+}
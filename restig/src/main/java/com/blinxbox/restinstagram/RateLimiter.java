@@ -0,0 +1,324 @@
+/*
+ * Copyright (c) 2010-2012 BlinxBox.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.blinxbox.restinstagram;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Client side token buckets, one per access token or client ID, that keep
+ * requests within the Instagram rate limit instead of learning about it from
+ * an error. Each bucket starts full and refills continuously, spreading the
+ * hourly limit over the hour. The rate limit headers of the responses, see
+ * {@link #update(String, RateLimit)}, correct the limit and lower the tokens
+ * left to what Instagram reports, so requests made by other processes with
+ * the same token are accounted for too.
+ * <p>
+ * Waiting callers are served in the order they arrive: each one reserves
+ * the next token and sleeps until it is due. Thread safe.
+ * 
+ * @author Efi MK
+ */
+public class RateLimiter {
+	/**
+	 * Requests Instagram allows per access token and hour.
+	 */
+	public static final int DEFAULT_LIMIT = 5000;
+
+	/**
+	 * Length of the window of the limit, in nanoseconds.
+	 */
+	private final long mWindow;
+
+	/**
+	 * Requests allowed per window until a response tells otherwise.
+	 */
+	private final int mLimit;
+
+	/**
+	 * Requests held back from every window.
+	 */
+	private final int mReserve;
+
+	/**
+	 * Buckets by access token or client ID.
+	 */
+	private final ConcurrentMap<String, Bucket> mBuckets = new ConcurrentHashMap<String, Bucket>();
+
+	/**
+	 * Creates a limiter of {@link #DEFAULT_LIMIT} requests an hour.
+	 */
+	public RateLimiter() {
+		this(DEFAULT_LIMIT, 0, 1, TimeUnit.HOURS);
+	}
+
+	/**
+	 * @param limit
+	 *            Requests allowed per window until a response tells
+	 *            otherwise.
+	 * @param reserve
+	 *            Requests held back from every window, e.g. for other
+	 *            clients sharing the token.
+	 * @param window
+	 *            Length of the window of the limit, one hour for Instagram.
+	 * @param unit
+	 *            Unit of {@code window}.
+	 */
+	public RateLimiter(final int limit, final int reserve, final long window,
+			final TimeUnit unit) {
+		if (limit <= 0) {
+			throw new IllegalArgumentException("The limit must be positive.");
+		}
+		if (reserve < 0 || reserve >= limit) {
+			throw new IllegalArgumentException(
+					"The reserve cannot be negative and must be below the limit.");
+		}
+		if (window <= 0) {
+			throw new IllegalArgumentException("The window must be positive.");
+		}
+		mLimit = limit;
+		mReserve = reserve;
+		mWindow = unit.toNanos(window);
+	}
+
+	/**
+	 * Takes a token if one is available, without waiting.
+	 * 
+	 * @param key
+	 *            The access token or client ID.
+	 * @return {@code true} if a request may be sent.
+	 */
+	public boolean tryAcquire(final String key) {
+		return bucket(key).reserve(nanoTime(), 0) == 0;
+	}
+
+	/**
+	 * Takes a token, waiting up to {@code timeout} for it.
+	 * 
+	 * @param key
+	 *            The access token or client ID.
+	 * @param timeout
+	 *            The longest wait.
+	 * @param unit
+	 *            Unit of {@code timeout}.
+	 * @return {@code true} if a request may be sent, {@code false} if no
+	 *         token is due within {@code timeout}; nothing is taken then.
+	 * @throws InterruptedException
+	 *             If interrupted while waiting. The token stays taken.
+	 */
+	public boolean tryAcquire(final String key, final long timeout,
+			final TimeUnit unit) throws InterruptedException {
+		final long wait = bucket(key).reserve(nanoTime(), unit.toNanos(timeout));
+		if (wait < 0) {
+			return false;
+		}
+		if (wait > 0) {
+			TimeUnit.NANOSECONDS.sleep(wait);
+		}
+		return true;
+	}
+
+	/**
+	 * Takes a token without waiting for it to be due. The caller sends its
+	 * request once the returned delay passed, e.g. from a scheduler, instead
+	 * of holding a thread meanwhile.
+	 * 
+	 * @param key
+	 *            The access token or client ID.
+	 * @return Nanoseconds until the token is due, {@code 0} if it is due
+	 *         now.
+	 */
+	public long reserve(final String key) {
+		return bucket(key).reserve(nanoTime(), Long.MAX_VALUE);
+	}
+
+	/**
+	 * Takes a token, waiting as long as needed.
+	 * 
+	 * @param key
+	 *            The access token or client ID.
+	 * @throws InterruptedException
+	 *             If interrupted while waiting. The token stays taken.
+	 */
+	public void acquire(final String key) throws InterruptedException {
+		tryAcquire(key, Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Corrects a bucket by the rate limit headers of a response. The limit
+	 * reported replaces the one the bucket refills by; the tokens left are
+	 * lowered to the requests Instagram reports left, never raised, since
+	 * responses of concurrent requests arrive in any order.
+	 * 
+	 * @param key
+	 *            The access token or client ID the request was sent with.
+	 * @param rateLimit
+	 *            The headers, {@code null} if the response had none.
+	 */
+	public void update(final String key, final RateLimit rateLimit) {
+		if (rateLimit != null) {
+			bucket(key).update(nanoTime(), rateLimit.getLimit(),
+					rateLimit.getRemaining());
+		}
+	}
+
+	/**
+	 * @param key
+	 *            The access token or client ID.
+	 * @return Whole tokens available now, negative while callers are waiting
+	 *         for tokens not yet due.
+	 */
+	public int available(final String key) {
+		return bucket(key).available(nanoTime());
+	}
+
+	/**
+	 * @return The current time, in nanoseconds. Overridden by tests.
+	 */
+	protected long nanoTime() {
+		return System.nanoTime();
+	}
+
+	/**
+	 * @param key
+	 *            The access token or client ID.
+	 * @return Its bucket, created full on first use.
+	 */
+	private Bucket bucket(final String key) {
+		Bucket bucket = mBuckets.get(key);
+		if (bucket == null) {
+			final Bucket created = new Bucket(mLimit, nanoTime());
+			bucket = mBuckets.putIfAbsent(key, created);
+			if (bucket == null) {
+				bucket = created;
+			}
+		}
+		return bucket;
+	}
+
+	/**
+	 * The tokens of one access token or client ID.
+	 * 
+	 * @author Efi MK
+	 */
+	private final class Bucket {
+		/**
+		 * Most tokens the bucket holds.
+		 */
+		private double mCapacity;
+		/**
+		 * Tokens added per nanosecond.
+		 */
+		private double mRate;
+		/**
+		 * Tokens available, negative while reserved ahead.
+		 */
+		private double mTokens;
+		/**
+		 * Time of the last refill.
+		 */
+		private long mRefilled;
+
+		/**
+		 * @param limit
+		 *            Requests allowed per window.
+		 * @param now
+		 *            The current time.
+		 */
+		Bucket(final int limit, final long now) {
+			setLimit(limit);
+			mTokens = mCapacity;
+			mRefilled = now;
+		}
+
+		/**
+		 * @param limit
+		 *            Requests allowed per window.
+		 */
+		private void setLimit(final int limit) {
+			mCapacity = Math.max(0, limit - mReserve);
+			mRate = (double) limit / mWindow;
+		}
+
+		/**
+		 * @param now
+		 *            The current time.
+		 */
+		private void refill(final long now) {
+			if (now > mRefilled) {
+				mTokens = Math.min(mCapacity, mTokens + (now - mRefilled)
+						* mRate);
+				mRefilled = now;
+			}
+		}
+
+		/**
+		 * Reserves the next token.
+		 * 
+		 * @param now
+		 *            The current time.
+		 * @param maxWait
+		 *            The longest wait accepted, in nanoseconds.
+		 * @return Nanoseconds until the token is due, {@code -1} if that is
+		 *         beyond {@code maxWait} and nothing was reserved.
+		 */
+		synchronized long reserve(final long now, final long maxWait) {
+			refill(now);
+			final long wait = mTokens >= 1 ? 0 : (long) Math
+					.ceil((1 - mTokens) / mRate);
+			if (wait > maxWait) {
+				return -1;
+			}
+			mTokens--;
+			return wait;
+		}
+
+		/**
+		 * @param now
+		 *            The current time.
+		 * @param limit
+		 *            Requests allowed per window.
+		 * @param remaining
+		 *            Requests left.
+		 */
+		synchronized void update(final long now, final int limit,
+				final int remaining) {
+			refill(now);
+			setLimit(limit);
+			mTokens = Math.min(mTokens, Math.min(mCapacity, remaining
+					- mReserve));
+		}
+
+		/**
+		 * @param now
+		 *            The current time.
+		 * @return Whole tokens available.
+		 */
+		synchronized int available(final long now) {
+			refill(now);
+			return (int) Math.floor(mTokens);
+		}
+	}
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2010-2012 BlinxBox.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.blinxbox.restinstagram;
+
+/**
+ * Holds raw response bodies of {@code GET}s, a second level below a
+ * {@link ResultCache}: a stored body still has to be mapped, but no request
+ * is sent for it. See
+ * {@link DefaultInstagramClient#setResponseStore(ResponseStore)}.
+ * <p>
+ * Keys tell the users of a shared store apart, a body may be private to the
+ * user it was fetched for. They carry no credentials.
+ * <p>
+ * Implementations must be thread safe.
+ * 
+ * @author Efi MK
+ */
+public interface ResponseStore {
+	/**
+	 * @param key
+	 *            Identifies the request.
+	 * @return The stored body, {@code null} if there is none or it expired.
+	 */
+	byte[] get(String key);
+
+	/**
+	 * Offers a body to the store, which may decide not to keep it.
+	 * 
+	 * @param key
+	 *            Identifies the request.
+	 * @param endPoint
+	 *            Path of the request relative to the API, without
+	 *            parameters, e.g. {@code /media/1234}.
+	 * @param body
+	 *            The response body, UTF-8 encoded JSON.
+	 */
+	void put(String key, String endPoint, byte[] body);
+
+	/**
+	 * @param key
+	 *            Identifies the request.
+	 */
+	void remove(String key);
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2010-2012 BlinxBox.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.blinxbox.restinstagram;
+
+/**
+ * Holds mapped results of {@link DefaultInstagramClient#fetchObject} and
+ * {@link DefaultInstagramClient#fetchCollection}, so repeated reads skip the
+ * network. See {@link DefaultInstagramClient#setResultCache(ResultCache)}.
+ * <p>
+ * Implementations must be thread safe.
+ * 
+ * @author Efi MK
+ */
+public interface ResultCache {
+	/**
+	 * @param key
+	 *            Identifies the request and the type it was mapped to.
+	 * @return The cached result, {@code null} if there is none or it
+	 *         expired.
+	 */
+	Object get(String key);
+
+	/**
+	 * Offers a result to the cache, which may decide not to keep it.
+	 * 
+	 * @param key
+	 *            Identifies the request and the type it was mapped to.
+	 * @param endPoint
+	 *            Path of the request relative to the API, without
+	 *            parameters, e.g. {@code /users/1234/media/recent}.
+	 * @param value
+	 *            The mapped result.
+	 * @param weight
+	 *            Size of the response the result was mapped from, in bytes.
+	 */
+	void put(String key, String endPoint, Object value, long weight);
+
+	/**
+	 * @param key
+	 *            Identifies the request and the type it was mapped to.
+	 */
+	void remove(String key);
+
+	/**
+	 * Drops all results.
+	 */
+	void clear();
+}
@@ -0,0 +1,329 @@
+/*
+ * Copyright (c) 2010-2012 BlinxBox.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.blinxbox.restinstagram;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.blinxbox.restinstagram.exception.InstagramApiException;
+import com.blinxbox.restinstagram.exception.InstagramException;
+import com.blinxbox.restinstagram.exception.InstagramNetworkException;
+
+/**
+ * Retries failed requests that may succeed when sent again: network
+ * failures, server errors ({@code 5xx}) and request timeouts ({@code 408}),
+ * whether reported by the HTTP status or by the {@code meta} of the
+ * response. Client errors, OAuth errors and rate limit errors are thrown
+ * at once.
+ * <p>
+ * The waits between attempts follow decorrelated jitter: each one is drawn
+ * between the base delay and three times the previous one, capped, so
+ * callers failing together do not retry together. A retry budget shared by
+ * all requests of the policy bounds the extra load: every request earns a
+ * fraction of a retry, e.g. {@code 0.1}, up to a small reserve, and every
+ * retry spends a whole one. During an outage the retries are therefore
+ * never more than that fraction of the requests.
+ * <p>
+ * Thread safe; share one policy among the clients of an application to
+ * share its budget.
+ * 
+ * @author Efi MK
+ */
+public class RetryPolicy {
+	/**
+	 * Default fraction of a retry each request earns.
+	 */
+	public static final double DEFAULT_BUDGET_RATIO = 0.1;
+
+	/**
+	 * Default most retries the budget holds.
+	 */
+	public static final int DEFAULT_BUDGET_RESERVE = 10;
+
+	/**
+	 * Scale of the budget, which is kept in millionths of a retry.
+	 */
+	private static final long UNIT = 1000000;
+
+	/**
+	 * Most attempts of a request, the first included.
+	 */
+	private final int mMaxAttempts;
+
+	/**
+	 * Shortest wait before a retry, in milliseconds.
+	 */
+	private final long mBaseDelay;
+
+	/**
+	 * Longest wait before a retry, in milliseconds.
+	 */
+	private final long mMaxDelay;
+
+	/**
+	 * Part of a retry each request earns, in millionths.
+	 */
+	private final long mDeposit;
+
+	/**
+	 * Most retries the budget holds, in millionths.
+	 */
+	private final long mCapacity;
+
+	/**
+	 * Retries available, in millionths.
+	 */
+	private final AtomicLong mBalance;
+
+	/**
+	 * Number of retries made.
+	 */
+	private final AtomicLong mRetries = new AtomicLong();
+
+	/**
+	 * Number of retries refused because the budget was spent.
+	 */
+	private final AtomicLong mRefused = new AtomicLong();
+
+	/**
+	 * Creates a policy with the default budget.
+	 * 
+	 * @param maxAttempts
+	 *            Most attempts of a request, the first included.
+	 * @param baseDelay
+	 *            Shortest wait before a retry.
+	 * @param maxDelay
+	 *            Longest wait before a retry.
+	 * @param unit
+	 *            Unit of the delays.
+	 */
+	public RetryPolicy(final int maxAttempts, final long baseDelay,
+			final long maxDelay, final TimeUnit unit) {
+		this(maxAttempts, baseDelay, maxDelay, unit, DEFAULT_BUDGET_RATIO,
+				DEFAULT_BUDGET_RESERVE);
+	}
+
+	/**
+	 * @param maxAttempts
+	 *            Most attempts of a request, the first included.
+	 * @param baseDelay
+	 *            Shortest wait before a retry.
+	 * @param maxDelay
+	 *            Longest wait before a retry.
+	 * @param unit
+	 *            Unit of the delays.
+	 * @param budgetRatio
+	 *            Part of a retry each request earns, e.g. {@code 0.1} to
+	 *            allow one retry per ten requests.
+	 * @param budgetReserve
+	 *            Most retries the budget holds; it starts full.
+	 */
+	public RetryPolicy(final int maxAttempts, final long baseDelay,
+			final long maxDelay, final TimeUnit unit, final double budgetRatio,
+			final int budgetReserve) {
+		if (maxAttempts <= 0) {
+			throw new IllegalArgumentException(
+					"The number of attempts must be positive.");
+		}
+		if (baseDelay < 0 || maxDelay < baseDelay) {
+			throw new IllegalArgumentException("The delays cannot be negative "
+					+ "and the base delay cannot exceed the maximum.");
+		}
+		if (budgetRatio < 0 || budgetReserve < 0) {
+			throw new IllegalArgumentException(
+					"The retry budget cannot be negative.");
+		}
+		mMaxAttempts = maxAttempts;
+		mBaseDelay = unit.toMillis(baseDelay);
+		mMaxDelay = unit.toMillis(maxDelay);
+		mDeposit = Math.round(budgetRatio * UNIT);
+		mCapacity = budgetReserve * UNIT;
+		mBalance = new AtomicLong(mCapacity);
+	}
+
+	/**
+	 * Runs a request, retrying it while it fails in a retryable way, the
+	 * attempts last and the budget allows.
+	 * 
+	 * @param <V>
+	 *            Type of the result.
+	 * @param attempt
+	 *            Makes one attempt of the request.
+	 * @return The result of the first successful attempt.
+	 * @throws InstagramException
+	 *             The failure of the last attempt, also thrown, with the
+	 *             interrupt status kept, if interrupted while waiting.
+	 */
+	<V> V execute(final Attempt<V> attempt) {
+		deposit();
+		long delay = mBaseDelay;
+		for (int attempts = 1;; attempts++) {
+			try {
+				return attempt.run();
+			} catch (final InstagramException e) {
+				if (attempts >= mMaxAttempts || !isRetryable(e)) {
+					throw e;
+				}
+				if (!withdraw()) {
+					mRefused.incrementAndGet();
+					throw e;
+				}
+				delay = nextDelay(delay);
+				mRetries.incrementAndGet();
+				try {
+					sleep(delay);
+				} catch (final InterruptedException interrupted) {
+					Thread.currentThread().interrupt();
+					throw e;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Classifies a failure. Overridden to retry more or fewer failures.
+	 * 
+	 * @param e
+	 *            The failure of an attempt.
+	 * @return {@code true} if the request may succeed when sent again.
+	 */
+	protected boolean isRetryable(final InstagramException e) {
+		if (e instanceof InstagramNetworkException) {
+			final Integer status = ((InstagramNetworkException) e)
+					.getHttpStatusCode();
+			// No status means the request or the response got lost.
+			return status == null || isRetryableStatus(status);
+		}
+		if (e instanceof InstagramApiException) {
+			final InstagramApiException api = (InstagramApiException) e;
+			final String type = api.getErrorType();
+			return api.getErrorCode() != null
+					&& isRetryableStatus(api.getErrorCode())
+					&& (type == null || !type.startsWith("OAuth"));
+		}
+		return false;
+	}
+
+	/**
+	 * @param status
+	 *            An HTTP status, or the {@code code} of an error.
+	 * @return {@code true} for server errors and request timeouts.
+	 */
+	private static boolean isRetryableStatus(final int status) {
+		return status >= 500 || status == 408;
+	}
+
+	/**
+	 * @param previous
+	 *            The previous wait, the base delay before the first retry.
+	 * @return The next wait, in milliseconds.
+	 */
+	long nextDelay(final long previous) {
+		final long upper = Math.min(mMaxDelay, Math.max(mBaseDelay,
+				previous * 3));
+		if (upper <= mBaseDelay) {
+			return mBaseDelay;
+		}
+		return ThreadLocalRandom.current().nextLong(mBaseDelay, upper + 1);
+	}
+
+	/**
+	 * Credits the budget for a request.
+	 */
+	private void deposit() {
+		long balance;
+		do {
+			balance = mBalance.get();
+			if (balance >= mCapacity) {
+				return;
+			}
+		} while (!mBalance.compareAndSet(balance, Math.min(mCapacity, balance
+				+ mDeposit)));
+	}
+
+	/**
+	 * @return {@code true} if a retry was taken from the budget.
+	 */
+	private boolean withdraw() {
+		long balance;
+		do {
+			balance = mBalance.get();
+			if (balance < UNIT) {
+				return false;
+			}
+		} while (!mBalance.compareAndSet(balance, balance - UNIT));
+		return true;
+	}
+
+	/**
+	 * Waits before a retry. Overridden by tests.
+	 * 
+	 * @param millis
+	 *            The wait, in milliseconds.
+	 * @throws InterruptedException
+	 *             If interrupted while waiting.
+	 */
+	protected void sleep(final long millis) throws InterruptedException {
+		Thread.sleep(millis);
+	}
+
+	/**
+	 * @return Number of retries made.
+	 */
+	public long getRetries() {
+		return mRetries.get();
+	}
+
+	/**
+	 * @return Number of retries refused because the budget was spent.
+	 */
+	public long getRefusedRetries() {
+		return mRefused.get();
+	}
+
+	/**
+	 * @return Whole retries left in the budget.
+	 */
+	public long getBudget() {
+		return mBalance.get() / UNIT;
+	}
+
+	/**
+	 * One attempt of a request.
+	 * 
+	 * @author Efi MK
+	 * 
+	 * @param <V>
+	 *            Type of the result.
+	 */
+	interface Attempt<V> {
+		/**
+		 * @return The result.
+		 * @throws InstagramException
+		 *             If the attempt failed.
+		 */
+		V run();
+	}
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2010-2012 BlinxBox.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.blinxbox.restinstagram;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.blinxbox.restinstagram.exception.InstagramNetworkException;
+
+/**
+ * Coalesces identical concurrent calls: the first caller of a key runs the
+ * call, callers arriving while it runs wait for it and share its result or
+ * its exception.
+ * 
+ * @author Efi MK
+ */
+final class SingleFlight {
+	/**
+	 * Calls in flight by key.
+	 */
+	private final ConcurrentMap<String, Call> mCalls = new ConcurrentHashMap<String, Call>();
+
+	/**
+	 * Number of calls answered by a call in flight.
+	 */
+	private final AtomicLong mCoalesced = new AtomicLong();
+
+	/**
+	 * Runs a call, or waits for the identical call in flight.
+	 * 
+	 * @param <V>
+	 *            Type of the result.
+	 * @param key
+	 *            Identifies the call; calls of a key must have results of
+	 *            the same type.
+	 * @param loader
+	 *            Runs the call.
+	 * @return The result, shared with the other callers of {@code key}.
+	 * @throws InstagramNetworkException
+	 *             If interrupted while waiting.
+	 */
+	<V> V execute(final String key, final Loader<V> loader) {
+		final Call call = new Call();
+		final Call running = mCalls.putIfAbsent(key, call);
+		if (running != null) {
+			mCoalesced.incrementAndGet();
+			@SuppressWarnings("unchecked")
+			final V result = (V) running.await();
+			return result;
+		}
+		try {
+			final V result = loader.load();
+			call.mResult = result;
+			return result;
+		} catch (final RuntimeException e) {
+			call.mFailure = e;
+			throw e;
+		} catch (final Error e) {
+			call.mFailure = e;
+			throw e;
+		} finally {
+			mCalls.remove(key, call);
+			call.mDone.countDown();
+		}
+	}
+
+	/**
+	 * @return Number of calls answered by a call in flight, i.e. requests
+	 *         saved.
+	 */
+	long getCoalesced() {
+		return mCoalesced.get();
+	}
+
+	/**
+	 * Runs a call.
+	 * 
+	 * @author Efi MK
+	 * 
+	 * @param <V>
+	 *            Type of the result.
+	 */
+	interface Loader<V> {
+		/**
+		 * @return The result.
+		 */
+		V load();
+	}
+
+	/**
+	 * A call in flight.
+	 * 
+	 * @author Efi MK
+	 */
+	private static final class Call {
+		/**
+		 * Released once the call is done.
+		 */
+		final CountDownLatch mDone = new CountDownLatch(1);
+		/**
+		 * The result, valid once done.
+		 */
+		Object mResult;
+		/**
+		 * The failure, valid once done; {@code null} on success.
+		 */
+		Throwable mFailure;
+
+		/**
+		 * @return The result.
+		 * @throws InstagramNetworkException
+		 *             If interrupted while waiting.
+		 */
+		Object await() {
+			try {
+				mDone.await();
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InstagramNetworkException(
+						"Interrupted while waiting for a coalesced request", e);
+			}
+			if (mFailure instanceof RuntimeException) {
+				throw (RuntimeException) mFailure;
+			}
+			if (mFailure instanceof Error) {
+				throw (Error) mFailure;
+			}
+			return mResult;
+		}
+	}
+}
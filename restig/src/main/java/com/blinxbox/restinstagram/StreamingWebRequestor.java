@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2010-2012 BlinxBox.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.blinxbox.restinstagram;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.restfb.WebRequestor;
+
+/**
+ * A {@link WebRequestor} that can also hand out the response body as the raw
+ * byte stream of the connection, so responses are parsed while they arrive
+ * instead of being read into a {@code String} first.
+ * <p>
+ * {@link DefaultInstagramClient} uses the streaming methods whenever its
+ * requestor implements this interface. Implementations ask for compressed
+ * responses and hand out the body already decompressed, see
+ * {@link ContentEncoding}.
+ * 
+ * @author Efi MK
+ */
+public interface StreamingWebRequestor extends WebRequestor {
+	/**
+	 * Performs a {@code GET} to the given URL.
+	 * 
+	 * @param url
+	 *            The URL to {@code GET}.
+	 * @return The response, which must be closed by the caller.
+	 * @throws IOException
+	 *             If an error occurs while performing the {@code GET}.
+	 */
+	StreamedResponse executeGetStream(String url) throws IOException;
+
+	/**
+	 * Performs a {@code POST} to the given URL with the given parameters.
+	 * 
+	 * @param url
+	 *            The URL to {@code POST} to.
+	 * @param parameters
+	 *            The parameters to be {@code POST}ed.
+	 * @return The response, which must be closed by the caller.
+	 * @throws IOException
+	 *             If an error occurs while performing the {@code POST}.
+	 */
+	StreamedResponse executePostStream(String url, String parameters)
+			throws IOException;
+
+	/**
+	 * Encapsulates a HTTP response whose body has not been read yet.
+	 * 
+	 * @author Efi MK
+	 */
+	class StreamedResponse implements Closeable {
+		/**
+		 * HTTP status code.
+		 */
+		private final Integer mStatusCode;
+
+		/**
+		 * The unread body, decompressed.
+		 */
+		private final InputStream mBody;
+
+		/**
+		 * Validators of the response, {@code null} if it has none.
+		 */
+		private final Validators mValidators;
+
+		/**
+		 * Rate limit headers of the response, {@code null} if it has none.
+		 */
+		private final RateLimit mRateLimit;
+
+		/**
+		 * Creates a response.
+		 * 
+		 * @param statusCode
+		 *            HTTP status code.
+		 * @param body
+		 *            The unread body.
+		 */
+		public StreamedResponse(final Integer statusCode, final InputStream body) {
+			this(statusCode, body, null);
+		}
+
+		/**
+		 * Creates a response.
+		 * 
+		 * @param statusCode
+		 *            HTTP status code.
+		 * @param body
+		 *            The unread body.
+		 * @param validators
+		 *            Validators of the response, {@code null} if it has none.
+		 */
+		public StreamedResponse(final Integer statusCode,
+				final InputStream body, final Validators validators) {
+			this(statusCode, body, validators, null);
+		}
+
+		/**
+		 * Creates a response.
+		 * 
+		 * @param statusCode
+		 *            HTTP status code.
+		 * @param body
+		 *            The unread body.
+		 * @param validators
+		 *            Validators of the response, {@code null} if it has none.
+		 * @param rateLimit
+		 *            Rate limit headers of the response, {@code null} if it
+		 *            has none.
+		 */
+		public StreamedResponse(final Integer statusCode,
+				final InputStream body, final Validators validators,
+				final RateLimit rateLimit) {
+			mStatusCode = statusCode;
+			mBody = body;
+			mValidators = validators;
+			mRateLimit = rateLimit;
+		}
+
+		/**
+		 * @return HTTP status code.
+		 */
+		public Integer getStatusCode() {
+			return mStatusCode;
+		}
+
+		/**
+		 * @return The unread body. The response is UTF-8 encoded JSON.
+		 */
+		public InputStream getBody() {
+			return mBody;
+		}
+
+		/**
+		 * @return Validators of the response, {@code null} if it has none or
+		 *         the requestor does not read them.
+		 */
+		public Validators getValidators() {
+			return mValidators;
+		}
+
+		/**
+		 * @return Rate limit headers of the response, {@code null} if it has
+		 *         none or the requestor does not read them.
+		 */
+		public RateLimit getRateLimit() {
+			return mRateLimit;
+		}
+
+		/**
+		 * Reads the body into a {@code String} and closes the response.
+		 * 
+		 * @return The read response.
+		 * @throws IOException
+		 *             If the body cannot be read.
+		 */
+		public Response toResponse() throws IOException {
+			try {
+				final ByteArrayOutputStream content = new ByteArrayOutputStream();
+				final byte[] buffer = new byte[4096];
+				int read;
+				while ((read = mBody.read(buffer)) != -1) {
+					content.write(buffer, 0, read);
+				}
+				return new Response(mStatusCode, content.toString("UTF-8"));
+			} finally {
+				close();
+			}
+		}
+
+		/**
+		 * Closes the body, which lets the connection be reused.
+		 * 
+		 * @throws IOException
+		 *             If the body cannot be closed.
+		 */
+		@Override
+		public void close() throws IOException {
+			mBody.close();
+		}
+
+		@Override
+		public String toString() {
+			return "StreamedResponse[statusCode=" + mStatusCode + "]";
+		}
+	}
+}
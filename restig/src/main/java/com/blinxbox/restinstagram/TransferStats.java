@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2010-2012 BlinxBox.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.blinxbox.restinstagram;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link TransferListener} that sums up the bodies of all responses, to
+ * see how much bandwidth compression saves.
+ * 
+ * @author Efi MK
+ */
+public class TransferStats implements TransferListener {
+	/**
+	 * Number of responses.
+	 */
+	private final AtomicLong mResponses = new AtomicLong();
+
+	/**
+	 * Bytes sent by the server.
+	 */
+	private final AtomicLong mWireBytes = new AtomicLong();
+
+	/**
+	 * Bytes after decompression.
+	 */
+	private final AtomicLong mDecodedBytes = new AtomicLong();
+
+	@Override
+	public void transferred(final String url, final long wireBytes,
+			final long decodedBytes) {
+		mResponses.incrementAndGet();
+		mWireBytes.addAndGet(wireBytes);
+		mDecodedBytes.addAndGet(decodedBytes);
+	}
+
+	/**
+	 * @return Number of responses read.
+	 */
+	public long getResponses() {
+		return mResponses.get();
+	}
+
+	/**
+	 * @return Bytes sent by the server.
+	 */
+	public long getWireBytes() {
+		return mWireBytes.get();
+	}
+
+	/**
+	 * @return Bytes after decompression.
+	 */
+	public long getDecodedBytes() {
+		return mDecodedBytes.get();
+	}
+
+	/**
+	 * @return Fraction of the decoded bytes that did not have to be
+	 *         transferred, {@code 0} before the first response.
+	 */
+	public double getSavedRatio() {
+		final long decoded = mDecodedBytes.get();
+		return decoded == 0 ? 0 : 1 - (double) mWireBytes.get() / decoded;
+	}
+
+	@Override
+	public String toString() {
+		return "TransferStats[responses=" + getResponses() + ", wireBytes="
+				+ getWireBytes() + ", decodedBytes=" + getDecodedBytes() + "]";
+	}
+}
@@ -0,0 +1,264 @@
+/*
+ * Copyright (c) 2010-2012 BlinxBox.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.blinxbox.restinstagram;
+
+import static java.util.Collections.unmodifiableList;
+
+import static java.lang.invoke.MethodType.methodType;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Precompiled mapping plan for a single Java type: the no-argument
+ * constructor and the {@link FieldBinding}s of all its {@link Instagram}
+ * annotated fields. Building a plan is the only place the mapper performs
+ * reflection lookups, so plans are cached per {@code Class} by
+ * {@link DefaultJsonMapper} and reused across calls and threads. When the
+ * annotation processor generated an {@link InstagramTypeMapper} for the type,
+ * the plan carries it and the mapper bypasses the reflective bindings.
+ * 
+ * @author Efi MK
+ * @param <T>
+ *            - The bound type.
+ */
+final class TypeBinding<T> {
+	/**
+	 * The bound type.
+	 */
+	final Class<T> type;
+
+	/**
+	 * Annotated fields, in declaration order (super classes first).
+	 */
+	final List<FieldBinding> fields;
+
+	/**
+	 * Field bindings by JSON attribute name. If several fields map the same
+	 * attribute the first one declared wins.
+	 */
+	private final Map<String, FieldBinding> mFieldsByName;
+
+	/**
+	 * Handle on the no-argument constructor adapted to {@code ()Object}, or
+	 * {@code null} if the type does not declare one.
+	 */
+	private final MethodHandle mConstructor;
+
+	/**
+	 * Compile-time generated mapper of the type, or {@code null} if the type
+	 * is mapped reflectively.
+	 */
+	final InstagramTypeMapper<T> mapper;
+
+	/**
+	 * Callbacks handed to {@link #mapper}. Set by the mapper that builds the
+	 * plan before the plan is published.
+	 */
+	MappingContext context;
+
+	/**
+	 * A new instance holding the initial field values, created on first use
+	 * by {@link #reset}.
+	 */
+	private volatile T mDefaults;
+
+	/**
+	 * Creates a plan for {@code type}.
+	 * 
+	 * @param type
+	 *            The type to bind.
+	 * @param fields
+	 *            Bindings of the annotated fields of {@code type}.
+	 */
+	TypeBinding(final Class<T> type, final List<FieldBinding> fields) {
+		this.type = type;
+		this.fields = unmodifiableList(new ArrayList<FieldBinding>(fields));
+		mFieldsByName = new HashMap<String, FieldBinding>();
+		for (final FieldBinding field : fields) {
+			if (!mFieldsByName.containsKey(field.jsonName)) {
+				mFieldsByName.put(field.jsonName, field);
+			}
+		}
+		mConstructor = findDefaultConstructor(type);
+		mapper = fields.isEmpty() ? null : findGeneratedMapper(type);
+	}
+
+	/**
+	 * @return {@code true} if the type has at least one {@link Instagram}
+	 *         annotated field.
+	 */
+	boolean isAnnotated() {
+		return !fields.isEmpty();
+	}
+
+	/**
+	 * @param jsonName
+	 *            A JSON attribute name.
+	 * @return The binding of the field mapped from {@code jsonName}, or
+	 *         {@code null} if the attribute is not mapped.
+	 */
+	FieldBinding field(final String jsonName) {
+		return mFieldsByName.get(jsonName);
+	}
+
+	/**
+	 * Creates a new instance of the bound type.
+	 * 
+	 * @return A new instance.
+	 * @throws Exception
+	 *             If the type has no usable no-argument constructor or the
+	 *             constructor fails.
+	 */
+	@SuppressWarnings("unchecked")
+	T newInstance() throws Exception {
+		if (mapper != null) {
+			return mapper.newInstance();
+		}
+		if (mConstructor == null) {
+			throw new NoSuchMethodException(
+					"Unable to find a default constructor for " + type);
+		}
+		try {
+			return (T) (Object) mConstructor.invokeExact();
+		} catch (final Throwable t) {
+			throw FieldBinding.propagate(t);
+		}
+	}
+
+	/**
+	 * Gives the fields of a reused {@code instance} that were not mapped
+	 * their initial values back, so it looks like a newly mapped instance.
+	 * Mutable initial values, e.g. nested objects, are taken from a new
+	 * instance rather than shared, since later mappings map into them in
+	 * place.
+	 * 
+	 * @param instance
+	 *            An instance of the bound type.
+	 * @param assigned
+	 *            Bit {@code i} is set if {@code fields.get(i)} was mapped; for
+	 *            the first 64 fields.
+	 * @param moreAssigned
+	 *            Flags of all the fields if there are more than 64,
+	 *            {@code null} otherwise.
+	 * @throws Exception
+	 *             If a field cannot be written.
+	 */
+	void reset(final Object instance, final long assigned,
+			final boolean[] moreAssigned) throws Exception {
+		T defaults = mDefaults;
+		if (defaults == null) {
+			defaults = newInstance();
+			mDefaults = defaults;
+		}
+		T fresh = null;
+		for (final FieldBinding field : fields) {
+			final boolean mapped = moreAssigned != null ? moreAssigned[field.index]
+					: (assigned & (1L << field.index)) != 0;
+			if (mapped) {
+				continue;
+			}
+			if (field.kind == FieldBinding.Kind.OBJECT
+					&& isMutable(field.get(defaults))) {
+				if (fresh == null) {
+					fresh = newInstance();
+				}
+				field.copy(fresh, instance);
+			} else {
+				field.copy(defaults, instance);
+			}
+		}
+	}
+
+	/**
+	 * @param value
+	 *            An initial field value, may be {@code null}.
+	 * @return {@code false} if {@code value} can be shared between
+	 *         instances.
+	 */
+	private static boolean isMutable(final Object value) {
+		return value != null && !(value instanceof String)
+				&& !(value instanceof Number) && !(value instanceof Boolean)
+				&& !(value instanceof Character) && !(value instanceof Enum<?>);
+	}
+
+	/**
+	 * Looks up the no-argument constructor of {@code type}, makes it
+	 * accessible, so protected, private, and package-private constructors can
+	 * be invoked, and turns it into a method handle.
+	 * 
+	 * @param type
+	 *            Type token.
+	 * @return The constructor handle, or {@code null} if there is none.
+	 */
+	private static MethodHandle findDefaultConstructor(final Class<?> type) {
+		try {
+			final Constructor<?> constructor = type.getDeclaredConstructor();
+			constructor.setAccessible(true);
+			return MethodHandles.lookup().unreflectConstructor(constructor)
+					.asType(methodType(Object.class));
+		} catch (final Exception e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Looks up the mapper generated for {@code type} by the
+	 * {@code restig-processor} annotation processor.
+	 * 
+	 * @param <T>
+	 *            The type.
+	 * @param type
+	 *            Type token.
+	 * @return The generated mapper, or {@code null} if the type was not
+	 *         processed.
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T> InstagramTypeMapper<T> findGeneratedMapper(
+			final Class<T> type) {
+		final String name = type.getName();
+		final int packageEnd = name.lastIndexOf('.') + 1;
+		final String mapperName = name.substring(0, packageEnd)
+				+ name.substring(packageEnd).replace('$', '_')
+				+ InstagramTypeMapper.GENERATED_SUFFIX;
+		try {
+			final Class<?> mapperClass = Class.forName(mapperName, true,
+					type.getClassLoader());
+			if (!InstagramTypeMapper.class.isAssignableFrom(mapperClass)) {
+				return null;
+			}
+			return (InstagramTypeMapper<T>) mapperClass.getDeclaredConstructor()
+					.newInstance();
+		} catch (final Exception e) {
+			return null;
+		} catch (final LinkageError e) {
+			return null;
+		}
+	}
+}
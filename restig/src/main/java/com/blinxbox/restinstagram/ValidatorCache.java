@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2010-2012 BlinxBox.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.blinxbox.restinstagram;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Remembers the validators and the mapped result of the latest responses, so
+ * a {@code 304 Not Modified} can be answered with the earlier result. Holds
+ * at most a fixed number of entries and drops the least recently used one
+ * beyond that.
+ * 
+ * @author Efi MK
+ * 
+ * @param <V>
+ *            Type of the mapped results.
+ */
+final class ValidatorCache<V> {
+	/**
+	 * The entries by request key, in access order.
+	 */
+	private final LinkedHashMap<String, Entry<V>> mEntries;
+
+	/**
+	 * @param maxEntries
+	 *            Number of entries kept, at least 1.
+	 */
+	ValidatorCache(final int maxEntries) {
+		mEntries = new LinkedHashMap<String, Entry<V>>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(
+					final Map.Entry<String, Entry<V>> eldest) {
+				return size() > maxEntries;
+			}
+		};
+	}
+
+	/**
+	 * @param key
+	 *            The request key.
+	 * @return The entry of {@code key}, {@code null} if there is none.
+	 */
+	synchronized Entry<V> get(final String key) {
+		return mEntries.get(key);
+	}
+
+	/**
+	 * @param key
+	 *            The request key.
+	 * @param validators
+	 *            Validators of the response.
+	 * @param value
+	 *            The mapped response.
+	 */
+	synchronized void put(final String key, final Validators validators,
+			final V value) {
+		mEntries.put(key, new Entry<V>(validators, value));
+	}
+
+	/**
+	 * @param key
+	 *            The request key.
+	 */
+	synchronized void remove(final String key) {
+		mEntries.remove(key);
+	}
+
+	/**
+	 * @return Number of entries.
+	 */
+	synchronized int size() {
+		return mEntries.size();
+	}
+
+	/**
+	 * The validators and mapped result of a response.
+	 * 
+	 * @author Efi MK
+	 * 
+	 * @param <V>
+	 *            Type of the mapped result.
+	 */
+	static final class Entry<V> {
+		/**
+		 * Validators of the response.
+		 */
+		final Validators validators;
+		/**
+		 * The mapped response.
+		 */
+		final V value;
+
+		/**
+		 * @param validators
+		 *            Validators of the response.
+		 * @param value
+		 *            The mapped response.
+		 */
+		Entry(final Validators validators, final V value) {
+			this.validators = validators;
+			this.value = value;
+		}
+	}
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2010-2012 BlinxBox.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.blinxbox.restinstagram;
+
+import java.io.Serializable;
+
+/**
+ * The validators of a response, its {@code ETag} and {@code Last-Modified}
+ * headers. Sent back as {@code If-None-Match} and {@code If-Modified-Since},
+ * they let the server answer {@code 304 Not Modified} instead of sending an
+ * unchanged response again.
+ * 
+ * @author Efi MK
+ */
+public final class Validators implements Serializable {
+	/**
+	 * Serial version.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The {@code ETag} header, {@code null} if there is none.
+	 */
+	private final String mETag;
+
+	/**
+	 * The {@code Last-Modified} header, {@code null} if there is none.
+	 */
+	private final String mLastModified;
+
+	/**
+	 * @param eTag
+	 *            The {@code ETag} header.
+	 * @param lastModified
+	 *            The {@code Last-Modified} header.
+	 */
+	private Validators(final String eTag, final String lastModified) {
+		mETag = eTag;
+		mLastModified = lastModified;
+	}
+
+	/**
+	 * @param eTag
+	 *            The {@code ETag} header, {@code null} if there is none.
+	 * @param lastModified
+	 *            The {@code Last-Modified} header, {@code null} if there is
+	 *            none.
+	 * @return The validators, {@code null} if both headers are missing.
+	 */
+	public static Validators of(final String eTag, final String lastModified) {
+		if (eTag == null && lastModified == null) {
+			return null;
+		}
+		return new Validators(eTag, lastModified);
+	}
+
+	/**
+	 * @return The {@code ETag} header, to be sent as {@code If-None-Match};
+	 *         {@code null} if there is none.
+	 */
+	public String getETag() {
+		return mETag;
+	}
+
+	/**
+	 * @return The {@code Last-Modified} header, to be sent as
+	 *         {@code If-Modified-Since}; {@code null} if there is none.
+	 */
+	public String getLastModified() {
+		return mLastModified;
+	}
+
+	@Override
+	public boolean equals(final Object object) {
+		if (!(object instanceof Validators)) {
+			return false;
+		}
+		final Validators other = (Validators) object;
+		return (mETag == null ? other.mETag == null : mETag
+				.equals(other.mETag))
+				&& (mLastModified == null ? other.mLastModified == null
+						: mLastModified.equals(other.mLastModified));
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * (mETag == null ? 0 : mETag.hashCode())
+				+ (mLastModified == null ? 0 : mLastModified.hashCode());
+	}
+
+	@Override
+	public String toString() {
+		return "Validators[eTag=" + mETag + ", lastModified=" + mLastModified
+				+ "]";
+	}
+}
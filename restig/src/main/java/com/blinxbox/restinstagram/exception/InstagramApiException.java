@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2010-2012 BlinxBox.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.blinxbox.restinstagram.exception;
+
+/**
+ * Indicates that Instagram answered with an error in the {@code meta} object
+ * of the response.
+ * 
+ * @author Efi MK
+ */
+public class InstagramApiException extends InstagramException {
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The {@code code} of the error, {@code null} if there is none.
+	 */
+	private final Integer errorCode;
+
+	/**
+	 * The {@code error_type} of the error.
+	 */
+	private final String errorType;
+
+	/**
+	 * Creates an exception with the given message, code and type.
+	 * 
+	 * @param message
+	 *            A message describing this exception.
+	 * @param errorCode
+	 *            The {@code code} of the error, {@code null} if there is
+	 *            none.
+	 * @param errorType
+	 *            The {@code error_type} of the error, e.g.
+	 *            {@code OAuthAccessTokenException}.
+	 */
+	public InstagramApiException(final String message,
+			final Integer errorCode, final String errorType) {
+		super(message);
+		this.errorCode = errorCode;
+		this.errorType = errorType;
+	}
+
+	/**
+	 * Gets the {@code code} of the error, usually the HTTP status code.
+	 * 
+	 * @return The code, {@code null} if there is none.
+	 */
+	public Integer getErrorCode() {
+		return errorCode;
+	}
+
+	/**
+	 * Gets the {@code error_type} of the error.
+	 * 
+	 * @return The type, e.g. {@code OAuthAccessTokenException}.
+	 */
+	public String getErrorType() {
+		return errorType;
+	}
+}
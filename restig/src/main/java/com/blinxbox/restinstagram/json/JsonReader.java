@@ -0,0 +1,280 @@
+/*
+ * Copyright (c) 2010-2012 BlinxBox.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.blinxbox.restinstagram.json;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Pull-style reader over a JSON value. The reader reports one
+ * {@link JsonToken} at a time, so callers can map values as they go and skip
+ * whatever they are not interested in without materializing it.
+ * <p>
+ * Scalar accessors follow the coercion rules of {@link com.restfb.json} so
+ * that mapping from a stream gives the same result as mapping from a parsed
+ * tree: numbers may be served as quoted strings (Instagram does that for
+ * {@code created_time}), booleans may be the strings {@code "true"} and
+ * {@code "false"}, and any scalar can be read as a string.
+ * <p>
+ * Malformed input is reported with a {@link com.restfb.json.JsonException}.
+ * Readers are not thread safe.
+ * 
+ * @author Efi MK
+ */
+public abstract class JsonReader implements Closeable {
+	/**
+	 * Returns the type of the next token without consuming it.
+	 * 
+	 * @return The next token.
+	 * @throws IOException
+	 *             If the underlying input cannot be read.
+	 */
+	public abstract JsonToken peek() throws IOException;
+
+	/**
+	 * Consumes the next token, which must be {@link JsonToken#BEGIN_OBJECT}.
+	 * 
+	 * @throws IOException
+	 *             If the underlying input cannot be read.
+	 */
+	public abstract void beginObject() throws IOException;
+
+	/**
+	 * Consumes the next token, which must be {@link JsonToken#END_OBJECT}.
+	 * 
+	 * @throws IOException
+	 *             If the underlying input cannot be read.
+	 */
+	public abstract void endObject() throws IOException;
+
+	/**
+	 * Consumes the next token, which must be {@link JsonToken#BEGIN_ARRAY}.
+	 * 
+	 * @throws IOException
+	 *             If the underlying input cannot be read.
+	 */
+	public abstract void beginArray() throws IOException;
+
+	/**
+	 * Consumes the next token, which must be {@link JsonToken#END_ARRAY}.
+	 * 
+	 * @throws IOException
+	 *             If the underlying input cannot be read.
+	 */
+	public abstract void endArray() throws IOException;
+
+	/**
+	 * @return {@code true} if the current object or array has another member.
+	 * @throws IOException
+	 *             If the underlying input cannot be read.
+	 */
+	public boolean hasNext() throws IOException {
+		final JsonToken token = peek();
+		return token != JsonToken.END_OBJECT && token != JsonToken.END_ARRAY
+				&& token != JsonToken.END_DOCUMENT;
+	}
+
+	/**
+	 * Consumes the next member name.
+	 * 
+	 * @return The name.
+	 * @throws IOException
+	 *             If the underlying input cannot be read.
+	 */
+	public abstract String nextName() throws IOException;
+
+	/**
+	 * Consumes the next scalar value and returns its textual form. Strings are
+	 * returned unquoted and unescaped, numbers and booleans as written.
+	 * 
+	 * @return The value as text.
+	 * @throws IOException
+	 *             If the underlying input cannot be read.
+	 */
+	public abstract String nextString() throws IOException;
+
+	/**
+	 * Like {@link #nextString()}, but returns the canonical instance of the
+	 * value from {@code pool}. Readers over text override this to look the
+	 * value up without creating a new string first.
+	 * 
+	 * @param pool
+	 *            The pool to canonicalize with.
+	 * @return The value as text.
+	 * @throws IOException
+	 *             If the underlying input cannot be read.
+	 */
+	public String nextString(final StringPool pool) throws IOException {
+		return pool.intern(nextString());
+	}
+
+	/**
+	 * Consumes the next value as a {@code long}. Quoted numbers are accepted
+	 * and non integral values are truncated.
+	 * 
+	 * @return The value.
+	 * @throws IOException
+	 *             If the underlying input cannot be read.
+	 */
+	public abstract long nextLong() throws IOException;
+
+	/**
+	 * Consumes the next value as an {@code int}. Quoted numbers are accepted
+	 * and non integral values are truncated.
+	 * 
+	 * @return The value.
+	 * @throws IOException
+	 *             If the underlying input cannot be read.
+	 */
+	public int nextInt() throws IOException {
+		return (int) nextLong();
+	}
+
+	/**
+	 * Consumes the next value as a {@code double}. Quoted numbers are
+	 * accepted.
+	 * 
+	 * @return The value.
+	 * @throws IOException
+	 *             If the underlying input cannot be read.
+	 */
+	public double nextDouble() throws IOException {
+		return Double.parseDouble(nextString());
+	}
+
+	/**
+	 * Consumes the next value as a {@code boolean}. The strings
+	 * {@code "true"} and {@code "false"} (in any case) are accepted.
+	 * 
+	 * @return The value.
+	 * @throws IOException
+	 *             If the underlying input cannot be read.
+	 */
+	public abstract boolean nextBoolean() throws IOException;
+
+	/**
+	 * Consumes the next token, which must be {@link JsonToken#NULL}.
+	 * 
+	 * @throws IOException
+	 *             If the underlying input cannot be read.
+	 */
+	public abstract void nextNull() throws IOException;
+
+	/**
+	 * Skips the next value, including all of its nested values, without
+	 * materializing it.
+	 * 
+	 * @throws IOException
+	 *             If the underlying input cannot be read.
+	 */
+	public abstract void skipValue() throws IOException;
+
+	/**
+	 * Consumes the next value and returns it as a {@code com.restfb.json}
+	 * node: a {@link com.restfb.json.JsonObject},
+	 * {@link com.restfb.json.JsonArray}, {@code String}, {@code Number},
+	 * {@code Boolean} or {@link com.restfb.json.JsonObject#NULL}.
+	 * 
+	 * @return The value as a tree node.
+	 * @throws IOException
+	 *             If the underlying input cannot be read.
+	 */
+	public abstract Object readJsonValue() throws IOException;
+
+	/**
+	 * Consumes the next value without mapping it and returns an opaque handle
+	 * to it, from which {@link #forRawValue(Object)} reads it again later.
+	 * Stream readers keep the JSON text of the value, tree readers the node.
+	 * 
+	 * @return The handle.
+	 * @throws IOException
+	 *             If the underlying input cannot be read.
+	 */
+	public Object nextRawValue() throws IOException {
+		return readJsonValue();
+	}
+
+	/**
+	 * Creates a reader over a value captured by {@link #nextRawValue()}.
+	 * 
+	 * @param rawValue
+	 *            The handle.
+	 * @return A reader positioned before the value.
+	 */
+	public static JsonReader forRawValue(final Object rawValue) {
+		if (rawValue instanceof char[]) {
+			return new JsonStreamReader((char[]) rawValue);
+		}
+		return new JsonTreeReader(rawValue);
+	}
+
+	/**
+	 * Returns the whole input of the reader as JSON text, for error reports.
+	 * It may be built on every call.
+	 * 
+	 * @return The JSON text, or {@code null} if the input is a stream that
+	 *         is not kept in memory.
+	 */
+	public String getSourceJson() {
+		return null;
+	}
+
+	/**
+	 * @return The number of objects and arrays the reader is currently inside
+	 *         of.
+	 */
+	public abstract int getDepth();
+
+	/**
+	 * Skips everything up to and including the end of the containers the
+	 * reader has entered below {@code depth}. Used to resynchronize after a
+	 * nested value could not be mapped.
+	 * 
+	 * @param depth
+	 *            The depth to return to, as previously reported by
+	 *            {@link #getDepth()}.
+	 * @throws IOException
+	 *             If the underlying input cannot be read.
+	 */
+	public void skipToDepth(final int depth) throws IOException {
+		while (getDepth() > depth) {
+			final JsonToken token = peek();
+			if (token == JsonToken.END_OBJECT) {
+				endObject();
+			} else if (token == JsonToken.END_ARRAY) {
+				endArray();
+			} else if (token == JsonToken.NAME) {
+				nextName();
+			} else if (token == JsonToken.END_DOCUMENT) {
+				return;
+			} else {
+				skipValue();
+			}
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+	}
+}
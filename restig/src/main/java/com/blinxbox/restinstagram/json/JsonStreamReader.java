@@ -0,0 +1,940 @@
+/*
+ * Copyright (c) 2010-2012 BlinxBox.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.blinxbox.restinstagram.json;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+import com.restfb.json.JsonArray;
+import com.restfb.json.JsonException;
+import com.restfb.json.JsonObject;
+
+/**
+ * {@link JsonReader} that tokenizes JSON text straight from a character or
+ * byte stream. Only the token currently being read is held in memory; skipped
+ * values are scanned without being copied.
+ * <p>
+ * Like the {@code com.restfb.json} parser it tolerates a trailing comma before
+ * a closing bracket and ignores anything after the top level value.
+ * 
+ * @author Efi MK
+ */
+public class JsonStreamReader extends JsonReader {
+	/**
+	 * Character set of byte input.
+	 */
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	/**
+	 * Default size of the character buffer.
+	 */
+	private static final int DEFAULT_BUFFER_SIZE = 4096;
+
+	/**
+	 * Longest run of digits that always fits a {@code long}.
+	 */
+	private static final int MAX_FAST_DIGITS = 18;
+
+	/** Scope: inside an array, no element read yet. */
+	private static final int EMPTY_ARRAY = 1;
+	/** Scope: inside an array, after at least one element. */
+	private static final int NONEMPTY_ARRAY = 2;
+	/** Scope: inside an object, no member read yet. */
+	private static final int EMPTY_OBJECT = 3;
+	/** Scope: inside an object, a name was read and its value is next. */
+	private static final int DANGLING_NAME = 4;
+	/** Scope: inside an object, after at least one member. */
+	private static final int NONEMPTY_OBJECT = 5;
+	/** Scope: top level, before the value. */
+	private static final int EMPTY_DOCUMENT = 6;
+	/** Scope: top level, after the value. */
+	private static final int NONEMPTY_DOCUMENT = 7;
+
+	/** Nothing peeked. */
+	private static final int PEEKED_NONE = 0;
+	/** Peeked an opening brace. */
+	private static final int PEEKED_BEGIN_OBJECT = 1;
+	/** Peeked a closing brace. */
+	private static final int PEEKED_END_OBJECT = 2;
+	/** Peeked an opening bracket. */
+	private static final int PEEKED_BEGIN_ARRAY = 3;
+	/** Peeked a closing bracket. */
+	private static final int PEEKED_END_ARRAY = 4;
+	/** Peeked a name; the opening quote is consumed. */
+	private static final int PEEKED_NAME = 5;
+	/** Peeked a string; the opening quote is consumed. */
+	private static final int PEEKED_STRING = 6;
+	/** Peeked a number; nothing is consumed. */
+	private static final int PEEKED_NUMBER = 7;
+	/** Peeked and consumed {@code true}. */
+	private static final int PEEKED_TRUE = 8;
+	/** Peeked and consumed {@code false}. */
+	private static final int PEEKED_FALSE = 9;
+	/** Peeked and consumed {@code null}. */
+	private static final int PEEKED_NULL = 10;
+	/** Peeked the end of the input. */
+	private static final int PEEKED_EOF = 11;
+
+	/**
+	 * The input, or {@code null} if the whole text is already in the buffer.
+	 */
+	private final Reader mIn;
+
+	/**
+	 * Character buffer.
+	 */
+	private char[] mBuffer;
+
+	/**
+	 * Position of the next unread character in {@link #mBuffer}.
+	 */
+	private int mPos;
+
+	/**
+	 * Number of valid characters in {@link #mBuffer}.
+	 */
+	private int mLimit;
+
+	/**
+	 * Number of characters discarded from the buffer so far, for error
+	 * messages.
+	 */
+	private long mDiscarded;
+
+	/**
+	 * Start of the value {@link #nextRawValue()} is capturing, or {@code -1}.
+	 * {@link #fill(int)} keeps the buffer from this position on.
+	 */
+	private int mMark = -1;
+
+	/**
+	 * Stack of scopes; the document scope is at the bottom.
+	 */
+	private int[] mStack = new int[32];
+
+	/**
+	 * Number of entries in {@link #mStack}.
+	 */
+	private int mStackSize;
+
+	/**
+	 * The token that has been peeked but not consumed, one of the
+	 * {@code PEEKED_*} constants.
+	 */
+	private int mPeeked = PEEKED_NONE;
+
+	/**
+	 * Scratch space for strings that contain escapes or cross a buffer
+	 * boundary.
+	 */
+	private final StringBuilder mScratch = new StringBuilder();
+
+	/**
+	 * Creates a reader over a character stream.
+	 * 
+	 * @param in
+	 *            The JSON text.
+	 */
+	public JsonStreamReader(final Reader in) {
+		this(in, new char[DEFAULT_BUFFER_SIZE]);
+	}
+
+	/**
+	 * Creates a reader over a character stream that uses {@code buffer} as its
+	 * working buffer, so callers can recycle buffers between readers.
+	 * 
+	 * @param in
+	 *            The JSON text.
+	 * @param buffer
+	 *            Working buffer. It is grown if a single token does not fit.
+	 */
+	public JsonStreamReader(final Reader in, final char[] buffer) {
+		if (in == null || buffer == null || buffer.length == 0) {
+			throw new IllegalArgumentException(
+					"The input and a non-empty buffer must be provided.");
+		}
+		mIn = in;
+		mBuffer = buffer;
+		push(EMPTY_DOCUMENT);
+	}
+
+	/**
+	 * Creates a reader over UTF-8 encoded bytes.
+	 * 
+	 * @param in
+	 *            The JSON bytes.
+	 */
+	public JsonStreamReader(final InputStream in) {
+		this(new InputStreamReader(in, UTF_8));
+	}
+
+	/**
+	 * Creates a reader over JSON text that is already in memory.
+	 * 
+	 * @param json
+	 *            The JSON text.
+	 */
+	public JsonStreamReader(final String json) {
+		this(json.toCharArray());
+	}
+
+	/**
+	 * Creates a reader over JSON text, using {@code json} as the buffer.
+	 * 
+	 * @param json
+	 *            The JSON text. Not copied, must not be modified while read.
+	 */
+	JsonStreamReader(final char[] json) {
+		mIn = null;
+		mBuffer = json;
+		mLimit = mBuffer.length;
+		push(EMPTY_DOCUMENT);
+	}
+
+	@Override
+	public String getSourceJson() {
+		// Text in memory is never refilled, so the buffer holds all of it.
+		return mIn == null ? new String(mBuffer, 0, mLimit) : null;
+	}
+
+	@Override
+	public JsonToken peek() throws IOException {
+		switch (peekInternal()) {
+		case PEEKED_BEGIN_OBJECT:
+			return JsonToken.BEGIN_OBJECT;
+		case PEEKED_END_OBJECT:
+			return JsonToken.END_OBJECT;
+		case PEEKED_BEGIN_ARRAY:
+			return JsonToken.BEGIN_ARRAY;
+		case PEEKED_END_ARRAY:
+			return JsonToken.END_ARRAY;
+		case PEEKED_NAME:
+			return JsonToken.NAME;
+		case PEEKED_STRING:
+			return JsonToken.STRING;
+		case PEEKED_NUMBER:
+			return JsonToken.NUMBER;
+		case PEEKED_TRUE:
+		case PEEKED_FALSE:
+			return JsonToken.BOOLEAN;
+		case PEEKED_NULL:
+			return JsonToken.NULL;
+		default:
+			return JsonToken.END_DOCUMENT;
+		}
+	}
+
+	@Override
+	public void beginObject() throws IOException {
+		expect(PEEKED_BEGIN_OBJECT, JsonToken.BEGIN_OBJECT);
+		push(EMPTY_OBJECT);
+	}
+
+	@Override
+	public void endObject() throws IOException {
+		expect(PEEKED_END_OBJECT, JsonToken.END_OBJECT);
+		mStackSize--;
+	}
+
+	@Override
+	public void beginArray() throws IOException {
+		expect(PEEKED_BEGIN_ARRAY, JsonToken.BEGIN_ARRAY);
+		push(EMPTY_ARRAY);
+	}
+
+	@Override
+	public void endArray() throws IOException {
+		expect(PEEKED_END_ARRAY, JsonToken.END_ARRAY);
+		mStackSize--;
+	}
+
+	@Override
+	public String nextName() throws IOException {
+		expect(PEEKED_NAME, JsonToken.NAME);
+		return readQuoted(null);
+	}
+
+	@Override
+	public String nextString() throws IOException {
+		final int peeked = peekInternal();
+		mPeeked = PEEKED_NONE;
+		switch (peeked) {
+		case PEEKED_STRING:
+			return readQuoted(null);
+		case PEEKED_NUMBER:
+			final int length = numberLength();
+			final String number = new String(mBuffer, mPos, length);
+			mPos += length;
+			return number;
+		case PEEKED_TRUE:
+			return "true";
+		case PEEKED_FALSE:
+			return "false";
+		default:
+			mPeeked = peeked;
+			throw unexpected("a string", peek());
+		}
+	}
+
+	@Override
+	public String nextString(final StringPool pool) throws IOException {
+		if (peekInternal() == PEEKED_STRING) {
+			// Canonicalize straight from the buffer, a pooled value costs no
+			// allocation.
+			mPeeked = PEEKED_NONE;
+			return readQuoted(pool);
+		}
+		return pool.intern(nextString());
+	}
+
+	@Override
+	public long nextLong() throws IOException {
+		final int peeked = peekInternal();
+		if (peeked == PEEKED_NUMBER) {
+			mPeeked = PEEKED_NONE;
+			final int length = numberLength();
+			final long value = parseLong(mBuffer, mPos, length);
+			mPos += length;
+			return value;
+		}
+		if (peeked == PEEKED_STRING) {
+			// Fast path for quoted numbers, e.g. "created_time":"1333643413"
+			int end = mPos;
+			while (end < mLimit && mBuffer[end] >= '0' && mBuffer[end] <= '9') {
+				end++;
+			}
+			if (end < mLimit && mBuffer[end] == '"' && end > mPos
+					&& end - mPos <= MAX_FAST_DIGITS) {
+				long value = 0;
+				for (int i = mPos; i < end; i++) {
+					value = value * 10 + (mBuffer[i] - '0');
+				}
+				mPos = end + 1;
+				mPeeked = PEEKED_NONE;
+				return value;
+			}
+		}
+		return parseLong(nextString());
+	}
+
+	@Override
+	public double nextDouble() throws IOException {
+		final int peeked = peekInternal();
+		if (peeked != PEEKED_NUMBER && peeked != PEEKED_STRING) {
+			throw unexpected("a number", peek());
+		}
+		return Double.parseDouble(nextString());
+	}
+
+	@Override
+	public boolean nextBoolean() throws IOException {
+		final int peeked = peekInternal();
+		if (peeked == PEEKED_TRUE) {
+			mPeeked = PEEKED_NONE;
+			return true;
+		}
+		if (peeked == PEEKED_FALSE) {
+			mPeeked = PEEKED_NONE;
+			return false;
+		}
+		if (peeked == PEEKED_STRING) {
+			final String value = nextString();
+			if ("true".equalsIgnoreCase(value)) {
+				return true;
+			}
+			if ("false".equalsIgnoreCase(value)) {
+				return false;
+			}
+			throw syntaxError("Expected a boolean but was \"" + value + "\"");
+		}
+		throw unexpected("a boolean", peek());
+	}
+
+	@Override
+	public void nextNull() throws IOException {
+		expect(PEEKED_NULL, JsonToken.NULL);
+	}
+
+	@Override
+	public void skipValue() throws IOException {
+		int count = 0;
+		do {
+			final int peeked = peekInternal();
+			mPeeked = PEEKED_NONE;
+			switch (peeked) {
+			case PEEKED_BEGIN_ARRAY:
+				push(EMPTY_ARRAY);
+				count++;
+				break;
+			case PEEKED_BEGIN_OBJECT:
+				push(EMPTY_OBJECT);
+				count++;
+				break;
+			case PEEKED_END_ARRAY:
+			case PEEKED_END_OBJECT:
+				if (count == 0) {
+					mPeeked = peeked;
+					throw unexpected("a value", peek());
+				}
+				mStackSize--;
+				count--;
+				break;
+			case PEEKED_NAME:
+			case PEEKED_STRING:
+				skipQuoted();
+				break;
+			case PEEKED_NUMBER:
+				mPos += numberLength();
+				break;
+			case PEEKED_EOF:
+				throw syntaxError("Unexpected end of input");
+			default:
+				// Literals are consumed when peeked.
+				break;
+			}
+		} while (count != 0);
+	}
+
+	@Override
+	public Object readJsonValue() throws IOException {
+		switch (peek()) {
+		case BEGIN_OBJECT:
+			final JsonObject jsonObject = new JsonObject();
+			beginObject();
+			while (hasNext()) {
+				final String name = nextName();
+				jsonObject.put(name, readJsonValue());
+			}
+			endObject();
+			return jsonObject;
+		case BEGIN_ARRAY:
+			final JsonArray jsonArray = new JsonArray();
+			beginArray();
+			while (hasNext()) {
+				jsonArray.put(readJsonValue());
+			}
+			endArray();
+			return jsonArray;
+		case NUMBER:
+			return JsonObject.stringToValue(nextString());
+		case BOOLEAN:
+			return Boolean.valueOf(nextBoolean());
+		case NULL:
+			nextNull();
+			return JsonObject.NULL;
+		case STRING:
+			return nextString();
+		default:
+			throw unexpected("a value", peek());
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The handle is a copy of the JSON text of the value, which costs far
+	 * less than mapping or parsing it.
+	 */
+	@Override
+	public Object nextRawValue() throws IOException {
+		final int peeked = peekInternal();
+		switch (peeked) {
+		case PEEKED_TRUE:
+			mPeeked = PEEKED_NONE;
+			return "true".toCharArray();
+		case PEEKED_FALSE:
+			mPeeked = PEEKED_NONE;
+			return "false".toCharArray();
+		case PEEKED_NULL:
+			mPeeked = PEEKED_NONE;
+			return "null".toCharArray();
+		case PEEKED_NUMBER:
+			mMark = mPos;
+			break;
+		case PEEKED_BEGIN_OBJECT:
+		case PEEKED_BEGIN_ARRAY:
+		case PEEKED_STRING:
+			// The opening character was consumed by the peek.
+			mMark = mPos - 1;
+			break;
+		default:
+			throw unexpected("a value", peek());
+		}
+		try {
+			skipValue();
+			return Arrays.copyOfRange(mBuffer, mMark, mPos);
+		} finally {
+			mMark = -1;
+		}
+	}
+
+	@Override
+	public int getDepth() {
+		return mStackSize - 1;
+	}
+
+	@Override
+	public void close() throws IOException {
+		mPeeked = PEEKED_NONE;
+		mStackSize = 0;
+		if (mIn != null) {
+			mIn.close();
+		}
+	}
+
+	/**
+	 * Consumes the peeked token if it is {@code expected}.
+	 * 
+	 * @param expected
+	 *            The {@code PEEKED_*} constant expected.
+	 * @param token
+	 *            The token, for the error message.
+	 * @throws IOException
+	 *             If the input cannot be read.
+	 */
+	private void expect(final int expected, final JsonToken token)
+			throws IOException {
+		if (peekInternal() != expected) {
+			throw unexpected(token.name(), peek());
+		}
+		mPeeked = PEEKED_NONE;
+	}
+
+	/**
+	 * Pushes a scope.
+	 * 
+	 * @param scope
+	 *            The new scope.
+	 */
+	private void push(final int scope) {
+		if (mStackSize == mStack.length) {
+			final int[] stack = new int[mStackSize * 2];
+			System.arraycopy(mStack, 0, stack, 0, mStackSize);
+			mStack = stack;
+		}
+		mStack[mStackSize++] = scope;
+	}
+
+	/**
+	 * @return The peeked token, reading it if necessary.
+	 * @throws IOException
+	 *             If the input cannot be read.
+	 */
+	private int peekInternal() throws IOException {
+		return mPeeked != PEEKED_NONE ? mPeeked : doPeek();
+	}
+
+	/**
+	 * Reads the next token according to the current scope.
+	 * 
+	 * @return One of the {@code PEEKED_*} constants.
+	 * @throws IOException
+	 *             If the input cannot be read.
+	 */
+	private int doPeek() throws IOException {
+		final int top = mStackSize - 1;
+		final int scope = mStack[top];
+		if (scope == EMPTY_ARRAY) {
+			mStack[top] = NONEMPTY_ARRAY;
+		} else if (scope == NONEMPTY_ARRAY) {
+			final int c = nextNonWhitespace(true);
+			if (c == ']') {
+				return mPeeked = PEEKED_END_ARRAY;
+			}
+			if (c != ',') {
+				throw syntaxError("Unterminated array");
+			}
+		} else if (scope == EMPTY_OBJECT || scope == NONEMPTY_OBJECT) {
+			mStack[top] = DANGLING_NAME;
+			if (scope == NONEMPTY_OBJECT) {
+				final int c = nextNonWhitespace(true);
+				if (c == '}') {
+					return mPeeked = PEEKED_END_OBJECT;
+				}
+				if (c != ',') {
+					throw syntaxError("Unterminated object");
+				}
+			}
+			final int c = nextNonWhitespace(true);
+			if (c == '"') {
+				return mPeeked = PEEKED_NAME;
+			}
+			if (c == '}') {
+				// Empty object, or a trailing comma.
+				return mPeeked = PEEKED_END_OBJECT;
+			}
+			throw syntaxError("Expected a name");
+		} else if (scope == DANGLING_NAME) {
+			mStack[top] = NONEMPTY_OBJECT;
+			if (nextNonWhitespace(true) != ':') {
+				throw syntaxError("Expected ':'");
+			}
+		} else if (scope == EMPTY_DOCUMENT) {
+			mStack[top] = NONEMPTY_DOCUMENT;
+			if (mPos < mLimit || fill(1)) {
+				if (mBuffer[mPos] == '\ufeff') {
+					mPos++;
+				}
+			}
+		} else if (scope == NONEMPTY_DOCUMENT) {
+			return mPeeked = PEEKED_EOF;
+		}
+
+		final int c = nextNonWhitespace(true);
+		switch (c) {
+		case ']':
+			if (scope == EMPTY_ARRAY || scope == NONEMPTY_ARRAY) {
+				// Empty array, or a trailing comma.
+				return mPeeked = PEEKED_END_ARRAY;
+			}
+			throw syntaxError("Unexpected ']'");
+		case '"':
+			return mPeeked = PEEKED_STRING;
+		case '{':
+			return mPeeked = PEEKED_BEGIN_OBJECT;
+		case '[':
+			return mPeeked = PEEKED_BEGIN_ARRAY;
+		case 't':
+			return mPeeked = readLiteral("true", PEEKED_TRUE);
+		case 'f':
+			return mPeeked = readLiteral("false", PEEKED_FALSE);
+		case 'n':
+			return mPeeked = readLiteral("null", PEEKED_NULL);
+		default:
+			if (c == '-' || (c >= '0' && c <= '9')) {
+				mPos--;
+				return mPeeked = PEEKED_NUMBER;
+			}
+			throw syntaxError("Unexpected character '" + (char) c + "'");
+		}
+	}
+
+	/**
+	 * Consumes the rest of a literal whose first character was just read.
+	 * 
+	 * @param literal
+	 *            The literal.
+	 * @param peeked
+	 *            The value to return when it matches.
+	 * @return {@code peeked}.
+	 * @throws IOException
+	 *             If the input cannot be read.
+	 */
+	private int readLiteral(final String literal, final int peeked)
+			throws IOException {
+		mPos--;
+		final int length = literal.length();
+		if (mLimit - mPos < length && !fill(length)) {
+			throw syntaxError("Unexpected end of input");
+		}
+		for (int i = 1; i < length; i++) {
+			if (mBuffer[mPos + i] != literal.charAt(i)) {
+				throw syntaxError("Expected '" + literal + "'");
+			}
+		}
+		mPos += length;
+		return peeked;
+	}
+
+	/**
+	 * Returns the next character that is not whitespace.
+	 * 
+	 * @param throwOnEof
+	 *            {@code true} to fail at the end of the input.
+	 * @return The character, or {@code -1} at the end of the input.
+	 * @throws IOException
+	 *             If the input cannot be read.
+	 */
+	private int nextNonWhitespace(final boolean throwOnEof) throws IOException {
+		while (true) {
+			if (mPos == mLimit && !fill(1)) {
+				if (throwOnEof) {
+					throw syntaxError("Unexpected end of input");
+				}
+				return -1;
+			}
+			final char c = mBuffer[mPos++];
+			if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+				return c;
+			}
+		}
+	}
+
+	/**
+	 * Makes sure at least {@code minimum} characters are available from
+	 * {@link #mPos}, compacting and growing the buffer as needed. Characters
+	 * from {@link #mMark} on are kept.
+	 * 
+	 * @param minimum
+	 *            Number of characters required.
+	 * @return {@code false} if the input ended first.
+	 * @throws IOException
+	 *             If the input cannot be read.
+	 */
+	private boolean fill(final int minimum) throws IOException {
+		if (mIn == null) {
+			return mLimit - mPos >= minimum;
+		}
+		final int keep = mMark >= 0 ? mMark : mPos;
+		if (keep > 0) {
+			mLimit -= keep;
+			System.arraycopy(mBuffer, keep, mBuffer, 0, mLimit);
+			mDiscarded += keep;
+			mPos -= keep;
+			if (mMark >= 0) {
+				mMark = 0;
+			}
+		}
+		if (mPos + minimum > mBuffer.length) {
+			final char[] buffer = new char[Math.max(mPos + minimum,
+					mBuffer.length * 2)];
+			System.arraycopy(mBuffer, 0, buffer, 0, mLimit);
+			mBuffer = buffer;
+		}
+		while (mLimit - mPos < minimum) {
+			final int read = mIn.read(mBuffer, mLimit, mBuffer.length - mLimit);
+			if (read == -1) {
+				return false;
+			}
+			mLimit += read;
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the length of the number literal at {@link #mPos}, making sure
+	 * it is entirely in the buffer.
+	 * 
+	 * @return Number of characters of the literal.
+	 * @throws IOException
+	 *             If the input cannot be read.
+	 */
+	private int numberLength() throws IOException {
+		int i = 0;
+		while (true) {
+			if (mPos + i == mLimit && !fill(i + 1)) {
+				return i;
+			}
+			final char c = mBuffer[mPos + i];
+			if ((c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.'
+					|| c == 'e' || c == 'E') {
+				i++;
+			} else {
+				return i;
+			}
+		}
+	}
+
+	/**
+	 * Parses a number literal as a {@code long} without creating a string for
+	 * plain integers.
+	 * 
+	 * @param chars
+	 *            The buffer.
+	 * @param start
+	 *            Start of the literal.
+	 * @param length
+	 *            Length of the literal.
+	 * @return The value, truncated if it is not integral.
+	 */
+	private static long parseLong(final char[] chars, final int start,
+			final int length) {
+		final boolean negative = length > 0 && chars[start] == '-';
+		final int first = negative ? start + 1 : start;
+		final int end = start + length;
+		if (end > first && end - first <= MAX_FAST_DIGITS) {
+			long value = 0;
+			int i = first;
+			for (; i < end; i++) {
+				final char c = chars[i];
+				if (c < '0' || c > '9') {
+					break;
+				}
+				value = value * 10 + (c - '0');
+			}
+			if (i == end) {
+				return negative ? -value : value;
+			}
+		}
+		return parseLong(new String(chars, start, length));
+	}
+
+	/**
+	 * Parses text as a {@code long}, falling back to truncating a
+	 * {@code double} like {@link JsonObject#getLong(String)} does.
+	 * 
+	 * @param text
+	 *            The text.
+	 * @return The value.
+	 */
+	private static long parseLong(final String text) {
+		try {
+			return Long.parseLong(text);
+		} catch (final NumberFormatException e) {
+			return (long) Double.parseDouble(text);
+		}
+	}
+
+	/**
+	 * Reads the rest of a quoted string whose opening quote was consumed.
+	 * 
+	 * @param pool
+	 *            Pool to canonicalize the string with, or {@code null}.
+	 * @return The unescaped string.
+	 * @throws IOException
+	 *             If the input cannot be read.
+	 */
+	private String readQuoted(final StringPool pool) throws IOException {
+		StringBuilder builder = null;
+		while (true) {
+			int p = mPos;
+			int start = p;
+			while (p < mLimit) {
+				final char c = mBuffer[p++];
+				if (c == '"') {
+					mPos = p;
+					if (builder == null) {
+						return pool == null ? new String(mBuffer, start, p
+								- start - 1) : pool.intern(mBuffer, start, p
+								- start - 1);
+					}
+					builder.append(mBuffer, start, p - start - 1);
+					return pool == null ? builder.toString() : pool
+							.intern(builder);
+				}
+				if (c == '\\') {
+					mPos = p;
+					if (builder == null) {
+						builder = mScratch;
+						builder.setLength(0);
+					}
+					builder.append(mBuffer, start, p - start - 1);
+					builder.append(readEscape());
+					p = mPos;
+					start = p;
+				}
+			}
+			if (builder == null) {
+				builder = mScratch;
+				builder.setLength(0);
+			}
+			builder.append(mBuffer, start, p - start);
+			mPos = p;
+			if (!fill(1)) {
+				throw syntaxError("Unterminated string");
+			}
+		}
+	}
+
+	/**
+	 * Skips the rest of a quoted string whose opening quote was consumed.
+	 * 
+	 * @throws IOException
+	 *             If the input cannot be read.
+	 */
+	private void skipQuoted() throws IOException {
+		while (true) {
+			while (mPos < mLimit) {
+				final char c = mBuffer[mPos++];
+				if (c == '"') {
+					return;
+				}
+				if (c == '\\') {
+					readEscape();
+				}
+			}
+			if (!fill(1)) {
+				throw syntaxError("Unterminated string");
+			}
+		}
+	}
+
+	/**
+	 * Reads an escape sequence whose backslash was consumed.
+	 * 
+	 * @return The escaped character.
+	 * @throws IOException
+	 *             If the input cannot be read.
+	 */
+	private char readEscape() throws IOException {
+		if (mPos == mLimit && !fill(1)) {
+			throw syntaxError("Unterminated escape sequence");
+		}
+		final char escaped = mBuffer[mPos++];
+		switch (escaped) {
+		case 'u':
+			if (mLimit - mPos < 4 && !fill(4)) {
+				throw syntaxError("Unterminated escape sequence");
+			}
+			int value = 0;
+			for (int i = 0; i < 4; i++) {
+				final int digit = Character.digit(mBuffer[mPos + i], 16);
+				if (digit == -1) {
+					throw syntaxError("Invalid unicode escape");
+				}
+				value = (value << 4) | digit;
+			}
+			mPos += 4;
+			return (char) value;
+		case 'b':
+			return '\b';
+		case 'f':
+			return '\f';
+		case 'n':
+			return '\n';
+		case 'r':
+			return '\r';
+		case 't':
+			return '\t';
+		default:
+			return escaped;
+		}
+	}
+
+	/**
+	 * @param expected
+	 *            What was expected.
+	 * @param actual
+	 *            The token found instead.
+	 * @return An exception describing the mismatch.
+	 */
+	private JsonException unexpected(final String expected,
+			final JsonToken actual) {
+		return syntaxError("Expected " + expected + " but was " + actual);
+	}
+
+	/**
+	 * @param message
+	 *            Description of the problem.
+	 * @return An exception that includes the current input offset.
+	 */
+	private JsonException syntaxError(final String message) {
+		return new JsonException(message + " at character "
+				+ (mDiscarded + mPos));
+	}
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2010-2012 BlinxBox.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.blinxbox.restinstagram.json;
+
+/**
+ * The kinds of tokens a {@link JsonReader} can report.
+ * 
+ * @author Efi MK
+ */
+public enum JsonToken {
+	/**
+	 * The opening of an object, {@code &#123;}.
+	 */
+	BEGIN_OBJECT,
+
+	/**
+	 * The closing of an object, {@code &#125;}.
+	 */
+	END_OBJECT,
+
+	/**
+	 * The opening of an array, {@code [}.
+	 */
+	BEGIN_ARRAY,
+
+	/**
+	 * The closing of an array, {@code ]}.
+	 */
+	END_ARRAY,
+
+	/**
+	 * An object member name.
+	 */
+	NAME,
+
+	/**
+	 * A string value.
+	 */
+	STRING,
+
+	/**
+	 * A numeric value.
+	 */
+	NUMBER,
+
+	/**
+	 * {@code true} or {@code false}.
+	 */
+	BOOLEAN,
+
+	/**
+	 * The {@code null} literal.
+	 */
+	NULL,
+
+	/**
+	 * The end of the input.
+	 */
+	END_DOCUMENT
+}
@@ -0,0 +1,365 @@
+/*
+ * Copyright (c) 2010-2012 BlinxBox.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.blinxbox.restinstagram.json;
+
+import java.util.Iterator;
+
+import com.restfb.json.JsonArray;
+import com.restfb.json.JsonException;
+import com.restfb.json.JsonObject;
+
+/**
+ * {@link JsonReader} that walks an already parsed {@code com.restfb.json}
+ * tree. Skipping a value is free and {@link #readJsonValue()} hands out the
+ * existing node instead of copying it.
+ * 
+ * @author Efi MK
+ */
+public class JsonTreeReader extends JsonReader {
+	/**
+	 * Marker for "no pending value".
+	 */
+	private static final Object NONE = new Object();
+
+	/**
+	 * The value being read.
+	 */
+	private final Object mRoot;
+
+	/**
+	 * Whether {@link #mRoot} was handed out already.
+	 */
+	private boolean mRootRead;
+
+	/**
+	 * Objects and arrays the reader is inside of, outermost first.
+	 */
+	private Object[] mContainers = new Object[16];
+
+	/**
+	 * Member name iterators of the objects in {@link #mContainers}.
+	 */
+	private Iterator<?>[] mNames = new Iterator<?>[16];
+
+	/**
+	 * Next element index of the arrays in {@link #mContainers}.
+	 */
+	private int[] mIndexes = new int[16];
+
+	/**
+	 * Number of entries in {@link #mContainers}.
+	 */
+	private int mSize;
+
+	/**
+	 * Member name that was peeked but not consumed, or {@code null}.
+	 */
+	private String mName;
+
+	/**
+	 * Value that was peeked but not consumed, or {@link #NONE}.
+	 */
+	private Object mValue = NONE;
+
+	/**
+	 * Creates a reader over a parsed value.
+	 * 
+	 * @param root
+	 *            A {@link JsonObject}, {@link JsonArray} or scalar.
+	 */
+	public JsonTreeReader(final Object root) {
+		mRoot = root;
+	}
+
+	@Override
+	public String getSourceJson() {
+		return mRoot == null ? null : mRoot.toString();
+	}
+
+	@Override
+	public JsonToken peek() {
+		if (mName != null) {
+			return JsonToken.NAME;
+		}
+		if (mValue != NONE) {
+			return tokenOf(mValue);
+		}
+		if (mSize == 0) {
+			if (mRootRead) {
+				return JsonToken.END_DOCUMENT;
+			}
+			mRootRead = true;
+			mValue = mRoot;
+			return tokenOf(mValue);
+		}
+
+		final int top = mSize - 1;
+		final Object container = mContainers[top];
+		if (container instanceof JsonObject) {
+			final Iterator<?> names = mNames[top];
+			if (!names.hasNext()) {
+				return JsonToken.END_OBJECT;
+			}
+			mName = (String) names.next();
+			mValue = ((JsonObject) container).opt(mName);
+			return JsonToken.NAME;
+		}
+
+		final JsonArray array = (JsonArray) container;
+		if (mIndexes[top] == array.length()) {
+			return JsonToken.END_ARRAY;
+		}
+		mValue = array.opt(mIndexes[top]++);
+		return tokenOf(mValue);
+	}
+
+	@Override
+	public void beginObject() {
+		expect(JsonToken.BEGIN_OBJECT);
+		final JsonObject jsonObject = (JsonObject) consume();
+		push(jsonObject).mNames[mSize - 1] = jsonObject.keys();
+	}
+
+	@Override
+	public void endObject() {
+		expect(JsonToken.END_OBJECT);
+		pop();
+	}
+
+	@Override
+	public void beginArray() {
+		expect(JsonToken.BEGIN_ARRAY);
+		push(consume()).mIndexes[mSize - 1] = 0;
+	}
+
+	@Override
+	public void endArray() {
+		expect(JsonToken.END_ARRAY);
+		pop();
+	}
+
+	@Override
+	public String nextName() {
+		expect(JsonToken.NAME);
+		final String name = mName;
+		mName = null;
+		return name;
+	}
+
+	@Override
+	public String nextString() {
+		final JsonToken token = peek();
+		if (token != JsonToken.STRING && token != JsonToken.NUMBER
+				&& token != JsonToken.BOOLEAN) {
+			throw unexpected("a string", token);
+		}
+		return consume().toString();
+	}
+
+	@Override
+	public long nextLong() {
+		final JsonToken token = peek();
+		if (token == JsonToken.NUMBER) {
+			return ((Number) consume()).longValue();
+		}
+		if (token == JsonToken.STRING) {
+			final String text = (String) consume();
+			try {
+				return Long.parseLong(text);
+			} catch (final NumberFormatException e) {
+				return (long) Double.parseDouble(text);
+			}
+		}
+		throw unexpected("a number", token);
+	}
+
+	@Override
+	public int nextInt() {
+		final JsonToken token = peek();
+		if (token == JsonToken.NUMBER) {
+			return ((Number) consume()).intValue();
+		}
+		return (int) nextLong();
+	}
+
+	@Override
+	public double nextDouble() {
+		final JsonToken token = peek();
+		if (token == JsonToken.NUMBER) {
+			return ((Number) consume()).doubleValue();
+		}
+		if (token == JsonToken.STRING) {
+			return Double.parseDouble((String) consume());
+		}
+		throw unexpected("a number", token);
+	}
+
+	@Override
+	public boolean nextBoolean() {
+		final JsonToken token = peek();
+		if (token == JsonToken.BOOLEAN) {
+			return ((Boolean) consume()).booleanValue();
+		}
+		if (token == JsonToken.STRING) {
+			final String value = (String) consume();
+			if ("true".equalsIgnoreCase(value)) {
+				return true;
+			}
+			if ("false".equalsIgnoreCase(value)) {
+				return false;
+			}
+			throw new JsonException("Expected a boolean but was \"" + value
+					+ "\"");
+		}
+		throw unexpected("a boolean", token);
+	}
+
+	@Override
+	public void nextNull() {
+		expect(JsonToken.NULL);
+		consume();
+	}
+
+	@Override
+	public void skipValue() {
+		final JsonToken token = peek();
+		if (token == JsonToken.NAME) {
+			mName = null;
+		} else if (token == JsonToken.END_OBJECT
+				|| token == JsonToken.END_ARRAY
+				|| token == JsonToken.END_DOCUMENT) {
+			throw unexpected("a value", token);
+		} else {
+			consume();
+		}
+	}
+
+	@Override
+	public Object readJsonValue() {
+		final JsonToken token = peek();
+		if (token == JsonToken.NAME || token == JsonToken.END_OBJECT
+				|| token == JsonToken.END_ARRAY
+				|| token == JsonToken.END_DOCUMENT) {
+			throw unexpected("a value", token);
+		}
+		final Object value = consume();
+		return value == null ? JsonObject.NULL : value;
+	}
+
+	@Override
+	public int getDepth() {
+		return mSize;
+	}
+
+	/**
+	 * @return The pending value, which is consumed.
+	 */
+	private Object consume() {
+		final Object value = mValue;
+		mValue = NONE;
+		return value;
+	}
+
+	/**
+	 * Enters a container.
+	 * 
+	 * @param container
+	 *            The object or array.
+	 * @return This reader.
+	 */
+	private JsonTreeReader push(final Object container) {
+		if (mSize == mContainers.length) {
+			final int size = mSize * 2;
+			final Object[] containers = new Object[size];
+			final Iterator<?>[] names = new Iterator<?>[size];
+			final int[] indexes = new int[size];
+			System.arraycopy(mContainers, 0, containers, 0, mSize);
+			System.arraycopy(mNames, 0, names, 0, mSize);
+			System.arraycopy(mIndexes, 0, indexes, 0, mSize);
+			mContainers = containers;
+			mNames = names;
+			mIndexes = indexes;
+		}
+		mContainers[mSize++] = container;
+		return this;
+	}
+
+	/**
+	 * Leaves the innermost container.
+	 */
+	private void pop() {
+		mSize--;
+		mContainers[mSize] = null;
+		mNames[mSize] = null;
+	}
+
+	/**
+	 * Verifies the next token.
+	 * 
+	 * @param expected
+	 *            The token expected.
+	 */
+	private void expect(final JsonToken expected) {
+		final JsonToken token = peek();
+		if (token != expected) {
+			throw unexpected(expected.name(), token);
+		}
+	}
+
+	/**
+	 * @param value
+	 *            A tree node.
+	 * @return The token that represents {@code value}.
+	 */
+	private static JsonToken tokenOf(final Object value) {
+		if (value instanceof JsonObject) {
+			return JsonToken.BEGIN_OBJECT;
+		}
+		if (value instanceof JsonArray) {
+			return JsonToken.BEGIN_ARRAY;
+		}
+		if (value == null || JsonObject.NULL.equals(value)) {
+			return JsonToken.NULL;
+		}
+		if (value instanceof Number) {
+			return JsonToken.NUMBER;
+		}
+		if (value instanceof Boolean) {
+			return JsonToken.BOOLEAN;
+		}
+		return JsonToken.STRING;
+	}
+
+	/**
+	 * @param expected
+	 *            What was expected.
+	 * @param actual
+	 *            The token found instead.
+	 * @return An exception describing the mismatch.
+	 */
+	private static JsonException unexpected(final String expected,
+			final JsonToken actual) {
+		return new JsonException("Expected " + expected + " but was " + actual);
+	}
+}
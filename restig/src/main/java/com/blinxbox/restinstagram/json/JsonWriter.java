@@ -0,0 +1,365 @@
+/*
+ * Copyright (c) 2010-2012 BlinxBox.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.blinxbox.restinstagram.json;
+
+import java.io.IOException;
+
+import com.restfb.json.JsonException;
+
+/**
+ * Push-style writer of compact JSON text straight to an {@link Appendable},
+ * the counterpart of {@link JsonReader}. Separators are inserted by the
+ * writer; callers only report structure and values. Nothing is buffered
+ * besides what the target buffers itself, so wrap unbuffered targets in a
+ * {@link java.io.BufferedWriter}.
+ * <p>
+ * The writer trusts its caller to produce a well formed document, e.g. to
+ * follow every {@link #name(String)} with a value. Writers are not thread
+ * safe.
+ * 
+ * @author Efi MK
+ */
+public final class JsonWriter {
+	/**
+	 * Escape sequences of the ASCII control characters and the characters
+	 * that must be escaped in JSON strings, {@code null} for the others.
+	 */
+	private static final String[] REPLACEMENTS = new String[128];
+	static {
+		for (int i = 0; i < 0x20; i++) {
+			REPLACEMENTS[i] = String.format("\\u%04x", i);
+		}
+		REPLACEMENTS['"'] = "\\\"";
+		REPLACEMENTS['\\'] = "\\\\";
+		REPLACEMENTS['\t'] = "\\t";
+		REPLACEMENTS['\b'] = "\\b";
+		REPLACEMENTS['\n'] = "\\n";
+		REPLACEMENTS['\r'] = "\\r";
+		REPLACEMENTS['\f'] = "\\f";
+	}
+
+	/**
+	 * The target.
+	 */
+	private final Appendable mOut;
+
+	/**
+	 * Per nesting level, whether a value was written already and the next
+	 * one needs a separator.
+	 */
+	private boolean[] mHasValues = new boolean[32];
+
+	/**
+	 * Current nesting level, 0 at top level.
+	 */
+	private int mDepth;
+
+	/**
+	 * Whether a member name was just written and its value is due.
+	 */
+	private boolean mAfterName;
+
+	/**
+	 * Creates a writer.
+	 * 
+	 * @param out
+	 *            The target.
+	 */
+	public JsonWriter(final Appendable out) {
+		mOut = out;
+	}
+
+	/**
+	 * Starts an object.
+	 * 
+	 * @return This writer.
+	 * @throws IOException
+	 *             If the target cannot be written.
+	 */
+	public JsonWriter beginObject() throws IOException {
+		return open('{');
+	}
+
+	/**
+	 * Ends the current object.
+	 * 
+	 * @return This writer.
+	 * @throws IOException
+	 *             If the target cannot be written.
+	 */
+	public JsonWriter endObject() throws IOException {
+		return close('}');
+	}
+
+	/**
+	 * Starts an array.
+	 * 
+	 * @return This writer.
+	 * @throws IOException
+	 *             If the target cannot be written.
+	 */
+	public JsonWriter beginArray() throws IOException {
+		return open('[');
+	}
+
+	/**
+	 * Ends the current array.
+	 * 
+	 * @return This writer.
+	 * @throws IOException
+	 *             If the target cannot be written.
+	 */
+	public JsonWriter endArray() throws IOException {
+		return close(']');
+	}
+
+	/**
+	 * Writes the name of the next member of the current object.
+	 * 
+	 * @param name
+	 *            The member name.
+	 * @return This writer.
+	 * @throws IOException
+	 *             If the target cannot be written.
+	 */
+	public JsonWriter name(final String name) throws IOException {
+		beforeValue();
+		writeString(name);
+		mOut.append(':');
+		mAfterName = true;
+		return this;
+	}
+
+	/**
+	 * Writes a string value.
+	 * 
+	 * @param value
+	 *            The value, {@code null} writes {@code null}.
+	 * @return This writer.
+	 * @throws IOException
+	 *             If the target cannot be written.
+	 */
+	public JsonWriter value(final String value) throws IOException {
+		if (value == null) {
+			return nullValue();
+		}
+		beforeValue();
+		writeString(value);
+		return this;
+	}
+
+	/**
+	 * Writes a number value.
+	 * 
+	 * @param value
+	 *            The value.
+	 * @return This writer.
+	 * @throws IOException
+	 *             If the target cannot be written.
+	 */
+	public JsonWriter value(final long value) throws IOException {
+		beforeValue();
+		mOut.append(Long.toString(value));
+		return this;
+	}
+
+	/**
+	 * Writes a number value.
+	 * 
+	 * @param value
+	 *            The value.
+	 * @return This writer.
+	 * @throws IOException
+	 *             If the target cannot be written.
+	 * @throws JsonException
+	 *             If {@code value} is not a finite number.
+	 */
+	public JsonWriter value(final double value) throws IOException {
+		if (Double.isNaN(value) || Double.isInfinite(value)) {
+			throw new JsonException("JSON does not allow non-finite numbers: "
+					+ value);
+		}
+		beforeValue();
+		mOut.append(Double.toString(value));
+		return this;
+	}
+
+	/**
+	 * Writes a number value as is, e.g. a {@code BigDecimal}.
+	 * 
+	 * @param value
+	 *            The value.
+	 * @return This writer.
+	 * @throws IOException
+	 *             If the target cannot be written.
+	 */
+	public JsonWriter value(final Number value) throws IOException {
+		if (value == null) {
+			return nullValue();
+		}
+		if (value instanceof Double || value instanceof Float) {
+			return value(value.doubleValue());
+		}
+		beforeValue();
+		mOut.append(value.toString());
+		return this;
+	}
+
+	/**
+	 * Writes a boolean value.
+	 * 
+	 * @param value
+	 *            The value.
+	 * @return This writer.
+	 * @throws IOException
+	 *             If the target cannot be written.
+	 */
+	public JsonWriter value(final boolean value) throws IOException {
+		beforeValue();
+		mOut.append(value ? "true" : "false");
+		return this;
+	}
+
+	/**
+	 * Writes {@code null}.
+	 * 
+	 * @return This writer.
+	 * @throws IOException
+	 *             If the target cannot be written.
+	 */
+	public JsonWriter nullValue() throws IOException {
+		beforeValue();
+		mOut.append("null");
+		return this;
+	}
+
+	/**
+	 * Writes an already serialized JSON value, e.g. a restfb node.
+	 * 
+	 * @param json
+	 *            The JSON text of a single value.
+	 * @return This writer.
+	 * @throws IOException
+	 *             If the target cannot be written.
+	 */
+	public JsonWriter rawValue(final String json) throws IOException {
+		beforeValue();
+		mOut.append(json);
+		return this;
+	}
+
+	/**
+	 * Opens a nesting level.
+	 * 
+	 * @param bracket
+	 *            The opening bracket.
+	 * @return This writer.
+	 * @throws IOException
+	 *             If the target cannot be written.
+	 */
+	private JsonWriter open(final char bracket) throws IOException {
+		beforeValue();
+		mOut.append(bracket);
+		mDepth++;
+		if (mDepth == mHasValues.length) {
+			final boolean[] hasValues = new boolean[mDepth * 2];
+			System.arraycopy(mHasValues, 0, hasValues, 0, mDepth);
+			mHasValues = hasValues;
+		}
+		mHasValues[mDepth] = false;
+		return this;
+	}
+
+	/**
+	 * Closes the current nesting level.
+	 * 
+	 * @param bracket
+	 *            The closing bracket.
+	 * @return This writer.
+	 * @throws IOException
+	 *             If the target cannot be written.
+	 */
+	private JsonWriter close(final char bracket) throws IOException {
+		mDepth--;
+		mOut.append(bracket);
+		return this;
+	}
+
+	/**
+	 * Writes the separator the next value or member name needs, if any.
+	 * 
+	 * @throws IOException
+	 *             If the target cannot be written.
+	 */
+	private void beforeValue() throws IOException {
+		if (mAfterName) {
+			mAfterName = false;
+			return;
+		}
+		if (mHasValues[mDepth]) {
+			mOut.append(',');
+		}
+		mHasValues[mDepth] = true;
+	}
+
+	/**
+	 * Writes {@code value} quoted and escaped. Runs of characters that need
+	 * no escaping are appended in one call.
+	 * 
+	 * @param value
+	 *            The string.
+	 * @throws IOException
+	 *             If the target cannot be written.
+	 */
+	private void writeString(final String value) throws IOException {
+		mOut.append('"');
+		int last = 0;
+		final int length = value.length();
+		for (int i = 0; i < length; i++) {
+			final char c = value.charAt(i);
+			String replacement;
+			if (c < 128) {
+				replacement = REPLACEMENTS[c];
+				if (replacement == null) {
+					continue;
+				}
+			} else if (c == '\u2028') {
+				replacement = "\\u2028";
+			} else if (c == '\u2029') {
+				replacement = "\\u2029";
+			} else {
+				continue;
+			}
+			if (last < i) {
+				mOut.append(value, last, i);
+			}
+			mOut.append(replacement);
+			last = i + 1;
+		}
+		if (last < length) {
+			mOut.append(value, last, length);
+		}
+		mOut.append('"');
+	}
+}
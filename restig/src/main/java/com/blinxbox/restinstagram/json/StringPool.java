@@ -0,0 +1,280 @@
+/*
+ * Copyright (c) 2010-2012 BlinxBox.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.blinxbox.restinstagram.json;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded canonicalization pool for strings that repeat across mapped
+ * values, e.g. user names, profile picture URLs and tags of a crawled feed.
+ * Equal values read through the pool share a single {@code String} instance,
+ * and a value that is already pooled is returned without allocating at all
+ * when it is read straight from a {@link JsonStreamReader} buffer.
+ * <p>
+ * The pool is a fixed size, direct mapped table: each value has exactly one
+ * slot, and a miss replaces whatever the slot held. Memory use is therefore
+ * bounded by the capacity and by the maximum pooled length, and lookups cost
+ * one hash and one comparison. The pool is thread safe without locking; a
+ * race can only cost a hit. Statistics are kept to tell how much the pool
+ * saves.
+ * 
+ * @author Efi MK
+ */
+public final class StringPool {
+	/**
+	 * Longest value pooled by default, longer values are rarely repeated.
+	 */
+	public static final int DEFAULT_MAX_LENGTH = 256;
+
+	/**
+	 * The slots, {@code null} if empty. The length is a power of two.
+	 */
+	private final String[] mSlots;
+
+	/**
+	 * Longest value pooled.
+	 */
+	private final int mMaxLength;
+
+	/**
+	 * Lookups that returned a pooled instance.
+	 */
+	private final AtomicLong mHits = new AtomicLong();
+
+	/**
+	 * Lookups that pooled a new instance.
+	 */
+	private final AtomicLong mMisses = new AtomicLong();
+
+	/**
+	 * Characters of all values returned on hits.
+	 */
+	private final AtomicLong mSavedChars = new AtomicLong();
+
+	/**
+	 * Creates a pool that holds up to {@code capacity} values of up to
+	 * {@link #DEFAULT_MAX_LENGTH} characters.
+	 * 
+	 * @param capacity
+	 *            Number of slots, rounded up to a power of two.
+	 */
+	public StringPool(final int capacity) {
+		this(capacity, DEFAULT_MAX_LENGTH);
+	}
+
+	/**
+	 * Creates a pool.
+	 * 
+	 * @param capacity
+	 *            Number of slots, rounded up to a power of two.
+	 * @param maxLength
+	 *            Longest value pooled, longer values pass through.
+	 * @throws IllegalArgumentException
+	 *             If {@code capacity} or {@code maxLength} is not positive,
+	 *             or {@code capacity} is larger than 2^30.
+	 */
+	public StringPool(final int capacity, final int maxLength)
+			throws IllegalArgumentException {
+		if (capacity <= 0 || capacity > 1 << 30 || maxLength <= 0) {
+			throw new IllegalArgumentException("Invalid capacity " + capacity
+					+ " or maximum length " + maxLength);
+		}
+		int size = Integer.highestOneBit(capacity);
+		if (size < capacity) {
+			size <<= 1;
+		}
+		mSlots = new String[size];
+		mMaxLength = maxLength;
+	}
+
+	/**
+	 * Returns the pooled instance equal to {@code value}, pooling
+	 * {@code value} if there is none.
+	 * 
+	 * @param value
+	 *            A value, may be {@code null}.
+	 * @return The canonical instance.
+	 */
+	public String intern(final String value) {
+		if (value == null || value.length() > mMaxLength) {
+			return value;
+		}
+		final int slot = slot(value.hashCode());
+		final String pooled = mSlots[slot];
+		if (pooled != null && pooled.equals(value)) {
+			return hit(pooled);
+		}
+		mSlots[slot] = value;
+		mMisses.incrementAndGet();
+		return value;
+	}
+
+	/**
+	 * Returns the pooled instance equal to a range of characters, creating
+	 * and pooling a new string only if there is none.
+	 * 
+	 * @param chars
+	 *            Characters of the value.
+	 * @param offset
+	 *            Start of the value in {@code chars}.
+	 * @param length
+	 *            Length of the value.
+	 * @return The canonical instance.
+	 */
+	public String intern(final char[] chars, final int offset, final int length) {
+		if (length > mMaxLength) {
+			return new String(chars, offset, length);
+		}
+		int hash = 0;
+		for (int i = offset; i < offset + length; i++) {
+			hash = 31 * hash + chars[i];
+		}
+		final int slot = slot(hash);
+		final String pooled = mSlots[slot];
+		if (pooled != null && pooled.length() == length) {
+			int i = 0;
+			while (i < length && pooled.charAt(i) == chars[offset + i]) {
+				i++;
+			}
+			if (i == length) {
+				return hit(pooled);
+			}
+		}
+		final String value = new String(chars, offset, length);
+		mSlots[slot] = value;
+		mMisses.incrementAndGet();
+		return value;
+	}
+
+	/**
+	 * Returns the pooled instance equal to {@code chars}, creating and pooling
+	 * a new string only if there is none.
+	 * 
+	 * @param chars
+	 *            The value, e.g. a reused {@code StringBuilder}.
+	 * @return The canonical instance.
+	 */
+	public String intern(final CharSequence chars) {
+		final int length = chars.length();
+		if (length > mMaxLength) {
+			return chars.toString();
+		}
+		int hash = 0;
+		for (int i = 0; i < length; i++) {
+			hash = 31 * hash + chars.charAt(i);
+		}
+		final int slot = slot(hash);
+		final String pooled = mSlots[slot];
+		if (pooled != null && pooled.contentEquals(chars)) {
+			return hit(pooled);
+		}
+		final String value = chars.toString();
+		mSlots[slot] = value;
+		mMisses.incrementAndGet();
+		return value;
+	}
+
+	/**
+	 * @return Number of slots.
+	 */
+	public int getCapacity() {
+		return mSlots.length;
+	}
+
+	/**
+	 * @return Lookups that returned an already pooled instance.
+	 */
+	public long getHits() {
+		return mHits.get();
+	}
+
+	/**
+	 * @return Lookups that had to pool a new instance.
+	 */
+	public long getMisses() {
+		return mMisses.get();
+	}
+
+	/**
+	 * @return Share of lookups that were hits, 0 if there was none.
+	 */
+	public double getHitRatio() {
+		final long hits = getHits();
+		final long lookups = hits + getMisses();
+		return lookups == 0 ? 0 : (double) hits / lookups;
+	}
+
+	/**
+	 * Characters that did not have to be held again thanks to the pool. Each
+	 * hit also saves one {@code String} object and its array header, see
+	 * {@link #getHits()}.
+	 * 
+	 * @return Total length of the values returned on hits.
+	 */
+	public long getSavedChars() {
+		return mSavedChars.get();
+	}
+
+	/**
+	 * Empties the pool and resets its statistics.
+	 */
+	public void clear() {
+		for (int i = 0; i < mSlots.length; i++) {
+			mSlots[i] = null;
+		}
+		mHits.set(0);
+		mMisses.set(0);
+		mSavedChars.set(0);
+	}
+
+	@Override
+	public String toString() {
+		return "StringPool[capacity=" + getCapacity() + ", hits=" + getHits()
+				+ ", misses=" + getMisses() + ", savedChars="
+				+ getSavedChars() + "]";
+	}
+
+	/**
+	 * @param hash
+	 *            {@link String#hashCode()} of a value.
+	 * @return The slot of the value.
+	 */
+	private int slot(final int hash) {
+		// Spread the high bits, short strings differ mostly in the low ones.
+		return (hash ^ (hash >>> 16)) & (mSlots.length - 1);
+	}
+
+	/**
+	 * Records a hit.
+	 * 
+	 * @param pooled
+	 *            The pooled instance.
+	 * @return {@code pooled}.
+	 */
+	private String hit(final String pooled) {
+		mHits.incrementAndGet();
+		mSavedChars.addAndGet(pooled.length());
+		return pooled;
+	}
+}
@@ -27,6 +27,7 @@ import java.util.Date;
 import java.util.List;
 
 import com.blinxbox.restinstagram.Instagram;
+import com.blinxbox.restinstagram.Lazy;
 
 /**
  * Represents a post in Instagram.
@@ -188,19 +189,19 @@ public class MediaPost implements Serializable {
 		 * Width of the image.
 		 */
 		@Instagram
-		private int width;
+		int width;
 
 		/**
 		 * Height of the image.
 		 */
 		@Instagram
-		private int height;
+		int height;
 
 		/**
 		 * From where the image can be retrieved.
 		 */
 		@Instagram
-		private String url;
+		String url;
 
 		/**
 		 * @return Width of the image.
@@ -243,19 +244,19 @@ public class MediaPost implements Serializable {
 		 * Low resolution image 306*305
 		 */
 		@Instagram
-		private Image low_resolution;
+		Image low_resolution;
 
 		/**
 		 * thumnail image. 150 *150
 		 */
 		@Instagram
-		private Image thumbnail;
+		Image thumbnail;
 
 		/**
 		 * standard image. 612 * 612
 		 */
 		@Instagram
-		private Image standard_resolution;
+		Image standard_resolution;
 
 		/**
 		 * @return Low resolution image 306*305
@@ -282,63 +283,65 @@ public class MediaPost implements Serializable {
 
 	/**
 	 * Each post has one image with 3 resolutions. This variable holds pointers
-	 * to the images.
+	 * to the images. Mapped on first use when the mapper decodes lazily.
 	 */
 	@Instagram
-	private Images images;
+	Lazy<Images> images;
 
 	/**
 	 * Time since epoch this post was created.
 	 */
 	@Instagram
-	private long created_time;
+	long created_time;
 	/**
-	 * User who posted this post.
+	 * User who posted this post. Mapped on first use when the mapper decodes
+	 * lazily.
 	 */
 	@Instagram
-	private User user;
+	Lazy<User> user;
 
 	/**
 	 * Link to the post.
 	 */
 	@Instagram
-	private String link;
+	String link;
 
 	/**
-	 * Caption for the post.
+	 * Caption for the post. Mapped on first use when the mapper decodes
+	 * lazily.
 	 */
 	@Instagram
-	private Caption caption;
+	Lazy<Caption> caption;
 
 	/**
 	 * Likes for the current post.
 	 */
 	@Instagram
-	private Likes likes;
+	Likes likes;
 
 	/**
 	 * Post ID.
 	 */
 	@Instagram
-	private String id;
+	String id;
 
 	/**
-	 * Holds post tags.
+	 * Holds post tags. Mapped on first use when the mapper decodes lazily.
 	 */
 	@Instagram
-	private List<String> tags;
+	Lazy<List<String>> tags;
 
 	/**
 	 * Used for serialization.
 	 */
-	private static final long serialVersionUID = 2L;
+	private static final long serialVersionUID = 3L;
 
 	/**
 	 * @return Each post has one image with 3 resolutions. Returns these 3
 	 *         resolutions.
 	 */
 	public Images getImages() {
-		return images;
+		return valueOf(images);
 	}
 
 	/**
@@ -352,7 +355,7 @@ public class MediaPost implements Serializable {
 	 * @return User who posted this post.
 	 */
 	public User getUser() {
-		return user;
+		return valueOf(user);
 	}
 
 	/**
@@ -360,11 +363,9 @@ public class MediaPost implements Serializable {
 	 *         return an empty (not null).
 	 */
 	public Caption getCaption() {
-		Caption returnValue;
-		if (caption == null) {
+		Caption returnValue = valueOf(caption);
+		if (returnValue == null) {
 			returnValue = new Caption("", "99999");
-		} else {
-			returnValue = caption;
 		}
 		return returnValue;
 	}
@@ -394,7 +395,18 @@ public class MediaPost implements Serializable {
 	 * @return Holds post tags.
 	 */
 	public List<String> getTags() {
-		return tags;
+		return valueOf(tags);
+	}
+
+	/**
+	 * @param <T>
+	 *            The type of the value.
+	 * @param lazy
+	 *            A field holder, may be {@code null}.
+	 * @return The value of the holder, {@code null} if there is none.
+	 */
+	private static <T> T valueOf(final Lazy<T> lazy) {
+		return lazy == null ? null : lazy.get();
 	}
 
 }
\ No newline at end of file
@@ -0,0 +1,340 @@
+/*
+ * Copyright (c) 2010-2012 BlinxBox.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.blinxbox.restinstagram.types;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.blinxbox.restinstagram.InstagramClient;
+import com.blinxbox.restinstagram.InstagramCollection;
+import com.blinxbox.restinstagram.Parameter;
+import com.blinxbox.restinstagram.Projection;
+
+/**
+ * Media posts held column by column instead of as a list of
+ * {@link MediaPost} objects. Every column is a plain array indexed by row and
+ * user names are dictionary encoded, so scanning a single column touches
+ * contiguous memory and repeated names are stored once.
+ * <p>
+ * Columns are shared with the batch and must not be modified.
+ * 
+ * @author Efi MK
+ */
+public final class MediaPostBatch implements Serializable {
+	/**
+	 * The fields of a {@link MediaPost} a batch is built from.
+	 */
+	public static final Projection PROJECTION = Projection.of("id",
+			"created_time", "likes.count", "user.username");
+
+	/**
+	 * Accumulates posts into columns, see {@link MediaPostBatch#fetch}. Pass
+	 * {@link #getReusable()} and {@link MediaPostBatch#PROJECTION} together
+	 * with the builder to {@link InstagramClient#visitCollection} and
+	 * {@link InstagramCollection#visitNextPage} so no post is kept after it
+	 * has been appended.
+	 * 
+	 * @author Efi MK
+	 */
+	public static final class Builder implements
+			InstagramCollection.Visitor<MediaPost> {
+		/**
+		 * Row capacity of a new builder.
+		 */
+		private static final int INITIAL_CAPACITY = 32;
+		/**
+		 * The instance posts are mapped into.
+		 */
+		private final MediaPost mReusable = new MediaPost();
+		/**
+		 * Code of every user name in the dictionary.
+		 */
+		private final Map<String, Integer> mCodes = new HashMap<String, Integer>();
+		/**
+		 * Number of rows appended.
+		 */
+		private int mSize;
+		/**
+		 * Id column.
+		 */
+		private String[] mIds = new String[INITIAL_CAPACITY];
+		/**
+		 * Creation time column.
+		 */
+		private long[] mCreatedTimes = new long[INITIAL_CAPACITY];
+		/**
+		 * Like count column.
+		 */
+		private int[] mLikeCounts = new int[INITIAL_CAPACITY];
+		/**
+		 * User name code column.
+		 */
+		private int[] mUserCodes = new int[INITIAL_CAPACITY];
+		/**
+		 * User names by code.
+		 */
+		private String[] mUsernames = new String[INITIAL_CAPACITY];
+		/**
+		 * Next page to fetch, see {@link MediaPostBatch#getNextPageUrl()}.
+		 */
+		private String mNextPageUrl;
+
+		/**
+		 * @return The instance to map posts into before they are appended.
+		 */
+		public MediaPost getReusable() {
+			return mReusable;
+		}
+
+		/**
+		 * @return Number of rows appended so far.
+		 */
+		public int getSize() {
+			return mSize;
+		}
+
+		/**
+		 * Appends {@code element} as a new row.
+		 * 
+		 * @param element
+		 *            A post mapped with at least {@link MediaPostBatch#PROJECTION}.
+		 * @return Always {@code true}.
+		 */
+		@Override
+		public boolean visit(final MediaPost element) {
+			if (mSize == mIds.length) {
+				final int capacity = mSize * 2;
+				mIds = Arrays.copyOf(mIds, capacity);
+				mCreatedTimes = Arrays.copyOf(mCreatedTimes, capacity);
+				mLikeCounts = Arrays.copyOf(mLikeCounts, capacity);
+				mUserCodes = Arrays.copyOf(mUserCodes, capacity);
+			}
+			mIds[mSize] = element.id;
+			mCreatedTimes[mSize] = element.created_time;
+			mLikeCounts[mSize] = element.likes == null ? 0
+					: element.likes.count;
+			final MediaPost.User user = element.getUser();
+			mUserCodes[mSize] = encode(user == null ? null : user.username);
+			mSize++;
+			return true;
+		}
+
+		/**
+		 * @param nextPageUrl
+		 *            The page after the last one appended, {@code null} if
+		 *            there is none.
+		 * @return This builder.
+		 */
+		public Builder setNextPageUrl(final String nextPageUrl) {
+			mNextPageUrl = nextPageUrl;
+			return this;
+		}
+
+		/**
+		 * @return A batch of the rows appended so far, the builder can go on
+		 *         appending afterwards.
+		 */
+		public MediaPostBatch build() {
+			return new MediaPostBatch(Arrays.copyOf(mIds, mSize),
+					Arrays.copyOf(mCreatedTimes, mSize), Arrays.copyOf(
+							mLikeCounts, mSize),
+					Arrays.copyOf(mUserCodes, mSize), Arrays.copyOf(
+							mUsernames, mCodes.size()), mNextPageUrl);
+		}
+
+		/**
+		 * @param username
+		 *            A user name, may be {@code null}.
+		 * @return The dictionary code of {@code username}, {@code -1} for
+		 *         {@code null}.
+		 */
+		private int encode(final String username) {
+			if (username == null) {
+				return -1;
+			}
+			final Integer code = mCodes.get(username);
+			if (code != null) {
+				return code;
+			}
+			final int added = mCodes.size();
+			if (added == mUsernames.length) {
+				mUsernames = Arrays.copyOf(mUsernames, added * 2);
+			}
+			mUsernames[added] = username;
+			mCodes.put(username, added);
+			return added;
+		}
+	}
+
+	/**
+	 * Serialization version.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Id column.
+	 */
+	private final String[] mIds;
+	/**
+	 * Creation time column.
+	 */
+	private final long[] mCreatedTimes;
+	/**
+	 * Like count column.
+	 */
+	private final int[] mLikeCounts;
+	/**
+	 * User name code column.
+	 */
+	private final int[] mUserCodes;
+	/**
+	 * User names by code.
+	 */
+	private final String[] mUsernames;
+	/**
+	 * Next page to fetch.
+	 */
+	private final String mNextPageUrl;
+
+	/**
+	 * @param ids
+	 *            Id column.
+	 * @param createdTimes
+	 *            Creation time column.
+	 * @param likeCounts
+	 *            Like count column.
+	 * @param userCodes
+	 *            User name code column.
+	 * @param usernames
+	 *            User names by code.
+	 * @param nextPageUrl
+	 *            Next page to fetch.
+	 */
+	private MediaPostBatch(final String[] ids, final long[] createdTimes,
+			final int[] likeCounts, final int[] userCodes,
+			final String[] usernames, final String nextPageUrl) {
+		mIds = ids;
+		mCreatedTimes = createdTimes;
+		mLikeCounts = likeCounts;
+		mUserCodes = userCodes;
+		mUsernames = usernames;
+		mNextPageUrl = nextPageUrl;
+	}
+
+	/**
+	 * Fetches up to {@code maxPages} pages of media posts into a single batch.
+	 * 
+	 * @param client
+	 *            The client to fetch with.
+	 * @param endPoint
+	 *            The end point of the first page, for example
+	 *            "tags/snow/media/recent", or {@link #getNextPageUrl()} of an
+	 *            earlier batch.
+	 * @param maxPages
+	 *            Maximum number of pages to fetch, at least 1.
+	 * @param parameters
+	 *            URL parameters to include in the first request.
+	 * @return The posts of all fetched pages.
+	 */
+	public static MediaPostBatch fetch(final InstagramClient client,
+			final String endPoint, final int maxPages,
+			final Parameter... parameters) {
+		if (maxPages < 1) {
+			throw new IllegalArgumentException(
+					"At least one page must be fetched, not " + maxPages);
+		}
+		final Builder builder = new Builder();
+		InstagramCollection<MediaPost> page = client.visitCollection(endPoint,
+				builder.getReusable(), PROJECTION, builder, parameters);
+		for (int fetched = 1; fetched < maxPages && page.hasNext(); fetched++) {
+			page = page.visitNextPage(builder.getReusable(), PROJECTION,
+					builder);
+		}
+		return builder.setNextPageUrl(page.getNextPageUrl()).build();
+	}
+
+	/**
+	 * @return Number of rows.
+	 */
+	public int size() {
+		return mIds.length;
+	}
+
+	/**
+	 * @return The id of every row.
+	 */
+	public String[] getIds() {
+		return mIds;
+	}
+
+	/**
+	 * @return The creation time of every row, in seconds since the epoch.
+	 */
+	public long[] getCreatedTimes() {
+		return mCreatedTimes;
+	}
+
+	/**
+	 * @return The like count of every row.
+	 */
+	public int[] getLikeCounts() {
+		return mLikeCounts;
+	}
+
+	/**
+	 * @return The user name code of every row, an index into
+	 *         {@link #getUsernames()} or {@code -1} when the post has no user.
+	 */
+	public int[] getUserCodes() {
+		return mUserCodes;
+	}
+
+	/**
+	 * @return The distinct user names, indexed by code.
+	 */
+	public String[] getUsernames() {
+		return mUsernames;
+	}
+
+	/**
+	 * @param row
+	 *            A row index.
+	 * @return The user name of {@code row}, {@code null} if the post has no
+	 *         user.
+	 */
+	public String getUsername(final int row) {
+		final int code = mUserCodes[row];
+		return code < 0 ? null : mUsernames[code];
+	}
+
+	/**
+	 * @return The page after the last one fetched into this batch,
+	 *         {@code null} if there is none.
+	 */
+	public String getNextPageUrl() {
+		return mNextPageUrl;
+	}
+}
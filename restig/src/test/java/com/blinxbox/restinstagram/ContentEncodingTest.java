@@ -0,0 +1,121 @@
+/**
+ * 
+ */
+package com.blinxbox.restinstagram;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Test;
+
+/**
+ * @author Efi MK
+ * 
+ */
+public class ContentEncodingTest {
+	/**
+	 * Body used by the tests.
+	 */
+	private static final String BODY = "{\"data\":[{\"id\":\"1\"},{\"id\":\"2\"},{\"id\":\"3\"}]}";
+
+	/**
+	 * Is a gzip body decompressed and are both sizes reported on close?
+	 * 
+	 * @throws IOException
+	 *             - Ignore.
+	 */
+	@Test
+	public void decode_Gzip_DecompressedAndReported() throws IOException {
+		final byte[] compressed = compress("gzip");
+		final TransferStats stats = new TransferStats();
+
+		final String body = read(ContentEncoding.decode(
+				new ByteArrayInputStream(compressed), "GZIP", "url", stats));
+
+		assertEquals(BODY, body);
+		assertEquals(1, stats.getResponses());
+		assertEquals(compressed.length, stats.getWireBytes());
+		assertEquals(BODY.length(), stats.getDecodedBytes());
+	}
+
+	/**
+	 * Are zlib wrapped and raw deflate bodies both decompressed?
+	 * 
+	 * @throws IOException
+	 *             - Ignore.
+	 */
+	@Test
+	public void decode_ZlibAndRawDeflate_Decompressed() throws IOException {
+		final byte[] zlib = compress("zlib");
+		final byte[] raw = compress("raw");
+
+		assertEquals(BODY, read(ContentEncoding.decode(
+				new ByteArrayInputStream(zlib), "deflate", "url", null)));
+		assertEquals(BODY, read(ContentEncoding.decode(
+				new ByteArrayInputStream(raw), "deflate", "url", null)));
+	}
+
+	/**
+	 * Is an empty body with a gzip encoding, e.g. of a {@code 304}, read as
+	 * empty instead of failing on the missing header?
+	 * 
+	 * @throws IOException
+	 *             - Ignore.
+	 */
+	@Test
+	public void decode_EmptyGzip_Empty() throws IOException {
+		assertEquals("", read(ContentEncoding.decode(new ByteArrayInputStream(
+				new byte[0]), "gzip", "url", null)));
+	}
+
+	/**
+	 * Compresses {@link #BODY}.
+	 * 
+	 * @param format
+	 *            {@code gzip}, {@code zlib} or {@code raw} deflate.
+	 * @return The compressed body.
+	 * @throws IOException
+	 *             - Ignore.
+	 */
+	private static byte[] compress(final String format) throws IOException {
+		final ByteArrayOutputStream target = new ByteArrayOutputStream();
+		final OutputStream out;
+		if ("gzip".equals(format)) {
+			out = new GZIPOutputStream(target);
+		} else {
+			out = new DeflaterOutputStream(target, new Deflater(
+					Deflater.DEFAULT_COMPRESSION, "raw".equals(format)));
+		}
+		out.write(BODY.getBytes("UTF-8"));
+		out.close();
+		return target.toByteArray();
+	}
+
+	/**
+	 * Reads and closes a stream.
+	 * 
+	 * @param in
+	 *            The stream.
+	 * @return Its content.
+	 * @throws IOException
+	 *             - Ignore.
+	 */
+	private static String read(final InputStream in) throws IOException {
+		final ByteArrayOutputStream content = new ByteArrayOutputStream();
+		final byte[] buffer = new byte[16];
+		int read;
+		while ((read = in.read(buffer)) != -1) {
+			content.write(buffer, 0, read);
+		}
+		in.close();
+		return content.toString("UTF-8");
+	}
+}
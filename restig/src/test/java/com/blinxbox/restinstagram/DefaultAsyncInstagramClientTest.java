@@ -0,0 +1,230 @@
+/**
+ * 
+ */
+package com.blinxbox.restinstagram;
+
+import static java.net.HttpURLConnection.HTTP_INTERNAL_ERROR;
+import static java.net.HttpURLConnection.HTTP_OK;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.blinxbox.restinstagram.exception.InstagramException;
+import com.blinxbox.restinstagram.exception.InstagramNetworkException;
+import com.blinxbox.restinstagram.exception.InstagramRateLimitException;
+import com.blinxbox.restinstagram.types.MediaPost;
+
+/**
+ * @author Efi MK
+ * 
+ */
+public class DefaultAsyncInstagramClientTest {
+	/**
+	 * Runs the requests.
+	 */
+	private ExecutorService mIoExecutor;
+
+	/**
+	 * Runs the mapping.
+	 */
+	private ExecutorService mMappingExecutor;
+
+	/**
+	 * Number of tasks handed to the mapping executor.
+	 */
+	private final AtomicInteger mMappingTasks = new AtomicInteger();
+
+	/**
+	 * Creates the executors.
+	 */
+	@Before
+	public void setUp() {
+		mIoExecutor = Executors.newSingleThreadExecutor();
+		mMappingExecutor = Executors.newSingleThreadExecutor();
+	}
+
+	/**
+	 * Stops the executors.
+	 */
+	@After
+	public void tearDown() {
+		mIoExecutor.shutdown();
+		mMappingExecutor.shutdown();
+	}
+
+	/**
+	 * Are objects and collections mapped on the mapping executor?
+	 * 
+	 * @throws Exception
+	 *             - Ignore.
+	 */
+	@Test
+	public void fetch_ValidResponses_MappedOnMappingExecutor()
+			throws Exception {
+		final StubWebRequestor requestor = new StubWebRequestor(HTTP_OK,
+				"{\"meta\":{\"code\":200},\"pagination\":{\"next_url\":\"https://api.instagram.com/v1/media?max_id=2\"},"
+						+ "\"data\":[{\"id\":\"1\"},{\"id\":\"2\"}]}");
+		final AsyncInstagramClient client = client(requestor);
+
+		final InstagramCollection<MediaPost> posts = client.fetchCollection(
+				"tags/snow/media/recent", MediaPost.class).get();
+		assertEquals(2, posts.getData().size());
+		assertEquals("2", posts.getData().get(1).getId());
+		assertEquals("https://api.instagram.com/v1/media?max_id=2",
+				posts.getNextPageUrl());
+		assertEquals(
+				"https://api.instagram.com/v1/tags/snow/media/recent?access_token=Access",
+				requestor.urls.get(0));
+
+		final StubWebRequestor objectRequestor = new StubWebRequestor(
+				HTTP_OK,
+				"{\"meta\":{\"code\":200},\"data\":{\"id\":\"1\",\"link\":\"http://instagr.am/p/1/\"}}");
+		final MediaPost post = client(objectRequestor).fetchObject("media/1",
+				MediaPost.class, Projection.of("id")).get();
+		assertEquals("1", post.getId());
+		assertEquals(null, post.getLink());
+		assertEquals(2, mMappingTasks.get());
+	}
+
+	/**
+	 * Do error responses complete the future exceptionally, as the blocking
+	 * client would throw?
+	 * 
+	 * @throws InterruptedException
+	 *             - Ignore.
+	 */
+	@Test
+	public void fetchObject_ErrorResponses_CompletedExceptionally()
+			throws InterruptedException {
+		try {
+			client(
+					new StubWebRequestor(HTTP_OK,
+							"{\"meta\":{\"error_type\":\"OAuthException\",\"code\":400,\"error_message\":\"No token\"}}"))
+					.fetchObject("media/1", MediaPost.class).get();
+			fail();
+		} catch (final ExecutionException e) {
+			assertTrue(e.getCause() instanceof InstagramException);
+		}
+		try {
+			client(new StubWebRequestor(HTTP_INTERNAL_ERROR, "")).publish(
+					"media/1/likes").get();
+			fail();
+		} catch (final ExecutionException e) {
+			assertEquals(Integer.valueOf(HTTP_INTERNAL_ERROR),
+					((InstagramNetworkException) e.getCause())
+							.getHttpStatusCode());
+		}
+	}
+
+	/**
+	 * Do fetches and publishes take a token of the rate limiter, and is a
+	 * request without one failed instead of sent?
+	 * 
+	 * @throws Exception
+	 *             - Ignore.
+	 */
+	@Test
+	public void fetchAndPublish_RateLimiter_TokensTaken() throws Exception {
+		final StubWebRequestor requestor = new StubWebRequestor(HTTP_OK,
+				"{\"meta\":{\"code\":200},\"data\":{\"id\":\"1\"}}");
+		final DefaultInstagramClient blockingClient = new DefaultInstagramClient(
+				"Client", "Access", requestor, new DefaultJsonMapper());
+		final RateLimiter limiter = new RateLimiter(2, 0, 1, TimeUnit.HOURS);
+		blockingClient.setRateLimiter(limiter, false);
+		final AsyncInstagramClient client = new DefaultAsyncInstagramClient(
+				blockingClient, mIoExecutor, mMappingExecutor);
+
+		assertEquals("1", client.fetchObject("media/1", MediaPost.class).get()
+				.getId());
+		client.publish("media/1/likes").get();
+		assertEquals(0, limiter.available("Access"));
+		try {
+			client.fetchObject("media/1", MediaPost.class).get();
+			fail();
+		} catch (final ExecutionException e) {
+			assertTrue(e.getCause() instanceof InstagramRateLimitException);
+		}
+		assertEquals(2, requestor.urls.size());
+	}
+
+	/**
+	 * With a blocking limiter, is a request without a due token sent later
+	 * by the scheduler, leaving the mapping executor free, and failed at
+	 * once without a scheduler?
+	 * 
+	 * @throws Exception
+	 *             - Ignore.
+	 */
+	@Test
+	public void fetchObject_BlockingRateLimiter_DelayedNotBlocked()
+			throws Exception {
+		final StubWebRequestor requestor = new StubWebRequestor(HTTP_OK,
+				"{\"meta\":{\"code\":200},\"data\":{\"id\":\"1\"}}");
+		final DefaultInstagramClient blockingClient = new DefaultInstagramClient(
+				"Client", "Access", requestor, new DefaultJsonMapper());
+		blockingClient.setRateLimiter(new RateLimiter(1, 0, 500,
+				TimeUnit.MILLISECONDS), true);
+		final DefaultAsyncInstagramClient client = new DefaultAsyncInstagramClient(
+				blockingClient, mIoExecutor, mMappingExecutor);
+		final ScheduledExecutorService scheduler = Executors
+				.newSingleThreadScheduledExecutor();
+		client.setRateLimitScheduler(scheduler);
+
+		try {
+			client.fetchObject("media/1", MediaPost.class).get();
+			final Future<MediaPost> delayed = client.fetchObject("media/1",
+					MediaPost.class);
+			mMappingExecutor.submit(new Runnable() {
+				@Override
+				public void run() {
+					// Runs while the request waits for its token.
+				}
+			}).get(250, TimeUnit.MILLISECONDS);
+			assertFalse(delayed.isDone());
+			assertEquals("1", delayed.get().getId());
+			assertEquals(2, requestor.urls.size());
+
+			client.setRateLimitScheduler(null);
+			try {
+				client.fetchObject("media/1", MediaPost.class).get();
+				fail();
+			} catch (final ExecutionException e) {
+				assertTrue(e.getCause() instanceof InstagramRateLimitException);
+			}
+			assertEquals(2, requestor.urls.size());
+		} finally {
+			scheduler.shutdown();
+		}
+	}
+
+	/**
+	 * @param requestor
+	 *            Answers the requests.
+	 * @return An asynchronous client whose mapping tasks are counted.
+	 */
+	private AsyncInstagramClient client(final StubWebRequestor requestor) {
+		return new DefaultAsyncInstagramClient(new DefaultInstagramClient(
+				"Client", "Access", requestor, new DefaultJsonMapper()),
+				mIoExecutor, new Executor() {
+					@Override
+					public void execute(final Runnable command) {
+						mMappingTasks.incrementAndGet();
+						mMappingExecutor.execute(command);
+					}
+				});
+	}
+}
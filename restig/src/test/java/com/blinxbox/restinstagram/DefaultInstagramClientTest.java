@@ -3,26 +3,55 @@
  */
 package com.blinxbox.restinstagram;
 
+import static java.net.HttpURLConnection.HTTP_INTERNAL_ERROR;
+import static java.net.HttpURLConnection.HTTP_NOT_MODIFIED;
 import static java.net.HttpURLConnection.HTTP_OK;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.anyString;
-import static org.mockito.Matchers.contains;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 
 import com.blinxbox.restinstagram.DefaultInstagramClient.Requestor;
+import com.blinxbox.restinstagram.StreamingWebRequestor.StreamedResponse;
+import com.blinxbox.restinstagram.exception.InstagramApiException;
 import com.blinxbox.restinstagram.exception.InstagramException;
 import com.blinxbox.restinstagram.exception.InstagramNetworkException;
+import com.blinxbox.restinstagram.exception.InstagramRateLimitException;
 import com.blinxbox.restinstagram.types.MediaPost;
+import com.blinxbox.restinstagram.types.MediaPostBatch;
 import com.restfb.WebRequestor;
 import com.restfb.WebRequestor.Response;
+import com.restfb.json.JsonObject;
 
 /**
  * @author Efi MK
@@ -116,9 +145,516 @@ public class DefaultInstagramClientTest {
 		client.fetchObject("endpoint", MediaPost.class);
 
 		final Class<MediaPost> myClass = MediaPost.class;
-		verify(mJsonMapper).toJavaObject(
-				contains("link\":\"http://instagr.am/p/JC3LhCRmYY/"),
-				eq(myClass));
+		final ArgumentCaptor<JsonObject> data = ArgumentCaptor
+				.forClass(JsonObject.class);
+		verify(mJsonMapper).toJavaObject(data.capture(), eq(myClass));
+		assertEquals("http://instagr.am/p/JC3LhCRmYY/",
+				data.getValue().getString("link"));
+	}
+
+	/**
+	 * Is the data of a streamed response mapped straight from the stream?
+	 */
+	@Test
+	public void fetchObject_StreamingRequestor_DataMapped() {
+		final StubWebRequestor requestor = new StubWebRequestor(HTTP_OK,
+				OBJECT_FETCH);
+		final DefaultInstagramClient client = new DefaultInstagramClient(
+				"Client", "Access", requestor, new DefaultJsonMapper());
+
+		final MediaPost post = client.fetchObject("media/1", MediaPost.class);
+
+		assertEquals("http://instagr.am/p/JC3LhCRmYY/", post.getLink());
+		assertEquals(1, requestor.closed);
+		assertEquals(DefaultInstagramClient.INSTAGRAM_GRAPH_ENDPOINT_URL
+				+ "/media/1?access_token=Access", requestor.urls.get(0));
+	}
+
+	/**
+	 * Are data and paging of a streamed response read in any member order?
+	 */
+	@Test
+	public void fetchCollection_StreamingRequestor_DataAndPagingRead() {
+		final String post = OBJECT_FETCH.substring(
+				OBJECT_FETCH.indexOf("\"data\":") + 7,
+				OBJECT_FETCH.length() - 1);
+		final StubWebRequestor requestor = new StubWebRequestor(HTTP_OK,
+				"{\"pagination\":{\"next_url\":\"http://next\",\"next_max_id\":\"1\"},\"meta\":{\"code\":200},\"data\":["
+						+ post + "," + post + "]}");
+		final DefaultInstagramClient client = new DefaultInstagramClient(
+				"Client", "Access", requestor, new DefaultJsonMapper());
+
+		final InstagramCollection<MediaPost> posts = client.fetchCollection(
+				"tags/snow/media/recent", MediaPost.class);
+
+		assertEquals(2, posts.getData().size());
+		assertEquals("#snow", posts.getData().get(1).getCaption().getText());
+		assertEquals("http://next", posts.getNextPageUrl());
+	}
+
+	/**
+	 * With parallel mapping on, is the data of a streamed page split and
+	 * mapped in the pool?
+	 */
+	@Test
+	public void fetchCollection_StreamingParallelMapping_MappedInPool() {
+		final String post = OBJECT_FETCH.substring(
+				OBJECT_FETCH.indexOf("\"data\":") + 7,
+				OBJECT_FETCH.length() - 1);
+		final StubWebRequestor requestor = new StubWebRequestor(HTTP_OK,
+				"{\"meta\":{\"code\":200},\"data\":[" + post + "," + post
+						+ "," + post + "]}");
+		final List<Thread> threads = Collections
+				.synchronizedList(new ArrayList<Thread>());
+		final DefaultInstagramClient client = new DefaultInstagramClient(
+				"Client", "Access", requestor, new DefaultJsonMapper() {
+					@Override
+					public <T> T toJavaObject(final JsonObject jsonObject,
+							final Class<T> type) {
+						threads.add(Thread.currentThread());
+						return super.toJavaObject(jsonObject, type);
+					}
+				});
+		final ForkJoinPool pool = new ForkJoinPool(2);
+		client.setParallelMapping(pool, 1);
+
+		try {
+			final InstagramCollection<MediaPost> posts = client
+					.fetchCollection("tags/snow/media/recent", MediaPost.class);
+
+			assertEquals(3, posts.getData().size());
+			assertEquals("#snow", posts.getData().get(2).getCaption()
+					.getText());
+			assertEquals(3, threads.size());
+			for (final Thread thread : threads) {
+				assertTrue(thread instanceof ForkJoinWorkerThread);
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Are only the projected fields of a streamed collection mapped?
+	 */
+	@Test
+	public void fetchCollection_Projection_OnlySelectedFieldsMapped() {
+		final String post = OBJECT_FETCH.substring(
+				OBJECT_FETCH.indexOf("\"data\":") + 7,
+				OBJECT_FETCH.length() - 1);
+		final StubWebRequestor requestor = new StubWebRequestor(HTTP_OK,
+				"{\"meta\":{\"code\":200},\"data\":[" + post + "]}");
+		final DefaultInstagramClient client = new DefaultInstagramClient(
+				"Client", "Access", requestor, new DefaultJsonMapper());
+
+		final MediaPost mapped = client.fetchCollection(
+				"tags/snow/media/recent", MediaPost.class,
+				Projection.of("id", "images.thumbnail.url")).getData().get(0);
+
+		assertNotNull(mapped.getId());
+		assertNotNull(mapped.getImages().getThumbnail().getUrl());
+		assertNull(mapped.getImages().getLowResolution());
+		assertNull(mapped.getUser());
+		assertNull(mapped.getLink());
+	}
+
+	/**
+	 * Are streamed elements handed to a visitor in one reused instance, and
+	 * is the next page URL requested as it is?
+	 */
+	@Test
+	public void visitCollection_StreamingRequestor_ElementsVisitedInPlace() {
+		final String post = OBJECT_FETCH.substring(
+				OBJECT_FETCH.indexOf("\"data\":") + 7,
+				OBJECT_FETCH.length() - 1);
+		final StubWebRequestor requestor = new StubWebRequestor(HTTP_OK,
+				"{\"pagination\":{\"next_url\":\"https://api.instagram.com/v1/tags/snow/media/recent?access_token=Access&max_tag_id=1\"},\"data\":["
+						+ post + "," + post + "," + post + "]}");
+		final DefaultInstagramClient client = new DefaultInstagramClient(
+				"Client", "Access", requestor, new DefaultJsonMapper());
+		final MediaPost reusable = new MediaPost();
+		final List<MediaPost> visited = new ArrayList<MediaPost>();
+		final InstagramCollection.Visitor<MediaPost> visitor = new InstagramCollection.Visitor<MediaPost>() {
+			@Override
+			public boolean visit(final MediaPost element) {
+				visited.add(element);
+				return visited.size() % 3 != 2;
+			}
+		};
+
+		final InstagramCollection<MediaPost> page = client.visitCollection(
+				"tags/snow/media/recent", reusable, Projection.of("id"),
+				visitor);
+		assertEquals(2, visited.size());
+		assertSame(reusable, visited.get(1));
+		assertNotNull(reusable.getId());
+		assertNull(reusable.getLink());
+		assertTrue(page.getData().isEmpty());
+
+		assertNotNull(page.visitNextPage(reusable, null, visitor));
+		assertEquals(
+				"https://api.instagram.com/v1/tags/snow/media/recent?access_token=Access&max_tag_id=1",
+				requestor.urls.get(1));
+		assertEquals(5, visited.size());
+		assertNotNull(reusable.getLink());
+	}
+
+	/**
+	 * Are pages of posts decoded into a single columnar batch?
+	 */
+	@Test
+	public void fetchMediaPostBatch_TwoPages_ColumnsFilled() {
+		final String post = OBJECT_FETCH.substring(
+				OBJECT_FETCH.indexOf("\"data\":") + 7,
+				OBJECT_FETCH.length() - 1);
+		final String nextUrl = "https://api.instagram.com/v1/tags/snow/media/recent?access_token=Access&max_tag_id=1";
+		final StubWebRequestor requestor = new StubWebRequestor(HTTP_OK,
+				"{\"pagination\":{\"next_url\":\"" + nextUrl
+						+ "\"},\"data\":[" + post + "," + post + "," + post
+						+ "]}");
+		final DefaultInstagramClient client = new DefaultInstagramClient(
+				"Client", "Access", requestor, new DefaultJsonMapper());
+		final MediaPost expected = new DefaultJsonMapper().toJavaObject(
+				post, MediaPost.class);
+
+		final MediaPostBatch batch = MediaPostBatch.fetch(client,
+				"tags/snow/media/recent", 2);
+		assertEquals(2, requestor.urls.size());
+		assertEquals(6, batch.size());
+		assertEquals(1, batch.getUsernames().length);
+		assertEquals(expected.getUser().getUserName(), batch.getUsername(5));
+		assertEquals(expected.getId(), batch.getIds()[5]);
+		assertEquals(expected.getLikes().getCount(),
+				batch.getLikeCounts()[0]);
+		assertEquals(1333643413L, batch.getCreatedTimes()[3]);
+		assertEquals(nextUrl, batch.getNextPageUrl());
+	}
+
+	/**
+	 * Are bulk fetches capped, returned in order, and do failures come back
+	 * as values?
+	 */
+	@Test
+	public void fetchObjects_OneFailing_ResultsInOrder() {
+		final AtomicInteger running = new AtomicInteger();
+		final AtomicInteger maxRunning = new AtomicInteger();
+		final StubWebRequestor requestor = new StubWebRequestor(HTTP_OK, "") {
+			@Override
+			public StreamedResponse executeGetStream(final String url)
+					throws IOException {
+				final int now = running.incrementAndGet();
+				synchronized (maxRunning) {
+					maxRunning.set(Math.max(maxRunning.get(), now));
+				}
+				try {
+					Thread.sleep(10);
+				} catch (final InterruptedException e) {
+					throw new InterruptedIOException();
+				} finally {
+					running.decrementAndGet();
+				}
+				final String id = url.substring(url.indexOf("media/") + 6,
+						url.indexOf('?'));
+				if ("3".equals(id)) {
+					throw new IOException("Connection reset");
+				}
+				return new StreamedResponse(HTTP_OK, new ByteArrayInputStream(
+						("{\"meta\":{\"code\":200},\"data\":{\"id\":\"" + id + "\"}}")
+								.getBytes("UTF-8")));
+			}
+		};
+		final DefaultInstagramClient client = new DefaultInstagramClient(
+				"Client", "Access", requestor, new DefaultJsonMapper());
+		final List<String> endPoints = new ArrayList<String>();
+		for (int i = 0; i < 10; i++) {
+			endPoints.add("media/" + i);
+		}
+
+		final List<FetchResult<MediaPost>> results = client.fetchObjects(
+				endPoints, MediaPost.class, 3);
+		assertEquals(10, results.size());
+		for (int i = 0; i < 10; i++) {
+			assertEquals(endPoints.get(i), results.get(i).getEndPoint());
+			if (i == 3) {
+				assertTrue(results.get(i).getFailure() instanceof InstagramNetworkException);
+			} else {
+				assertEquals(String.valueOf(i), results.get(i).getValue()
+						.getId());
+			}
+		}
+		assertTrue(maxRunning.get() <= 3);
+	}
+
+	/**
+	 * Is a repeated fetch sent with the validators of the first, and is the
+	 * earlier result returned when it is answered with {@code 304}?
+	 */
+	@Test
+	public void fetchObject_NotModified_EarlierResultReturned() {
+		final List<Validators> sent = new ArrayList<Validators>();
+		final Validators validators = Validators.of("\"v1\"", null);
+		class ConditionalStub extends StubWebRequestor implements
+				ConditionalWebRequestor {
+			ConditionalStub() {
+				super(HTTP_OK,
+						"{\"meta\":{\"code\":200},\"data\":{\"id\":\"7\"}}");
+			}
+
+			@Override
+			public StreamedResponse executeGetStream(final String url,
+					final Validators received) throws IOException {
+				sent.add(received);
+				if (validators.equals(received)) {
+					return new StreamedResponse(HTTP_NOT_MODIFIED,
+							new ByteArrayInputStream(new byte[0]));
+				}
+				return new StreamedResponse(HTTP_OK, executeGetStream(url)
+						.getBody(), validators);
+			}
+		}
+		final DefaultInstagramClient client = new DefaultInstagramClient(
+				"Client", "Access", new ConditionalStub(),
+				new DefaultJsonMapper());
+		client.setConditionalRequests(10);
+
+		final MediaPost first = client.fetchObject("media/7", MediaPost.class);
+		final MediaPost second = client.fetchObject("media/7", MediaPost.class);
+		final MediaPost projected = client.fetchObject("media/7",
+				MediaPost.class, Projection.of("id"));
+
+		assertSame(first, second);
+		assertEquals("7", projected.getId());
+		assertEquals(Arrays.asList(null, validators, null), sent);
+	}
+
+	/**
+	 * Are repeated fetches answered from the result cache, keyed without
+	 * regard to the order of the parameters?
+	 */
+	@Test
+	public void fetchObject_ResultCache_SecondFetchCached() {
+		final StubWebRequestor requestor = new StubWebRequestor(HTTP_OK,
+				"{\"meta\":{\"code\":200},\"data\":{\"id\":\"7\"}}");
+		final DefaultInstagramClient client = new DefaultInstagramClient(
+				"Client", "Access", requestor, new DefaultJsonMapper());
+		final DefaultResultCache cache = new DefaultResultCache(100, 100000,
+				60000);
+		client.setResultCache(cache);
+
+		final MediaPost first = client.fetchObject("media/7", MediaPost.class,
+				new Parameter("a", 1), new Parameter("b", 2));
+		final MediaPost second = client.fetchObject("/media/7",
+				MediaPost.class, new Parameter("b", 2), new Parameter("a", 1));
+		final MediaPost projected = client.fetchObject("media/7",
+				MediaPost.class, Projection.of("id"), new Parameter("a", 1),
+				new Parameter("b", 2));
+
+		assertSame(first, second);
+		assertEquals("7", projected.getId());
+		assertEquals(2, requestor.urls.size());
+		assertEquals(2, cache.size());
+	}
+
+	/**
+	 * Is a stored body mapped by another client of the same token without a
+	 * request, but not handed to a client of another token?
+	 */
+	@Test
+	public void fetchObject_ResponseStore_StoredBodyMapped() {
+		final Map<String, byte[]> bodies = new HashMap<String, byte[]>();
+		final ResponseStore store = new ResponseStore() {
+			@Override
+			public synchronized byte[] get(final String key) {
+				return bodies.get(key);
+			}
+
+			@Override
+			public synchronized void put(final String key,
+					final String endPoint, final byte[] body) {
+				bodies.put(key, body);
+			}
+
+			@Override
+			public synchronized void remove(final String key) {
+				bodies.remove(key);
+			}
+		};
+		final StubWebRequestor requestor = new StubWebRequestor(HTTP_OK,
+				"{\"meta\":{\"code\":200},\"data\":{\"id\":\"7\"}}");
+		final DefaultInstagramClient first = new DefaultInstagramClient(
+				"Client", "Access", requestor, new DefaultJsonMapper());
+		first.setResponseStore(store);
+		final DefaultInstagramClient second = new DefaultInstagramClient(
+				"Client", "Access", requestor, new DefaultJsonMapper());
+		second.setResponseStore(store);
+		final DefaultInstagramClient other = new DefaultInstagramClient(
+				"Client", "Other", requestor, new DefaultJsonMapper());
+		other.setResponseStore(store);
+
+		first.fetchObject("media/7", MediaPost.class);
+		final MediaPost stored = second.fetchObject("media/7",
+				MediaPost.class);
+
+		assertEquals("7", stored.getId());
+		assertEquals(1, requestor.urls.size());
+		assertEquals(1, bodies.size());
+		final String key = bodies.keySet().iterator().next();
+		assertTrue(key.endsWith(" /media/7?"));
+		assertTrue(!key.contains("Access"));
+
+		other.fetchObject("media/7", MediaPost.class);
+		assertEquals(2, requestor.urls.size());
+		assertEquals(2, bodies.size());
+	}
+
+	/**
+	 * Is a fetch that failed with a server error retried?
+	 */
+	@Test
+	public void fetchObject_ServerError_Retried() {
+		final StubWebRequestor requestor = new StubWebRequestor(HTTP_OK,
+				"{\"meta\":{\"code\":200},\"data\":{\"id\":\"7\"}}") {
+			@Override
+			public StreamedResponse executeGetStream(final String url)
+					throws IOException {
+				if (urls.isEmpty()) {
+					urls.add(url);
+					return new StreamedResponse(503, new ByteArrayInputStream(
+							new byte[0]));
+				}
+				return super.executeGetStream(url);
+			}
+		};
+		final DefaultInstagramClient client = new DefaultInstagramClient(
+				"Client", "Access", requestor, new DefaultJsonMapper());
+		final RetryPolicy retryPolicy = new RetryPolicy(3, 0, 0,
+				TimeUnit.MILLISECONDS);
+		client.setRetryPolicy(retryPolicy);
+
+		assertEquals("7", client.fetchObject("media/7", MediaPost.class)
+				.getId());
+		assertEquals(2, requestor.urls.size());
+		assertEquals(1, retryPolicy.getRetries());
+	}
+
+	/**
+	 * Is the error in the body of a server error read, so an OAuth error is
+	 * not retried?
+	 */
+	@Test
+	public void fetchObject_ServerErrorWithOAuthMeta_NotRetried() {
+		final StubWebRequestor requestor = new StubWebRequestor(
+				HTTP_INTERNAL_ERROR,
+				"{\"meta\":{\"error_type\":\"OAuthAccessTokenException\",\"code\":500,\"error_message\":\"The access_token provided is invalid.\"}}");
+		final DefaultInstagramClient client = new DefaultInstagramClient(
+				"Client", "Access", requestor, new DefaultJsonMapper());
+		final RetryPolicy retryPolicy = new RetryPolicy(3, 0, 0,
+				TimeUnit.MILLISECONDS);
+		client.setRetryPolicy(retryPolicy);
+
+		try {
+			client.fetchObject("media/7", MediaPost.class);
+			fail();
+		} catch (final InstagramApiException e) {
+			assertEquals("OAuthAccessTokenException", e.getErrorType());
+			assertEquals(Integer.valueOf(HTTP_INTERNAL_ERROR),
+					e.getErrorCode());
+		}
+		assertEquals(1, requestor.urls.size());
+		assertEquals(0, retryPolicy.getRetries());
+	}
+
+	/**
+	 * Is a request rejected once the rate limit headers say it is used up?
+	 */
+	@Test
+	public void fetchObject_RateLimitUsedUp_Rejected() {
+		final StubWebRequestor requestor = new StubWebRequestor(HTTP_OK,
+				"{\"meta\":{\"code\":200},\"data\":{\"id\":\"7\"}}") {
+			@Override
+			public StreamedResponse executeGetStream(final String url)
+					throws IOException {
+				final StreamedResponse response = super.executeGetStream(url);
+				return new StreamedResponse(response.getStatusCode(),
+						response.getBody(), null, RateLimit.of("5000", "0"));
+			}
+		};
+		final DefaultInstagramClient client = new DefaultInstagramClient(
+				"Client", "Access", requestor, new DefaultJsonMapper());
+		client.setRateLimiter(new RateLimiter(), false);
+
+		client.fetchObject("media/7", MediaPost.class);
+		try {
+			client.fetchObject("media/7", MediaPost.class);
+			fail();
+		} catch (final InstagramRateLimitException e) {
+			// Expected.
+		}
+		assertEquals(1, requestor.urls.size());
+	}
+
+	/**
+	 * Do identical concurrent fetches share a single request and result?
+	 * 
+	 * @throws Exception
+	 *             - Ignore.
+	 */
+	@Test
+	public void fetchObject_ConcurrentIdentical_SingleRequest()
+			throws Exception {
+		final CountDownLatch release = new CountDownLatch(1);
+		final AtomicInteger requests = new AtomicInteger();
+		final StubWebRequestor requestor = new StubWebRequestor(HTTP_OK,
+				"{\"meta\":{\"code\":200},\"data\":{\"id\":\"7\"}}") {
+			@Override
+			public StreamedResponse executeGetStream(final String url)
+					throws IOException {
+				requests.incrementAndGet();
+				try {
+					release.await();
+				} catch (final InterruptedException e) {
+					throw new InterruptedIOException();
+				}
+				return super.executeGetStream(url);
+			}
+		};
+		final DefaultInstagramClient client = new DefaultInstagramClient(
+				"Client", "Access", requestor, new DefaultJsonMapper());
+		client.setRequestCoalescing(true);
+		final ExecutorService executor = Executors.newFixedThreadPool(5);
+		final List<Future<MediaPost>> results = new ArrayList<Future<MediaPost>>();
+		for (int i = 0; i < 5; i++) {
+			results.add(executor.submit(new Callable<MediaPost>() {
+				@Override
+				public MediaPost call() {
+					return client.fetchObject("media/7", MediaPost.class);
+				}
+			}));
+		}
+		while (client.getCoalescedRequests() < 4) {
+			Thread.sleep(5);
+		}
+		release.countDown();
+
+		final MediaPost first = results.get(0).get();
+		for (final Future<MediaPost> result : results) {
+			assertSame(first, result.get());
+		}
+		executor.shutdown();
+		assertEquals(1, requests.get());
+		assertEquals(4, client.getCoalescedRequests());
+	}
+
+	/**
+	 * Is an error in a streamed response reported?
+	 */
+	@Test(expected = InstagramException.class)
+	public void fetchObject_StreamingErrorResponse_ExceptionThrown() {
+		final StubWebRequestor requestor = new StubWebRequestor(HTTP_OK,
+				"{\"meta\":{\"error_type\":\"OAuthException\",\"code\":400,\"error_message\":\"No token\"},\"data\":{}}");
+		new DefaultInstagramClient("Client", "Access", requestor,
+				new DefaultJsonMapper()).fetchObject("media/1",
+				MediaPost.class);
 	}
 
 	/**
@@ -5,14 +5,28 @@ package com.blinxbox.restinstagram;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import junit.framework.Assert;
 
 import org.junit.Test;
 
+import com.blinxbox.restinstagram.DefaultJsonMapper.JsonMappingErrorHandler;
+import com.blinxbox.restinstagram.json.JsonReader;
+import com.blinxbox.restinstagram.json.JsonStreamReader;
+import com.blinxbox.restinstagram.json.JsonTreeReader;
+import com.blinxbox.restinstagram.json.StringPool;
 import com.blinxbox.restinstagram.types.MediaPost;
+import com.restfb.json.JsonObject;
+import com.restfb.util.ReflectionUtils.FieldWithAnnotation;
 
 /**
  * @author Efi MK
@@ -59,4 +73,556 @@ public class DefaultJsonMapperTest {
 		assertEquals(0, post.getLikes().getCount());
 	}
 
+	/**
+	 * Can we map a post straight from a parsed tree?
+	 */
+	@Test
+	public void toJavaObject_ParsedJsonPost_SameAsFromString() {
+		final DefaultJsonMapper jsonMapper = new DefaultJsonMapper();
+		final MediaPost post = jsonMapper.toJavaObject(new JsonObject(
+				POST_RESPONSE), MediaPost.class);
+		final MediaPost expected = jsonMapper.toJavaObject(POST_RESPONSE,
+				MediaPost.class);
+
+		assertEquals(expected.getId(), post.getId());
+		assertEquals(expected.getTags(), post.getTags());
+		assertEquals(expected.getUser().getUserName(), post.getUser()
+				.getUserName());
+		assertEquals(expected.getImages().getThumbnail().getUrl(), post
+				.getImages().getThumbnail().getUrl());
+	}
+
+	/**
+	 * Can we map a post straight from a UTF-8 byte stream?
+	 * 
+	 * @throws IOException
+	 *             - Ignore.
+	 */
+	@Test
+	public void toJavaObject_StreamedJsonPost_SameAsFromString()
+			throws IOException {
+		final DefaultJsonMapper jsonMapper = new DefaultJsonMapper();
+		final MediaPost post = jsonMapper.toJavaObject(new JsonStreamReader(
+				new ByteArrayInputStream(POST_RESPONSE.getBytes("UTF-8"))),
+				MediaPost.class);
+
+		assertEquals("http://instagr.am/p/JC3LhCRmYY/", post.getLink());
+		assertEquals(1, post.getTags().size());
+		assertEquals(612, post.getImages().getStandardResolution().getWidth());
+	}
+
+	/**
+	 * Are lazy fields kept unmapped until used, from streams and trees alike?
+	 * 
+	 * @throws Exception
+	 *             - Ignore.
+	 */
+	@Test
+	public void toJavaObject_DecodeLazily_SubtreesMappedOnFirstUse()
+			throws Exception {
+		final DefaultJsonMapper jsonMapper = new DefaultJsonMapper();
+		jsonMapper.setDecodeLazily(true);
+		final MediaPost expected = new DefaultJsonMapper().toJavaObject(
+				POST_RESPONSE, MediaPost.class);
+
+		for (final MediaPost post : Arrays.asList(jsonMapper.toJavaObject(
+				POST_RESPONSE, MediaPost.class), jsonMapper.toJavaObject(
+				new JsonObject(POST_RESPONSE), MediaPost.class))) {
+			assertEquals(expected.getId(), post.getId());
+			assertEquals(expected.getLikes().getCount(), post.getLikes()
+					.getCount());
+			Assert.assertFalse(lazy(jsonMapper, post, "user").isDecoded());
+			Assert.assertFalse(lazy(jsonMapper, post, "images").isDecoded());
+
+			assertEquals(expected.getUser().getUserName(), post.getUser()
+					.getUserName());
+			Assert.assertTrue(lazy(jsonMapper, post, "user").isDecoded());
+			assertSame(post.getUser(), post.getUser());
+			assertEquals(expected.getTags(), post.getTags());
+			assertEquals(expected.getCaption().getText(), post.getCaption()
+					.getText());
+			assertEquals(jsonMapper.toJson(expected), jsonMapper.toJson(post));
+		}
+	}
+
+	/**
+	 * Is a lazily mapped subtree decoded once when threads race for it?
+	 * 
+	 * @throws InterruptedException
+	 *             - Ignore.
+	 */
+	@Test
+	public void get_ConcurrentFirstUse_DecodedOnce()
+			throws InterruptedException {
+		final DefaultJsonMapper jsonMapper = new DefaultJsonMapper();
+		jsonMapper.setDecodeLazily(true);
+		final MediaPost post = jsonMapper.toJavaObject(POST_RESPONSE,
+				MediaPost.class);
+		final MediaPost.Images[] seen = new MediaPost.Images[8];
+		final Thread[] threads = new Thread[seen.length];
+		for (int i = 0; i < threads.length; i++) {
+			final int index = i;
+			threads[i] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					seen[index] = post.getImages();
+				}
+			});
+			threads[i].start();
+		}
+		for (final Thread thread : threads) {
+			thread.join();
+		}
+
+		for (final MediaPost.Images images : seen) {
+			assertSame(seen[0], images);
+		}
+		assertEquals(150, seen[0].getThumbnail().getWidth());
+	}
+
+	/**
+	 * Are members outside of a projection left unmapped, through generated
+	 * mappers, lazy fields and trees alike?
+	 */
+	@Test
+	public void toJavaObject_Projection_OnlySelectedFieldsMapped() {
+		final Projection projection = Projection.of("id", "likes.count",
+				"images.thumbnail.url", "user");
+		final DefaultJsonMapper lazyMapper = new DefaultJsonMapper();
+		lazyMapper.setDecodeLazily(true);
+
+		for (final MediaPost post : Arrays.asList(new DefaultJsonMapper()
+				.toJavaObject(POST_RESPONSE, MediaPost.class, projection),
+				lazyMapper.toJavaObject(POST_RESPONSE, MediaPost.class,
+						projection), new DefaultJsonMapper().toJavaObject(
+						new JsonTreeReader(new JsonObject(POST_RESPONSE)),
+						MediaPost.class, projection))) {
+			assertEquals("162935220482762264_33299504", post.getId());
+			assertEquals(0, post.getLikes().getCount());
+			assertEquals(
+					"http://distilleryimage8.s3.amazonaws.com/9ebeefb47f3c11e1abb01231381b65e3_5.jpg",
+					post.getImages().getThumbnail().getUrl());
+			assertEquals(0, post.getImages().getThumbnail().getWidth());
+			assertNull(post.getImages().getStandardResolution());
+			assertEquals("_antonio", post.getUser().getUserName());
+			assertEquals("33299504", post.getUser().getId());
+			assertNull(post.getLink());
+			assertNull(post.getTags());
+			assertEquals("", post.getCaption().getText());
+		}
+	}
+
+	/**
+	 * Is a reused post mapped into in place, nested objects included, and
+	 * left like a newly mapped one?
+	 * 
+	 * @throws IOException
+	 *             - Ignore.
+	 */
+	@Test
+	public void mapInto_ReusedPost_SameAsNewlyMapped() throws IOException {
+		final DefaultJsonMapper jsonMapper = new DefaultJsonMapper();
+		final String other = POST_RESPONSE.replace("\"_antonio\"",
+				"\"_maria\"").replace("\"link\":\"http://instagr.am/p/JC3LhCRmYY/\",",
+				"");
+		final JsonReader reader = new JsonStreamReader("[" + POST_RESPONSE
+				+ "," + other + ",{\"id\":\"1\",\"caption\":null}]");
+		final MediaPost post = new MediaPost();
+		reader.beginArray();
+
+		assertSame(post, jsonMapper.mapInto(reader, post, null));
+		final MediaPost.Images images = post.getImages();
+		final MediaPost.User user = post.getUser();
+		assertEquals("http://instagr.am/p/JC3LhCRmYY/", post.getLink());
+
+		assertSame(post, jsonMapper.mapInto(reader, post, null));
+		assertSame(images, post.getImages());
+		assertSame(user, post.getUser());
+		assertEquals("_maria", post.getUser().getUserName());
+		assertEquals(jsonMapper.toJson(jsonMapper.toJavaObject(other,
+				MediaPost.class)), jsonMapper.toJson(post));
+
+		jsonMapper.mapInto(reader, post, null);
+		assertEquals(jsonMapper.toJson(jsonMapper.toJavaObject(
+				"{\"id\":\"1\"}", MediaPost.class)), jsonMapper.toJson(post));
+	}
+
+	/**
+	 * Does resetting a missing nested field hand out a fresh initial value,
+	 * so mapping into it later leaves the initial value of the type intact?
+	 * 
+	 * @throws IOException
+	 *             - Ignore.
+	 */
+	@Test
+	public void mapInto_MissingNestedField_FreshDefault() throws IOException {
+		final DefaultJsonMapper jsonMapper = new DefaultJsonMapper();
+		final JsonReader reader = new JsonStreamReader(
+				"[{\"name\":\"a\"},{\"inner\":{\"value\":\"changed\"}},{\"name\":\"b\"}]");
+		final Holder holder = new Holder();
+		reader.beginArray();
+
+		jsonMapper.mapInto(reader, holder, null);
+		final Inner first = holder.mInner;
+		jsonMapper.mapInto(reader, holder, null);
+		assertSame(first, holder.mInner);
+		assertEquals("changed", holder.mInner.mValue);
+		jsonMapper.mapInto(reader, holder, null);
+
+		assertEquals("b", holder.mName);
+		assertEquals("initial", holder.mInner.mValue);
+	}
+
+	/**
+	 * Does a failing field reach the error handler and let mapping continue?
+	 */
+	@Test
+	public void toJavaObject_UnmappableField_HandlerConsulted() {
+		final List<Class<?>> failures = new ArrayList<Class<?>>();
+		final DefaultJsonMapper jsonMapper = new DefaultJsonMapper(
+				new JsonMappingErrorHandler() {
+					@Override
+					public boolean handleMappingError(
+							final String unmappableJson,
+							final Class<?> targetType, final Exception e) {
+						failures.add(targetType);
+						return true;
+					}
+				});
+
+		final MediaPost.Image image = jsonMapper.toJavaObject(
+				"{\"width\":\"wide\",\"extra\":{\"a\":[1]},\"url\":\"http://x\"}",
+				MediaPost.Image.class);
+
+		assertEquals(1, failures.size());
+		assertEquals(MediaPost.Image.class, failures.get(0));
+		assertEquals("http://x", image.getUrl());
+	}
+
+	/**
+	 * Does the error handler get the JSON that held a failing field, from
+	 * text and from a tree?
+	 */
+	@Test
+	public void toJavaObject_UnmappableField_HandlerGetsJson() {
+		final List<String> failures = new ArrayList<String>();
+		final DefaultJsonMapper jsonMapper = new DefaultJsonMapper(
+				new JsonMappingErrorHandler() {
+					@Override
+					public boolean handleMappingError(
+							final String unmappableJson,
+							final Class<?> targetType, final Exception e) {
+						failures.add(unmappableJson);
+						return true;
+					}
+				});
+		final String json = "{\"width\":\"wide\",\"url\":\"http://x\"}";
+
+		jsonMapper.toJavaObject(json, MediaPost.Image.class);
+		jsonMapper.toJavaObject(new JsonObject(json), MediaPost.Image.class);
+
+		assertEquals(2, failures.size());
+		assertEquals(json, failures.get(0));
+		assertEquals("wide", new JsonObject(failures.get(1)).getString("width"));
+	}
+
+	/**
+	 * Do subclasses that override the instance and field conversion hooks
+	 * still take part in mapping, generated mappers included?
+	 */
+	@Test
+	public void toJavaObject_OverriddenHooks_Used() {
+		final List<Class<?>> created = new ArrayList<Class<?>>();
+		final DefaultJsonMapper jsonMapper = new DefaultJsonMapper() {
+			@Override
+			protected <T> T createInstance(final Class<T> type) {
+				created.add(type);
+				return super.createInstance(type);
+			}
+
+			@Override
+			protected Object toJavaType(
+					final FieldWithAnnotation<Instagram> fieldWithAnnotation,
+					final JsonObject jsonObject, final String instagramFieldName) {
+				final Object value = super.toJavaType(fieldWithAnnotation,
+						jsonObject, instagramFieldName);
+				return value instanceof String ? ((String) value)
+						.toUpperCase() : value;
+			}
+		};
+
+		final MediaPost.Image image = jsonMapper.toJavaObject(
+				"{\"width\":306,\"url\":\"http://x\"}", MediaPost.Image.class);
+
+		assertEquals("HTTP://X", image.getUrl());
+		assertEquals(306, image.getWidth());
+		assertEquals(Arrays.<Class<?>> asList(MediaPost.Image.class), created);
+	}
+
+	/**
+	 * Does a serialized post map back to the same post?
+	 */
+	@Test
+	public void toJson_MappedPost_RoundTrips() {
+		final DefaultJsonMapper jsonMapper = new DefaultJsonMapper();
+		final MediaPost expected = jsonMapper.toJavaObject(POST_RESPONSE,
+				MediaPost.class);
+		final MediaPost post = jsonMapper.toJavaObject(
+				jsonMapper.toJson(expected), MediaPost.class);
+
+		assertEquals(expected.getId(), post.getId());
+		assertEquals(expected.getCreatedTime(), post.getCreatedTime());
+		assertEquals(expected.getTags(), post.getTags());
+		assertEquals(expected.getCaption().getText(), post.getCaption()
+				.getText());
+		assertEquals(expected.getUser().getFullName(), post.getUser()
+				.getFullName());
+		assertEquals(expected.getImages().getLowResolution().getHeight(),
+				post.getImages().getLowResolution().getHeight());
+	}
+
+	/**
+	 * Are null fields left out only when asked to?
+	 */
+	@Test
+	public void toJson_IgnoreNullValuedProperties_NullFieldsOmitted() {
+		final DefaultJsonMapper jsonMapper = new DefaultJsonMapper();
+		final MediaPost.Image image = jsonMapper.toJavaObject(
+				"{\"width\":5}", MediaPost.Image.class);
+
+		assertEquals("{\"width\":5,\"height\":0,\"url\":null}",
+				jsonMapper.toJson(image));
+		assertEquals("{\"width\":5,\"height\":0}",
+				jsonMapper.toJson(image, true));
+	}
+
+	/**
+	 * Is the output stream written as UTF-8?
+	 * 
+	 * @throws IOException
+	 *             - Ignore.
+	 */
+	@Test
+	public void toJson_OutputStream_Utf8Written() throws IOException {
+		final DefaultJsonMapper jsonMapper = new DefaultJsonMapper();
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		jsonMapper.toJson(Arrays.asList("caf\u00e9", null), false, out);
+
+		assertEquals("[\"caf\u00e9\",null]", out.toString("UTF-8"));
+	}
+
+	/**
+	 * Is the mapping plan of a type built once and reused afterwards?
+	 */
+	@Test
+	public void bindingFor_SameTypeTwice_SamePlanReturned() {
+		final DefaultJsonMapper jsonMapper = new DefaultJsonMapper();
+		jsonMapper.toJavaObject(POST_RESPONSE, MediaPost.class);
+
+		final TypeBinding<MediaPost.Image> binding = jsonMapper
+				.bindingFor(MediaPost.Image.class);
+		assertSame(binding, jsonMapper.bindingFor(MediaPost.Image.class));
+		assertEquals(3, binding.fields.size());
+	}
+
+	/**
+	 * Are annotated types mapped by their generated mapper?
+	 */
+	@Test
+	public void bindingFor_ProcessedType_GeneratedMapperUsed() {
+		final DefaultJsonMapper jsonMapper = new DefaultJsonMapper();
+
+		assertNotNull(jsonMapper.bindingFor(MediaPost.class).mapper);
+		assertNotNull(jsonMapper.bindingFor(MediaPost.Image.class).mapper);
+	}
+
+	/**
+	 * Are types that cannot be generated still mapped reflectively?
+	 */
+	@Test
+	public void toJavaObject_PrivateAnnotatedField_MappedReflectively() {
+		final DefaultJsonMapper jsonMapper = new DefaultJsonMapper();
+		final Secret secret = jsonMapper.toJavaObject(
+				"{\"name\":\"snow\",\"size\":3}", Secret.class);
+
+		assertNull(jsonMapper.bindingFor(Secret.class).mapper);
+		assertEquals("snow", secret.mName);
+	}
+
+	/**
+	 * Does a null primitive value leave a generated mapper in sync with the
+	 * input?
+	 */
+	@Test
+	public void toJavaObject_NullPrimitive_RemainingFieldsMapped() {
+		final DefaultJsonMapper jsonMapper = new DefaultJsonMapper(
+				new JsonMappingErrorHandler() {
+					@Override
+					public boolean handleMappingError(
+							final String unmappableJson,
+							final Class<?> targetType, final Exception e) {
+						return true;
+					}
+				});
+
+		final MediaPost.Image image = jsonMapper.toJavaObject(
+				"{\"width\":null,\"height\":306,\"url\":\"http://x\"}",
+				MediaPost.Image.class);
+
+		assertEquals(306, image.getHeight());
+		assertEquals("http://x", image.getUrl());
+	}
+
+	/**
+	 * Are primitive fields of reflectively mapped types written through
+	 * their typed setters?
+	 */
+	@Test
+	public void toJavaObject_ReflectivePrimitives_TypedSettersUsed() {
+		final DefaultJsonMapper jsonMapper = new DefaultJsonMapper();
+		final Counters counters = jsonMapper.toJavaObject(
+				"{\"count\":7,\"created_time\":\"1333643413\",\"liked\":true,\"ratio\":0.5}",
+				Counters.class);
+
+		final List<FieldBinding.Kind> kinds = new ArrayList<FieldBinding.Kind>();
+		for (final FieldBinding field : jsonMapper.bindingFor(Counters.class).fields) {
+			kinds.add(field.kind);
+		}
+		assertEquals(Arrays.asList(FieldBinding.Kind.INT,
+				FieldBinding.Kind.LONG, FieldBinding.Kind.BOOLEAN,
+				FieldBinding.Kind.DOUBLE), kinds);
+		assertEquals(7, counters.mCount);
+		assertEquals(1333643413L, counters.mCreatedTime);
+		assertEquals(true, counters.mLiked);
+		assertEquals(0.5, counters.mRatio, 0);
+	}
+
+	/**
+	 * Are element types of list fields resolved into the mapping plan?
+	 */
+	@Test
+	public void bindingFor_ListField_ElementTypeResolved() {
+		final DefaultJsonMapper jsonMapper = new DefaultJsonMapper();
+		for (final FieldBinding field : jsonMapper.bindingFor(MediaPost.class).fields) {
+			if ("tags".equals(field.jsonName)) {
+				assertEquals(String.class, field.elementType);
+				return;
+			}
+		}
+		Assert.fail("No binding for 'tags'");
+	}
+
+	/**
+	 * Do equal values of pooled fields share one instance, in generated and
+	 * reflective mappers alike?
+	 */
+	@Test
+	public void setStringPool_PooledFields_InstancesShared() {
+		final DefaultJsonMapper jsonMapper = new DefaultJsonMapper();
+		final StringPool pool = new StringPool(64);
+		jsonMapper.setStringPool(pool, MediaPost.User.class, "username");
+		jsonMapper.setStringPool(pool, MediaPost.class, "tags");
+		jsonMapper.setStringPool(pool, Secret.class);
+
+		final MediaPost first = jsonMapper.toJavaObject(POST_RESPONSE,
+				MediaPost.class);
+		final MediaPost second = jsonMapper.toJavaObject(POST_RESPONSE,
+				MediaPost.class);
+		final Secret secret = jsonMapper.toJavaObject(
+				"{\"name\":\"_antonio\"}", Secret.class);
+
+		assertSame(first.getUser().getUserName(), second.getUser()
+				.getUserName());
+		assertSame(first.getUser().getUserName(), secret.mName);
+		assertSame(first.getTags().get(0), second.getTags().get(0));
+		Assert.assertNotSame(first.getUser().getId(), second.getUser()
+				.getId());
+		assertEquals(3, pool.getHits());
+		assertEquals(2, pool.getMisses());
+	}
+
+	/**
+	 * @param jsonMapper
+	 *            The mapper that mapped {@code post}.
+	 * @param post
+	 *            A mapped post.
+	 * @param jsonName
+	 *            JSON attribute name of a lazy field.
+	 * @return The holder of the field.
+	 * @throws Exception
+	 *             If the field cannot be read.
+	 */
+	private static Lazy<?> lazy(final DefaultJsonMapper jsonMapper,
+			final MediaPost post, final String jsonName) throws Exception {
+		return (Lazy<?>) jsonMapper.bindingFor(MediaPost.class)
+				.field(jsonName).get(post);
+	}
+
+	/**
+	 * A type whose annotated field the generated code cannot reach.
+	 */
+	static class Secret {
+		/**
+		 * Mapped from 'name'.
+		 */
+		@Instagram("name")
+		private String mName;
+	}
+
+	/**
+	 * A type whose nested field has an initializer.
+	 */
+	static class Holder {
+		/**
+		 * Mapped from 'name'.
+		 */
+		@Instagram("name")
+		private String mName;
+
+		/**
+		 * Mapped from 'inner'.
+		 */
+		@Instagram("inner")
+		private Inner mInner = new Inner();
+	}
+
+	/**
+	 * The nested type of {@link Holder}.
+	 */
+	static class Inner {
+		/**
+		 * Mapped from 'value'.
+		 */
+		@Instagram("value")
+		private String mValue = "initial";
+	}
+
+	/**
+	 * A reflectively mapped type with primitive fields.
+	 */
+	static class Counters {
+		/**
+		 * Mapped from 'count'.
+		 */
+		@Instagram("count")
+		private int mCount;
+
+		/**
+		 * Mapped from 'created_time'.
+		 */
+		@Instagram("created_time")
+		private long mCreatedTime;
+
+		/**
+		 * Mapped from 'liked'.
+		 */
+		@Instagram("liked")
+		private boolean mLiked;
+
+		/**
+		 * Mapped from 'ratio'.
+		 */
+		@Instagram("ratio")
+		private double mRatio;
+	}
 }
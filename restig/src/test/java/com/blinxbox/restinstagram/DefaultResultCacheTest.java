@@ -0,0 +1,105 @@
+/**
+ * 
+ */
+package com.blinxbox.restinstagram;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+/**
+ * @author Efi MK
+ * 
+ */
+public class DefaultResultCacheTest {
+	/**
+	 * A cache whose clock is set by the test.
+	 */
+	private static final class ManualClockCache extends DefaultResultCache {
+		/**
+		 * The current time.
+		 */
+		long now;
+
+		/**
+		 * @param maxEntries
+		 *            Maximum number of results.
+		 * @param maxBytes
+		 *            Maximum total weight.
+		 * @param defaultTtl
+		 *            Default time to live.
+		 */
+		ManualClockCache(final int maxEntries, final long maxBytes,
+				final long defaultTtl) {
+			super(maxEntries, maxBytes, defaultTtl);
+		}
+
+		@Override
+		protected long currentTimeMillis() {
+			return now;
+		}
+	}
+
+	/**
+	 * Does each end point pattern get its own time to live?
+	 */
+	@Test
+	public void get_TtlPerPattern_ExpiredDropped() {
+		final ManualClockCache cache = new ManualClockCache(10, 1000, 100);
+		cache.setTtl("users/*", 1000);
+		cache.setTtl("users/*/media/recent", 0);
+
+		cache.put("user", "/users/1", "user", 1);
+		cache.put("media", "/media/1", "media", 1);
+		cache.put("recent", "/users/1/media/recent", "recent", 1);
+		cache.now = 500;
+
+		assertEquals("user", cache.get("user"));
+		assertNull(cache.get("media"));
+		assertNull(cache.get("recent"));
+		assertEquals(1, cache.size());
+	}
+
+	/**
+	 * Do results read more than once survive a scan of results read once?
+	 */
+	@Test
+	public void put_Scan_HotResultsKept() {
+		final DefaultResultCache cache = new DefaultResultCache(10, 1000,
+				60000);
+		for (int i = 0; i < 5; i++) {
+			cache.put("hot" + i, "/media/hot", "hot" + i, 1);
+			cache.get("hot" + i);
+		}
+
+		for (int i = 0; i < 100; i++) {
+			cache.put("scan" + i, "/media/scan", "scan" + i, 1);
+		}
+
+		for (int i = 0; i < 5; i++) {
+			assertEquals("hot" + i, cache.get("hot" + i));
+		}
+		assertEquals(10, cache.size());
+		assertEquals(95, cache.getEvictions());
+	}
+
+	/**
+	 * Is the byte bound kept, and are results larger than it never kept?
+	 */
+	@Test
+	public void put_ByteBound_LeastRecentlyUsedEvicted() {
+		final DefaultResultCache cache = new DefaultResultCache(10, 100,
+				60000);
+		cache.put("a", "/media/a", "a", 40);
+		cache.put("b", "/media/b", "b", 40);
+		cache.put("c", "/media/c", "c", 40);
+		cache.put("huge", "/media/huge", "huge", 101);
+
+		assertNull(cache.get("a"));
+		assertEquals("b", cache.get("b"));
+		assertEquals("c", cache.get("c"));
+		assertNull(cache.get("huge"));
+		assertEquals(80, cache.getWeight());
+	}
+}
@@ -4,15 +4,22 @@
 package com.blinxbox.restinstagram;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 import org.junit.Before;
 import org.junit.Test;
 
+import com.blinxbox.restinstagram.DefaultJsonMapper.JsonMappingErrorHandler;
+import com.blinxbox.restinstagram.exception.InstagramJsonMappingException;
 import com.blinxbox.restinstagram.types.MediaPost;
+import com.restfb.json.JsonObject;
 
 /**
  * @author Efi MK
@@ -64,4 +71,62 @@ public class InstagramCollectionTest {
 		assertEquals("http://nexturl.com", collection.getNextPageUrl());
 	}
 
+	/**
+	 * Are the elements of a large page mapped in parallel kept in order, with
+	 * the same error handling as on the calling thread?
+	 */
+	@Test
+	public void instagramCollection_ParallelMapping_OrderAndErrorsKept() {
+		final StringBuilder json = new StringBuilder(
+				"{\"pagination\":{},\"data\":[");
+		for (int i = 0; i < 100; i++) {
+			json.append(i == 0 ? "" : ",").append(
+					i % 30 == 10 ? "[1]" : "{\"id\":\"" + i + "\"}");
+		}
+		final JsonObject page = new JsonObject(json.append("]}").toString());
+		final InstagramClient client = mock(InstagramClient.class);
+		when(client.getJsonMapper()).thenReturn(
+				new DefaultJsonMapper(new JsonMappingErrorHandler() {
+					@Override
+					public boolean handleMappingError(
+							final String unmappableJson,
+							final Class<?> targetType, final Exception e) {
+						return true;
+					}
+				}));
+		final ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			final List<MediaPost> posts = new InstagramCollection<MediaPost>(
+					client, page, MediaPost.class, pool, 8).getData();
+			assertEquals(100, posts.size());
+			for (int i = 0; i < 100; i++) {
+				if (i % 30 == 10) {
+					assertNull(posts.get(i));
+				} else {
+					assertEquals(String.valueOf(i), posts.get(i).getId());
+				}
+			}
+
+			when(client.getJsonMapper()).thenReturn(new DefaultJsonMapper());
+			String expected = null;
+			try {
+				new InstagramCollection<MediaPost>(client, page,
+						MediaPost.class);
+			} catch (final InstagramJsonMappingException e) {
+				expected = e.getMessage();
+			}
+			assertNotNull(expected);
+			try {
+				new InstagramCollection<MediaPost>(client, page,
+						MediaPost.class, pool, 8);
+				fail();
+			} catch (final InstagramJsonMappingException e) {
+				assertEquals(expected, e.getMessage());
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
 }
+
@@ -0,0 +1,195 @@
+/**
+ * 
+ */
+package com.blinxbox.restinstagram;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * @author Efi MK
+ * 
+ */
+public class MappedResponseStoreTest {
+	/**
+	 * Directory of the stores.
+	 */
+	@Rule
+	public TemporaryFolder mFolder = new TemporaryFolder();
+
+	/**
+	 * A store whose clock is set by the test.
+	 */
+	private static final class ManualClockStore extends MappedResponseStore {
+		/**
+		 * The current time.
+		 */
+		long now;
+
+		/**
+		 * @param directory
+		 *            Directory of the files.
+		 * @throws IOException
+		 *             - Ignore.
+		 */
+		ManualClockStore(final File directory) throws IOException {
+			super(directory, 4096, 1000, 1024);
+		}
+
+		@Override
+		protected long currentTimeMillis() {
+			return now;
+		}
+	}
+
+	/**
+	 * Are bodies served by a reopened store, through its index?
+	 * 
+	 * @throws IOException
+	 *             - Ignore.
+	 */
+	@Test
+	public void get_Reopened_BodiesKept() throws IOException {
+		final File directory = mFolder.newFolder("store");
+		MappedResponseStore store = new MappedResponseStore(directory, 4096,
+				60000, 1024);
+		store.put("/media/1?", "/media/1", bytes("one"));
+		store.put("/media/2?", "/media/2", bytes("two"));
+		store.put("/media/1?", "/media/1", bytes("uno"));
+		store.close();
+
+		store = new MappedResponseStore(directory, 4096, 60000, 1024);
+		assertArrayEquals(bytes("uno"), store.get("/media/1?"));
+		assertArrayEquals(bytes("two"), store.get("/media/2?"));
+		assertEquals(2, store.size());
+		store.close();
+	}
+
+	/**
+	 * Are records written after the index recovered by a scan, and is a torn
+	 * record dropped?
+	 * 
+	 * @throws IOException
+	 *             - Ignore.
+	 */
+	@Test
+	public void open_CrashAfterWrites_ValidRecordsRecovered()
+			throws IOException {
+		final File directory = mFolder.newFolder("store");
+		final MappedResponseStore store = new MappedResponseStore(directory,
+				4096, 60000, 1024);
+		store.put("/media/1?", "/media/1", bytes("one"));
+		store.flush();
+		store.put("/media/2?", "/media/2", bytes("two"));
+		store.remove("/media/1?");
+		store.put("/media/3?", "/media/3", bytes("three"));
+		// Not closed, as if the process died; tear the last record.
+		corruptLastByteOf(new File(directory, "segment-00000001.dat"),
+				"three");
+
+		final MappedResponseStore reopened = new MappedResponseStore(
+				directory, 4096, 60000, 1024);
+		assertNull(reopened.get("/media/1?"));
+		assertArrayEquals(bytes("two"), reopened.get("/media/2?"));
+		assertNull(reopened.get("/media/3?"));
+		reopened.close();
+	}
+
+	/**
+	 * Are expired bodies dropped, and end points with no time to live never
+	 * kept?
+	 * 
+	 * @throws IOException
+	 *             - Ignore.
+	 */
+	@Test
+	public void get_Expired_Dropped() throws IOException {
+		final ManualClockStore store = new ManualClockStore(
+				mFolder.newFolder("store"));
+		store.setTtl("users/self", 0);
+		store.setTtl("users/*", 5000);
+		store.put("/media/1?", "/media/1", bytes("media"));
+		store.put("/users/1?", "/users/1", bytes("user"));
+		store.put("/users/self?", "/users/self", bytes("self"));
+		store.now = 2000;
+
+		assertNull(store.get("/media/1?"));
+		assertArrayEquals(bytes("user"), store.get("/users/1?"));
+		assertNull(store.get("/users/self?"));
+		store.close();
+	}
+
+	/**
+	 * Does rewriting the same keys stay within the size bound, by compacting
+	 * the garbage away?
+	 * 
+	 * @throws IOException
+	 *             - Ignore.
+	 */
+	@Test
+	public void put_ManyRewrites_Compacted() throws IOException {
+		final File directory = mFolder.newFolder("store");
+		MappedResponseStore store = new MappedResponseStore(directory, 4096,
+				60000, 1024);
+		for (int i = 0; i < 200; i++) {
+			store.put("/media/" + (i % 3) + "?", "/media/1",
+					bytes("body of round " + i));
+		}
+		assertTrue(store.getSegmentCount() <= 4);
+		store.compact();
+		assertEquals(1, store.getSegmentCount());
+		store.close();
+
+		store = new MappedResponseStore(directory, 4096, 60000, 1024);
+		assertArrayEquals(bytes("body of round 199"), store.get("/media/1?"));
+		assertArrayEquals(bytes("body of round 197"), store.get("/media/2?"));
+		assertEquals(3, store.size());
+		store.close();
+	}
+
+	/**
+	 * @param text
+	 *            A text.
+	 * @return Its UTF-8 bytes.
+	 * @throws IOException
+	 *             - Ignore.
+	 */
+	private static byte[] bytes(final String text) throws IOException {
+		return text.getBytes("UTF-8");
+	}
+
+	/**
+	 * Flips the last byte of a body in a segment file.
+	 * 
+	 * @param file
+	 *            The segment file.
+	 * @param body
+	 *            The body.
+	 * @throws IOException
+	 *             - Ignore.
+	 */
+	private static void corruptLastByteOf(final File file, final String body)
+			throws IOException {
+		final RandomAccessFile segment = new RandomAccessFile(file, "rw");
+		try {
+			final byte[] content = new byte[(int) segment.length()];
+			segment.readFully(content);
+			final String latin = new String(content, "ISO-8859-1");
+			final int last = latin.lastIndexOf(body) + body.length() - 1;
+			segment.seek(last);
+			segment.write(content[last] ^ 0xff);
+		} finally {
+			segment.close();
+		}
+	}
+}
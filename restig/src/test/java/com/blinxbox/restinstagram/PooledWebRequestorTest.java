@@ -0,0 +1,253 @@
+/**
+ * 
+ */
+package com.blinxbox.restinstagram;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.blinxbox.restinstagram.StreamingWebRequestor.StreamedResponse;
+import com.restfb.WebRequestor.Response;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * @author Efi MK
+ * 
+ */
+public class PooledWebRequestorTest {
+	/**
+	 * Local server, answers {@code /fixed} with a body of known length,
+	 * {@code /chunked} with a chunked one, {@code /gzip} with a gzip
+	 * compressed one if asked for, {@code /etag} with an {@code ETag} and a
+	 * {@code 304} once it is sent back, and echoes the body of
+	 * {@code /echo}.
+	 */
+	private HttpServer mServer;
+
+	/**
+	 * Client port of every request received, one port per connection.
+	 */
+	private final List<Integer> mPorts = new CopyOnWriteArrayList<Integer>();
+
+	/**
+	 * Base URL of the server.
+	 */
+	private String mBaseUrl;
+
+	/**
+	 * @throws IOException
+	 *             - Ignore.
+	 */
+	@Before
+	public void setUp() throws IOException {
+		mServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		mServer.createContext("/", new HttpHandler() {
+			@Override
+			public void handle(final HttpExchange exchange) throws IOException {
+				mPorts.add(exchange.getRemoteAddress().getPort());
+				final String path = exchange.getRequestURI().getPath();
+				final byte[] body = "/echo".equals(path) ? read(exchange
+						.getRequestBody()) : ("{\"path\":\"" + path + "\"}")
+						.getBytes("UTF-8");
+				if ("/etag".equals(path)) {
+					exchange.getResponseHeaders().set("ETag", "\"v1\"");
+					if ("\"v1\"".equals(exchange.getRequestHeaders().getFirst(
+							"If-None-Match"))) {
+						exchange.sendResponseHeaders(304, -1);
+						exchange.close();
+						return;
+					}
+				}
+				final String accepted = exchange.getRequestHeaders().getFirst(
+						"Accept-Encoding");
+				if ("/gzip".equals(path) && accepted != null
+						&& accepted.contains("gzip")) {
+					exchange.getResponseHeaders().set("Content-Encoding",
+							"gzip");
+					exchange.sendResponseHeaders(200, 0);
+					final OutputStream out = new GZIPOutputStream(exchange
+							.getResponseBody());
+					for (int i = 0; i < 100; i++) {
+						out.write(body);
+					}
+					out.close();
+					return;
+				}
+				exchange.sendResponseHeaders(200,
+						"/chunked".equals(path) ? 0 : body.length);
+				final OutputStream out = exchange.getResponseBody();
+				out.write(body);
+				out.close();
+			}
+		});
+		mServer.start();
+		mBaseUrl = "http://127.0.0.1:" + mServer.getAddress().getPort();
+	}
+
+	/**
+	 * Stops the server.
+	 */
+	@After
+	public void tearDown() {
+		mServer.stop(0);
+	}
+
+	/**
+	 * Are sequential requests sent over the same connection?
+	 * 
+	 * @throws IOException
+	 *             - Ignore.
+	 */
+	@Test
+	public void executeGet_SequentialRequests_ConnectionReused()
+			throws IOException {
+		final PooledWebRequestor requestor = new PooledWebRequestor();
+		final Response fixed = requestor.executeGet(mBaseUrl + "/fixed");
+		final Response chunked = requestor.executeGet(mBaseUrl
+				+ "/chunked?a=1");
+		final Response posted = requestor.executePost(mBaseUrl + "/echo",
+				"a=1&b=%C3%A9");
+		requestor.close();
+
+		assertEquals(Integer.valueOf(200), fixed.getStatusCode());
+		assertEquals("{\"path\":\"/fixed\"}", fixed.getBody());
+		assertEquals("{\"path\":\"/chunked\"}", chunked.getBody());
+		assertEquals("a=1&b=%C3%A9", posted.getBody());
+		assertEquals(3, mPorts.size());
+		assertEquals(mPorts.get(0), mPorts.get(1));
+		assertEquals(mPorts.get(0), mPorts.get(2));
+	}
+
+	/**
+	 * Is a gzip body decompressed, counted and its connection reused?
+	 * 
+	 * @throws IOException
+	 *             - Ignore.
+	 */
+	@Test
+	public void executeGet_GzipResponse_DecompressedAndCounted()
+			throws IOException {
+		final PooledWebRequestor requestor = new PooledWebRequestor();
+		final TransferStats stats = new TransferStats();
+		requestor.setTransferListener(stats);
+		final Response gzip = requestor.executeGet(mBaseUrl + "/gzip");
+		final Response fixed = requestor.executeGet(mBaseUrl + "/fixed");
+		requestor.close();
+
+		final String expected = "{\"path\":\"/gzip\"}";
+		assertEquals(100 * expected.length(), gzip.getBody().length());
+		assertTrue(gzip.getBody().startsWith(expected + expected));
+		assertEquals("{\"path\":\"/fixed\"}", fixed.getBody());
+		assertEquals(2, stats.getResponses());
+		assertEquals(gzip.getBody().length() + fixed.getBody().length(),
+				stats.getDecodedBytes());
+		assertTrue(stats.getWireBytes() < stats.getDecodedBytes() / 4);
+		assertEquals(mPorts.get(0), mPorts.get(1));
+	}
+
+	/**
+	 * Are validators read from a response and sent back as a conditional
+	 * request, and is the empty {@code 304} body read cleanly?
+	 * 
+	 * @throws IOException
+	 *             - Ignore.
+	 */
+	@Test
+	public void executeGetStream_ValidatorsSentBack_NotModified()
+			throws IOException {
+		final PooledWebRequestor requestor = new PooledWebRequestor();
+		final StreamedResponse first = requestor.executeGetStream(mBaseUrl
+				+ "/etag");
+		first.close();
+		final StreamedResponse second = requestor.executeGetStream(mBaseUrl
+				+ "/etag", first.getValidators());
+		final int read = second.getBody().read();
+		second.close();
+		final Response fixed = requestor.executeGet(mBaseUrl + "/fixed");
+		requestor.close();
+
+		assertEquals(Validators.of("\"v1\"", null), first.getValidators());
+		assertEquals(Integer.valueOf(304), second.getStatusCode());
+		assertEquals(-1, read);
+		assertEquals("{\"path\":\"/fixed\"}", fixed.getBody());
+	}
+
+	/**
+	 * Are idle connections closed once they time out?
+	 * 
+	 * @throws Exception
+	 *             - Ignore.
+	 */
+	@Test
+	public void executeGet_IdleTimeoutPassed_NewConnection() throws Exception {
+		final PooledWebRequestor requestor = new PooledWebRequestor(4, 1000,
+				1000, 1);
+		requestor.executeGet(mBaseUrl + "/fixed");
+		Thread.sleep(20);
+		requestor.executeGet(mBaseUrl + "/fixed");
+		requestor.close();
+
+		assertFalse(mPorts.get(0).equals(mPorts.get(1)));
+	}
+
+	/**
+	 * Does a request wait for a free connection once the host bound is
+	 * reached, and is a connection whose response was closed unread reused?
+	 * 
+	 * @throws IOException
+	 *             - Ignore.
+	 */
+	@Test
+	public void executeGetStream_PoolExhausted_Timeout() throws IOException {
+		final PooledWebRequestor requestor = new PooledWebRequestor(1, 200,
+				1000, 60000);
+		final StreamedResponse held = requestor.executeGetStream(mBaseUrl
+				+ "/chunked");
+		try {
+			requestor.executeGetStream(mBaseUrl + "/fixed");
+			fail();
+		} catch (final IOException e) {
+			// No connection left.
+		}
+		held.close();
+		requestor.executeGet(mBaseUrl + "/fixed");
+		requestor.close();
+
+		assertEquals(2, mPorts.size());
+		assertEquals(mPorts.get(0), mPorts.get(1));
+	}
+
+	/**
+	 * @param in
+	 *            A stream.
+	 * @return Its content.
+	 * @throws IOException
+	 *             - Ignore.
+	 */
+	private static byte[] read(final InputStream in) throws IOException {
+		final ByteArrayOutputStream content = new ByteArrayOutputStream();
+		final byte[] buffer = new byte[256];
+		int read;
+		while ((read = in.read(buffer)) != -1) {
+			content.write(buffer, 0, read);
+		}
+		return content.toByteArray();
+	}
+}
@@ -0,0 +1,57 @@
+/**
+ * 
+ */
+package com.blinxbox.restinstagram;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * @author Efi MK
+ * 
+ */
+public class ProjectionTest {
+
+	/**
+	 * Are paths split into a tree, with whole members absorbing narrower
+	 * paths in any order?
+	 */
+	@Test
+	public void of_OverlappingPaths_Merged() {
+		final Projection projection = Projection.of("images.thumbnail.url",
+				"id", "images.thumbnail", "likes.count", " user.id ",
+				"user.username", "likes.count.x");
+
+		assertEquals(Arrays.asList("id", "images.thumbnail", "likes.count",
+				"user.id", "user.username"), projection.getPaths());
+		assertTrue(projection.includes("images"));
+		assertFalse(projection.includes("caption"));
+		assertNull(projection.child("id"));
+		assertNull(projection.child("images").child("thumbnail"));
+		assertFalse(projection.child("images").includes("low_resolution"));
+		assertEquals(Projection.of("user.username", "user.id"),
+				Projection.of("user.id", "user.username"));
+	}
+
+	/**
+	 * Are malformed paths refused?
+	 */
+	@Test
+	public void of_EmptySegment_ExceptionThrown() {
+		for (final String path : Arrays.asList("", "likes..count", "likes.",
+				".id")) {
+			try {
+				Projection.of(path);
+				org.junit.Assert.fail("Accepted '" + path + "'");
+			} catch (final IllegalArgumentException e) {
+				// Expected.
+			}
+		}
+	}
+}
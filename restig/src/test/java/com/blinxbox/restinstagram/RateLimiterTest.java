@@ -0,0 +1,125 @@
+/**
+ * 
+ */
+package com.blinxbox.restinstagram;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * @author Efi MK
+ * 
+ */
+public class RateLimiterTest {
+	/**
+	 * A limiter whose clock is set by the test.
+	 */
+	private static final class ManualClockLimiter extends RateLimiter {
+		/**
+		 * The current time, in nanoseconds.
+		 */
+		long now;
+
+		/**
+		 * @param limit
+		 *            Requests allowed per second.
+		 * @param reserve
+		 *            Requests held back.
+		 */
+		ManualClockLimiter(final int limit, final int reserve) {
+			super(limit, reserve, 1, TimeUnit.SECONDS);
+		}
+
+		@Override
+		protected long nanoTime() {
+			return now;
+		}
+	}
+
+	/**
+	 * Is a drained bucket refilled over the window, per key?
+	 */
+	@Test
+	public void tryAcquire_Drained_RefilledOverWindow() {
+		final ManualClockLimiter limiter = new ManualClockLimiter(4, 1);
+
+		assertTrue(limiter.tryAcquire("token"));
+		assertTrue(limiter.tryAcquire("token"));
+		assertTrue(limiter.tryAcquire("token"));
+		assertFalse(limiter.tryAcquire("token"));
+		assertTrue(limiter.tryAcquire("other"));
+
+		limiter.now = TimeUnit.MILLISECONDS.toNanos(250);
+		assertTrue(limiter.tryAcquire("token"));
+		assertFalse(limiter.tryAcquire("token"));
+
+		// Never more than the limit less the reserve.
+		limiter.now = TimeUnit.SECONDS.toNanos(10);
+		assertEquals(3, limiter.available("token"));
+	}
+
+	/**
+	 * Are reservations of a drained bucket due one refill apart, without
+	 * waiting?
+	 */
+	@Test
+	public void reserve_Drained_DelaysQueued() {
+		final ManualClockLimiter limiter = new ManualClockLimiter(4, 0);
+
+		for (int i = 0; i < 4; i++) {
+			assertEquals(0, limiter.reserve("token"));
+		}
+		assertEquals(TimeUnit.MILLISECONDS.toNanos(250),
+				limiter.reserve("token"));
+		assertEquals(TimeUnit.MILLISECONDS.toNanos(500),
+				limiter.reserve("token"));
+		assertEquals(-2, limiter.available("token"));
+	}
+
+	/**
+	 * Do the rate limit headers lower the tokens and replace the limit?
+	 */
+	@Test
+	public void update_Headers_TokensLoweredLimitReplaced() {
+		final ManualClockLimiter limiter = new ManualClockLimiter(100, 0);
+
+		limiter.update("token", RateLimit.of("10", "2"));
+		assertEquals(2, limiter.available("token"));
+
+		// A stale response does not raise the tokens.
+		limiter.update("token", RateLimit.of("10", "8"));
+		assertEquals(2, limiter.available("token"));
+
+		limiter.now = TimeUnit.SECONDS.toNanos(10);
+		assertEquals(10, limiter.available("token"));
+		limiter.update("token", null);
+		assertEquals(10, limiter.available("token"));
+	}
+
+	/**
+	 * Does a waiting caller reserve the next token, and is a token due too
+	 * late refused without being taken?
+	 * 
+	 * @throws Exception
+	 *             - Ignore.
+	 */
+	@Test
+	public void tryAcquire_Timeout_WaitsOrRefuses() throws Exception {
+		final RateLimiter limiter = new RateLimiter(20, 0, 1, TimeUnit.SECONDS);
+		for (int i = 0; i < 20; i++) {
+			assertTrue(limiter.tryAcquire("token"));
+		}
+
+		assertFalse(limiter.tryAcquire("token", 1, TimeUnit.MILLISECONDS));
+		final long start = System.nanoTime();
+		assertTrue(limiter.tryAcquire("token", 1, TimeUnit.SECONDS));
+		assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS
+				.toNanos(25));
+		assertFalse(limiter.tryAcquire("token"));
+	}
+}
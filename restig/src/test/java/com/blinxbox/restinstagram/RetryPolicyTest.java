@@ -0,0 +1,169 @@
+/**
+ * 
+ */
+package com.blinxbox.restinstagram;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.blinxbox.restinstagram.exception.InstagramApiException;
+import com.blinxbox.restinstagram.exception.InstagramException;
+import com.blinxbox.restinstagram.exception.InstagramNetworkException;
+
+/**
+ * @author Efi MK
+ * 
+ */
+public class RetryPolicyTest {
+	/**
+	 * A policy that records its waits instead of sleeping.
+	 */
+	private static final class RecordingPolicy extends RetryPolicy {
+		/**
+		 * The waits, in milliseconds.
+		 */
+		final List<Long> waits = new ArrayList<Long>();
+
+		/**
+		 * @param maxAttempts
+		 *            Most attempts of a request.
+		 * @param budgetRatio
+		 *            Part of a retry each request earns.
+		 * @param budgetReserve
+		 *            Most retries the budget holds.
+		 */
+		RecordingPolicy(final int maxAttempts, final double budgetRatio,
+				final int budgetReserve) {
+			super(maxAttempts, 10, 100, TimeUnit.MILLISECONDS, budgetRatio,
+					budgetReserve);
+		}
+
+		@Override
+		protected void sleep(final long millis) {
+			waits.add(millis);
+		}
+	}
+
+	/**
+	 * An attempt that fails a number of times, then succeeds.
+	 */
+	private static final class FailingAttempt implements
+			RetryPolicy.Attempt<String> {
+		/**
+		 * The failure.
+		 */
+		private final InstagramException mFailure;
+		/**
+		 * Failures left.
+		 */
+		private int mFailures;
+		/**
+		 * Attempts made.
+		 */
+		int attempts;
+
+		/**
+		 * @param failure
+		 *            The failure.
+		 * @param failures
+		 *            Number of attempts that fail.
+		 */
+		FailingAttempt(final InstagramException failure, final int failures) {
+			mFailure = failure;
+			mFailures = failures;
+		}
+
+		@Override
+		public String run() {
+			attempts++;
+			if (mFailures-- > 0) {
+				throw mFailure;
+			}
+			return "done";
+		}
+	}
+
+	/**
+	 * Are server errors retried with jittered, growing, capped waits?
+	 */
+	@Test
+	public void execute_ServerErrors_RetriedWithJitter() {
+		final RecordingPolicy policy = new RecordingPolicy(6, 0.1, 10);
+		final FailingAttempt attempt = new FailingAttempt(
+				new InstagramNetworkException("Unavailable", 503), 5);
+
+		assertEquals("done", policy.execute(attempt));
+		assertEquals(6, attempt.attempts);
+		assertEquals(5, policy.getRetries());
+		long previous = 10;
+		for (final long wait : policy.waits) {
+			assertTrue(wait >= 10);
+			assertTrue(wait <= Math.min(100, previous * 3));
+			previous = wait;
+		}
+	}
+
+	/**
+	 * Are client, OAuth and exhausted attempts thrown at once?
+	 */
+	@Test
+	public void execute_NotRetryable_Thrown() {
+		final RecordingPolicy policy = new RecordingPolicy(3, 0.1, 10);
+		final InstagramException[] failures = {
+				new InstagramNetworkException("Bad request", 400),
+				new InstagramApiException("Token", 500,
+						"OAuthAccessTokenException"),
+				new InstagramException("Mapping") };
+		for (final InstagramException failure : failures) {
+			final FailingAttempt attempt = new FailingAttempt(failure, 1);
+			try {
+				policy.execute(attempt);
+				fail();
+			} catch (final InstagramException e) {
+				assertSame(failure, e);
+			}
+			assertEquals(1, attempt.attempts);
+		}
+
+		final FailingAttempt lost = new FailingAttempt(
+				new InstagramNetworkException("Lost", (Throwable) null), 3);
+		try {
+			policy.execute(lost);
+			fail();
+		} catch (final InstagramNetworkException e) {
+			assertEquals(3, lost.attempts);
+		}
+	}
+
+	/**
+	 * Are retries refused once the budget is spent, and earned back by
+	 * requests?
+	 */
+	@Test
+	public void execute_BudgetSpent_RetriesRefused() {
+		final RecordingPolicy policy = new RecordingPolicy(5, 0.5, 1);
+		final InstagramException failure = new InstagramApiException(
+				"Server", 500, "APIError");
+
+		assertEquals("done", policy.execute(new FailingAttempt(failure, 1)));
+		final FailingAttempt refused = new FailingAttempt(failure, 1);
+		try {
+			policy.execute(refused);
+			fail();
+		} catch (final InstagramApiException e) {
+			assertEquals(1, refused.attempts);
+		}
+		assertEquals(1, policy.getRefusedRetries());
+		assertEquals(0, policy.getBudget());
+		assertEquals("done", policy.execute(new FailingAttempt(failure, 1)));
+		assertEquals(2, policy.getRetries());
+	}
+}
@@ -0,0 +1,100 @@
+/**
+ * 
+ */
+package com.blinxbox.restinstagram;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.restfb.BinaryAttachment;
+
+/**
+ * A {@link StreamingWebRequestor} that answers every request with a canned
+ * response and remembers the requested URLs.
+ * 
+ * @author Efi MK
+ * 
+ */
+public class StubWebRequestor implements StreamingWebRequestor {
+	/**
+	 * Status code of every response.
+	 */
+	private final int mStatusCode;
+
+	/**
+	 * Body of every response.
+	 */
+	private final String mBody;
+
+	/**
+	 * Requested URLs, in order.
+	 */
+	final List<String> urls = new ArrayList<String>();
+
+	/**
+	 * Number of response bodies closed.
+	 */
+	int closed;
+
+	/**
+	 * @param statusCode
+	 *            Status code of every response.
+	 * @param body
+	 *            Body of every response.
+	 */
+	public StubWebRequestor(final int statusCode, final String body) {
+		mStatusCode = statusCode;
+		mBody = body;
+	}
+
+	@Override
+	public Response executeGet(final String url) throws IOException {
+		urls.add(url);
+		return new Response(mStatusCode, mBody);
+	}
+
+	@Override
+	public Response executePost(final String url, final String parameters)
+			throws IOException {
+		urls.add(url);
+		return new Response(mStatusCode, mBody);
+	}
+
+	@Override
+	public Response executePost(final String url, final String parameters,
+			final BinaryAttachment... binaryAttachments) throws IOException {
+		return executePost(url, parameters);
+	}
+
+	@Override
+	public StreamedResponse executeGetStream(final String url)
+			throws IOException {
+		urls.add(url);
+		return stream();
+	}
+
+	@Override
+	public StreamedResponse executePostStream(final String url,
+			final String parameters) throws IOException {
+		urls.add(url);
+		return stream();
+	}
+
+	/**
+	 * @return A streamed response over the canned body.
+	 * @throws IOException
+	 *             - Ignore.
+	 */
+	private StreamedResponse stream() throws IOException {
+		return new StreamedResponse(mStatusCode, new ByteArrayInputStream(
+				mBody.getBytes("UTF-8")) {
+			@Override
+			public void close() throws IOException {
+				closed++;
+				super.close();
+			}
+		});
+	}
+}
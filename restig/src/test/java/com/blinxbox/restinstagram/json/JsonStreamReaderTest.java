@@ -0,0 +1,195 @@
+/**
+ * 
+ */
+package com.blinxbox.restinstagram.json;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.junit.Test;
+
+import com.restfb.json.JsonArray;
+import com.restfb.json.JsonException;
+import com.restfb.json.JsonObject;
+
+/**
+ * @author Efi MK
+ * 
+ */
+public class JsonStreamReaderTest {
+
+	/**
+	 * A small document that exercises every token.
+	 */
+	private static final String DOCUMENT = "{\"id\":\"1_2\",\"created_time\":\"1333643413\",\"likes\":{\"count\":12,\"data\":[]},"
+			+ "\"tags\":[\"snow\",\"caf\\u00e9\"],\"ratio\":-1.5e2,\"ok\":true,\"location\":null,\"text\":\"a \\\"quoted\\\"\\nline\"}";
+
+	/**
+	 * Can we walk every token of a document?
+	 * 
+	 * @throws IOException
+	 *             - Ignore.
+	 */
+	@Test
+	public void peek_Document_AllTokensReported() throws IOException {
+		final JsonReader reader = new JsonStreamReader(DOCUMENT);
+		reader.beginObject();
+		assertEquals("id", reader.nextName());
+		assertEquals("1_2", reader.nextString());
+		assertEquals("created_time", reader.nextName());
+		assertEquals(JsonToken.STRING, reader.peek());
+		assertEquals(1333643413L, reader.nextLong());
+		assertEquals("likes", reader.nextName());
+		reader.beginObject();
+		assertEquals("count", reader.nextName());
+		assertEquals(12, reader.nextInt());
+		assertEquals("data", reader.nextName());
+		reader.beginArray();
+		assertFalse(reader.hasNext());
+		reader.endArray();
+		reader.endObject();
+		assertEquals("tags", reader.nextName());
+		reader.beginArray();
+		assertEquals("snow", reader.nextString());
+		assertEquals("caf\u00e9", reader.nextString());
+		reader.endArray();
+		assertEquals("ratio", reader.nextName());
+		assertEquals(-150.0, reader.nextDouble(), 0);
+		assertEquals("ok", reader.nextName());
+		assertTrue(reader.nextBoolean());
+		assertEquals("location", reader.nextName());
+		assertEquals(JsonToken.NULL, reader.peek());
+		reader.nextNull();
+		assertEquals("text", reader.nextName());
+		assertEquals("a \"quoted\"\nline", reader.nextString());
+		reader.endObject();
+		assertEquals(JsonToken.END_DOCUMENT, reader.peek());
+	}
+
+	/**
+	 * Are tokens that straddle buffer boundaries read correctly?
+	 * 
+	 * @throws IOException
+	 *             - Ignore.
+	 */
+	@Test
+	public void readJsonValue_TinyBuffer_SameTreeAsRestfb() throws IOException {
+		final JsonReader reader = new JsonStreamReader(new StringReader(
+				DOCUMENT), new char[3]);
+		final JsonObject jsonObject = (JsonObject) reader.readJsonValue();
+		final JsonObject expected = new JsonObject(DOCUMENT);
+
+		assertEquals(expected.getString("text"), jsonObject.getString("text"));
+		assertEquals(expected.getLong("created_time"),
+				jsonObject.getLong("created_time"));
+		assertEquals(expected.getDouble("ratio"),
+				jsonObject.getDouble("ratio"), 0);
+		assertEquals("caf\u00e9", jsonObject.getJsonArray("tags").getString(1));
+		assertTrue(jsonObject.isNull("location"));
+	}
+
+	/**
+	 * Are values captured as text whole, even across buffer refills, and can
+	 * they be read again?
+	 * 
+	 * @throws IOException
+	 *             - Ignore.
+	 */
+	@Test
+	public void nextRawValue_TinyBuffer_ValuesReadAgain() throws IOException {
+		final JsonReader reader = new JsonStreamReader(new StringReader(
+				"[{\"a\":[1,\"x\\\"\"]},-1.5e3,\"y\",null]"), new char[2]);
+		reader.beginArray();
+		final Object object = reader.nextRawValue();
+		final Object number = reader.nextRawValue();
+		final Object string = reader.nextRawValue();
+		final Object literal = reader.nextRawValue();
+		reader.endArray();
+
+		assertEquals("{\"a\":[1,\"x\\\"\"]}", new String((char[]) object));
+		final JsonReader again = JsonReader.forRawValue(object);
+		again.beginObject();
+		assertEquals("a", again.nextName());
+		again.beginArray();
+		assertEquals(1, again.nextInt());
+		assertEquals("x\"", again.nextString());
+		assertEquals(-1500, JsonReader.forRawValue(number).nextDouble(), 0);
+		assertEquals("y", JsonReader.forRawValue(string).nextString());
+		assertEquals(JsonToken.NULL, JsonReader.forRawValue(literal).peek());
+	}
+
+	/**
+	 * Can a whole nested value be skipped?
+	 * 
+	 * @throws IOException
+	 *             - Ignore.
+	 */
+	@Test
+	public void skipValue_NestedValues_NextMemberAvailable() throws IOException {
+		final JsonReader reader = new JsonStreamReader(
+				new ByteArrayInputStream(DOCUMENT.getBytes("UTF-8")));
+		reader.beginObject();
+		while (!"ok".equals(reader.nextName())) {
+			reader.skipValue();
+		}
+		assertTrue(reader.nextBoolean());
+	}
+
+	/**
+	 * Does the reader accept a trailing comma like the restfb parser does?
+	 * 
+	 * @throws IOException
+	 *             - Ignore.
+	 */
+	@Test
+	public void readJsonValue_TrailingComma_Accepted() throws IOException {
+		final JsonArray jsonArray = (JsonArray) new JsonStreamReader(
+				"[{\"a\":1,},2,]").readJsonValue();
+		assertEquals(2, jsonArray.length());
+		assertEquals(1, jsonArray.getJsonObject(0).getInt("a"));
+	}
+
+	/**
+	 * Can we resynchronize after giving up half way into a value?
+	 * 
+	 * @throws IOException
+	 *             - Ignore.
+	 */
+	@Test
+	public void skipToDepth_InsideNestedValue_NextMemberAvailable()
+			throws IOException {
+		final JsonReader reader = new JsonStreamReader(DOCUMENT);
+		reader.beginObject();
+		reader.nextName();
+		reader.skipValue();
+		reader.nextName();
+		reader.skipValue();
+		reader.nextName();
+		final int depth = reader.getDepth();
+		reader.beginObject();
+		reader.nextName();
+		reader.skipToDepth(depth);
+		assertEquals("tags", reader.nextName());
+	}
+
+	/**
+	 * Is malformed input reported?
+	 * 
+	 * @throws IOException
+	 *             - Ignore.
+	 */
+	@Test(expected = JsonException.class)
+	public void beginObject_UnterminatedObject_ExceptionThrown()
+			throws IOException {
+		final JsonReader reader = new JsonStreamReader("{\"a\":1");
+		reader.beginObject();
+		reader.nextName();
+		reader.nextInt();
+		reader.hasNext();
+	}
+}
@@ -0,0 +1,66 @@
+/**
+ * 
+ */
+package com.blinxbox.restinstagram.json;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+import org.junit.Test;
+
+import com.restfb.json.JsonException;
+import com.restfb.json.JsonObject;
+
+/**
+ * @author Efi MK
+ * 
+ */
+public class JsonWriterTest {
+
+	/**
+	 * Are separators placed between members and elements only?
+	 * 
+	 * @throws IOException
+	 *             - Ignore.
+	 */
+	@Test
+	public void endObject_NestedValues_CompactJsonWritten() throws IOException {
+		final StringBuilder json = new StringBuilder();
+		new JsonWriter(json).beginObject().name("a").value(1L).name("b")
+				.beginArray().value(true).nullValue().beginObject()
+				.endObject().endArray().name("c").value(new BigDecimal("1.50"))
+				.name("d").value(0.5).endObject();
+
+		assertEquals("{\"a\":1,\"b\":[true,null,{}],\"c\":1.50,\"d\":0.5}",
+				json.toString());
+	}
+
+	/**
+	 * Are strings escaped so restfb reads them back unchanged?
+	 * 
+	 * @throws IOException
+	 *             - Ignore.
+	 */
+	@Test
+	public void value_SpecialCharacters_Escaped() throws IOException {
+		final String text = "a \"quoted\"\\\n\t\u0001 caf\u00e9 \u2028\u2029";
+		final StringBuilder json = new StringBuilder();
+		new JsonWriter(json).beginObject().name("text").value(text)
+				.endObject();
+
+		assertEquals(text, new JsonObject(json.toString()).getString("text"));
+	}
+
+	/**
+	 * Are non-finite numbers refused?
+	 * 
+	 * @throws IOException
+	 *             - Ignore.
+	 */
+	@Test(expected = JsonException.class)
+	public void value_NaN_ExceptionThrown() throws IOException {
+		new JsonWriter(new StringBuilder()).value(Double.NaN);
+	}
+}
@@ -0,0 +1,77 @@
+/**
+ * 
+ */
+package com.blinxbox.restinstagram.json;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+/**
+ * @author Efi MK
+ * 
+ */
+public class StringPoolTest {
+
+	/**
+	 * Is the first instance of a value handed out for later equal values?
+	 */
+	@Test
+	public void intern_EqualValues_FirstInstanceReturned() {
+		final StringPool pool = new StringPool(16);
+		final String first = new String("snow");
+		final char[] chars = "a snow day".toCharArray();
+
+		assertSame(first, pool.intern(first));
+		assertSame(first, pool.intern(new String("snow")));
+		assertSame(first, pool.intern(chars, 2, 4));
+		assertSame(first, pool.intern(new StringBuilder("snow")));
+		assertEquals(3, pool.getHits());
+		assertEquals(1, pool.getMisses());
+		assertEquals(12, pool.getSavedChars());
+	}
+
+	/**
+	 * Are values longer than the limit passed through uncounted?
+	 */
+	@Test
+	public void intern_LongValue_NotPooled() {
+		final StringPool pool = new StringPool(16, 3);
+		final String value = new String("snow");
+
+		assertSame(value, pool.intern(value));
+		assertNotSame(value, pool.intern(new String("snow")));
+		assertEquals(0, pool.getHits() + pool.getMisses());
+	}
+
+	/**
+	 * Is the capacity rounded up to a power of two?
+	 */
+	@Test
+	public void getCapacity_OddCapacity_RoundedUp() {
+		assertEquals(64, new StringPool(33).getCapacity());
+	}
+
+	/**
+	 * Does the stream reader intern string values straight from its buffer?
+	 * 
+	 * @throws IOException
+	 *             - Ignore.
+	 */
+	@Test
+	public void nextString_Pooled_SameInstances() throws IOException {
+		final StringPool pool = new StringPool(16);
+		final JsonReader reader = new JsonStreamReader(
+				"[\"snow\",\"snow\",1]");
+		reader.beginArray();
+		final String first = reader.nextString(pool);
+
+		assertSame(first, reader.nextString(pool));
+		assertSame(pool.intern("1"), reader.nextString(pool));
+		assertEquals(2, pool.getHits());
+	}
+}